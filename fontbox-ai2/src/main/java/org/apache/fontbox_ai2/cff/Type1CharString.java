@@ -85,7 +85,7 @@ public class Type1CharString
      * Returns the bounds of the renderer path.
      * @return the bounds as Rectangle2D
      */
-    public Rectangle2D getBounds()
+    public synchronized Rectangle2D getBounds()
     {
         if (path == null)
         {
@@ -98,7 +98,7 @@ public class Type1CharString
      * Returns the advance width of the glyph.
      * @return the width
      */
-    public int getWidth()
+    public synchronized int getWidth()
     {
         if (path == null)
         {
@@ -111,7 +111,7 @@ public class Type1CharString
      * Returns the path of the character.
      * @return the path
      */
-    public GeneralPath getPath()
+    public synchronized GeneralPath getPath()
     {
         if (path == null)
         {
@@ -19,10 +19,13 @@ package org.apache.fontbox_ai2.cmap;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import org.apache.fontbox_ai2.util.IntIntMap;
 
 /**
  * This class represents a CMap file.
@@ -43,13 +46,18 @@ public class CMap
     // code lengths
     private final List<CodespaceRange> codespaceRanges = new ArrayList<CodespaceRange>();
 
-    // Unicode mappings
-    private final Map<Integer,String> charToUnicode = new HashMap<Integer,String>();
+    // Unicode mappings, 1- and 2-byte codes are kept in pages of 256 entries
+    private final String[][] charToUnicodePages = new String[256][];
+    private final Map<Integer,String> charToUnicodeWide = new HashMap<Integer,String>();
+    private int charToUnicodeCount = 0;
 
     // CID mappings
-    private final Map<Integer,Integer> codeToCid = new HashMap<Integer,Integer>();
+    private final IntIntMap codeToCid = new IntIntMap();
     private final List<CIDRange> codeToCidRanges = new LinkedList<CIDRange>();
 
+    // CID ranges in a form suitable for searching, built on first use
+    private volatile RangeIndex rangeIndex;
+
     private static final String SPACE = " ";
     private int spaceMapping = -1;
 
@@ -77,7 +85,7 @@ public class CMap
      */
     public boolean hasUnicodeMappings()
     {
-        return !charToUnicode.isEmpty();
+        return charToUnicodeCount > 0;
     }
 
     /**
@@ -88,7 +96,12 @@ public class CMap
      */
     public String toUnicode(int code)
     {
-        return charToUnicode.get(code);
+        if (code >= 0 && code <= 0xFFFF)
+        {
+            String[] page = charToUnicodePages[code >> 8];
+            return page == null ? null : page[code & 0xFF];
+        }
+        return charToUnicodeWide.get(code);
     }
 
     /**
@@ -104,16 +117,17 @@ public class CMap
         // save the position in the string
         in.mark(4);
 
-        // mapping algorithm
-        List<Byte> bytes = new ArrayList<Byte>(4);
+        // mapping algorithm, the bytes read so far are kept in code
+        int code = 0;
+        int rangeCount = codespaceRanges.size();
         for (int i = 0; i < 4; i++)
         {
-            bytes.add((byte)in.read());
-            for (CodespaceRange range : codespaceRanges)
+            code = code << 8 | (in.read() & 0xff);
+            for (int r = 0; r < rangeCount; r++)
             {
-                if (range.isFullMatch(bytes))
+                if (codespaceRanges.get(r).isFullMatch(code, i + 1))
                 {
-                    return toInt(bytes);
+                    return code;
                 }
             }
         }
@@ -122,15 +136,17 @@ public class CMap
         in.reset();
 
         // modified mapping algorithm
-        bytes = new ArrayList<Byte>(4);
+        code = 0;
         for (int i = 0; i < 4; i++)
         {
-            bytes.add((byte)in.read());
+            int b = in.read() & 0xff;
+            code = code << 8 | b;
             CodespaceRange match = null;
             CodespaceRange shortest = null;
-            for (CodespaceRange range : codespaceRanges)
+            for (int r = 0; r < rangeCount; r++)
             {
-                if (range.isPartialMatch(bytes.get(i), i))
+                CodespaceRange range = codespaceRanges.get(r);
+                if (range.isPartialMatch((byte)b, i))
                 {
                     if (match == null)
                     {
@@ -157,29 +173,15 @@ public class CMap
             }
 
             // we're done when we have enough bytes for the matched range
-            if (match != null && match.getStart().length == bytes.size())
+            if (match != null && match.getStart().length == i + 1)
             {
-                return toInt(bytes);
+                return code;
             }
         }
 
         throw new IOException("CMap is invalid");
     }
 
-    /**
-     * Returns an int given a List<Byte>
-     */
-    private int toInt(List<Byte> data)
-    {
-        int code = 0;
-        for (byte b : data)
-        {
-            code <<= 8;
-            code |= (b + 256) % 256;
-        }
-        return code;
-    }
-
     /**
      * Returns the CID for the given character code.
      *
@@ -188,20 +190,22 @@ public class CMap
      */
     public int toCID(int code)
     {
-        Integer cid = codeToCid.get(code);
-        if (cid != null)
+        int cid = codeToCid.get(code, -1);
+        if (cid != -1)
         {
             return cid;
         }
-        for (CIDRange range : codeToCidRanges)
+        if (codeToCidRanges.isEmpty())
         {
-            int ch = range.map((char)code);
-            if (ch != -1)
-            {
-                return ch;
-            }
+            return 0;
+        }
+        RangeIndex index = rangeIndex;
+        if (index == null)
+        {
+            index = new RangeIndex(codeToCidRanges);
+            rangeIndex = index;
         }
-        return 0;
+        return index.map((char)code);
     }
     
     /**
@@ -231,7 +235,7 @@ public class CMap
     void addCharMapping(byte[] codes, String unicode)
     {
         int code = getCodeFromArray(codes, 0, codes.length);
-        charToUnicode.put(code, unicode);
+        putCharToUnicode(code, unicode);
 
         // fixme: ugly little hack
         if (SPACE.equals(unicode))
@@ -240,6 +244,31 @@ public class CMap
         }
     }
 
+    // stores a Unicode mapping, in the pages for 1- and 2-byte codes
+    private void putCharToUnicode(int code, String unicode)
+    {
+        String previous;
+        if (code >= 0 && code <= 0xFFFF)
+        {
+            String[] page = charToUnicodePages[code >> 8];
+            if (page == null)
+            {
+                page = new String[256];
+                charToUnicodePages[code >> 8] = page;
+            }
+            previous = page[code & 0xFF];
+            page[code & 0xFF] = unicode;
+        }
+        else
+        {
+            previous = charToUnicodeWide.put(code, unicode);
+        }
+        if (previous == null)
+        {
+            charToUnicodeCount++;
+        }
+    }
+
     /**
      * This will add a CID mapping.
      *
@@ -262,6 +291,7 @@ public class CMap
     void addCIDRange(char from, char to, int cid)
     {
         codeToCidRanges.add(0, new CIDRange(from, to, cid));
+        rangeIndex = null;
     }
 
     /**
@@ -283,9 +313,27 @@ public class CMap
     void useCmap( CMap cmap )
     {
         this.codespaceRanges.addAll(cmap.codespaceRanges);
-        this.charToUnicode.putAll(cmap.charToUnicode);
+        for (int i = 0; i < cmap.charToUnicodePages.length; i++)
+        {
+            String[] page = cmap.charToUnicodePages[i];
+            if (page != null)
+            {
+                for (int j = 0; j < page.length; j++)
+                {
+                    if (page[j] != null)
+                    {
+                        putCharToUnicode(i << 8 | j, page[j]);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Integer,String> entry : cmap.charToUnicodeWide.entrySet())
+        {
+            putCharToUnicode(entry.getKey(), entry.getValue());
+        }
         this.codeToCid.putAll(cmap.codeToCid);
         this.codeToCidRanges.addAll(cmap.codeToCidRanges);
+        this.rangeIndex = null;
     }
     
     /**
@@ -445,4 +493,96 @@ public class CMap
     {
         return cmapName;
     }
+
+    /**
+     * The CID ranges as arrays of ints. If the ranges do not overlap they are sorted and searched
+     * with a binary search, otherwise they are searched in order, the most recently added first.
+     */
+    private static final class RangeIndex
+    {
+        private final int[] from;
+        private final int[] to;
+        private final int[] cid;
+        private final boolean sorted;
+
+        RangeIndex(List<CIDRange> ranges)
+        {
+            // inverted ranges never match, leaving them out keeps the binary search valid
+            List<CIDRange> valid = new ArrayList<CIDRange>(ranges.size());
+            for (CIDRange range : ranges)
+            {
+                if (range.getFrom() <= range.getTo())
+                {
+                    valid.add(range);
+                }
+            }
+            int count = valid.size();
+            CIDRange[] array = valid.toArray(new CIDRange[count]);
+            CIDRange[] byStart = array.clone();
+            Arrays.sort(byStart, new Comparator<CIDRange>()
+            {
+                @Override
+                public int compare(CIDRange a, CIDRange b)
+                {
+                    return a.getFrom() - b.getFrom();
+                }
+            });
+            boolean overlap = false;
+            for (int i = 1; i < count && !overlap; i++)
+            {
+                overlap = byStart[i].getFrom() <= byStart[i - 1].getTo();
+            }
+            sorted = !overlap;
+            if (sorted)
+            {
+                array = byStart;
+            }
+            from = new int[count];
+            to = new int[count];
+            cid = new int[count];
+            for (int i = 0; i < count; i++)
+            {
+                from[i] = array[i].getFrom();
+                to[i] = array[i].getTo();
+                cid[i] = array[i].getCID();
+            }
+        }
+
+        // returns the CID for the given code, or 0 if it is in no range
+        int map(char code)
+        {
+            if (sorted)
+            {
+                int low = 0;
+                int high = from.length - 1;
+                while (low <= high)
+                {
+                    int mid = (low + high) >>> 1;
+                    if (code < from[mid])
+                    {
+                        high = mid - 1;
+                    }
+                    else if (code > to[mid])
+                    {
+                        low = mid + 1;
+                    }
+                    else
+                    {
+                        return cid[mid] + (code - from[mid]);
+                    }
+                }
+            }
+            else
+            {
+                for (int i = 0; i < from.length; i++)
+                {
+                    if (from[i] <= code && code <= to[i])
+                    {
+                        return cid[i] + (code - from[i]);
+                    }
+                }
+            }
+            return 0;
+        }
+    }
 }
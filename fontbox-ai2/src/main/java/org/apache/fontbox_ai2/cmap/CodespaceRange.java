@@ -121,6 +121,34 @@ public class CodespaceRange
         return false;
     }
 
+    /**
+     * Returns true if the given code matches this codespace range.
+     *
+     * @param code the code bytes, big-endian, the first byte in the most significant position
+     * @param codeLength the number of bytes in the code
+     */
+    public boolean isFullMatch(int code, int codeLength)
+    {
+        // code must be the same length as the bounding codes
+        if (codeLength >= start.length && codeLength <= end.length)
+        {
+            // each of it bytes must lie between the corresponding bytes of the upper & lower bounds
+            for (int i = 0; i < codeLength; i++)
+            {
+                int startNum = start[i] & 0xff;
+                int endNum = end[i] & 0xff;
+                int codeNum = (code >>> (8 * (codeLength - 1 - i))) & 0xff;
+
+                if (codeNum > endNum || codeNum < startNum)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Returns true if the given byte matches the byte at the given index of this codespace range.
      */
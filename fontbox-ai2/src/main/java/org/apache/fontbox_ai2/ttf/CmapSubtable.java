@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.fontbox_ai2.util.IntIntMap;
 
 /**
  * A "cmap" subtable.
@@ -41,7 +42,7 @@ public class CmapSubtable
     private int platformEncodingId;
     private long subTableOffset;
     private int[] glyphIdToCharacterCode;
-    private final Map<Integer, Integer> characterCodeToGlyphId = new HashMap<Integer, Integer>();
+    private final IntIntMap characterCodeToGlyphId = new IntIntMap();
 
     /**
      * This will read the required data from the stream.
@@ -563,8 +564,7 @@ public class CmapSubtable
      */
     public int getGlyphId(int characterCode)
     {
-        Integer glyphId = characterCodeToGlyphId.get(characterCode);
-        return glyphId == null ? 0 : glyphId;
+        return characterCodeToGlyphId.get(characterCode, 0);
     }
 
     /**
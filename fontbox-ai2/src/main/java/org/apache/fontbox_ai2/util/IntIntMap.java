@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.fontbox_ai2.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values which does not box, used for character code to CID and GID
+ * lookups. Keys from 0 to 0xFFFF, which covers 1- and 2-byte codes, are stored in a table of 256
+ * entry pages that are allocated on first use. Other keys are stored in an open addressing hash
+ * table. The value {@link Integer#MIN_VALUE} is reserved to mark missing entries.
+ * <p>
+ * This class is not thread safe, but may be read from several threads once it is filled.
+ */
+public final class IntIntMap
+{
+    private static final int DENSE_LIMIT = 0x10000;
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private final int[][] pages = new int[DENSE_LIMIT >> 8][];
+
+    // sparse keys, a slot is free if its value is NO_VALUE
+    private int[] sparseKeys;
+    private int[] sparseValues;
+    private int sparseSize;
+
+    private int size;
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key the key
+     * @param defaultValue the value to return if there is no entry for the key
+     * @return the value, or the default value
+     */
+    public int get(int key, int defaultValue)
+    {
+        int value;
+        if (key >= 0 && key < DENSE_LIMIT)
+        {
+            int[] page = pages[key >> 8];
+            value = page == null ? NO_VALUE : page[key & 0xFF];
+        }
+        else
+        {
+            value = getSparse(key);
+        }
+        return value == NO_VALUE ? defaultValue : value;
+    }
+
+    /**
+     * Returns true if there is an entry for the given key.
+     *
+     * @param key the key
+     * @return true if there is an entry for the key
+     */
+    public boolean containsKey(int key)
+    {
+        return get(key, NO_VALUE) != NO_VALUE;
+    }
+
+    /**
+     * Adds an entry, replacing any previous value for the key.
+     *
+     * @param key the key
+     * @param value the value, must not be {@link Integer#MIN_VALUE}
+     */
+    public void put(int key, int value)
+    {
+        if (value == NO_VALUE)
+        {
+            throw new IllegalArgumentException("Integer.MIN_VALUE is reserved");
+        }
+        if (key >= 0 && key < DENSE_LIMIT)
+        {
+            int[] page = pages[key >> 8];
+            if (page == null)
+            {
+                page = new int[256];
+                Arrays.fill(page, NO_VALUE);
+                pages[key >> 8] = page;
+            }
+            if (page[key & 0xFF] == NO_VALUE)
+            {
+                size++;
+            }
+            page[key & 0xFF] = value;
+        }
+        else
+        {
+            putSparse(key, value);
+        }
+    }
+
+    /**
+     * Adds all entries of the given map, replacing existing values.
+     *
+     * @param map the map to copy from
+     */
+    public void putAll(IntIntMap map)
+    {
+        for (int p = 0; p < map.pages.length; p++)
+        {
+            int[] page = map.pages[p];
+            if (page != null)
+            {
+                for (int i = 0; i < page.length; i++)
+                {
+                    if (page[i] != NO_VALUE)
+                    {
+                        put((p << 8) | i, page[i]);
+                    }
+                }
+            }
+        }
+        if (map.sparseValues != null)
+        {
+            for (int i = 0; i < map.sparseValues.length; i++)
+            {
+                if (map.sparseValues[i] != NO_VALUE)
+                {
+                    putSparse(map.sparseKeys[i], map.sparseValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if there are no entries.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    private int getSparse(int key)
+    {
+        if (sparseKeys == null)
+        {
+            return NO_VALUE;
+        }
+        int mask = sparseKeys.length - 1;
+        for (int i = hash(key) & mask; sparseValues[i] != NO_VALUE; i = (i + 1) & mask)
+        {
+            if (sparseKeys[i] == key)
+            {
+                return sparseValues[i];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    private void putSparse(int key, int value)
+    {
+        if (sparseKeys == null)
+        {
+            sparseKeys = new int[16];
+            sparseValues = new int[16];
+            Arrays.fill(sparseValues, NO_VALUE);
+        }
+        else if (sparseSize * 2 >= sparseKeys.length)
+        {
+            rehash(sparseKeys.length * 2);
+        }
+        int mask = sparseKeys.length - 1;
+        int i = hash(key) & mask;
+        while (sparseValues[i] != NO_VALUE)
+        {
+            if (sparseKeys[i] == key)
+            {
+                sparseValues[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        sparseKeys[i] = key;
+        sparseValues[i] = value;
+        sparseSize++;
+        size++;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = sparseKeys;
+        int[] oldValues = sparseValues;
+        sparseKeys = new int[capacity];
+        sparseValues = new int[capacity];
+        Arrays.fill(sparseValues, NO_VALUE);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldValues[j] != NO_VALUE)
+            {
+                int i = hash(oldKeys[j]) & mask;
+                while (sparseValues[i] != NO_VALUE)
+                {
+                    i = (i + 1) & mask;
+                }
+                sparseKeys[i] = oldKeys[j];
+                sparseValues[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
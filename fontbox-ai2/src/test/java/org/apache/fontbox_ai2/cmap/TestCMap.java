@@ -16,7 +16,9 @@
  */
 package org.apache.fontbox_ai2.cmap;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import junit.framework.TestCase;
 
@@ -40,4 +42,41 @@ public class TestCMap extends TestCase
         cMap.addCharMapping(bs, "a");
         assertTrue("a".equals(cMap.toUnicode(200)));
     }
+
+    /**
+     * Check the CID lookups of single mappings and ranges and the reading of mixed length codes.
+     * @throws IOException If something went wrong while reading a code
+     */
+    public void testCIDLookupAndReadCode() throws IOException
+    {
+        CMap cMap = new CMap();
+        CodespaceRange oneByte = new CodespaceRange();
+        oneByte.setStart(new byte[] { 0x00 });
+        oneByte.setEnd(new byte[] { (byte)0x80 });
+        cMap.addCodespaceRange(oneByte);
+        CodespaceRange twoBytes = new CodespaceRange();
+        twoBytes.setStart(new byte[] { (byte)0x81, 0x40 });
+        twoBytes.setEnd(new byte[] { (byte)0x9f, (byte)0xfc });
+        cMap.addCodespaceRange(twoBytes);
+
+        cMap.addCIDRange((char)0x20, (char)0x7e, 1);
+        cMap.addCIDRange((char)0x8140, (char)0x817e, 633);
+        cMap.addCIDMapping(7000, 0x8141); // CID first, code second
+        cMap.addCIDMapping(8000, 0x12345);
+
+        assertEquals(1, cMap.toCID(0x20));
+        assertEquals(95, cMap.toCID(0x7e));
+        assertEquals(633, cMap.toCID(0x8140));
+        assertEquals(7000, cMap.toCID(0x8141));
+        assertEquals(635, cMap.toCID(0x8142));
+        assertEquals(8000, cMap.toCID(0x12345));
+        assertEquals(0, cMap.toCID(0x10));
+        assertEquals(0, cMap.toCID(0x9000));
+
+        byte[] string = { 0x41, (byte)0x81, 0x42, 0x7e };
+        InputStream in = new ByteArrayInputStream(string);
+        assertEquals(0x41, cMap.readCode(in));
+        assertEquals(0x8142, cMap.readCode(in));
+        assertEquals(0x7e, cMap.readCode(in));
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.contentstream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.pdfbox_ai2.contentstream.operator.Operator;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSBase;
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSFloat;
+import org.apache.pdfbox_ai2.cos.COSInteger;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSObject;
+import org.apache.pdfbox_ai2.cos.COSString;
+import org.apache.pdfbox_ai2.pdfparser.PDFStreamParser;
+
+/**
+ * The parsed operators and operands of a content stream. A display list can be processed any
+ * number of times, e.g. once per tile of a page or once per use of a form, without parsing the
+ * stream again. The list itself cannot be changed and may be shared between threads.
+ * <p>
+ * Numeric operands, which make up most of a typical content stream, are stored as primitive
+ * values and turned back into COS numbers when the list is replayed. All other operands, e.g.
+ * names, strings and arrays, as well as the operators with their inline image data, are kept
+ * as parsed and are not copied: every replay, on any thread, is given the same objects, so
+ * operator processors must only read them.
+ *
+ * @see PDFStreamEngine#processPage(org.apache.pdfbox_ai2.pdmodel.PDPage, DisplayList)
+ * @see DisplayListCache
+ */
+public final class DisplayList
+{
+    // kinds of operands
+    private static final byte INTEGER = 0;
+    private static final byte REAL = 1;
+    private static final byte OBJECT = 2;
+
+    // integers beyond this are kept as objects, a double holds them exactly up to 2^53
+    private static final long MAX_INTEGER = 1L << 53;
+
+    private final Operator[] operators;
+    // the operands of operator i are operands operandStarts[i] to operandStarts[i + 1] - 1, the
+    // numeric ones start at numberStarts[i] and the others at objectStarts[i]
+    private final int[] operandStarts;
+    private final int[] numberStarts;
+    private final int[] objectStarts;
+    private final byte[] kinds;
+    private final double[] numbers;
+    private final COSBase[] objects;
+    private final long size;
+
+    private DisplayList(Builder builder)
+    {
+        int count = builder.operatorCount;
+        operators = Arrays.copyOf(builder.operators, count);
+        operandStarts = Arrays.copyOf(builder.operandStarts, count + 1);
+        numberStarts = Arrays.copyOf(builder.numberStarts, count);
+        objectStarts = Arrays.copyOf(builder.objectStarts, count);
+        kinds = Arrays.copyOf(builder.kinds, operandStarts[count]);
+        numbers = Arrays.copyOf(builder.numbers, builder.numberCount);
+        objects = Arrays.copyOf(builder.objects, builder.objectCount);
+        size = 64 + 20L * operators.length + kinds.length + 8L * numbers.length +
+               8L * objects.length + builder.objectSize;
+    }
+
+    /**
+     * Parses the given content stream.
+     *
+     * @param contentStream the content stream to parse
+     * @return the display list of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public static DisplayList parse(PDContentStream contentStream) throws IOException
+    {
+        Builder builder = new Builder();
+        PDFStreamParser parser = new PDFStreamParser(contentStream);
+        Object token = parser.parseNextToken();
+        while (token != null)
+        {
+            if (token instanceof Operator)
+            {
+                builder.addOperator((Operator) token);
+            }
+            else if (token instanceof COSObject)
+            {
+                // indirect operands are resolved now, so that replaying does not touch the parser
+                builder.addOperand(((COSObject) token).getObject());
+            }
+            else
+            {
+                builder.addOperand((COSBase) token);
+            }
+            token = parser.parseNextToken();
+        }
+        return new DisplayList(builder);
+    }
+
+    /**
+     * Returns the number of operators.
+     */
+    public int getOperatorCount()
+    {
+        return operators.length;
+    }
+
+    /**
+     * Returns the operator at the given position.
+     *
+     * @param index the position of the operator in the stream
+     * @return the operator
+     */
+    public Operator getOperator(int index)
+    {
+        return operators[index];
+    }
+
+    /**
+     * Returns the operands of the operator at the given position, as a new list. Operands
+     * other than numbers are the shared objects held by this display list.
+     *
+     * @param index the position of the operator in the stream
+     * @return the operands
+     */
+    public List<COSBase> getOperands(int index)
+    {
+        int start = operandStarts[index];
+        int end = operandStarts[index + 1];
+        List<COSBase> operands = new ArrayList<COSBase>(Math.max(end - start, 1));
+        int number = numberStarts[index];
+        int object = objectStarts[index];
+        for (int i = start; i < end; i++)
+        {
+            switch (kinds[i])
+            {
+                case INTEGER:
+                    operands.add(COSInteger.get((long) numbers[number++]));
+                    break;
+                case REAL:
+                    operands.add(new COSFloat(numbers[number++]));
+                    break;
+                default:
+                    operands.add(objects[object++]);
+                    break;
+            }
+        }
+        return operands;
+    }
+
+    /**
+     * Returns the approximate number of bytes used by this display list.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Collects the operators and operands while the stream is parsed.
+     */
+    private static final class Builder
+    {
+        private Operator[] operators = new Operator[64];
+        private int[] operandStarts = new int[65];
+        private int[] numberStarts = new int[64];
+        private int[] objectStarts = new int[64];
+        private int operatorCount;
+
+        private byte[] kinds = new byte[256];
+        private double[] numbers = new double[256];
+        private COSBase[] objects = new COSBase[64];
+        private int operandCount;
+        private int numberCount;
+        private int objectCount;
+        private long objectSize;
+
+        // where the numbers and objects of the next operator start
+        private int operatorNumberStart;
+        private int operatorObjectStart;
+
+        void addOperand(COSBase operand)
+        {
+            if (operandCount == kinds.length)
+            {
+                kinds = Arrays.copyOf(kinds, operandCount * 2);
+            }
+            if (operand instanceof COSInteger &&
+                Math.abs(((COSInteger) operand).longValue()) <= MAX_INTEGER)
+            {
+                kinds[operandCount++] = INTEGER;
+                addNumber(((COSInteger) operand).longValue());
+            }
+            else if (operand instanceof COSFloat)
+            {
+                kinds[operandCount++] = REAL;
+                addNumber(((COSFloat) operand).doubleValue());
+            }
+            else
+            {
+                kinds[operandCount++] = OBJECT;
+                if (objectCount == objects.length)
+                {
+                    objects = Arrays.copyOf(objects, objectCount * 2);
+                }
+                objects[objectCount++] = operand;
+                objectSize += estimateSize(operand);
+            }
+        }
+
+        private void addNumber(double value)
+        {
+            if (numberCount == numbers.length)
+            {
+                numbers = Arrays.copyOf(numbers, numberCount * 2);
+            }
+            numbers[numberCount++] = value;
+        }
+
+        void addOperator(Operator operator)
+        {
+            if (operatorCount == operators.length)
+            {
+                int length = operatorCount * 2;
+                operators = Arrays.copyOf(operators, length);
+                operandStarts = Arrays.copyOf(operandStarts, length + 1);
+                numberStarts = Arrays.copyOf(numberStarts, length);
+                objectStarts = Arrays.copyOf(objectStarts, length);
+            }
+            operators[operatorCount] = operator;
+            numberStarts[operatorCount] = operatorNumberStart;
+            objectStarts[operatorCount] = operatorObjectStart;
+            operandStarts[++operatorCount] = operandCount;
+            operatorNumberStart = numberCount;
+            operatorObjectStart = objectCount;
+            if (operator.getImageData() != null)
+            {
+                objectSize += operator.getImageData().length +
+                              estimateSize(operator.getImageParameters());
+            }
+        }
+    }
+
+    // the approximate number of bytes used by a parsed operand
+    private static long estimateSize(COSBase operand)
+    {
+        if (operand instanceof COSString)
+        {
+            return 40 + ((COSString) operand).getBytes().length;
+        }
+        if (operand instanceof COSArray)
+        {
+            long size = 40;
+            for (COSBase element : (COSArray) operand)
+            {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        }
+        if (operand instanceof COSDictionary)
+        {
+            long size = 48;
+            for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) operand).entrySet())
+            {
+                size += 32 + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        if (operand instanceof COSName)
+        {
+            // names are shared
+            return 0;
+        }
+        return 24;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.contentstream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSBase;
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.pdmodel.common.COSObjectable;
+
+/**
+ * A thread safe cache of the display lists of content streams, so that pages, forms, patterns
+ * and glyph procedures which are processed repeatedly are parsed only once. The least recently
+ * used display lists are evicted as soon as their total size exceeds the given number of bytes.
+ * <p>
+ * Display lists are cached by the COS object of the content stream. A cached display list is
+ * parsed again if the stream's contents have been replaced or any of their streams has been
+ * written to since, e.g. because a page has been edited, see
+ * {@link COSStream#getModificationCount()}.
+ * <p>
+ * A cached display list, and the operands other than numbers in it, are shared by everyone who
+ * processes the same stream, see {@link DisplayList}.
+ *
+ * @see PDFStreamEngine#setDisplayListCache(DisplayListCache)
+ */
+public final class DisplayListCache
+{
+    /**
+     * The default maximum size, 16 MB.
+     */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    // access ordered, the eldest entry is the least recently used one
+    private final LinkedHashMap<COSBase, Entry> entries =
+            new LinkedHashMap<COSBase, Entry>(16, 0.75f, true);
+    private final long maxBytes;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a cache with the default maximum size.
+     */
+    public DisplayListCache()
+    {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache with the given maximum size.
+     *
+     * @param maxBytes the maximum total size of the cached display lists
+     */
+    public DisplayListCache(long maxBytes)
+    {
+        if (maxBytes < 0)
+        {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the display list of the given content stream, parsing the stream if its display
+     * list is not in the cache.
+     *
+     * @param contentStream the content stream
+     * @return the display list of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public DisplayList getDisplayList(PDContentStream contentStream) throws IOException
+    {
+        if (!(contentStream instanceof COSObjectable))
+        {
+            return DisplayList.parse(contentStream);
+        }
+        COSBase key = ((COSObjectable) contentStream).getCOSObject();
+        COSBase contents = getContents(key);
+        COSStream[] streams = getStreams(contents);
+        long[] modificationCounts = getModificationCounts(streams);
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isCurrent(contents, streams, modificationCounts))
+            {
+                hitCount++;
+                return entry.displayList;
+            }
+            missCount++;
+        }
+
+        // parse outside the lock, another thread may parse the same stream meanwhile
+        DisplayList displayList = DisplayList.parse(contentStream);
+        put(key, new Entry(displayList, contents, streams, modificationCounts));
+        return displayList;
+    }
+
+    private synchronized void put(COSBase key, Entry entry)
+    {
+        Entry old = entries.remove(key);
+        if (old != null)
+        {
+            bytes -= old.displayList.getSize();
+        }
+        if (entry.displayList.getSize() > maxBytes)
+        {
+            return;
+        }
+        entries.put(key, entry);
+        bytes += entry.displayList.getSize();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext())
+        {
+            Entry eldest = iterator.next();
+            if (eldest != entry)
+            {
+                bytes -= eldest.displayList.getSize();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the total size of the cached display lists, in bytes.
+     */
+    public synchronized long getSize()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum total size of the cached display lists, in bytes.
+     */
+    public long getMaximumSize()
+    {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of lookups which found a current display list.
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which had to parse the stream.
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Removes all cached display lists. The statistics are kept.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        bytes = 0;
+    }
+
+    // the stream, or streams of a page, which hold the contents
+    private static COSBase getContents(COSBase key)
+    {
+        if (key instanceof COSStream)
+        {
+            return key;
+        }
+        if (key instanceof COSDictionary)
+        {
+            return ((COSDictionary) key).getDictionaryObject(COSName.CONTENTS);
+        }
+        return null;
+    }
+
+    // the streams which make up the contents, in order
+    private static COSStream[] getStreams(COSBase contents)
+    {
+        if (contents instanceof COSStream)
+        {
+            return new COSStream[] { (COSStream) contents };
+        }
+        List<COSStream> streams = new ArrayList<COSStream>();
+        if (contents instanceof COSArray)
+        {
+            COSArray array = (COSArray) contents;
+            for (int i = 0; i < array.size(); i++)
+            {
+                COSBase element = array.getObject(i);
+                if (element instanceof COSStream)
+                {
+                    streams.add((COSStream) element);
+                }
+            }
+        }
+        return streams.toArray(new COSStream[streams.size()]);
+    }
+
+    private static long[] getModificationCounts(COSStream[] streams)
+    {
+        long[] counts = new long[streams.length];
+        for (int i = 0; i < streams.length; i++)
+        {
+            counts[i] = streams[i].getModificationCount();
+        }
+        return counts;
+    }
+
+    /**
+     * A cached display list and the contents it was parsed from.
+     */
+    private static final class Entry
+    {
+        private final DisplayList displayList;
+        private final COSBase contents;
+        private final COSStream[] streams;
+        private final long[] modificationCounts;
+
+        Entry(DisplayList displayList, COSBase contents, COSStream[] streams,
+              long[] modificationCounts)
+        {
+            this.displayList = displayList;
+            this.contents = contents;
+            this.streams = streams;
+            this.modificationCounts = modificationCounts;
+        }
+
+        /**
+         * Returns true if the contents are still the same streams, none of which has been
+         * written to since the display list was parsed.
+         */
+        boolean isCurrent(COSBase contents, COSStream[] streams, long[] modificationCounts)
+        {
+            if (contents != this.contents || streams.length != this.streams.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < streams.length; i++)
+            {
+                if (streams[i] != this.streams[i])
+                {
+                    return false;
+                }
+            }
+            return Arrays.equals(modificationCounts, this.modificationCounts);
+        }
+    }
+}
@@ -82,6 +82,7 @@ public abstract class PDFStreamEngine
     private PDPage currentPage;
     private boolean isProcessingPage;
     private Matrix initialMatrix;
+    private DisplayListCache displayListCache;
 
     /**
      * Creates a new PDFStreamEngine.
@@ -115,6 +116,28 @@ public abstract class PDFStreamEngine
         operators.put(op.getName(), op);
     }
 
+    /**
+     * Returns the cache of parsed content streams, or null if streams are parsed each time.
+     */
+    public DisplayListCache getDisplayListCache()
+    {
+        return displayListCache;
+    }
+
+    /**
+     * Sets a cache of parsed content streams. Pages, forms, patterns and glyph procedures are
+     * then replayed from their cached display lists instead of being parsed each time they are
+     * processed. The cache may be shared with other engines, also on other threads, which
+     * then share the operands of the cached lists, so operator processors must not modify
+     * them.
+     *
+     * @param displayListCache the cache, or null to parse streams each time
+     */
+    public void setDisplayListCache(DisplayListCache displayListCache)
+    {
+        this.displayListCache = displayListCache;
+    }
+
     /**
      * Initialises the stream engine for the given page.
      */
@@ -140,12 +163,25 @@ public abstract class PDFStreamEngine
      * @throws IOException if there is an error accessing the stream
      */
     public void processPage(PDPage page) throws IOException
+    {
+        processPage(page, null);
+    }
+
+    /**
+     * This will initialise and process the contents of the stream, replaying the given display
+     * list of the page's contents instead of parsing them.
+     *
+     * @param page the page to process
+     * @param contents the display list of the page's contents, or null to parse them
+     * @throws IOException if there is an error accessing the stream
+     */
+    public void processPage(PDPage page, DisplayList contents) throws IOException
     {
         initPage(page);
         if (page.hasContents())
         {
             isProcessingPage = true;
-            processStream(page);
+            processStream(page, contents);
             isProcessingPage = false;
         }
     }
@@ -419,6 +455,19 @@ public abstract class PDFStreamEngine
      * @throws IOException if there is an exception while processing the stream
      */
     private void processStream(PDContentStream contentStream) throws IOException
+    {
+        processStream(contentStream, null);
+    }
+
+    /**
+     * Process a content stream, or the given display list of its contents.
+     *
+     * @param contentStream the content stream
+     * @param contents the display list of the stream's contents, or null to parse them
+     * @throws IOException if there is an exception while processing the stream
+     */
+    private void processStream(PDContentStream contentStream, DisplayList contents)
+            throws IOException
     {
         PDResources parent = pushResources(contentStream);
         Stack<PDGraphicsState> savedStack = saveGraphicsStack();
@@ -434,7 +483,18 @@ public abstract class PDFStreamEngine
         PDRectangle bbox = contentStream.getBBox();
         clipToRect(bbox);
 
-        processStreamOperators(contentStream);
+        if (contents == null && displayListCache != null)
+        {
+            contents = displayListCache.getDisplayList(contentStream);
+        }
+        if (contents != null)
+        {
+            processDisplayList(contents);
+        }
+        else
+        {
+            processStreamOperators(contentStream);
+        }
 
         initialMatrix = parentMatrix;
         restoreGraphicsStack(savedStack);
@@ -468,6 +528,17 @@ public abstract class PDFStreamEngine
         }
     }
 
+    /**
+     * Processes the operators of the given display list.
+     */
+    private void processDisplayList(DisplayList contents) throws IOException
+    {
+        for (int i = 0, count = contents.getOperatorCount(); i < count; i++)
+        {
+            processOperator(contents.getOperator(i), contents.getOperands(i));
+        }
+    }
+
     /**
      * Pushes the given stream's resources, returning the previous resources.
      */
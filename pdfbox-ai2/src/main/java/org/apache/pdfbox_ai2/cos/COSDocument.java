@@ -78,6 +78,8 @@ public class COSDocument extends COSBase implements Closeable
 
     private ScratchFile scratchFile;
 
+    private ICOSParser parser;
+
     /**
      * Constructor.
      *
@@ -171,7 +173,8 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getObjectByType( COSName type ) throws IOException
     {
-        for( COSObject object : objectPool.values() )
+        // iterate over a copy as lazily loaded objects add new objects to the pool
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -226,7 +229,8 @@ public class COSDocument extends COSBase implements Closeable
     public List<COSObject> getObjectsByType( COSName type ) throws IOException
     {
         List<COSObject> retval = new ArrayList<COSObject>();
-        for( COSObject object : objectPool.values() )
+        // iterate over a copy as lazily loaded objects add new objects to the pool
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -268,7 +272,8 @@ public class COSDocument extends COSBase implements Closeable
     {
         for (Map.Entry<COSObjectKey, COSObject> entry : objectPool.entrySet())
         {
-            if (entry.getValue().getObject() == object)
+            // an object which wasn't parsed so far can't be the one we're looking for
+            if (!entry.getValue().isObjectNull() && entry.getValue().getObject() == object)
             {
                 return entry.getKey();
             }
@@ -393,6 +398,17 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getCatalog() throws IOException
     {
+        // try the root entry of the trailer first to avoid searching all objects
+        COSBase root = trailer != null ? trailer.getItem(COSName.ROOT) : null;
+        if (root instanceof COSObject)
+        {
+            COSBase rootObject = ((COSObject) root).getObject();
+            if (rootObject instanceof COSDictionary
+                    && COSName.CATALOG.equals(((COSDictionary) rootObject).getItem(COSName.TYPE)))
+            {
+                return (COSObject) root;
+            }
+        }
         COSObject catalog = getObjectByType( COSName.CATALOG );
         if( catalog == null )
         {
@@ -461,6 +477,11 @@ public class COSDocument extends COSBase implements Closeable
             {
                 for (COSObject object : list) 
                 {
+                    // don't parse lazily loaded objects just to close them
+                    if (object.isObjectNull())
+                    {
+                        continue;
+                    }
                     COSBase cosObject = object.getObject();
                     if (cosObject instanceof COSStream)
                     {
@@ -532,7 +553,7 @@ public class COSDocument extends COSBase implements Closeable
             for (COSObject next : parser.getObjects())
             {
                 COSObjectKey key = new COSObjectKey(next);
-                if (objectPool.get(key) == null || objectPool.get(key).getObject() == null
+                if (objectPool.get(key) == null || objectPool.get(key).isObjectNull()
                         // xrefTable stores negated objNr of objStream for objects in objStreams
                         || (xrefTable.containsKey(key)
                             && xrefTable.get(key) == -objStream.getObjectNumber()))
@@ -562,6 +583,13 @@ public class COSDocument extends COSBase implements Closeable
         }
         if (obj == null)
         {
+            if (key != null && parser != null)
+            {
+                // lazy loading, the object is parsed on first access
+                obj = new COSObject(key, parser);
+                objectPool.put(key, obj);
+                return obj;
+            }
             // this was a forward reference, make "proxy" object
             obj = new COSObject(null);
             if( key != null )
@@ -574,6 +602,27 @@ public class COSDocument extends COSBase implements Closeable
         return obj;
     }
 
+    /**
+     * Sets the parser to be used to lazily load objects. All objects of the object pool which
+     * haven't been parsed so far are parsed on first access. Not for public use. Only COSParser
+     * should call this method.
+     *
+     * @param parser the parser to be used to dereference objects, or null to disable lazy
+     * loading
+     */
+    public void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
+        // forward references created so far have to be resolved lazily as well
+        for (COSObject obj : objectPool.values())
+        {
+            if (obj.isObjectNull())
+            {
+                obj.setParser(parser);
+            }
+        }
+    }
+
     /**
      * Removes an object from the object pool.
      * @param key the object key
@@ -28,7 +28,17 @@ import java.math.BigDecimal;
  */
 public class COSFloat extends COSNumber
 {
-    private BigDecimal value;
+    // exactly representable powers of ten, used by the fast path of parse()
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // a long holds at least 15 decimal digits which are exactly representable as double
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private final float value;
+    private final double doubleValue;
+    // the original representation, or null if not created yet
     private String valueAsString;
 
     /**
@@ -38,10 +48,22 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( float aFloat )
     {
-        // use a BigDecimal as intermediate state to avoid 
-        // a floating point string representation of the float value
-        value = new BigDecimal(String.valueOf(aFloat));
-        valueAsString = removeNullDigits(value.toPlainString());
+        value = aFloat;
+        // use the shortest decimal representation of the float value to avoid
+        // the additional fraction digits of a plain cast to double
+        doubleValue = Double.parseDouble(Float.toString(aFloat));
+    }
+
+    /**
+     * Constructor for a value which was parsed before, e.g. one read back from a
+     * {@link #doubleValue()}. Unlike {@link #COSFloat(float)} the value is not rounded to a float.
+     *
+     * @param aDouble the decimal value that this object wraps.
+     */
+    public COSFloat( double aDouble )
+    {
+        value = (float) aDouble;
+        doubleValue = aDouble;
     }
 
     /**
@@ -55,8 +77,9 @@ public class COSFloat extends COSNumber
     {
         try
         {
-            valueAsString = aFloat; 
-            value = new BigDecimal( valueAsString );
+            doubleValue = parse(aFloat);
+            value = (float) doubleValue;
+            valueAsString = aFloat;
         }
         catch( NumberFormatException e )
         {
@@ -64,7 +87,76 @@ public class COSFloat extends COSNumber
         }
     }
 
-    private String removeNullDigits(String plainStringValue)
+    /**
+     * Parses a PDF real number. Plain decimal numbers with up to 15 significant digits are
+     * converted without any allocation, all other values are left to {@link Double#parseDouble}.
+     */
+    private static double parse(String number)
+    {
+        int length = number.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (number.charAt(0) == '-' || number.charAt(0) == '+'))
+        {
+            negative = number.charAt(0) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean hasDigits = false;
+        boolean hasDot = false;
+        for (; i < length; i++)
+        {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9')
+            {
+                hasDigits = true;
+                if (mantissa != 0 || c != '0')
+                {
+                    significantDigits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (hasDot)
+                {
+                    scale++;
+                }
+            }
+            else if (c == '.' && !hasDot)
+            {
+                hasDot = true;
+            }
+            else
+            {
+                // exponent or malformed number
+                return Double.parseDouble(number);
+            }
+        }
+        if (!hasDigits || significantDigits > MAX_FAST_DIGITS || scale >= POWERS_OF_TEN.length)
+        {
+            return Double.parseDouble(number);
+        }
+        // both operands are exact, so the division is rounded correctly
+        double result = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -result : result;
+    }
+
+    /**
+     * Returns the plain decimal representation of the given value, without an exponent and
+     * without trailing zeros.
+     */
+    private static String formatFloat(float aFloat)
+    {
+        String string = Float.toString(aFloat);
+        if (string.indexOf('E') > -1)
+        {
+            // use a BigDecimal as intermediate state to avoid the exponent, see PDFBOX-1778
+            string = new BigDecimal(string).toPlainString();
+        }
+        return removeNullDigits(string);
+    }
+
+    private static String removeNullDigits(String plainStringValue)
     {
         // remove fraction digit "0" only
         if (plainStringValue.indexOf('.') > -1 && !plainStringValue.endsWith(".0"))
@@ -77,6 +169,15 @@ public class COSFloat extends COSNumber
         return plainStringValue;
     }
 
+    private String getValueAsString()
+    {
+        if (valueAsString == null)
+        {
+            valueAsString = formatFloat(value);
+        }
+        return valueAsString;
+    }
+
     /**
      * The value of the float object that this one wraps.
      *
@@ -85,7 +186,7 @@ public class COSFloat extends COSNumber
     @Override
     public float floatValue()
     {
-        return value.floatValue();
+        return value;
     }
 
     /**
@@ -96,7 +197,7 @@ public class COSFloat extends COSNumber
     @Override
     public double doubleValue()
     {
-        return value.doubleValue();
+        return doubleValue;
     }
 
     /**
@@ -107,7 +208,7 @@ public class COSFloat extends COSNumber
     @Override
     public long longValue()
     {
-        return value.longValue();
+        return (long) doubleValue;
     }
 
     /**
@@ -118,7 +219,7 @@ public class COSFloat extends COSNumber
     @Override
     public int intValue()
     {
-        return value.intValue();
+        return (int) doubleValue;
     }
 
     /**
@@ -128,7 +229,7 @@ public class COSFloat extends COSNumber
     public boolean equals( Object o )
     {
         return o instanceof COSFloat && 
-                Float.floatToIntBits(((COSFloat)o).value.floatValue()) == Float.floatToIntBits(value.floatValue());
+                Float.floatToIntBits(((COSFloat)o).value) == Float.floatToIntBits(value);
     }
 
     /**
@@ -137,7 +238,7 @@ public class COSFloat extends COSNumber
     @Override
     public int hashCode()
     {
-        return value.hashCode();
+        return Float.floatToIntBits(value);
     }
 
     /**
@@ -146,7 +247,7 @@ public class COSFloat extends COSNumber
     @Override
     public String toString()
     {
-        return "COSFloat{" + valueAsString + "}";
+        return "COSFloat{" + getValueAsString() + "}";
     }
 
     /**
@@ -170,6 +271,6 @@ public class COSFloat extends COSNumber
      */
     public void writePDF( OutputStream output ) throws IOException
     {
-        output.write(valueAsString.getBytes("ISO-8859-1"));
+        output.write(getValueAsString().getBytes("ISO-8859-1"));
     }
 }
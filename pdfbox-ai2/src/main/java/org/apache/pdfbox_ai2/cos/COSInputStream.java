@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.pdfbox_ai2.filter.DecodeOptions;
 import org.apache.pdfbox_ai2.filter.DecodeResult;
 import org.apache.pdfbox_ai2.filter.Filter;
 import org.apache.pdfbox_ai2.io.RandomAccess;
@@ -39,17 +40,21 @@ import org.apache.pdfbox_ai2.io.ScratchFile;
 public final class COSInputStream extends FilterInputStream
 {
     /**
-     * Creates a new COSInputStream from an encoded input stream.
+     * Creates a new COSInputStream from an encoded input stream. Filters which are able to decode
+     * incrementally are chained, so that their data is decoded while it is read. Only the output
+     * of the other filters is buffered completely.
      *
      * @param filters Filters to be applied.
      * @param parameters Filter parameters.
      * @param in Encoded input stream.
      * @param scratchFile Scratch file to use, or null.
+     * @param options Region and subsampling for the last filter, or null.
      * @return Decoded stream.
      * @throws IOException If the stream could not be read.
      */
     static COSInputStream create(List<Filter> filters, COSDictionary parameters, InputStream in,
-                                 ScratchFile scratchFile) throws IOException
+                                 ScratchFile scratchFile, DecodeOptions options)
+            throws IOException
     {
         List<DecodeResult> results = new ArrayList<DecodeResult>();
         InputStream input = in;
@@ -62,12 +67,23 @@ public final class COSInputStream extends FilterInputStream
             // apply filters
             for (int i = 0; i < filters.size(); i++)
             {
-                if (scratchFile != null)
+                // only the last filter produces image samples
+                DecodeOptions filterOptions = i == filters.size() - 1 ? options : null;
+                InputStream decodeStream = filters.get(i).decodeStream(input, parameters, i);
+                if (decodeStream != null)
+                {
+                    // streaming, the parameters are never repaired
+                    results.add(DecodeResult.DEFAULT);
+                    input = decodeStream;
+                }
+                else if (scratchFile != null)
                 {
                     // scratch file
                     final RandomAccess buffer = scratchFile.createBuffer();
-                    DecodeResult result = filters.get(i).decode(input, new RandomAccessOutputStream(buffer), parameters, i);
+                    DecodeResult result = filters.get(i).decode(input,
+                            new RandomAccessOutputStream(buffer), parameters, i, filterOptions);
                     results.add(result);
+                    closeIntermediate(input, in);
                     input = new RandomAccessInputStream(buffer)
                     {
                         @Override
@@ -81,8 +97,10 @@ public final class COSInputStream extends FilterInputStream
                 {
                     // in-memory
                     ByteArrayOutputStream output = new ByteArrayOutputStream();
-                    DecodeResult result = filters.get(i).decode(input, output, parameters, i);
+                    DecodeResult result = filters.get(i).decode(input, output, parameters, i,
+                                                                filterOptions);
                     results.add(result);
+                    closeIntermediate(input, in);
                     input = new ByteArrayInputStream(output.toByteArray());
                 }
             }
@@ -90,6 +108,17 @@ public final class COSInputStream extends FilterInputStream
         return new COSInputStream(input, results);
     }
 
+    // releases the buffers and inflaters of the stages which have been decoded completely,
+    // the encoded stream itself is left to the caller
+    private static void closeIntermediate(InputStream input, InputStream encoded)
+            throws IOException
+    {
+        if (input != encoded)
+        {
+            input.close();
+        }
+    }
+
     private final List<DecodeResult> decodeResults;
 
     /**
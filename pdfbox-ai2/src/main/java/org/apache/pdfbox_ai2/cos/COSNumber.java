@@ -94,7 +94,7 @@ public abstract class COSNumber extends COSBase
                 throw new IOException("Not a number: " + number);
             }
         } 
-        else if (number.indexOf('.') == -1 && (number.toLowerCase().indexOf('e') == -1)) 
+        else if (number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1)
         {
             try
             {
@@ -17,6 +17,8 @@
 package org.apache.pdfbox_ai2.cos;
 
 import java.io.IOException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * This class represents a PDF object.
@@ -26,7 +28,11 @@ import java.io.IOException;
  */
 public class COSObject extends COSBase implements COSUpdateInfo
 {
-    private COSBase baseObject;
+    private static final Log LOG = LogFactory.getLog(COSObject.class);
+
+    private volatile COSBase baseObject;
+    private volatile ICOSParser parser;
+    private boolean isDereferencing;
     private long objectNumber;
     private int generationNumber;
     private boolean needToBeUpdated;
@@ -43,6 +49,20 @@ public class COSObject extends COSBase implements COSUpdateInfo
         setObject( object );
     }
 
+    /**
+     * Constructor for a lazily loaded object. The content is parsed by the given parser the first
+     * time {@link #getObject()} is called.
+     *
+     * @param key The object key of the indirect object.
+     * @param parser The parser to be used to dereference the object.
+     */
+    public COSObject(COSObjectKey key, ICOSParser parser)
+    {
+        objectNumber = key.getNumber();
+        generationNumber = key.getGeneration();
+        this.parser = parser;
+    }
+
     /**
      * This will get the dictionary object in this object that has the name key and
      * if it is a pdfobjref then it will dereference that and return it.
@@ -54,9 +74,10 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getDictionaryObject( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getDictionaryObject( key );
+            retval = ((COSDictionary)object).getDictionaryObject( key );
         }
         return retval;
     }
@@ -71,23 +92,62 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getItem( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getItem( key );
+            retval = ((COSDictionary)object).getItem( key );
         }
         return retval;
     }
 
     /**
-     * This will get the object that this object encapsulates.
+     * This will get the object that this object encapsulates. A lazily loaded object is parsed
+     * the first time this method is called.
      *
      * @return The encapsulated object.
      */
     public COSBase getObject()
     {
+        ICOSParser lazyParser = parser;
+        if (lazyParser != null)
+        {
+            synchronized (lazyParser)
+            {
+                // the parser may call back while parsing the object, e.g. when the object isn't
+                // part of the object stream it is said to be in
+                if (parser != null && !isDereferencing)
+                {
+                    isDereferencing = true;
+                    try
+                    {
+                        lazyParser.dereferenceCOSObject(this);
+                    }
+                    catch (IOException e)
+                    {
+                        LOG.error("Can't dereference " + this, e);
+                    }
+                    finally
+                    {
+                        isDereferencing = false;
+                        parser = null;
+                    }
+                }
+            }
+        }
         return baseObject;
     }
 
+    /**
+     * Indicates if the encapsulated object is null. In contrast to {@link #getObject()} this
+     * doesn't trigger the parsing of a lazily loaded object.
+     *
+     * @return true if the object wasn't set or parsed so far.
+     */
+    public boolean isObjectNull()
+    {
+        return baseObject == null;
+    }
+
     /**
      * This will set the object that this object encapsulates.
      *
@@ -98,6 +158,17 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public final void setObject( COSBase object ) throws IOException
     {
         baseObject = object;
+        parser = null;
+    }
+
+    /**
+     * Sets the parser to be used to lazily load the encapsulated object.
+     *
+     * @param parser the parser to be used to dereference this object
+     */
+    void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
     }
 
     /**
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.pdfbox_ai2.filter.DecodeOptions;
 import org.apache.pdfbox_ai2.filter.Filter;
 import org.apache.pdfbox_ai2.filter.FilterFactory;
 import org.apache.pdfbox_ai2.io.IOUtils;
@@ -43,6 +44,7 @@ public class COSStream extends COSDictionary implements Closeable
     private RandomAccess randomAccess;      // backing store, in-memory or on-disk
     private final ScratchFile scratchFile;  // used as a temp buffer during decoding
     private boolean isWriting;              // true if there's an open OutputStream
+    private volatile long modificationCount; // number of times the data was replaced
     
     /**
      * Creates a new stream with an empty dictionary.
@@ -150,6 +152,19 @@ public class COSStream extends COSDictionary implements Closeable
      * @throws IOException If the stream could not be read.
      */
     public COSInputStream createInputStream() throws IOException
+    {
+        return createInputStream(null);
+    }
+
+    /**
+     * Returns a new InputStream which reads the decoded stream data. Image filters which support
+     * it decode only the given region and subsampling, see {@link DecodeOptions}.
+     * 
+     * @param options Region and subsampling to decode, or null to decode all data.
+     * @return InputStream containing decoded stream data.
+     * @throws IOException If the stream could not be read.
+     */
+    public COSInputStream createInputStream(DecodeOptions options) throws IOException
     {
         checkClosed();
         if (isWriting)
@@ -157,7 +172,7 @@ public class COSStream extends COSDictionary implements Closeable
             throw new IllegalStateException("Cannot read while there is an open stream writer");
         }
         InputStream input = new RandomAccessInputStream(randomAccess);
-        return COSInputStream.create(getFilterList(), this, input, scratchFile);
+        return COSInputStream.create(getFilterList(), this, input, scratchFile, options);
     }
 
     /**
@@ -209,12 +224,20 @@ public class COSStream extends COSDictionary implements Closeable
         isWriting = true;
         return new FilterOutputStream(cosOut)
         {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                // FilterOutputStream would write the bytes one at a time
+                out.write(b, off, len);
+            }
+
             @Override
             public void close() throws IOException
             {
                 super.close();
                 setInt(COSName.LENGTH, (int)randomAccess.length());
                 isWriting = false;
+                modificationCount++;
             }
         };
     }
@@ -252,12 +275,20 @@ public class COSStream extends COSDictionary implements Closeable
         isWriting = true;
         return new FilterOutputStream(out)
         {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                // FilterOutputStream would write the bytes one at a time
+                out.write(b, off, len);
+            }
+
             @Override
             public void close() throws IOException
             {
                 super.close();
                 setInt(COSName.LENGTH, (int)randomAccess.length());
                 isWriting = false;
+                modificationCount++;
             }
         };
     }
@@ -301,6 +332,18 @@ public class COSStream extends COSDictionary implements Closeable
         return getInt(COSName.LENGTH, 0);
     }
 
+    /**
+     * Returns the number of times the data of this stream has been written since it was created
+     * or read. Data derived from the stream, e.g. parsed contents, can be cached together with
+     * this count and is out of date once the count has changed.
+     *
+     * @return the number of times the data has been written
+     */
+    public long getModificationCount()
+    {
+        return modificationCount;
+    }
+
     /**
      * This will return the filters to apply to the byte stream.
      * The method will return
@@ -326,6 +369,7 @@ public class COSStream extends COSDictionary implements Closeable
     public void setFilters(COSBase filters) throws IOException
     {
         setItem(COSName.FILTER, filters);
+        modificationCount++;
     }
 
     /**
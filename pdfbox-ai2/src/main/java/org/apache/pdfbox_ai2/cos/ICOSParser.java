@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.cos;
+
+import java.io.IOException;
+
+/**
+ * An interface for resolving indirect objects on demand. A {@link COSObject} which was created
+ * by a lazily loading parser keeps a reference to it and asks it for its content the first time
+ * {@link COSObject#getObject()} is called.
+ *
+ */
+public interface ICOSParser
+{
+    /**
+     * Parses the given indirect object and stores the result in it.
+     *
+     * @param obj the object to be dereferenced, only its object and generation number are used
+     * to look up its location within the source.
+     * @return the dereferenced object or null if it couldn't be resolved
+     * @throws IOException If there is an error while parsing the object.
+     */
+    COSBase dereferenceCOSObject(COSObject obj) throws IOException;
+}
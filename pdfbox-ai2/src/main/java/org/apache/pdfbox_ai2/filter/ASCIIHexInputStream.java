@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * An InputStream which decodes ASCII hexadecimal data while it is read.
+ *
+ */
+final class ASCIIHexInputStream extends FilterInputStream
+{
+    private static final Log LOG = LogFactory.getLog(ASCIIHexInputStream.class);
+
+    private static final int[] REVERSE_HEX = {
+      /*   0 */  -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  10 */  -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  20 */  -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  30 */  -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  40 */  -1, -1, -1, -1, -1, -1, -1, -1,  0,  1,
+      /*  50 */   2,  3,  4,  5,  6,  7,  8,  9, -1, -1,
+      /*  60 */  -1, -1, -1, -1, -1, 10, 11, 12, 13, 14,
+      /*  70 */  15, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  80 */  -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+      /*  90 */  -1, -1, -1, -1, -1, -1, -1, 10, 11, 12,
+      /* 100 */  13, 14, 15
+    };
+
+    private boolean eof;
+
+    /**
+     * Constructor.
+     *
+     * @param in the hexadecimal data
+     */
+    ASCIIHexInputStream(InputStream in)
+    {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (eof)
+        {
+            return -1;
+        }
+        int firstByte = in.read();
+        // always after first char
+        while (isWhitespace(firstByte))
+        {
+            firstByte = in.read();
+        }
+        if (firstByte == -1 || isEOD(firstByte))
+        {
+            eof = true;
+            return -1;
+        }
+        int value = reverseHex(firstByte) * 16;
+        int secondByte = in.read();
+        if (secondByte == -1 || isEOD(secondByte))
+        {
+            // second value behaves like 0 in case of EOD
+            eof = true;
+            return value & 0xff;
+        }
+        value += reverseHex(secondByte);
+        return value & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int total = 0;
+        while (total < len)
+        {
+            int value = read();
+            if (value == -1)
+            {
+                break;
+            }
+            b[off + total++] = (byte) value;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < n && read() != -1)
+        {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return eof ? 0 : in.available() / 2;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private int reverseHex(int c)
+    {
+        int value = c < REVERSE_HEX.length ? REVERSE_HEX[c] : -1;
+        if (value == -1)
+        {
+            LOG.error("Invalid hex, int: " + c + " char: " + (char) c);
+        }
+        return value;
+    }
+
+    // whitespace
+    //   0  0x00  Null (NUL)
+    //   9  0x09  Tab (HT)
+    //  10  0x0A  Line feed (LF)
+    //  12  0x0C  Form feed (FF)
+    //  13  0x0D  Carriage return (CR)
+    //  32  0x20  Space (SP)
+    private boolean isWhitespace(int c)
+    {
+        return c == 0 || c == 9 || c == 10 || c == 12 || c == 13 || c == 32;
+    }
+
+    private boolean isEOD(int c)
+    {
+        return c == '>';
+    }
+}
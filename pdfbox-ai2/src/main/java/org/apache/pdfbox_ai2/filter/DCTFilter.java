@@ -27,6 +27,7 @@ import java.lang.reflect.Field;
 
 import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.metadata.IIOMetadataNode;
@@ -51,6 +52,24 @@ final class DCTFilter extends Filter
     @Override
     public DecodeResult decode(InputStream encoded, OutputStream decoded,
                                          COSDictionary parameters, int index) throws IOException
+    {
+        return decode(encoded, decoded, parameters, index, null);
+    }
+
+    @Override
+    public DecodeResult decode(InputStream encoded, OutputStream decoded,
+                               COSDictionary parameters, int index, DecodeOptions options)
+            throws IOException
+    {
+        Raster raster = decodeRaster(encoded, parameters, index, options);
+        DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
+        decoded.write(dataBuffer.getData());
+        return new DecodeResult(parameters);
+    }
+
+    @Override
+    public Raster decodeRaster(InputStream encoded, COSDictionary parameters, int index,
+                               DecodeOptions options) throws IOException
     {
         ImageReader reader = findImageReader("JPEG", "a suitable JAI I/O image filter is not installed");
         ImageInputStream iis = null;
@@ -68,6 +87,17 @@ final class DCTFilter extends Filter
             
             String numChannels = getNumChannels(reader);
 
+            // let the JPEG decoder skip what is not needed
+            ImageReadParam param = null;
+            if (options != null &&
+                (options.getSourceRegion() != null || options.getSubsampling() > 1))
+            {
+                param = reader.getDefaultReadParam();
+                param.setSourceRegion(options.getSourceRegion());
+                param.setSourceSubsampling(options.getSubsampling(), options.getSubsampling(),
+                                           0, 0);
+            }
+
             // get the raster using horrible JAI workarounds
             ImageIO.setUseCache(false);
             Raster raster;
@@ -80,21 +110,21 @@ final class DCTFilter extends Filter
                 try
                 {
                     // I'd like to use ImageReader#readRaster but it is buggy and can't read RGB correctly
-                    BufferedImage image = reader.read(0);
+                    BufferedImage image = reader.read(0, param);
                     raster = image.getRaster();
                 }
                 catch (IIOException e)
                 {
                     // JAI can't read CMYK JPEGs using ImageReader#read or ImageIO.read but
                     // fortunately ImageReader#readRaster isn't buggy when reading 4-channel files
-                    raster = reader.readRaster(0, null);
+                    raster = reader.readRaster(0, param);
                 }
             }
             else
             {
                 // JAI can't read CMYK JPEGs using ImageReader#read or ImageIO.read but
                 // fortunately ImageReader#readRaster isn't buggy when reading 4-channel files
-                raster = reader.readRaster(0, null);
+                raster = reader.readRaster(0, param);
             }
 
             // special handling for 4-component images
@@ -170,8 +200,11 @@ final class DCTFilter extends Filter
                 raster = fromBGRtoRGB(raster);
             }
 
-            DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
-            decoded.write(dataBuffer.getData());
+            if (param != null)
+            {
+                options.setFilterSubsampled(true);
+            }
+            return raster;
         }
         finally
         {
@@ -181,7 +214,6 @@ final class DCTFilter extends Filter
             }
             reader.dispose();
         }
-        return new DecodeResult(parameters);
     }
 
     // reads the APP14 Adobe transform tag and returns its value, or 0 if unknown
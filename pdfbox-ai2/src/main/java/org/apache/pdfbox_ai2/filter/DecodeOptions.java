@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.awt.Rectangle;
+
+/**
+ * Options for decoding an image stream, which allow a filter to decode only a part of an image
+ * or a subsampled version of it. Filters which are not able to do this decode the whole image as
+ * usual, the caller has to check {@link #isFilterSubsampled()} to find out which data it got.
+ */
+public final class DecodeOptions
+{
+    private final Rectangle sourceRegion;
+    private final int subsampling;
+    private boolean filterSubsampled;
+
+    /**
+     * Creates decode options.
+     *
+     * @param sourceRegion the region of the image to decode, in image pixels, or null for the
+     * whole image
+     * @param subsampling the subsampling factor, 1 decodes every pixel, 2 every second pixel in
+     * both directions, and so on
+     */
+    public DecodeOptions(Rectangle sourceRegion, int subsampling)
+    {
+        if (subsampling < 1)
+        {
+            throw new IllegalArgumentException("subsampling must be at least 1: " + subsampling);
+        }
+        this.sourceRegion = sourceRegion;
+        this.subsampling = subsampling;
+    }
+
+    /**
+     * Returns the region of the image to decode, or null for the whole image.
+     */
+    public Rectangle getSourceRegion()
+    {
+        return sourceRegion;
+    }
+
+    /**
+     * Returns the subsampling factor.
+     */
+    public int getSubsampling()
+    {
+        return subsampling;
+    }
+
+    /**
+     * Returns true if the filter has applied the region and subsampling, so that the decoded
+     * data contains only the requested pixels. Otherwise the decoded data is the whole image.
+     */
+    public boolean isFilterSubsampled()
+    {
+        return filterSubsampled;
+    }
+
+    // called by filters which have applied the region and subsampling
+    void setFilterSubsampled(boolean filterSubsampled)
+    {
+        this.filterSubsampled = filterSubsampled;
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.pdfbox_ai2.filter;
 
+import java.awt.image.Raster;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -60,6 +61,59 @@ public abstract class Filter
     public abstract DecodeResult decode(InputStream encoded, OutputStream decoded, COSDictionary parameters,
                             int index) throws IOException;
 
+    /**
+     * Decodes data, producing the original non-encoded data, or only a region or subsampled
+     * version of it if the filter is able to, in which case it sets
+     * {@link DecodeOptions#isFilterSubsampled()}. The default implementation ignores the options.
+     * @param encoded the encoded byte stream
+     * @param decoded the stream where decoded data will be written
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @param options the region and subsampling to decode
+     * @return repaired parameters dictionary, or the original parameters dictionary
+     * @throws IOException if the stream cannot be decoded
+     */
+    public DecodeResult decode(InputStream encoded, OutputStream decoded, COSDictionary parameters,
+                               int index, DecodeOptions options) throws IOException
+    {
+        return decode(encoded, decoded, parameters, index);
+    }
+
+    /**
+     * Decodes image data straight to a raster, without writing the samples to a stream. The
+     * raster's data buffer is a {@link java.awt.image.DataBufferByte} which holds exactly the
+     * bytes {@link #decode(InputStream, OutputStream, COSDictionary, int, DecodeOptions)} would
+     * write. The region and subsampling are applied as described there.
+     * @param encoded the encoded byte stream
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @param options the region and subsampling to decode, or null for the whole image
+     * @return the decoded raster, or null if the filter does not decode images, in which case
+     * one of the decode methods has to be used
+     * @throws IOException if the stream cannot be decoded
+     */
+    public Raster decodeRaster(InputStream encoded, COSDictionary parameters, int index,
+                               DecodeOptions options) throws IOException
+    {
+        return null;
+    }
+
+    /**
+     * Returns a stream which decodes the data incrementally while it is read, instead of decoding
+     * all data at once. Closing the returned stream closes the encoded stream.
+     * @param encoded the encoded byte stream
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @return the decoding stream, or null if the filter can only decode all data at once, in
+     * which case {@link #decode(InputStream, OutputStream, COSDictionary, int)} has to be used
+     * @throws IOException if the stream cannot be decoded
+     */
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
+    {
+        return null;
+    }
+
     /**
      * Encodes data.
      * @param input the byte stream to encode
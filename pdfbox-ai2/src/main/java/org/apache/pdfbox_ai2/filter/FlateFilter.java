@@ -16,18 +16,15 @@
  */
 package org.apache.pdfbox_ai2.filter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.DataFormatException;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
-import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.io.IOUtils;
 
 /**
  * Decompresses data encoded using the zlib/deflate compression method,
@@ -45,74 +42,35 @@ final class FlateFilter extends Filter
     public DecodeResult decode(InputStream encoded, OutputStream decoded,
                                          COSDictionary parameters, int index) throws IOException
     {
-        int predictor = -1;
-
-        final COSDictionary decodeParams = getDecodeParams(parameters, index);
-        if (decodeParams != null)
-        {
-            predictor = decodeParams.getInt(COSName.PREDICTOR);
-        }
-
+        FlateInputStream inflated = new FlateInputStream(encoded);
         try
         {
-            if (predictor > 1)
-            {
-                @SuppressWarnings("null")
-                int colors = Math.min(decodeParams.getInt(COSName.COLORS, 1), 32);
-                int bitsPerPixel = decodeParams.getInt(COSName.BITS_PER_COMPONENT, 8);
-                int columns = decodeParams.getInt(COSName.COLUMNS, 1);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                decompress(encoded, baos);
-                ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-                Predictor.decodePredictor(predictor, colors, bitsPerPixel, columns, bais, decoded);
-                decoded.flush();
-                baos.reset();
-                bais.reset();
-            }
-            else
-            {
-                decompress(encoded, decoded);
-            }
-        } 
-        catch (DataFormatException e)
+            IOUtils.copy(Predictor.wrapPredictor(inflated, getDecodeParams(parameters, index)),
+                    decoded);
+            decoded.flush();
+        }
+        catch (ZipException e)
         {
             // if the stream is corrupt a DataFormatException may occur
             LOG.error("FlateFilter: stop reading corrupt stream due to a DataFormatException");
 
             // re-throw the exception
-            throw new IOException(e);
+            throw e;
+        }
+        finally
+        {
+            // don't close the encoded stream
+            inflated.end();
         }
         return new DecodeResult(parameters);
     }
 
-    // Use Inflater instead of InflateInputStream to avoid an EOFException due to a probably
-    // missing Z_STREAM_END, see PDFBOX-1232 for details
-    private void decompress(InputStream in, OutputStream out) throws IOException, DataFormatException 
-    { 
-        byte[] buf = new byte[2048]; 
-        int read = in.read(buf); 
-        if (read > 0) 
-        { 
-            Inflater inflater = new Inflater(); 
-            inflater.setInput(buf,0,read); 
-            byte[] res = new byte[2048]; 
-            while (true) 
-            { 
-                int resRead = inflater.inflate(res); 
-                if (resRead != 0) 
-                { 
-                    out.write(res,0,resRead); 
-                    continue; 
-                } 
-                if (inflater.finished() || inflater.needsDictionary() || in.available() == 0) 
-                {
-                    break;
-                } 
-                read = in.read(buf); 
-                inflater.setInput(buf,0,read); 
-            }
-        }
-        out.flush();
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
+    {
+        return Predictor.wrapPredictor(new FlateInputStream(encoded),
+                getDecodeParams(parameters, index));
     }
     
     @Override
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An InputStream which inflates zlib/deflate compressed data. In contrast to
+ * {@link InflaterInputStream} a missing Z_STREAM_END doesn't cause an EOFException, see
+ * PDFBOX-1232 for details.
+ *
+ */
+final class FlateInputStream extends InflaterInputStream
+{
+    private static final int BUFFER_SIZE = 2048;
+
+    private boolean eof;
+
+    /**
+     * Constructor.
+     *
+     * @param in the compressed data
+     */
+    FlateInputStream(InputStream in)
+    {
+        super(in, new Inflater(), BUFFER_SIZE);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (eof)
+        {
+            return -1;
+        }
+        try
+        {
+            return super.read(b, off, len);
+        }
+        catch (EOFException e)
+        {
+            // the compressed data ended before Z_STREAM_END, treat it as end of data
+            eof = true;
+            return -1;
+        }
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        if (eof)
+        {
+            return 0;
+        }
+        return super.available();
+    }
+
+    /**
+     * Releases the inflater without closing the compressed stream.
+     */
+    void end()
+    {
+        inf.end();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        inf.end();
+        super.close();
+    }
+}
@@ -19,11 +19,13 @@ package org.apache.pdfbox_ai2.filter;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
@@ -50,24 +52,48 @@ public final class JPXFilter extends Filter
     @Override
     public DecodeResult decode(InputStream encoded, OutputStream decoded,
                                          COSDictionary parameters, int index) throws IOException
+    {
+        return decode(encoded, decoded, parameters, index, null);
+    }
+
+    @Override
+    public DecodeResult decode(InputStream encoded, OutputStream decoded,
+                               COSDictionary parameters, int index, DecodeOptions options)
+            throws IOException
     {
         DecodeResult result = new DecodeResult(new COSDictionary());
         result.getParameters().addAll(parameters);
-        BufferedImage image = readJPX(encoded, result);
+        Raster raster = readRaster(encoded, result, options);
+        DataBufferByte buffer = (DataBufferByte)raster.getDataBuffer();
+        decoded.write(buffer.getData());
 
-        WritableRaster raster = image.getRaster();
+        return result;
+    }
+
+    @Override
+    public Raster decodeRaster(InputStream encoded, COSDictionary parameters, int index,
+                               DecodeOptions options) throws IOException
+    {
+        DecodeResult result = new DecodeResult(new COSDictionary());
+        result.getParameters().addAll(parameters);
+        return readRaster(encoded, result, options);
+    }
+
+    // reads the image, only 8-bit samples are supported
+    private Raster readRaster(InputStream input, DecodeResult result, DecodeOptions options)
+            throws IOException
+    {
+        WritableRaster raster = readJPX(input, result, options).getRaster();
         if (raster.getDataBuffer().getDataType() != DataBuffer.TYPE_BYTE)
         {
             throw new IOException("Not implemented: greater than 8-bit depth");
         }
-        DataBufferByte buffer = (DataBufferByte)raster.getDataBuffer();
-        decoded.write(buffer.getData());
-
-        return result;
+        return raster;
     }
 
     // try to read using JAI Image I/O
-    private BufferedImage readJPX(InputStream input, DecodeResult result) throws IOException
+    private BufferedImage readJPX(InputStream input, DecodeResult result, DecodeOptions options)
+            throws IOException
     {
         ImageReader reader = findImageReader("JPEG2000", "Java Advanced Imaging (JAI) Image I/O Tools are not installed");
         ImageInputStream iis = null;
@@ -76,10 +102,25 @@ public final class JPXFilter extends Filter
             iis = ImageIO.createImageInputStream(input);
             reader.setInput(iis, true, true);
 
+            // let the JPEG 2000 decoder skip what is not needed
+            ImageReadParam param = null;
+            if (options != null &&
+                (options.getSourceRegion() != null || options.getSubsampling() > 1))
+            {
+                param = reader.getDefaultReadParam();
+                param.setSourceRegion(options.getSourceRegion());
+                param.setSourceSubsampling(options.getSubsampling(), options.getSubsampling(),
+                                           0, 0);
+            }
+
             BufferedImage image;
+            int width;
+            int height;
             try
             {
-                image = reader.read(0);
+                image = reader.read(0, param);
+                width = param == null ? image.getWidth() : reader.getWidth(0);
+                height = param == null ? image.getHeight() : reader.getHeight(0);
             }
             catch (Exception e)
             {
@@ -103,8 +144,8 @@ public final class JPXFilter extends Filter
             }
 
             // override dimensions, see PDFBOX-1735
-            parameters.setInt(COSName.WIDTH, image.getWidth());
-            parameters.setInt(COSName.HEIGHT, image.getHeight());
+            parameters.setInt(COSName.WIDTH, width);
+            parameters.setInt(COSName.HEIGHT, height);
 
             // extract embedded color space
             if (!parameters.containsKey(COSName.COLORSPACE))
@@ -112,6 +153,10 @@ public final class JPXFilter extends Filter
                 result.setColorSpace(new PDJPXColorSpace(image.getColorModel().getColorSpace()));
             }
 
+            if (param != null)
+            {
+                options.setFilterSubsampled(true);
+            }
             return image;
         }
         finally
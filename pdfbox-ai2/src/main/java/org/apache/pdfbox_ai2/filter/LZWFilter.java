@@ -15,9 +15,6 @@
  */
 package org.apache.pdfbox_ai2.filter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -25,13 +22,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import javax.imageio.stream.MemoryCacheImageInputStream;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
 import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.io.IOUtils;
 
 /**
  *
@@ -67,92 +64,31 @@ public class LZWFilter extends Filter
     public DecodeResult decode(InputStream encoded, OutputStream decoded,
             COSDictionary parameters, int index) throws IOException
     {
-        int predictor = -1;
-        int earlyChange = 1;
-
-        COSDictionary decodeParams = getDecodeParams(parameters, index);
-        if (decodeParams != null)
-        {
-            predictor = decodeParams.getInt(COSName.PREDICTOR);
-            earlyChange = decodeParams.getInt(COSName.EARLY_CHANGE, 1);
-            if (earlyChange != 0 && earlyChange != 1)
-            {
-                earlyChange = 1;
-            }
-        }
-        if (predictor > 1)
-        {
-            @SuppressWarnings("null")
-            int colors = Math.min(decodeParams.getInt(COSName.COLORS, 1), 32);
-            int bitsPerPixel = decodeParams.getInt(COSName.BITS_PER_COMPONENT, 8);
-            int columns = decodeParams.getInt(COSName.COLUMNS, 1);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            doLZWDecode(encoded, baos, earlyChange);
-            ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-            Predictor.decodePredictor(predictor, colors, bitsPerPixel, columns, bais, decoded);
-            decoded.flush();
-            baos.reset();
-            bais.reset();
-        }
-        else
-        {
-            doLZWDecode(encoded, decoded, earlyChange);
-        }
+        IOUtils.copy(decodeStream(encoded, parameters, index), decoded);
+        decoded.flush();
         return new DecodeResult(parameters);
     }
 
-    private void doLZWDecode(InputStream encoded, OutputStream decoded, int earlyChange) throws IOException
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
     {
-        List<byte[]> codeTable = new ArrayList<byte[]>();
-        int chunk = 9;
-        final MemoryCacheImageInputStream in = new MemoryCacheImageInputStream(encoded);
-        long nextCommand;
-        long prevCommand = -1;
+        COSDictionary decodeParams = getDecodeParams(parameters, index);
+        return Predictor.wrapPredictor(new LZWInputStream(encoded, getEarlyChange(decodeParams)),
+                decodeParams);
+    }
 
-        try
-        {
-            while ((nextCommand = in.readBits(chunk)) != EOD)
-            {
-                if (nextCommand == CLEAR_TABLE)
-                {
-                    chunk = 9;
-                    codeTable = createCodeTable();
-                    prevCommand = -1;
-                }
-                else
-                {
-                    if (nextCommand < codeTable.size())
-                    {
-                        byte[] data = codeTable.get((int) nextCommand);
-                        byte firstByte = data[0];
-                        decoded.write(data);
-                        if (prevCommand != -1)
-                        {
-                            data = codeTable.get((int) prevCommand);
-                            byte[] newData = Arrays.copyOf(data, data.length + 1);
-                            newData[data.length] = firstByte;
-                            codeTable.add(newData);
-                        }
-                    }
-                    else
-                    {
-                        byte[] data = codeTable.get((int) prevCommand);
-                        byte[] newData = Arrays.copyOf(data, data.length + 1);
-                        newData[data.length] = data[0];
-                        decoded.write(newData);
-                        codeTable.add(newData);
-                    }
-                    
-                    chunk = calculateChunk(codeTable.size(), earlyChange);
-                    prevCommand = nextCommand;
-                }
-            }
-        }
-        catch (EOFException ex)
+    private int getEarlyChange(COSDictionary decodeParams)
+    {
+        int earlyChange = decodeParams.getInt(COSName.EARLY_CHANGE, 1);
+        if (earlyChange != 0 && earlyChange != 1)
         {
-            LOG.warn("Premature EOF in LZW stream, EOD code missing");
+            earlyChange = 1;
         }
-        decoded.flush();
+        return earlyChange;
     }
 
     /**
@@ -272,7 +208,7 @@ public class LZWFilter extends Filter
      * Init the code table with 1 byte entries and the EOD and CLEAR_TABLE
      * markers.
      */
-    private List<byte[]> createCodeTable()
+    static List<byte[]> createCodeTable()
     {
         List<byte[]> codeTable = new ArrayList<byte[]>(4096);
         for (int i = 0; i < 256; ++i)
@@ -292,7 +228,7 @@ public class LZWFilter extends Filter
      *
      * @return a value between 9 and 12
      */
-    private int calculateChunk(int tabSize, int earlyChange)
+    static int calculateChunk(int tabSize, int earlyChange)
     {
         if (tabSize >= 2048 - earlyChange)
         {
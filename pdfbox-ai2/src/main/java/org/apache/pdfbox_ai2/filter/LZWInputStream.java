@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * An InputStream which decodes LZW compressed data one code at a time while it is read.
+ *
+ */
+final class LZWInputStream extends FilterInputStream
+{
+    private static final Log LOG = LogFactory.getLog(LZWInputStream.class);
+
+    private final int earlyChange;
+
+    private List<byte[]> codeTable;
+    private int chunk = 9;
+    private long prevCommand = -1;
+
+    // bits read from the underlying stream which haven't been consumed so far
+    private long bitBuffer;
+    private int bitCount;
+
+    // the decoded data of the current code
+    private byte[] data;
+    private int position;
+    private boolean eof;
+
+    /**
+     * Constructor.
+     *
+     * @param in the LZW compressed data
+     * @param earlyChange 0 or 1 for early chunk increase
+     */
+    LZWInputStream(InputStream in, int earlyChange)
+    {
+        super(in);
+        this.earlyChange = earlyChange;
+        codeTable = LZWFilter.createCodeTable();
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if ((data == null || position >= data.length) && !fetchCode())
+        {
+            return -1;
+        }
+        return data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int total = 0;
+        while (total < len)
+        {
+            if ((data == null || position >= data.length) && !fetchCode())
+            {
+                break;
+            }
+            int n = Math.min(len - total, data.length - position);
+            System.arraycopy(data, position, b, off + total, n);
+            position += n;
+            total += n;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < n)
+        {
+            if ((data == null || position >= data.length) && !fetchCode())
+            {
+                break;
+            }
+            int count = (int) Math.min(n - skipped, data.length - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return data == null ? 0 : data.length - position;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    // decodes the next code which produces data, returns false at the end of the data
+    private boolean fetchCode() throws IOException
+    {
+        while (!eof)
+        {
+            long nextCommand = readBits(chunk);
+            if (nextCommand == -1)
+            {
+                LOG.warn("Premature EOF in LZW stream, EOD code missing");
+                eof = true;
+            }
+            else if (nextCommand == LZWFilter.EOD)
+            {
+                eof = true;
+            }
+            else if (nextCommand == LZWFilter.CLEAR_TABLE)
+            {
+                chunk = 9;
+                codeTable = LZWFilter.createCodeTable();
+                prevCommand = -1;
+            }
+            else
+            {
+                if (nextCommand < codeTable.size())
+                {
+                    data = codeTable.get((int) nextCommand);
+                    byte firstByte = data[0];
+                    if (prevCommand != -1)
+                    {
+                        byte[] prevData = codeTable.get((int) prevCommand);
+                        byte[] newData = Arrays.copyOf(prevData, prevData.length + 1);
+                        newData[prevData.length] = firstByte;
+                        codeTable.add(newData);
+                    }
+                }
+                else
+                {
+                    byte[] prevData = codeTable.get((int) prevCommand);
+                    byte[] newData = Arrays.copyOf(prevData, prevData.length + 1);
+                    newData[prevData.length] = prevData[0];
+                    codeTable.add(newData);
+                    data = newData;
+                }
+                position = 0;
+
+                chunk = LZWFilter.calculateChunk(codeTable.size(), earlyChange);
+                prevCommand = nextCommand;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // reads the given number of bits (MSB first), returns -1 if there aren't enough bits left
+    private long readBits(int numBits) throws IOException
+    {
+        while (bitCount < numBits)
+        {
+            int b = in.read();
+            if (b == -1)
+            {
+                return -1;
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
+        }
+        bitCount -= numBits;
+        return (bitBuffer >>> bitCount) & ((1L << numBits) - 1);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream which undoes TIFF or PNG prediction row by row while the data is read, so that
+ * only two rows have to be kept in memory.
+ *
+ */
+final class PredictorInputStream extends FilterInputStream
+{
+    private final int predictor;
+    private final int colors;
+    private final int bitsPerComponent;
+    private final int columns;
+
+    private final byte[] actline;
+    private final byte[] lastline;
+    private int position;
+    private boolean eof;
+
+    /**
+     * Constructor.
+     *
+     * @param in the predicted data
+     * @param predictor the predictor, 2 for TIFF or 10 to 15 for PNG predictors
+     * @param colors the number of color components per pixel
+     * @param bitsPerComponent the number of bits per color component
+     * @param columns the number of pixels per row
+     */
+    PredictorInputStream(InputStream in, int predictor, int colors, int bitsPerComponent,
+            int columns)
+    {
+        super(in);
+        this.predictor = predictor;
+        this.colors = colors;
+        this.bitsPerComponent = bitsPerComponent;
+        this.columns = columns;
+        int rowlength = (columns * colors * bitsPerComponent + 7) / 8;
+        actline = new byte[rowlength];
+        lastline = new byte[rowlength];
+        position = rowlength;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (position >= actline.length && !fetchRow())
+        {
+            return -1;
+        }
+        return actline[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int total = 0;
+        while (total < len)
+        {
+            if (position >= actline.length && !fetchRow())
+            {
+                break;
+            }
+            int n = Math.min(len - total, actline.length - position);
+            System.arraycopy(actline, position, b, off + total, n);
+            position += n;
+            total += n;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < n)
+        {
+            if (position >= actline.length && !fetchRow())
+            {
+                break;
+            }
+            int count = (int) Math.min(n - skipped, actline.length - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return actline.length - position;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    // reads and decodes the next row, returns false at the end of the data
+    private boolean fetchRow() throws IOException
+    {
+        if (eof || actline.length == 0)
+        {
+            return false;
+        }
+        int linepredictor = predictor;
+        // test for PNG predictor; each value >= 10 (not only 15) indicates usage of PNG predictor
+        if (predictor >= 10)
+        {
+            // PNG predictor; each row starts with predictor type (0, 1, 2, 3, 4)
+            // read per line predictor
+            linepredictor = in.read();
+            if (linepredictor == -1)
+            {
+                eof = true;
+                return false;
+            }
+            // add 10 to tread value 0 as 10, 1 as 11, ...
+            linepredictor += 10;
+        }
+
+        // the previous decoded row becomes the prior row of the PNG predictors, a truncated
+        // last row keeps the content of the previous row
+        System.arraycopy(actline, 0, lastline, 0, actline.length);
+
+        // read line
+        int i, offset = 0;
+        while (offset < actline.length && ((i = in.read(actline, offset, actline.length - offset)) != -1))
+        {
+            offset += i;
+        }
+        if (offset < actline.length)
+        {
+            eof = true;
+            if (offset == 0 && predictor < 10)
+            {
+                return false;
+            }
+        }
+
+        Predictor.decodePredictorRow(linepredictor, colors, bitsPerComponent, columns, actline,
+                lastline);
+        position = 0;
+        return true;
+    }
+}
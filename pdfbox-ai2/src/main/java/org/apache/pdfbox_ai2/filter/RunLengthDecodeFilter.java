@@ -22,6 +22,7 @@ import java.io.OutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.io.IOUtils;
 
 /**
  * Decompresses data encoded using a byte-oriented run-length encoding algorithm,
@@ -32,39 +33,23 @@ import org.apache.pdfbox_ai2.cos.COSDictionary;
 final class RunLengthDecodeFilter extends Filter
 {
     private static final Log LOG = LogFactory.getLog(RunLengthDecodeFilter.class);
-    private static final int RUN_LENGTH_EOD = 128;
 
     @Override
     public DecodeResult decode(InputStream encoded, OutputStream decoded,
                                          COSDictionary parameters, int index) throws IOException
     {
-        int dupAmount;
-        byte[] buffer = new byte[128];
-        while ((dupAmount = encoded.read()) != -1 && dupAmount != RUN_LENGTH_EOD)
-        {
-            if (dupAmount <= 127)
-            {
-                int amountToCopy = dupAmount + 1;
-                int compressedRead;
-                while(amountToCopy > 0)
-                {
-                    compressedRead = encoded.read(buffer, 0, amountToCopy);
-                    decoded.write(buffer, 0, compressedRead);
-                    amountToCopy -= compressedRead;
-                }
-            }
-            else
-            {
-                int dupByte = encoded.read();
-                for (int i = 0; i < 257 - dupAmount; i++)
-                {
-                    decoded.write(dupByte);
-                }
-            }
-        }
+        IOUtils.copy(new RunLengthDecodeInputStream(encoded), decoded);
+        decoded.flush();
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
+    {
+        return new RunLengthDecodeInputStream(encoded);
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
             throws IOException
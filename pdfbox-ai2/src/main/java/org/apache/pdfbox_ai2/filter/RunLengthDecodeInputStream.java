@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * An InputStream which decodes run-length encoded data while it is read.
+ *
+ */
+final class RunLengthDecodeInputStream extends FilterInputStream
+{
+    private static final int RUN_LENGTH_EOD = 128;
+
+    // number of bytes left to be copied from the underlying stream
+    private int literalCount;
+    // number of times left to repeat repeatByte
+    private int repeatCount;
+    private int repeatByte;
+    private boolean eof;
+
+    /**
+     * Constructor.
+     *
+     * @param in the run-length encoded data
+     */
+    RunLengthDecodeInputStream(InputStream in)
+    {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!fetchRun())
+        {
+            return -1;
+        }
+        if (repeatCount > 0)
+        {
+            repeatCount--;
+            return repeatByte;
+        }
+        int b = in.read();
+        if (b == -1)
+        {
+            eof = true;
+            literalCount = 0;
+            return -1;
+        }
+        literalCount--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int total = 0;
+        while (total < len && fetchRun())
+        {
+            if (repeatCount > 0)
+            {
+                int n = Math.min(len - total, repeatCount);
+                Arrays.fill(b, off + total, off + total + n, (byte) repeatByte);
+                repeatCount -= n;
+                total += n;
+            }
+            else
+            {
+                int n = in.read(b, off + total, Math.min(len - total, literalCount));
+                if (n == -1)
+                {
+                    eof = true;
+                    literalCount = 0;
+                    break;
+                }
+                literalCount -= n;
+                total += n;
+            }
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < n && read() != -1)
+        {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return repeatCount > 0 ? repeatCount : Math.min(literalCount, in.available());
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    // reads the next length byte if the current run is exhausted, returns false at the end
+    private boolean fetchRun() throws IOException
+    {
+        while (literalCount == 0 && repeatCount == 0)
+        {
+            if (eof)
+            {
+                return false;
+            }
+            int dupAmount = in.read();
+            if (dupAmount == -1 || dupAmount == RUN_LENGTH_EOD)
+            {
+                eof = true;
+                return false;
+            }
+            if (dupAmount <= 127)
+            {
+                literalCount = dupAmount + 1;
+            }
+            else
+            {
+                repeatByte = in.read();
+                if (repeatByte == -1)
+                {
+                    eof = true;
+                    return false;
+                }
+                repeatCount = 257 - dupAmount;
+            }
+        }
+        return true;
+    }
+}
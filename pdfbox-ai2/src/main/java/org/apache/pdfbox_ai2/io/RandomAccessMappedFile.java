@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read only implementation of the RandomAccessRead interface which maps the whole file into
+ * memory using {@link FileChannel#map}. Files larger than the maximum size of a single mapping
+ * are split into several segments.
+ * 
+ * There is no intermediate page cache, data is copied directly from the mapped buffers into the
+ * target array. An instance keeps its own read position and is not thread safe, but the mapped
+ * segments can be shared by several threads: use {@link #createView()} to get an independent
+ * reader for each thread.
+ * 
+ * The mapping is released by the garbage collector after the last view has been closed, so on
+ * some platforms the file can't be deleted or replaced immediately after closing.
+ */
+public class RandomAccessMappedFile implements RandomAccessRead
+{
+    // segments of 1 GB, a power of two keeps the index calculation cheap
+    private static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long fileLength;
+    // mapped segments, shared with all views of the same file
+    private final MappedByteBuffer[] mappedSegments;
+    // private duplicates of the mapped segments, used for relative bulk reads
+    private ByteBuffer[] segments;
+    private long position;
+
+    /**
+     * Create a random access read instance for the file with the given name.
+     *
+     * @param filename the filename of the file to be read.
+     * @throws IOException if something went wrong while mapping the given file.
+     */
+    public RandomAccessMappedFile(String filename) throws IOException
+    {
+        this(new File(filename));
+    }
+
+    /**
+     * Create a random access read instance for the given file.
+     *
+     * @param file the file to be read.
+     * @throws IOException if something went wrong while mapping the given file.
+     */
+    public RandomAccessMappedFile(File file) throws IOException
+    {
+        this(file, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Create a random access read instance for the given file using segments of the given size.
+     *
+     * @param file the file to be read.
+     * @param segmentShift the size of a single segment as power of two.
+     * @throws IOException if something went wrong while mapping the given file.
+     */
+    RandomAccessMappedFile(File file, int segmentShift) throws IOException
+    {
+        if (segmentShift < 1 || segmentShift > DEFAULT_SEGMENT_SHIFT)
+        {
+            throw new IllegalArgumentException("Invalid segment shift " + segmentShift);
+        }
+        this.segmentShift = segmentShift;
+        segmentMask = (1L << segmentShift) - 1;
+        RandomAccessFile raFile = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raFile.getChannel();
+            fileLength = channel.size();
+            long segmentSize = 1L << segmentShift;
+            int segmentCount = (int) ((fileLength + segmentSize - 1) >>> segmentShift);
+            mappedSegments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++)
+            {
+                long offset = (long) i << segmentShift;
+                mappedSegments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(segmentSize, fileLength - offset));
+            }
+        }
+        finally
+        {
+            // the mapping stays valid after the channel has been closed
+            raFile.close();
+        }
+        segments = duplicateSegments();
+    }
+
+    private RandomAccessMappedFile(RandomAccessMappedFile source)
+    {
+        segmentShift = source.segmentShift;
+        segmentMask = source.segmentMask;
+        fileLength = source.fileLength;
+        mappedSegments = source.mappedSegments;
+        segments = duplicateSegments();
+    }
+
+    private ByteBuffer[] duplicateSegments()
+    {
+        ByteBuffer[] duplicates = new ByteBuffer[mappedSegments.length];
+        for (int i = 0; i < mappedSegments.length; i++)
+        {
+            duplicates[i] = mappedSegments[i].duplicate();
+        }
+        return duplicates;
+    }
+
+    /**
+     * Creates a new reader sharing the mapped data of this instance. The new reader starts at
+     * position 0 and has its own position, so it can be used by another thread. Closing one view
+     * doesn't affect the others.
+     *
+     * @return a new reader for the same file.
+     * @throws IOException if this reader has been closed.
+     */
+    public RandomAccessMappedFile createView() throws IOException
+    {
+        checkClosed();
+        return new RandomAccessMappedFile(this);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        checkClosed();
+        if (position >= fileLength)
+        {
+            return -1;
+        }
+        int b = segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask));
+        position++;
+        return b & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException
+    {
+        checkClosed();
+        if (position >= fileLength)
+        {
+            return -1;
+        }
+        int bytesToRead = (int) Math.min(length, fileLength - position);
+        int bytesRead = 0;
+        while (bytesRead < bytesToRead)
+        {
+            ByteBuffer segment = segments[(int) (position >>> segmentShift)];
+            segment.position((int) (position & segmentMask));
+            int count = Math.min(bytesToRead - bytesRead, segment.remaining());
+            segment.get(b, offset + bytesRead, count);
+            bytesRead += count;
+            position += count;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+        checkClosed();
+        if (position < 0)
+        {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return fileLength;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        segments = null;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return segments == null;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        checkClosed();
+        if (position >= fileLength)
+        {
+            return -1;
+        }
+        return segments[(int) (position >>> segmentShift)].get((int) (position & segmentMask))
+                & 0xff;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        seek(position - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        byte[] b = new byte[length];
+        if (length > 0 && read(b, 0, length) < length)
+        {
+            throw new EOFException("Premature end of file");
+        }
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return position >= fileLength;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.max(0, Math.min(fileLength - position, Integer.MAX_VALUE));
+    }
+
+    private void checkClosed() throws IOException
+    {
+        if (segments == null)
+        {
+            throw new IOException("RandomAccessMappedFile already closed");
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.pdfbox_ai2.multipdf;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
@@ -113,9 +114,7 @@ class PDFCloneUtility
           {
               COSStream originalStream = (COSStream)base;
               COSStream stream = destination.getDocument().createCOSStream();
-              OutputStream output = stream.createOutputStream(originalStream.getFilters());
-              IOUtils.copy( originalStream.createInputStream(), output );
-              output.close();
+              copyRawData( originalStream, stream );
               clonedVersion.put( base, stream );
               for( Map.Entry<COSName, COSBase> entry :  originalStream.entrySet() )
               {
@@ -195,9 +194,7 @@ class PDFCloneUtility
             // does that make sense???
               COSStream originalStream = (COSStream)base;
               COSStream stream = destination.getDocument().createCOSStream();
-              OutputStream output = stream.createOutputStream(originalStream.getFilters());
-              IOUtils.copy( originalStream.createInputStream(), output );
-              output.close();
+              copyRawData( originalStream, stream );
               clonedVersion.put( base, stream );
               for( Map.Entry<COSName, COSBase> entry : originalStream.entrySet() )
               {
@@ -232,4 +229,32 @@ class PDFCloneUtility
           clonedVersion.put( base, retval );
       }
 
+      /**
+       * Copies the encoded data of a stream. The clone has the same filters, so the data doesn't
+       * need to be decoded and encoded again. Stream data is never encrypted in memory, it is
+       * decrypted by the parser and encrypted by the writer if the destination is encrypted.
+       * @param source the stream to copy
+       * @param target the clone of the stream
+       * @throws IOException if an I/O error occurs
+       */
+      private static void copyRawData( COSStream source, COSStream target ) throws IOException
+      {
+          InputStream input = source.createRawInputStream();
+          try
+          {
+              OutputStream output = target.createRawOutputStream();
+              try
+              {
+                  IOUtils.copy( input, output );
+              }
+              finally
+              {
+                  output.close();
+              }
+          }
+          finally
+          {
+              input.close();
+          }
+      }
 }
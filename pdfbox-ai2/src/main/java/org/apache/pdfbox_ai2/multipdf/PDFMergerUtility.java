@@ -19,14 +19,23 @@ package org.apache.pdfbox_ai2.multipdf;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.pdfbox_ai2.cos.COSArray;
 import org.apache.pdfbox_ai2.cos.COSBase;
@@ -34,8 +43,10 @@ import org.apache.pdfbox_ai2.cos.COSDictionary;
 import org.apache.pdfbox_ai2.cos.COSInteger;
 import org.apache.pdfbox_ai2.cos.COSName;
 import org.apache.pdfbox_ai2.cos.COSNumber;
+import org.apache.pdfbox_ai2.cos.COSObject;
 import org.apache.pdfbox_ai2.cos.COSStream;
 import org.apache.pdfbox_ai2.cos.COSString;
+import org.apache.pdfbox_ai2.pdfwriter.COSWriter;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox_ai2.pdmodel.PDDocumentInformation;
@@ -46,7 +57,6 @@ import org.apache.pdfbox_ai2.pdmodel.PDResources;
 import org.apache.pdfbox_ai2.pdmodel.PageMode;
 import org.apache.pdfbox_ai2.pdmodel.common.COSArrayList;
 import org.apache.pdfbox_ai2.pdmodel.common.PDNumberTreeNode;
-import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
 import org.apache.pdfbox_ai2.pdmodel.documentinterchange.logicalstructure.PDMarkInfo;
 import org.apache.pdfbox_ai2.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
 import org.apache.pdfbox_ai2.pdmodel.interactive.annotation.PDAnnotation;
@@ -70,6 +80,7 @@ public class PDFMergerUtility
     private String destinationFileName;
     private OutputStream destinationStream;
     private boolean ignoreAcroFormErrors = false;
+    private boolean streaming = false;
 
     /**
      * Instantiate a new PDFMergerUtility.
@@ -175,27 +186,84 @@ public class PDFMergerUtility
      * @throws IOException If there is an error saving the document.
      */
     public void mergeDocuments(boolean useScratchFiles) throws IOException
+    {
+        mergeDocuments(useScratchFiles, null);
+    }
+
+    /**
+     * Merge the list of source documents, saving the result in the destination file. The sources
+     * are loaded, and their pages, root form fields and outline items are cloned concurrently on
+     * the given executor. Appending them to the destination and writing the result is done on the
+     * calling thread and in the order of the sources, so the page order, the outline order and
+     * the names given to conflicting form fields are the same as when merging sequentially. Only a
+     * few sources per processor are loaded ahead, which also holds in streaming mode.
+     *
+     * @param useScratchFiles enables the usage of a scratch file if set to true
+     * @param executor the executor which loads and clones the sources, or null to do this on the
+     * calling thread
+     * @throws IOException If there is an error saving the document.
+     */
+    public void mergeDocuments(boolean useScratchFiles, Executor executor) throws IOException
     {
         PDDocument destination = null;
-        InputStream sourceFile;
-        PDDocument source;
+        COSWriter writer = null;
         if (sources != null && sources.size() > 0)
         {
             List<PDDocument> tobeclosed = new ArrayList<PDDocument>();
+            LinkedList<Future<ClonedSource>> pending = new LinkedList<Future<ClonedSource>>();
 
             try
             {
-                Iterator<InputStream> sit = sources.iterator();
                 destination = new PDDocument(useScratchFiles);
+                if (streaming)
+                {
+                    OutputStream output = destinationStream == null
+                            ? new FileOutputStream(destinationFileName) : destinationStream;
+                    writer = new COSWriter(output);
+                    writer.writeHeader(destination);
+                }
 
-                while (sit.hasNext())
+                int window = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+                int next = 0;
+                for (int i = 0; i < sources.size(); i++)
                 {
-                    sourceFile = sit.next();
-                    source = PDDocument.load(sourceFile, useScratchFiles);
+                    PDDocument source;
+                    PDFCloneUtility cloner;
+                    if (executor == null)
+                    {
+                        source = PDDocument.load(sources.get(i), useScratchFiles);
+                        cloner = new PDFCloneUtility(destination);
+                    }
+                    else
+                    {
+                        while (next < sources.size() && next - i < window)
+                        {
+                            FutureTask<ClonedSource> task = new FutureTask<ClonedSource>(
+                                    new SourceCloner(destination, sources.get(next), useScratchFiles));
+                            pending.add(task);
+                            executor.execute(task);
+                            next++;
+                        }
+                        ClonedSource cloned = getClonedSource(pending.removeFirst());
+                        source = cloned.source;
+                        cloner = cloned.cloner;
+                    }
                     tobeclosed.add(source);
-                    appendDocument(destination, source);
+                    appendDocument(destination, source, cloner);
+                    if (streaming)
+                    {
+                        // the cloned objects may still refer to the source, e.g. the open action,
+                        // so write them before closing it
+                        writer.writeObjects(getRetainedObjects(destination));
+                        tobeclosed.remove(source);
+                        source.close();
+                    }
+                }
+                if (streaming)
+                {
+                    writer.write(destination);
                 }
-                if (destinationStream == null)
+                else if (destinationStream == null)
                 {
                     destination.save(destinationFileName);
                 }
@@ -206,6 +274,15 @@ public class PDFMergerUtility
             }
             finally
             {
+                // only non-empty if merging failed
+                for (Future<ClonedSource> task : pending)
+                {
+                    closeClonedSource(task);
+                }
+                if (writer != null)
+                {
+                    writer.close();
+                }
                 if (destination != null)
                 {
                     destination.close();
@@ -222,6 +299,270 @@ public class PDFMergerUtility
         }
     }
 
+    /**
+     * A source which has been loaded and partly cloned for the destination by a worker thread.
+     */
+    private static final class ClonedSource
+    {
+        private final PDDocument source;
+        private final PDFCloneUtility cloner;
+
+        private ClonedSource(PDDocument source, PDFCloneUtility cloner)
+        {
+            this.source = source;
+            this.cloner = cloner;
+        }
+    }
+
+    /**
+     * Loads a source and clones the parts which {@link #appendDocument(PDDocument, PDDocument)}
+     * clones whatever the destination looks like: the pages with their resources, the root form
+     * fields, the top level outline items and the page labels. Everything which depends on the
+     * destination, i.e. on the sources before this one, is left to the calling thread, which
+     * gets the clones from the cloner.
+     */
+    private static final class SourceCloner implements Callable<ClonedSource>
+    {
+        private final PDDocument destination;
+        private final InputStream input;
+        private final boolean useScratchFiles;
+
+        private SourceCloner(PDDocument destination, InputStream input, boolean useScratchFiles)
+        {
+            this.destination = destination;
+            this.input = input;
+            this.useScratchFiles = useScratchFiles;
+        }
+
+        @Override
+        public ClonedSource call() throws IOException
+        {
+            PDDocument source = PDDocument.load(input, useScratchFiles);
+            try
+            {
+                // the streams are created in the scratch file of the destination, which is
+                // thread safe
+                PDFCloneUtility cloner = new PDFCloneUtility(destination);
+                if (!source.isEncrypted())
+                {
+                    PDDocumentCatalog catalog = source.getDocumentCatalog();
+                    for (PDPage page : catalog.getPages())
+                    {
+                        cloner.cloneForNewDocument(page.getCOSObject());
+                        cloner.cloneForNewDocument(page.getResources());
+                    }
+                    PDAcroForm acroForm = catalog.getAcroForm();
+                    if (acroForm != null && !acroForm.xfaIsDynamic())
+                    {
+                        for (PDField field : acroForm.getFields())
+                        {
+                            cloner.cloneForNewDocument(field.getCOSObject());
+                        }
+                    }
+                    PDDocumentOutline outline = catalog.getDocumentOutline();
+                    if (outline != null)
+                    {
+                        for (PDOutlineItem item : outline.children())
+                        {
+                            cloner.cloneForNewDocument(item.getCOSObject());
+                        }
+                    }
+                    COSDictionary labels = (COSDictionary) catalog.getCOSObject()
+                            .getDictionaryObject(COSName.PAGE_LABELS);
+                    COSArray nums = labels == null ? null
+                            : (COSArray) labels.getDictionaryObject(COSName.NUMS);
+                    if (nums != null)
+                    {
+                        for (int i = 1; i < nums.size(); i += 2)
+                        {
+                            cloner.cloneForNewDocument(nums.getObject(i));
+                        }
+                    }
+                }
+                return new ClonedSource(source, cloner);
+            }
+            catch (IOException e)
+            {
+                source.close();
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                source.close();
+                throw e;
+            }
+        }
+    }
+
+    // waits for a source cloned by a SourceCloner and unwraps any failure
+    private static ClonedSource getClonedSource(Future<ClonedSource> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading a source");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // cancels a source which won't be appended, or waits for it to be loaded and closes it
+    private static void closeClonedSource(Future<ClonedSource> future)
+    {
+        if (!future.cancel(false))
+        {
+            try
+            {
+                future.get().source.close();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException e)
+            {
+                // already reported by getClonedSource() or superseded by an earlier failure
+            }
+            catch (IOException e)
+            {
+                // closing, nothing to do
+            }
+        }
+    }
+
+    /**
+     * Collects the objects of the destination which {@link #appendDocument(PDDocument, PDDocument)}
+     * may read or modify when the next source is appended. Everything else can be written.
+     *
+     * @param destination the document receiving the pages
+     * @return the objects to keep in memory
+     */
+    private Set<COSBase> getRetainedObjects(PDDocument destination)
+    {
+        Set<COSBase> retained = new LinkedHashSet<COSBase>();
+        PDDocumentCatalog catalog = destination.getDocumentCatalog();
+        COSDictionary catalogDict = catalog.getCOSObject();
+        retained.add(catalogDict);
+        retained.add(destination.getDocumentInformation().getCOSObject());
+        retained.add(catalog.getPages().getCOSObject());
+
+        // single objects which are tested for existence or modified in place
+        COSName[] keys = { COSName.OPEN_ACTION, COSName.METADATA, COSName.MARK_INFO,
+                COSName.PAGE_LABELS };
+        for (COSName key : keys)
+        {
+            COSBase value = catalogDict.getDictionaryObject(key);
+            if (value instanceof COSDictionary)
+            {
+                retained.add(value);
+            }
+        }
+
+        // new items are appended to the top level of the outline
+        PDDocumentOutline outline = catalog.getDocumentOutline();
+        if (outline != null)
+        {
+            retained.add(outline.getCOSObject());
+            for (PDOutlineItem item : outline.children())
+            {
+                retained.add(item.getCOSObject());
+            }
+        }
+
+        // the names of the root fields are checked for conflicts
+        PDAcroForm acroForm = catalog.getAcroForm();
+        if (acroForm != null)
+        {
+            retained.add(acroForm.getCOSObject());
+            COSArray fields = (COSArray) acroForm.getCOSObject().getDictionaryObject(COSName.FIELDS);
+            if (fields != null)
+            {
+                for (int i = 0; i < fields.size(); i++)
+                {
+                    COSBase field = fields.getObject(i);
+                    if (field instanceof COSDictionary)
+                    {
+                        retained.add(field);
+                    }
+                }
+            }
+        }
+
+        // the top level elements are moved below a new element and the parent tree is extended
+        PDStructureTreeRoot structTree = catalog.getStructureTreeRoot();
+        if (structTree != null)
+        {
+            retained.add(structTree.getCOSObject());
+            COSBase k = structTree.getCOSObject().getDictionaryObject(COSName.K);
+            if (k instanceof COSDictionary)
+            {
+                retained.add(k);
+            }
+            COSArray kArray = structTree.getKArray();
+            if (kArray != null)
+            {
+                for (int i = 0; i < kArray.size(); i++)
+                {
+                    COSBase element = kArray.getObject(i);
+                    if (element instanceof COSDictionary)
+                    {
+                        retained.add(element);
+                    }
+                }
+            }
+            PDNumberTreeNode parentTree = structTree.getParentTree();
+            if (parentTree != null)
+            {
+                retained.add(parentTree.getCOSObject());
+            }
+        }
+
+        // the name trees are merged with PDFCloneUtility.cloneMerge()
+        addMergedDictionaries(retained, catalogDict.getItem(COSName.NAMES));
+        addMergedDictionaries(retained, catalogDict.getItem(COSName.DESTS));
+        return retained;
+    }
+
+    /**
+     * Adds a dictionary and all dictionaries reachable from it via dictionary entries, which is
+     * what PDFCloneUtility.cloneMerge() merges into. Arrays are only appended to.
+     */
+    private void addMergedDictionaries(Set<COSBase> retained, COSBase base)
+    {
+        if (base instanceof COSObject)
+        {
+            base = ((COSObject) base).getObject();
+        }
+        if (base instanceof COSDictionary && !(base instanceof COSStream)
+                && !COSName.PAGE.equals(((COSDictionary) base).getCOSName(COSName.TYPE))
+                && retained.add(base))
+        {
+            for (COSBase value : ((COSDictionary) base).getValues())
+            {
+                addMergedDictionaries(retained, value);
+            }
+        }
+    }
+
     /**
      * append all pages from source to destination.
      *
@@ -232,6 +573,23 @@ public class PDFMergerUtility
      * document.
      */
     public void appendDocument(PDDocument destination, PDDocument source) throws IOException
+    {
+        appendDocument(destination, source, new PDFCloneUtility(destination));
+    }
+
+    /**
+     * append all pages from source to destination, using a cloner which may already hold clones
+     * of the source.
+     *
+     * @param destination the document to receive the pages
+     * @param source the document originating the new pages
+     * @param cloner the object cloner for the destination document
+     *
+     * @throws IOException If there is an error accessing data from either
+     * document.
+     */
+    private void appendDocument(PDDocument destination, PDDocument source, PDFCloneUtility cloner)
+            throws IOException
     {
         if (source.getDocument().isClosed())
         {
@@ -278,8 +636,6 @@ public class PDFMergerUtility
             destCatalog.setOpenAction(srcCatalog.getOpenAction());
         }
 
-        PDFCloneUtility cloner = new PDFCloneUtility(destination);
-
         try
         {
             PDAcroForm destAcroForm = destCatalog.getAcroForm();
@@ -415,9 +771,8 @@ public class PDFMergerUtility
         COSStream srcMetadata = (COSStream) srcCatalog.getCOSObject().getDictionaryObject(COSName.METADATA);
         if (destMetadata == null && srcMetadata != null)
         {
-            PDStream newStream = new PDStream(destination, srcMetadata.createInputStream(), COSName.FLATE_DECODE);
-            newStream.getStream().mergeInto(srcMetadata);
-            destCatalog.getCOSObject().setItem(COSName.METADATA, newStream);
+            destCatalog.getCOSObject().setItem(COSName.METADATA,
+                    cloner.cloneForNewDocument(srcMetadata));
         }
 
         // merge logical structure hierarchy if logical structure information is available in both source pdf and
@@ -564,6 +919,32 @@ public class PDFMergerUtility
         }
     }
 
+    /**
+     * Indicates if the merged document is written in streaming mode.
+     *
+     * @return true if the merged document is written in streaming mode
+     */
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * Set to true to write the merged document in streaming mode. The objects of each source are
+     * written to the destination as soon as the source has been appended, and the source is closed
+     * right away. Only the catalog, the page tree root, the top level outline items, the root
+     * fields of the AcroForm, the top of the structure tree and the name tree nodes are kept in
+     * memory until the end, so that thousands of sources can be merged with bounded memory. This
+     * only applies to the mergeDocuments methods, and the result is equivalent to the one written
+     * in the default mode.
+     *
+     * @param streaming true if the merged document should be written in streaming mode
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
     /**
      * Indicates if acroform errors are ignored or not.
      *
@@ -115,6 +115,11 @@ public abstract class BaseParser
      */
     protected final SequentialSource seqSource;
 
+    /**
+     * Reusable buffer for the characters of number tokens.
+     */
+    protected final StringBuilder numberBuffer = new StringBuilder(32);
+
     /**
      * This is the document that will be parsed.
      */
@@ -908,7 +913,8 @@ public abstract class BaseParser
         {
             if( Character.isDigit(c) || c == '-' || c == '+' || c == '.')
             {
-                StringBuilder buf = new StringBuilder();
+                StringBuilder buf = numberBuffer;
+                buf.setLength(0);
                 int ic = seqSource.read();
                 c = (char)ic;
                 while( Character.isDigit( c )||
@@ -926,7 +932,7 @@ public abstract class BaseParser
                 {
                     seqSource.unread(ic);
                 }
-                retval = COSNumber.get( buf.toString() );
+                retval = createNumber( buf );
             }
             else
             {
@@ -1289,6 +1295,40 @@ public abstract class BaseParser
         return retval;
     }
     
+    /**
+     * Creates a number object from the characters of a number token. Integers which fit into a
+     * long are converted directly, without creating a string first.
+     *
+     * @param number the characters of the number token.
+     * @return the number object, either a COSInteger or a COSFloat.
+     * @throws IOException if the token isn't a valid number.
+     */
+    protected static COSNumber createNumber(CharSequence number) throws IOException
+    {
+        int length = number.length();
+        int start = length > 1 && (number.charAt(0) == '-' || number.charAt(0) == '+') ? 1 : 0;
+        // 18 digits always fit into a long
+        if (length > start && length - start <= 18)
+        {
+            long value = 0;
+            int i = start;
+            for (; i < length; i++)
+            {
+                char c = number.charAt(i);
+                if (c < '0' || c > '9')
+                {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (i == length)
+            {
+                return COSInteger.get(number.charAt(0) == '-' ? -value : value);
+            }
+        }
+        return COSNumber.get(number.toString());
+    }
+
     /**
      * This will read an integer from the stream.
      *
@@ -45,6 +45,7 @@ import org.apache.pdfbox_ai2.cos.COSNumber;
 import org.apache.pdfbox_ai2.cos.COSObject;
 import org.apache.pdfbox_ai2.cos.COSObjectKey;
 import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.cos.ICOSParser;
 import org.apache.pdfbox_ai2.io.RandomAccessRead;
 import org.apache.pdfbox_ai2.pdfparser.XrefTrailerResolver.XRefType;
 import org.apache.pdfbox_ai2.pdmodel.encryption.SecurityHandler;
@@ -61,7 +62,7 @@ import static org.apache.pdfbox_ai2.util.Charsets.ISO_8859_1;
  * This class is a much enhanced version of <code>QuickParser</code> presented in <a
  * href="https://issues.apache.org/jira/browse/PDFBOX-1104">PDFBOX-1104</a> by Jeremy Villalobos.
  */
-public class COSParser extends BaseParser
+public class COSParser extends BaseParser implements ICOSParser
 {
     private static final String PDF_HEADER = "%PDF-";
     private static final String FDF_HEADER = "%FDF-";
@@ -99,6 +100,13 @@ public class COSParser extends BaseParser
     public static final String SYSPROP_EOFLOOKUPRANGE =
             "org.apache.pdfbox.pdfparser.nonSequentialPDFParser.eofLookupRange";
 
+    /**
+     * Parse indirect objects lazily when they are accessed for the first time instead of reading
+     * all objects reachable from the catalog while loading the document.
+     */
+    public static final String SYSPROP_LAZYLOADING =
+            "org.apache.pdfbox.pdfparser.nonSequentialPDFParser.lazyLoading";
+
     /**
      * How many trailing bytes to read for EOF marker.
      */
@@ -124,6 +132,11 @@ public class COSParser extends BaseParser
      */
     private boolean isLenient = true;
 
+    /**
+     * parse indirect objects on first access only?
+     */
+    private boolean isLazyLoading = false;
+
     protected boolean initialParseDone = false;
     /**
      * Contains all found objects of a brute force search.
@@ -468,6 +481,34 @@ public class COSParser extends BaseParser
         this.isLenient = lenient;
     }
 
+    /**
+     * Indicates whether indirect objects are parsed on first access only.
+     *
+     * @return true if lazy loading is enabled
+     */
+    public boolean isLazyLoading()
+    {
+        return isLazyLoading;
+    }
+
+    /**
+     * Change the parser to parse indirect objects when they are accessed for the first time
+     * instead of reading all objects reachable from the catalog before the document is returned.
+     * The source has to be kept open as long as the document is in use, which is what
+     * {@link org.apache.pdfbox_ai2.pdmodel.PDDocument} does anyway. This method is only effective
+     * before parse() is called.
+     *
+     * @param lazyLoading switch lazy loading on or off
+     */
+    public void setLazyLoading(boolean lazyLoading)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change lazy loading after parsing");
+        }
+        this.isLazyLoading = lazyLoading;
+    }
+
     /**
      * Creates a unique object id using object number and object generation
      * number. (requires object number &lt; 2^31))
@@ -673,7 +714,7 @@ public class COSParser extends BaseParser
         final COSObjectKey objKey = new COSObjectKey(objNr, objGenNr);
         final COSObject pdfObject = document.getObjectFromPool(objKey);
 
-        if (pdfObject.getObject() == null)
+        if (pdfObject.isObjectNull())
         {
             // not previously parsed
             // ---- read offset or object stream object number from xref table
@@ -729,6 +770,28 @@ public class COSParser extends BaseParser
         return pdfObject.getObject();
     }
 
+    /**
+     * Parses a lazily loaded object. The current position of the source is restored afterwards
+     * as the object may be accessed while another object is being parsed.
+     *
+     * @param obj the object to be parsed
+     * @return the parsed object
+     * @throws IOException If an IO error occurs.
+     */
+    @Override
+    public synchronized COSBase dereferenceCOSObject(COSObject obj) throws IOException
+    {
+        final long curFileOffset = source.getPosition();
+        try
+        {
+            return parseObjectDynamically(obj, false);
+        }
+        finally
+        {
+            source.seek(curFileOffset);
+        }
+    }
+
     private void parseFileObject(Long offsetOrObjstmObNr, final COSObjectKey objKey, final COSObject pdfObject) throws IOException
     {
         // ---- go to object start
@@ -855,7 +918,7 @@ public class COSParser extends BaseParser
         else if (lengthBaseObj instanceof COSObject)
         {
             COSObject lengthObj = (COSObject) lengthBaseObj;
-            if (lengthObj.getObject() == null)
+            if (lengthObj.isObjectNull())
             {
                 // not read so far, keep current stream position
                 final long curFileOffset = source.getPosition();
@@ -863,7 +926,7 @@ public class COSParser extends BaseParser
                 parseObjectDynamically(lengthObj, isObjectStream);
                 // reset current stream position
                 source.seek(curFileOffset);
-                if (lengthObj.getObject() == null)
+                if (lengthObj.isObjectNull())
                 {
                     throw new IOException("Length object content was not read.");
                 }
@@ -51,17 +51,29 @@ final class InputStreamSource implements SequentialSource
     @Override
     public int read(byte[] b) throws IOException
     {
-        int n = input.read(b);
-        position += n;
-        return n;
+        return read(b, 0, b.length);
     }
 
     @Override
     public int read(byte[] b, int offset, int length) throws IOException
     {
-        int n = input.read(b, offset, length);
-        position += n;
-        return n;
+        // a decoding stream may return less bytes than requested before its end is reached
+        int total = 0;
+        while (total < length)
+        {
+            int n = input.read(b, offset + total, length - total);
+            if (n == -1)
+            {
+                break;
+            }
+            total += n;
+        }
+        if (total == 0 && length > 0)
+        {
+            return -1;
+        }
+        position += total;
+        return total;
     }
 
     @Override
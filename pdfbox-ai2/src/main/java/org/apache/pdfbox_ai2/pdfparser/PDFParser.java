@@ -175,6 +175,7 @@ public class PDFParser extends COSParser
                         + " does not contain an integer value, but: '" + eofLookupRangeStr + "'");
             }
         }
+        setLazyLoading(Boolean.getBoolean(SYSPROP_LAZYLOADING));
         document = new COSDocument(scratchFile);
     }
     
@@ -193,6 +194,7 @@ public class PDFParser extends COSParser
                         + " does not contain an integer value, but: '" + eofLookupRangeStr + "'");
             }
         }
+        setLazyLoading(Boolean.getBoolean(SYSPROP_LAZYLOADING));
         document = new COSDocument(useScratchFiles);
     }
 
@@ -231,13 +233,23 @@ public class PDFParser extends COSParser
         }
         // prepare decryption if necessary
         prepareDecryption();
+
+        if (isLazyLoading())
+        {
+            // all objects created from now on are parsed on first access,
+            // the security handler is already in place to decrypt them
+            document.setParser(this);
+        }
     
         parseTrailerValuesDynamically(trailer);
     
         COSObject catalogObj = document.getCatalog();
         if (catalogObj != null && catalogObj.getObject() instanceof COSDictionary)
         {
-            parseDictObjects((COSDictionary) catalogObj.getObject(), (COSName[]) null);
+            if (!isLazyLoading())
+            {
+                parseDictObjects((COSDictionary) catalogObj.getObject(), (COSName[]) null);
+            }
             document.setDecrypted();
         }
         initialParseDone = true;
@@ -345,7 +357,7 @@ public class PDFParser extends COSParser
             if (value instanceof COSObject)
             {
                 COSObject object = (COSObject)value;
-                if (object.getObject() == null)
+                if (object.isObjectNull())
                 {
                     parseDictionaryRecursive(object);
                 }
@@ -31,7 +31,6 @@ import org.apache.pdfbox_ai2.cos.COSBoolean;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
 import org.apache.pdfbox_ai2.cos.COSName;
 import org.apache.pdfbox_ai2.cos.COSNull;
-import org.apache.pdfbox_ai2.cos.COSNumber;
 import org.apache.pdfbox_ai2.cos.COSObject;
 import org.apache.pdfbox_ai2.cos.COSStream;
 import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
@@ -245,7 +244,8 @@ public class PDFStreamParser extends BaseParser
             {
                 /* We will be filling buf with the rest of the number.  Only
                  * allow 1 "." and "-" and "+" at start of number. */
-                StringBuffer buf = new StringBuffer();
+                StringBuilder buf = numberBuffer;
+                buf.setLength(0);
                 buf.append( c );
                 seqSource.read();
 
@@ -260,7 +260,7 @@ public class PDFStreamParser extends BaseParser
                         dotNotRead = false;
                     }
                 }
-                retval = COSNumber.get( buf.toString() );
+                retval = createNumber( buf );
                 break;
             }
             case 'B':
@@ -105,7 +105,11 @@ public class PDFXRefStream implements PDFXRef
         for ( COSName cosName : keySet )
         {
             COSBase dictionaryObject = this.stream.getDictionaryObject(cosName);
-            dictionaryObject.setDirect(true);
+            // /Root and /Info have to stay references
+            if (!(dictionaryObject instanceof COSDictionary))
+            {
+                dictionaryObject.setDirect(true);
+            }
         }
         return this.stream;
     }
@@ -156,6 +160,22 @@ public class PDFXRefStream implements PDFXRef
         }
     }
 
+    /**
+     * Add an entry for an object which is stored in an object stream.
+     * 
+     * @param objectNumber the number of the compressed object
+     * @param objectStreamNumber the object number of the object stream
+     * @param index the index of the object within the object stream
+     */
+    public void addObjectStreamEntry(long objectNumber, long objectStreamNumber, int index)
+    {
+        objectNumbers.add(objectNumber);
+        ObjectStreamReference value = new ObjectStreamReference();
+        value.objectNumberOfObjectStream = objectStreamNumber;
+        value.offset = index;
+        streamData.put(objectNumber, value);
+    }
+
     /**
      * determines the minimal length required for all the lengths.
      * 
@@ -184,8 +204,8 @@ public class PDFXRefStream implements PDFXRef
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
                 wMax[0] = Math.max(wMax[0], ENTRY_OBJSTREAM); // the type field for a objstm reference
-                wMax[1] = Math.max(wMax[1], objStream.offset);
-                wMax[2] = Math.max(wMax[2], objStream.objectNumberOfObjectStream);
+                wMax[1] = Math.max(wMax[1], objStream.objectNumberOfObjectStream);
+                wMax[2] = Math.max(wMax[2], objStream.offset);
             }
             // TODO add here if new standard versions define new types
             else
@@ -290,8 +310,8 @@ public class PDFXRefStream implements PDFXRef
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
                 writeNumber(os, ENTRY_OBJSTREAM, w[0]);
-                writeNumber(os, objStream.offset, w[1]);
-                writeNumber(os, objStream.objectNumberOfObjectStream, w[2]);
+                writeNumber(os, objStream.objectNumberOfObjectStream, w[1]);
+                writeNumber(os, objStream.offset, w[2]);
             }
             // TODO add here if new standard versions define new types
             else
@@ -308,6 +328,7 @@ public class PDFXRefStream implements PDFXRef
     class ObjectStreamReference
     {
         long objectNumberOfObjectStream;
+        // the index of the object within the object stream
         long offset;
     }
 
@@ -28,11 +28,13 @@ import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -214,6 +216,20 @@ public class COSWriter implements ICOSVisitor, Closeable
     private OutputStream incrementalOutput;
     private SignatureInterface signatureInterface;
 
+    // object streams
+    private WriteOptions writeOptions = WriteOptions.uncompressed();
+    private boolean useObjectStreams = false;
+    private COSStream objectStream;
+    private COSObjectKey objectStreamKey;
+    private ByteArrayOutputStream objectStreamData;
+    private StringBuilder objectStreamHeader;
+    private int objectStreamCount;
+    private final List<ObjectStreamEntry> objectStreamEntries = new ArrayList<ObjectStreamEntry>();
+
+    // streaming, see writeHeader() and writeObjects()
+    private boolean streaming = false;
+    private Set<COSBase> retainedObjects = Collections.emptySet();
+
     /**
      * COSWriter constructor comment.
      *
@@ -228,6 +244,19 @@ public class COSWriter implements ICOSVisitor, Closeable
         formatDecimal.setGroupingUsed( false );
     }
     
+    /**
+     * COSWriter constructor with write options. Compression options are ignored for encrypted
+     * documents and for FDF documents, which are always written uncompressed.
+     *
+     * @param os The wrapped output stream.
+     * @param options The options used to write the document.
+     */
+    public COSWriter(OutputStream os, WriteOptions options)
+    {
+        this(os);
+        writeOptions = options;
+    }
+
     /**
      * COSWriter constructor for incremental updates. 
      *
@@ -471,6 +500,11 @@ public class COSWriter implements ICOSVisitor, Closeable
             actual = ((COSObject)actual).getObject();
         }
 
+        if (retainedObjects.contains(object) || actual != null && retainedObjects.contains(actual))
+        {
+            // retained objects are written later, they only get a key for now
+            return;
+        }
         if( !writtenObjects.contains( object ) &&
             !objectsToWriteSet.contains( object ) &&
             !actualsAdded.contains( actual ) )
@@ -526,8 +560,14 @@ public class COSWriter implements ICOSVisitor, Closeable
 
         // find the physical reference
         currentObjectKey = getObjectKey( obj );
-        // add a x ref entry
-        addXRefEntry( new COSWriterXRefEntry(getStandardOutput().getPos(), obj, currentObjectKey));
+        if (useObjectStreams && isCompressible(obj, currentObjectKey))
+        {
+            doWriteCompressedObject(obj);
+            return;
+        }
+        // add a x ref entry, in streaming mode it must not keep the written object alive
+        addXRefEntry(new COSWriterXRefEntry(getStandardOutput().getPos(), streaming ? null : obj,
+                currentObjectKey));
         // write the object
         getStandardOutput().write(String.valueOf(currentObjectKey.getNumber()).getBytes(Charsets.ISO_8859_1));
         getStandardOutput().write(SPACE);
@@ -541,6 +581,118 @@ public class COSWriter implements ICOSVisitor, Closeable
         getStandardOutput().writeEOL();
     }
 
+    /**
+     * Streams and objects with a generation other than 0 can't be stored in an object stream.
+     */
+    private boolean isCompressible(COSBase obj, COSObjectKey key)
+    {
+        COSBase actual = obj instanceof COSObject ? ((COSObject) obj).getObject() : obj;
+        return !(actual instanceof COSStream) && key.getGeneration() == 0;
+    }
+
+    /**
+     * Writes the given object into the current object stream, a new one is started if
+     * necessary.
+     */
+    private void doWriteCompressedObject(COSBase obj) throws IOException
+    {
+        if (objectStream == null)
+        {
+            objectStream = new COSStream();
+            // reserve the number of the object stream
+            objectStreamKey = getObjectKey(objectStream);
+            objectStreamData = new ByteArrayOutputStream();
+            objectStreamHeader = new StringBuilder();
+            objectStreamCount = 0;
+        }
+        objectStreamHeader.append(currentObjectKey.getNumber()).append(' ')
+                .append(objectStreamData.size()).append(' ');
+        objectStreamEntries.add(new ObjectStreamEntry(currentObjectKey.getNumber(),
+                objectStreamKey.getNumber(), objectStreamCount));
+
+        // all visitor methods write to the standard output, so swap it for the object data
+        COSStandardOutputStream topLevelOutput = getStandardOutput();
+        setStandardOutput(new COSStandardOutputStream(objectStreamData, objectStreamData.size()));
+        try
+        {
+            obj.accept(this);
+            getStandardOutput().writeEOL();
+        }
+        finally
+        {
+            setStandardOutput(topLevelOutput);
+        }
+
+        objectStreamCount++;
+        if (objectStreamCount >= writeOptions.getObjectStreamSize())
+        {
+            doWriteObjectStream();
+        }
+    }
+
+    /**
+     * Writes the current object stream, if any, as a top level object.
+     */
+    private void doWriteObjectStream() throws IOException
+    {
+        if (objectStream == null)
+        {
+            return;
+        }
+        COSStream stream = objectStream;
+        byte[] header = objectStreamHeader.toString().getBytes(Charsets.ISO_8859_1);
+        stream.setItem(COSName.TYPE, COSName.OBJ_STM);
+        stream.setInt(COSName.N, objectStreamCount);
+        stream.setInt(COSName.FIRST, header.length);
+        OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE);
+        try
+        {
+            out.write(header);
+            objectStreamData.writeTo(out);
+        }
+        finally
+        {
+            out.close();
+        }
+        objectStream = null;
+        objectStreamKey = null;
+        objectStreamData = null;
+        objectStreamHeader = null;
+        doWriteObject(stream);
+    }
+
+    /**
+     * Writes a cross-reference stream covering all top level and compressed objects.
+     */
+    private void doWriteXRefStream(COSDocument doc) throws IOException
+    {
+        PDFXRefStream pdfxRefStream = new PDFXRefStream();
+        pdfxRefStream.addEntry(COSWriterXRefEntry.getNullEntry());
+        for (COSWriterXRefEntry entry : getXRefEntries())
+        {
+            pdfxRefStream.addEntry(entry);
+        }
+        for (ObjectStreamEntry entry : objectStreamEntries)
+        {
+            pdfxRefStream.addObjectStreamEntry(entry.objectNumber, entry.objectStreamNumber,
+                    entry.index);
+        }
+
+        COSDictionary trailer = doc.getTrailer();
+        trailer.removeItem(COSName.PREV);
+        trailer.removeItem(COSName.XREF_STM);
+        trailer.removeItem(COSName.DOC_CHECKSUM);
+        pdfxRefStream.addTrailerInfo(trailer);
+
+        // the cross-reference stream contains an entry for itself
+        setStartxref(getStandardOutput().getPos());
+        long xrefStreamNumber = getNumber() + 1;
+        pdfxRefStream.addEntry(new COSWriterXRefEntry(getStartxref(), null,
+                new COSObjectKey(xrefStreamNumber, 0)));
+        pdfxRefStream.setSize(xrefStreamNumber + 1);
+        doWriteObject(pdfxRefStream.getStream());
+    }
+
     /**
      * This will write the header to the PDF document.
      *
@@ -1023,9 +1175,22 @@ public class COSWriter implements ICOSVisitor, Closeable
     @Override
     public Object visitFromDocument(COSDocument doc) throws IOException
     {
+        // encrypted strings must not be stored in object streams, and signatures are only
+        // written in incremental mode
+        useObjectStreams = writeOptions.isUseObjectStreams() && !incrementalUpdate
+                && !willEncrypt && fdfDocument == null;
+        if (useObjectStreams && doc.getVersion() < 1.5f)
+        {
+            // object streams and cross-reference streams were introduced with PDF 1.5
+            doc.setVersion(1.5f);
+        }
+
         if(!incrementalUpdate)
         {
-            doWriteHeader(doc);
+            if (!streaming)
+            {
+                doWriteHeader(doc);
+            }
         }
         else
         {
@@ -1047,7 +1212,12 @@ public class COSWriter implements ICOSVisitor, Closeable
             hybridPrev = trailer.getLong(COSName.XREF_STM);
         }
 
-        if(incrementalUpdate || doc.isXRefStream())
+        if (useObjectStreams)
+        {
+            doWriteObjectStream();
+            doWriteXRefStream(doc);
+        }
+        else if(incrementalUpdate || doc.isXRefStream())
         {
             doWriteXRefInc(doc, hybridPrev);
         }
@@ -1227,6 +1397,10 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             if (pdDocument.getEncryption() != null)
             {
+                if (streaming)
+                {
+                    throw new IllegalStateException("Encrypted documents can't be written in streaming mode");
+                }
                 SecurityHandler securityHandler = pdDocument.getEncryption().getSecurityHandler();
                 if (!securityHandler.hasProtectionPolicy())
                 {
@@ -1286,9 +1460,211 @@ public class COSWriter implements ICOSVisitor, Closeable
             idArray.add( secondID );
             trailer.setItem( COSName.ID, idArray );
         }
+        if (streaming)
+        {
+            // nothing is retained any longer, the rest is written from the trailer
+            releaseRetainedObjects(Collections.<COSBase>emptySet());
+        }
         cosDoc.accept(this);
     }
 
+    /**
+     * Starts writing the pdf document in streaming mode: the header is written now, objects can
+     * be written while the document is still being built with {@link #writeObjects(Collection)}
+     * and {@link #write(PDDocument)} writes the remaining objects, the cross-reference table and
+     * the trailer. This keeps the memory usage low when a large document is assembled from many
+     * parts, e.g. when merging documents.
+     *
+     * @param doc The document to write.
+     *
+     * @throws IOException If an error occurs while writing the header.
+     * @throws IllegalStateException If the document is encrypted or if this is an incremental
+     * update.
+     */
+    public void writeHeader(PDDocument doc) throws IOException
+    {
+        if (incrementalUpdate)
+        {
+            throw new IllegalStateException("Incremental updates can't be written in streaming mode");
+        }
+        if (doc.isEncrypted())
+        {
+            throw new IllegalStateException("Encrypted documents can't be written in streaming mode");
+        }
+        pdDocument = doc;
+        willEncrypt = false;
+        COSDocument cosDoc = doc.getDocument();
+        useObjectStreams = writeOptions.isUseObjectStreams();
+        if (useObjectStreams && cosDoc.getVersion() < 1.5f)
+        {
+            cosDoc.setVersion(1.5f);
+        }
+        doWriteHeader(cosDoc);
+        streaming = true;
+    }
+
+    /**
+     * Writes all objects which are reachable from the given retained objects, except the
+     * retained objects themselves, and forgets about them. In the retained objects the written
+     * objects are replaced by bare references, so the written objects can be garbage collected,
+     * and written streams are closed.
+     *
+     * <p>The retained objects are the dictionaries and arrays which are still being modified,
+     * e.g. the catalog and the page tree root. They are written later, either because they are no
+     * longer retained in a later call or by {@link #write(PDDocument)}. Written objects must not be
+     * modified, and anything which is still needed must be reachable from the retained objects
+     * via dictionary entries and array elements only.</p>
+     *
+     * @param retained The objects which are still being modified.
+     *
+     * @throws IOException If an error occurs while writing the objects.
+     * @throws IllegalStateException If {@link #writeHeader(PDDocument)} wasn't called.
+     */
+    public void writeObjects(Collection<? extends COSBase> retained) throws IOException
+    {
+        if (!streaming)
+        {
+            throw new IllegalStateException("writeHeader() must be called first");
+        }
+        releaseRetainedObjects(retained);
+        for (COSBase object : retainedObjects)
+        {
+            visitRetainedContent(object, null);
+        }
+        while (objectsToWrite.size() > 0)
+        {
+            COSBase nextObject = objectsToWrite.removeFirst();
+            objectsToWriteSet.remove(nextObject);
+            doWriteObject(nextObject);
+        }
+
+        // replace the written objects by references, and forget about them
+        Set<COSBase> references = new HashSet<COSBase>();
+        for (COSBase object : retainedObjects)
+        {
+            visitRetainedContent(object, references);
+        }
+        for (COSBase object : writtenObjects)
+        {
+            if (object instanceof COSObject)
+            {
+                object = ((COSObject) object).getObject();
+            }
+            if (object instanceof COSStream)
+            {
+                ((COSStream) object).close();
+            }
+        }
+        Iterator<COSBase> keys = objectKeys.keySet().iterator();
+        while (keys.hasNext())
+        {
+            COSBase object = keys.next();
+            if (!retainedObjects.contains(object) && !references.contains(object))
+            {
+                keys.remove();
+            }
+        }
+        writtenObjects.clear();
+        writtenObjects.addAll(references);
+        actualsAdded.clear();
+    }
+
+    /**
+     * Replaces the set of retained objects. Objects which are no longer retained but have been
+     * referenced by written objects are queued for writing.
+     */
+    private void releaseRetainedObjects(Collection<? extends COSBase> retained)
+    {
+        Set<COSBase> released = retainedObjects;
+        retainedObjects = new LinkedHashSet<COSBase>(retained);
+        for (COSBase object : released)
+        {
+            if (!retainedObjects.contains(object) && objectKeys.containsKey(object))
+            {
+                addObjectToWrite(object);
+            }
+        }
+    }
+
+    /**
+     * Walks the direct content of a retained object the same way the visitor methods do. If
+     * references is null, the indirect objects are queued for writing, otherwise the written
+     * objects are replaced by references which are collected.
+     */
+    private void visitRetainedContent(COSBase container, Set<COSBase> references)
+            throws IOException
+    {
+        if (container instanceof COSDictionary)
+        {
+            COSDictionary dict = (COSDictionary) container;
+            for (COSName key : new ArrayList<COSName>(dict.keySet()))
+            {
+                COSBase reference = visitRetainedValue(dict.getItem(key), references);
+                if (reference != null)
+                {
+                    dict.setItem(key, reference);
+                }
+            }
+        }
+        else if (container instanceof COSArray)
+        {
+            COSArray array = (COSArray) container;
+            for (int i = 0; i < array.size(); i++)
+            {
+                COSBase reference = visitRetainedValue(array.get(i), references);
+                if (reference != null)
+                {
+                    array.set(i, reference);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the reference replacing the given value if it has been written, or null.
+     */
+    private COSBase visitRetainedValue(COSBase value, Set<COSBase> references) throws IOException
+    {
+        if (value == null || retainedObjects.contains(value))
+        {
+            return null;
+        }
+        COSBase actual = value instanceof COSObject ? ((COSObject) value).getObject() : value;
+        if (actual == null)
+        {
+            // a reference to an object which has been written already
+            if (references != null && writtenObjects.contains(value))
+            {
+                references.add(value);
+            }
+            return null;
+        }
+        if (retainedObjects.contains(actual))
+        {
+            return null;
+        }
+        boolean indirect = value instanceof COSObject ? actual instanceof COSDictionary
+                : value instanceof COSDictionary && !value.isDirect();
+        if (!indirect)
+        {
+            // written inline
+            visitRetainedContent(actual, references);
+            return null;
+        }
+        if (references == null)
+        {
+            addObjectToWrite(value);
+            return null;
+        }
+        COSObjectKey key = getObjectKey(value);
+        COSObject reference = new COSObject(null);
+        reference.setObjectNumber(key.getNumber());
+        reference.setGenerationNumber(key.getGeneration());
+        objectKeys.put(reference, key);
+        references.add(reference);
+        return reference;
+    }
+
     /**
      * This will write the fdf document.
      *
@@ -1379,4 +1755,21 @@ public class COSWriter implements ICOSVisitor, Closeable
             output.write('>');
         }
     }
+
+    /**
+     * The cross-reference information of an object stored in an object stream.
+     */
+    private static final class ObjectStreamEntry
+    {
+        private final long objectNumber;
+        private final long objectStreamNumber;
+        private final int index;
+
+        private ObjectStreamEntry(long objectNumber, long objectStreamNumber, int index)
+        {
+            this.objectNumber = objectNumber;
+            this.objectStreamNumber = objectStreamNumber;
+            this.index = index;
+        }
+    }
 }
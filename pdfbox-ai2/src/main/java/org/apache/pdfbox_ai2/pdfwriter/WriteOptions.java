@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdfwriter;
+
+/**
+ * Controls how a document is written by the {@link COSWriter}.
+ */
+public final class WriteOptions
+{
+    /**
+     * The default number of objects stored in a single object stream.
+     */
+    public static final int DEFAULT_OBJECT_STREAM_SIZE = 100;
+
+    private static final WriteOptions UNCOMPRESSED = new WriteOptions(false, 0);
+
+    /** if true non stream objects are packed into compressed object streams */
+    private final boolean useObjectStreams;
+
+    /** maximum number of objects stored in a single object stream */
+    private final int objectStreamSize;
+
+    private WriteOptions(boolean useObjectStreams, int objectStreamSize)
+    {
+        this.useObjectStreams = useObjectStreams;
+        this.objectStreamSize = objectStreamSize;
+    }
+
+    /**
+     * Writes all objects at top level and uses a classic cross-reference table, this is the
+     * default.
+     */
+    public static WriteOptions uncompressed()
+    {
+        return UNCOMPRESSED;
+    }
+
+    /**
+     * Packs all objects except streams into Flate compressed object streams holding up to
+     * {@link #DEFAULT_OBJECT_STREAM_SIZE} objects each, and uses a cross-reference stream. The
+     * resulting file requires PDF 1.5.
+     */
+    public static WriteOptions compressed()
+    {
+        return compressed(DEFAULT_OBJECT_STREAM_SIZE);
+    }
+
+    /**
+     * Packs all objects except streams into Flate compressed object streams holding up to the
+     * given number of objects each, and uses a cross-reference stream. The resulting file requires
+     * PDF 1.5.
+     *
+     * @param objectStreamSize the maximum number of objects per object stream.
+     */
+    public static WriteOptions compressed(int objectStreamSize)
+    {
+        if (objectStreamSize < 1)
+        {
+            throw new IllegalArgumentException("Object stream size must be positive: "
+                    + objectStreamSize);
+        }
+        return new WriteOptions(true, objectStreamSize);
+    }
+
+    /**
+     * Returns true if objects are packed into object streams.
+     */
+    public boolean isUseObjectStreams()
+    {
+        return useObjectStreams;
+    }
+
+    /**
+     * Returns the maximum number of objects stored in a single object stream.
+     */
+    public int getObjectStreamSize()
+    {
+        return objectStreamSize;
+    }
+}
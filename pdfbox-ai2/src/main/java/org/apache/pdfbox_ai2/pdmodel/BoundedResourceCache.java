@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.pdfbox_ai2.cos.COSObject;
+import org.apache.pdfbox_ai2.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import org.apache.pdfbox_ai2.pdmodel.font.PDFont;
+import org.apache.pdfbox_ai2.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox_ai2.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox_ai2.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox_ai2.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox_ai2.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+/**
+ * A thread safe resource cache with a fixed upper bound per resource type. Every cached resource
+ * has a weight, and the least recently used (LRU) or least frequently used (LFU) resources are
+ * evicted as soon as the total weight of a resource type exceeds its limit.
+ * 
+ * By default every resource weighs 1, so the limit is the number of entries. The exceptions are
+ * XObjects: images weigh the size of their decoded ARGB raster and forms the length of their
+ * content stream, so the XObject limit is given in bytes. Override
+ * {@link #weigh(ResourceType, Object)} to use different weights.
+ * 
+ * Each resource type has its own lock, and the hit, miss and eviction counters can be read at any
+ * time to tune the limits.
+ */
+public class BoundedResourceCache implements ResourceCache
+{
+    /**
+     * The resource types which are cached separately.
+     */
+    public enum ResourceType
+    {
+        FONT, COLOR_SPACE, EXT_G_STATE, SHADING, PATTERN, PROPERTIES, XOBJECT
+    }
+
+    /**
+     * The strategy used to select the resource to be evicted.
+     */
+    public enum EvictionPolicy
+    {
+        /** Evict the least recently used resource. */
+        LRU,
+        /** Evict the least frequently used resource, ties are broken by recency. */
+        LFU
+    }
+
+    private static final long DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_XOBJECT_BYTES = 64L * 1024 * 1024;
+
+    private final Map<ResourceType, Segment> segments =
+            new EnumMap<ResourceType, Segment>(ResourceType.class);
+
+    /**
+     * Creates a cache using LRU eviction and the default limits.
+     */
+    public BoundedResourceCache()
+    {
+        this(EvictionPolicy.LRU);
+    }
+
+    /**
+     * Creates a cache using the given eviction policy and the default limits, which are 256
+     * entries for each resource type and 64 MB for XObjects.
+     *
+     * @param policy the eviction policy.
+     */
+    public BoundedResourceCache(EvictionPolicy policy)
+    {
+        for (ResourceType type : ResourceType.values())
+        {
+            long maxWeight = type == ResourceType.XOBJECT ? DEFAULT_MAX_XOBJECT_BYTES
+                                                          : DEFAULT_MAX_ENTRIES;
+            segments.put(type, new Segment(policy, maxWeight));
+        }
+    }
+
+    /**
+     * Sets the maximum total weight of the given resource type. Resources are evicted immediately
+     * if the new limit is lower than the current weight.
+     *
+     * @param type the resource type.
+     * @param maxWeight the maximum weight, 0 disables caching of this type.
+     */
+    public void setMaximumWeight(ResourceType type, long maxWeight)
+    {
+        if (maxWeight < 0)
+        {
+            throw new IllegalArgumentException("Maximum weight must not be negative: " + maxWeight);
+        }
+        segments.get(type).setMaximumWeight(maxWeight);
+    }
+
+    /**
+     * Returns the maximum total weight of the given resource type.
+     */
+    public long getMaximumWeight(ResourceType type)
+    {
+        return segments.get(type).getMaximumWeight();
+    }
+
+    /**
+     * Returns the current total weight of the cached resources of the given type.
+     */
+    public long getWeight(ResourceType type)
+    {
+        return segments.get(type).getWeight();
+    }
+
+    /**
+     * Returns the number of cached resources of the given type.
+     */
+    public int getSize(ResourceType type)
+    {
+        return segments.get(type).getSize();
+    }
+
+    /**
+     * Returns the number of lookups of the given type which found a cached resource.
+     */
+    public long getHitCount(ResourceType type)
+    {
+        return segments.get(type).getHitCount();
+    }
+
+    /**
+     * Returns the number of lookups of the given type which didn't find a cached resource.
+     */
+    public long getMissCount(ResourceType type)
+    {
+        return segments.get(type).getMissCount();
+    }
+
+    /**
+     * Returns the number of resources of the given type which were evicted to respect the limit.
+     */
+    public long getEvictionCount(ResourceType type)
+    {
+        return segments.get(type).getEvictionCount();
+    }
+
+    /**
+     * Removes all cached resources. The statistics are kept.
+     */
+    public void clear()
+    {
+        for (Segment segment : segments.values())
+        {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the weight of the given resource, which must be at least 1.
+     *
+     * @param type the resource type.
+     * @param resource the resource to be cached.
+     * @return the weight of the resource.
+     */
+    protected long weigh(ResourceType type, Object resource)
+    {
+        if (resource instanceof PDImageXObject)
+        {
+            PDImageXObject image = (PDImageXObject) resource;
+            return Math.max(1, 4L * image.getWidth() * image.getHeight());
+        }
+        if (resource instanceof PDXObject)
+        {
+            return Math.max(1, ((PDXObject) resource).getCOSStream().getLength());
+        }
+        return 1;
+    }
+
+    private Object get(ResourceType type, COSObject indirect)
+    {
+        return segments.get(type).get(indirect);
+    }
+
+    private void put(ResourceType type, COSObject indirect, Object resource)
+    {
+        if (indirect != null && resource != null)
+        {
+            segments.get(type).put(indirect, resource, weigh(type, resource));
+        }
+    }
+
+    @Override
+    public PDFont getFont(COSObject indirect) throws IOException
+    {
+        return (PDFont) get(ResourceType.FONT, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDFont font) throws IOException
+    {
+        put(ResourceType.FONT, indirect, font);
+    }
+
+    @Override
+    public PDColorSpace getColorSpace(COSObject indirect) throws IOException
+    {
+        return (PDColorSpace) get(ResourceType.COLOR_SPACE, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDColorSpace colorSpace) throws IOException
+    {
+        put(ResourceType.COLOR_SPACE, indirect, colorSpace);
+    }
+
+    @Override
+    public PDExtendedGraphicsState getExtGState(COSObject indirect)
+    {
+        return (PDExtendedGraphicsState) get(ResourceType.EXT_G_STATE, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDExtendedGraphicsState extGState)
+    {
+        put(ResourceType.EXT_G_STATE, indirect, extGState);
+    }
+
+    @Override
+    public PDShading getShading(COSObject indirect) throws IOException
+    {
+        return (PDShading) get(ResourceType.SHADING, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDShading shading) throws IOException
+    {
+        put(ResourceType.SHADING, indirect, shading);
+    }
+
+    @Override
+    public PDAbstractPattern getPattern(COSObject indirect) throws IOException
+    {
+        return (PDAbstractPattern) get(ResourceType.PATTERN, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDAbstractPattern pattern) throws IOException
+    {
+        put(ResourceType.PATTERN, indirect, pattern);
+    }
+
+    @Override
+    public PDPropertyList getProperties(COSObject indirect)
+    {
+        return (PDPropertyList) get(ResourceType.PROPERTIES, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDPropertyList propertyList)
+    {
+        put(ResourceType.PROPERTIES, indirect, propertyList);
+    }
+
+    @Override
+    public PDXObject getXObject(COSObject indirect) throws IOException
+    {
+        return (PDXObject) get(ResourceType.XOBJECT, indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDXObject xobject) throws IOException
+    {
+        put(ResourceType.XOBJECT, indirect, xobject);
+    }
+
+    /**
+     * A cache entry.
+     */
+    private static final class Entry
+    {
+        private final Object value;
+        private final long weight;
+        private long frequency = 1;
+
+        Entry(Object value, long weight)
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The cache of a single resource type, all access is synchronized on the segment.
+     */
+    private static final class Segment
+    {
+        private final EvictionPolicy policy;
+        // access ordered, the eldest entry is the least recently used one
+        private final LinkedHashMap<COSObject, Entry> entries =
+                new LinkedHashMap<COSObject, Entry>(16, 0.75f, true);
+        private long maxWeight;
+        private long weight;
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        Segment(EvictionPolicy policy, long maxWeight)
+        {
+            this.policy = policy;
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized Object get(COSObject key)
+        {
+            Entry entry = entries.get(key);
+            if (entry == null)
+            {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            entry.frequency++;
+            return entry.value;
+        }
+
+        synchronized void put(COSObject key, Object value, long valueWeight)
+        {
+            Entry old = entries.remove(key);
+            if (old != null)
+            {
+                weight -= old.weight;
+            }
+            if (valueWeight > maxWeight)
+            {
+                // would evict everything else and still not fit
+                return;
+            }
+            entries.put(key, new Entry(value, valueWeight));
+            weight += valueWeight;
+            evict(key);
+        }
+
+        synchronized void setMaximumWeight(long maxWeight)
+        {
+            this.maxWeight = maxWeight;
+            evict(null);
+        }
+
+        /**
+         * Evicts entries until the limit is respected, the given key is never evicted.
+         */
+        private void evict(COSObject keep)
+        {
+            while (weight > maxWeight)
+            {
+                Map.Entry<COSObject, Entry> victim = null;
+                Iterator<Map.Entry<COSObject, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext())
+                {
+                    Map.Entry<COSObject, Entry> candidate = iterator.next();
+                    if (candidate.getKey() == keep)
+                    {
+                        continue;
+                    }
+                    if (policy == EvictionPolicy.LRU)
+                    {
+                        victim = candidate;
+                        break;
+                    }
+                    // first minimum in access order is the least recently used of the LFU ones
+                    if (victim == null
+                            || candidate.getValue().frequency < victim.getValue().frequency)
+                    {
+                        victim = candidate;
+                    }
+                }
+                if (victim == null)
+                {
+                    break;
+                }
+                weight -= victim.getValue().weight;
+                entries.remove(victim.getKey());
+                evictionCount++;
+            }
+        }
+
+        synchronized void clear()
+        {
+            entries.clear();
+            weight = 0;
+        }
+
+        synchronized long getMaximumWeight()
+        {
+            return maxWeight;
+        }
+
+        synchronized long getWeight()
+        {
+            return weight;
+        }
+
+        synchronized int getSize()
+        {
+            return entries.size();
+        }
+
+        synchronized long getHitCount()
+        {
+            return hitCount;
+        }
+
+        synchronized long getMissCount()
+        {
+            return missCount;
+        }
+
+        synchronized long getEvictionCount()
+        {
+            return evictionCount;
+        }
+    }
+}
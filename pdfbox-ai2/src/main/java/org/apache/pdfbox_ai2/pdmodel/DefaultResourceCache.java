@@ -19,8 +19,8 @@ package org.apache.pdfbox_ai2.pdmodel;
 
 import java.io.IOException;
 import java.lang.ref.SoftReference;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.pdfbox_ai2.cos.COSObject;
 import org.apache.pdfbox_ai2.pdmodel.documentinterchange.markedcontent.PDPropertyList;
 import org.apache.pdfbox_ai2.pdmodel.font.PDFont;
@@ -32,32 +32,33 @@ import org.apache.pdfbox_ai2.pdmodel.graphics.state.PDExtendedGraphicsState;
 
 /**
  * A resource cached based on SoftReference, retains resources until memory pressure causes them
- * to be garbage collected.
+ * to be garbage collected. The cache can be shared by several threads, but the amount of memory
+ * it uses isn't bounded, see {@link BoundedResourceCache} for a cache with fixed limits.
  *
  * @author John Hewson
  */
 public class DefaultResourceCache implements ResourceCache
 {
     private final Map<COSObject, SoftReference<PDFont>> fonts =
-            new HashMap<COSObject, SoftReference<PDFont>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDFont>>();
     
     private final Map<COSObject, SoftReference<PDColorSpace>> colorSpaces =
-            new HashMap<COSObject, SoftReference<PDColorSpace>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDColorSpace>>();
 
     private final Map<COSObject, SoftReference<PDXObject>> xobjects =
-            new HashMap<COSObject, SoftReference<PDXObject>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDXObject>>();
 
     private final Map<COSObject, SoftReference<PDExtendedGraphicsState>> extGStates =
-            new HashMap<COSObject, SoftReference<PDExtendedGraphicsState>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDExtendedGraphicsState>>();
 
     private final Map<COSObject, SoftReference<PDShading>> shadings =
-            new HashMap<COSObject, SoftReference<PDShading>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDShading>>();
 
     private final Map<COSObject, SoftReference<PDAbstractPattern>> patterns =
-            new HashMap<COSObject, SoftReference<PDAbstractPattern>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDAbstractPattern>>();
 
     private final Map<COSObject, SoftReference<PDPropertyList>> properties =
-            new HashMap<COSObject, SoftReference<PDPropertyList>>();
+            new ConcurrentHashMap<COSObject, SoftReference<PDPropertyList>>();
 
     @Override
     public PDFont getFont(COSObject indirect) throws IOException
@@ -25,6 +25,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,13 +42,14 @@ import org.apache.pdfbox_ai2.io.MemoryUsageSetting;
 import org.apache.pdfbox_ai2.io.RandomAccessBuffer;
 import org.apache.pdfbox_ai2.io.RandomAccessBufferedFileInputStream;
 import org.apache.pdfbox_ai2.io.RandomAccessInputStream;
+import org.apache.pdfbox_ai2.io.RandomAccessMappedFile;
 import org.apache.pdfbox_ai2.io.RandomAccessRead;
 import org.apache.pdfbox_ai2.io.ScratchFile;
 import org.apache.pdfbox_ai2.pdfparser.PDFParser;
 import org.apache.pdfbox_ai2.pdfwriter.COSWriter;
+import org.apache.pdfbox_ai2.pdfwriter.WriteOptions;
 import org.apache.pdfbox_ai2.pdmodel.common.COSArrayList;
 import org.apache.pdfbox_ai2.pdmodel.common.PDRectangle;
-import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
 import org.apache.pdfbox_ai2.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox_ai2.pdmodel.encryption.PDEncryption;
 import org.apache.pdfbox_ai2.pdmodel.encryption.ProtectionPolicy;
@@ -74,6 +76,13 @@ public class PDDocument implements Closeable
 {
     private static final Log LOG = LogFactory.getLog(PDDocument.class);
 
+    /**
+     * Set this system property to true to read files passed to the load methods via memory
+     * mapping instead of a buffered RandomAccessFile, see {@link RandomAccessMappedFile}.
+     */
+    public static final String SYSPROP_MEMORY_MAPPED_FILES =
+            "org.apache.pdfbox.pdmodel.PDDocument.memoryMappedFiles";
+
     private final COSDocument document;
 
     // cached values
@@ -554,23 +563,65 @@ public class PDDocument implements Closeable
     public PDPage importPage(PDPage page) throws IOException
     {
         PDPage importedPage = new PDPage(new COSDictionary(page.getCOSObject()), resourceCache);
-        InputStream in = null;
+
+        // the content streams are copied still encoded, there's no need to decode them
+        COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        if (contents instanceof COSStream)
+        {
+            importedPage.getCOSObject().setItem(COSName.CONTENTS,
+                                                importStream((COSStream) contents));
+        }
+        else if (contents instanceof COSArray)
+        {
+            COSArray array = (COSArray) contents;
+            COSArray importedArray = new COSArray();
+            for (int i = 0; i < array.size(); i++)
+            {
+                COSBase stream = array.getObject(i);
+                if (stream instanceof COSStream)
+                {
+                    importedArray.add(importStream((COSStream) stream));
+                }
+            }
+            importedPage.getCOSObject().setItem(COSName.CONTENTS, importedArray);
+        }
+        addPage(importedPage);
+
+        return importedPage;
+    }
+
+    /**
+     * Copies a stream from another document into this document's scratch file. The encoded data
+     * is copied as is, together with the filters of the stream.
+     */
+    private COSStream importStream(COSStream stream) throws IOException
+    {
+        COSStream imported = getDocument().createCOSStream();
+        for (Map.Entry<COSName, COSBase> entry : stream.entrySet())
+        {
+            if (!COSName.LENGTH.equals(entry.getKey()))
+            {
+                imported.setItem(entry.getKey(), entry.getValue());
+            }
+        }
+        InputStream in = stream.createRawInputStream();
         try
         {
-            in = page.getContents();
-            if (in != null)
+            OutputStream out = imported.createRawOutputStream();
+            try
+            {
+                IOUtils.copy(in, out);
+            }
+            finally
             {
-                PDStream dest = new PDStream(this, page.getContents(), COSName.FLATE_DECODE);
-                importedPage.setContents(dest);
+                out.close();
             }
-            addPage(importedPage);
         }
-        catch (IOException e)
+        finally
         {
-            IOUtils.closeQuietly(in);
+            in.close();
         }
-
-        return importedPage;
+        return imported;
     }
 
     /**
@@ -907,7 +958,7 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
             boolean useScratchFiles) throws IOException
     {
-        RandomAccessBufferedFileInputStream raFile = new RandomAccessBufferedFileInputStream(file);
+        RandomAccessRead raFile = createFileSource(file);
         PDFParser parser = new PDFParser(raFile, password, keyStore, alias, useScratchFiles);
         parser.parse();
         return parser.getPDDocument();
@@ -929,12 +980,21 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
                                   MemoryUsageSetting memUsageSetting) throws IOException
     {
-        RandomAccessBufferedFileInputStream raFile = new RandomAccessBufferedFileInputStream(file);
+        RandomAccessRead raFile = createFileSource(file);
         PDFParser parser = new PDFParser(raFile, password, keyStore, alias, new ScratchFile(memUsageSetting));
         parser.parse();
         return parser.getPDDocument();
     }
 
+    private static RandomAccessRead createFileSource(File file) throws IOException
+    {
+        if (Boolean.getBoolean(SYSPROP_MEMORY_MAPPED_FILES))
+        {
+            return new RandomAccessMappedFile(file);
+        }
+        return new RandomAccessBufferedFileInputStream(file);
+    }
+
     /**
      * Parses a PDF. The given input stream is copied to the memory to enable random access to the pdf.
      * 
@@ -1192,6 +1252,34 @@ public class PDDocument implements Closeable
      * @throws IOException if the output could not be written
      */
     public void save(OutputStream output) throws IOException
+    {
+        save(output, WriteOptions.uncompressed());
+    }
+
+    /**
+     * Save the document to a file using the given write options.
+     * 
+     * @param file The file to save as.
+     * @param options The options used to write the document, e.g.
+     * {@link WriteOptions#compressed()} to use object streams and a cross-reference stream.
+     *
+     * @throws IOException if the output could not be written
+     */
+    public void save(File file, WriteOptions options) throws IOException
+    {
+        save(new FileOutputStream(file), options);
+    }
+
+    /**
+     * This will save the document to an output stream using the given write options.
+     * 
+     * @param output The stream to write to.
+     * @param options The options used to write the document, e.g.
+     * {@link WriteOptions#compressed()} to use object streams and a cross-reference stream.
+     *
+     * @throws IOException if the output could not be written
+     */
+    public void save(OutputStream output, WriteOptions options) throws IOException
     {
         if (document.isClosed())
         {
@@ -1206,7 +1294,7 @@ public class PDDocument implements Closeable
         fontsToSubset.clear();
         
         // save PDF
-        COSWriter writer = new COSWriter(output);
+        COSWriter writer = new COSWriter(output, options);
         try
         {
             writer.write(this);
@@ -56,6 +56,7 @@ public class PDDocumentCatalog implements COSObjectable
     private final COSDictionary root;
     private final PDDocument document;
     private PDAcroForm cachedAcroForm;
+    private PDPageTree cachedPages;
 
     /**
      * Constructor. AcroForm.
@@ -124,8 +125,13 @@ public class PDDocumentCatalog implements COSObjectable
      */
     public PDPageTree getPages()
     {
-        // todo: cache me?
-        return new PDPageTree((COSDictionary)root.getDictionaryObject(COSName.PAGES), document);
+        // the page tree is cached as it holds the page index
+        COSDictionary pages = (COSDictionary)root.getDictionaryObject(COSName.PAGES);
+        if (cachedPages == null || cachedPages.getCOSObject() != pages)
+        {
+            cachedPages = new PDPageTree(pages, document);
+        }
+        return cachedPages;
     }
 
     /**
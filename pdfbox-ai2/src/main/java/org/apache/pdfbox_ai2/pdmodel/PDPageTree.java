@@ -17,7 +17,9 @@
 package org.apache.pdfbox_ai2.pdmodel;
 
 import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Queue;
 import org.apache.pdfbox_ai2.cos.COSArray;
 import org.apache.pdfbox_ai2.cos.COSBase;
@@ -40,6 +42,9 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
     private final COSDictionary root;
     private final PDDocument document; // optional
 
+    // flattened page index, built lazily and dropped when the tree is modified
+    private volatile PageIndex pageIndex;
+
     /**
      * Constructor for embedding.
      */
@@ -203,7 +208,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public PDPage get(int index)
     {
-        COSDictionary dict = get(index + 1, root, 0);
+        COSDictionary dict = getPageDictionary(index);
 
         // sanity check
         if (dict.getCOSName(COSName.TYPE) != COSName.PAGE)
@@ -215,6 +220,89 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         return new PDPage(dict, resourceCache);
     }
 
+    /**
+     * Returns the COS page with the given index, using the page index if possible.
+     *
+     * @param index zero-based index
+     */
+    private COSDictionary getPageDictionary(int index)
+    {
+        PageIndex currentIndex = getPageIndex();
+        if (currentIndex != null && index >= 0 && index < currentIndex.pages.length)
+        {
+            return currentIndex.pages[index];
+        }
+        return get(index + 1, root, 0);
+    }
+
+    /**
+     * Returns the page index, which is built on the first call. Returns null if the tree is
+     * malformed, i.e. the number of pages found doesn't match the /Count of the root, in which
+     * case the tree is walked for every lookup as before.
+     */
+    private PageIndex getPageIndex()
+    {
+        int count = getCount();
+        PageIndex currentIndex = pageIndex;
+        // the count check catches most modifications of the COS objects which bypass this class
+        if (currentIndex == null || currentIndex.count != count)
+        {
+            currentIndex = new PageIndex(count);
+            pageIndex = currentIndex;
+        }
+        return currentIndex.pages != null ? currentIndex : null;
+    }
+
+    /**
+     * Collects all pages below the given node in depth-first order.
+     */
+    private void collectPages(COSDictionary node, List<COSDictionary> pages)
+    {
+        for (COSDictionary kid : getKids(node))
+        {
+            if (isPageTreeNode(kid))
+            {
+                collectPages(kid, pages);
+            }
+            else
+            {
+                pages.add(kid);
+            }
+        }
+    }
+
+    /**
+     * Flattened array of all pages, and the reverse mapping to their index.
+     */
+    private final class PageIndex
+    {
+        private final int count;
+        private final COSDictionary[] pages;
+        private final Map<COSDictionary, Integer> indices;
+
+        private PageIndex(int count)
+        {
+            this.count = count;
+            List<COSDictionary> pageList = new ArrayList<COSDictionary>(count);
+            collectPages(root, pageList);
+            if (pageList.size() == count)
+            {
+                pages = pageList.toArray(new COSDictionary[count]);
+                indices = new IdentityHashMap<COSDictionary, Integer>(count);
+                for (int i = count - 1; i >= 0; i--)
+                {
+                    // the first occurrence wins if a page is referenced twice
+                    indices.put(pages[i], i);
+                }
+            }
+            else
+            {
+                pages = null;
+                indices = null;
+            }
+        }
+    }
+
     /**
      * Returns the given COS page using a depth-first search.
      *
@@ -303,6 +391,12 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public int indexOf(PDPage page)
     {
+        PageIndex currentIndex = getPageIndex();
+        if (currentIndex != null)
+        {
+            Integer index = currentIndex.indices.get(page.getCOSObject());
+            return index != null ? index : -1;
+        }
         SearchContext context = new SearchContext(page);
         if (findPage(context, root))
         {
@@ -370,7 +464,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public void remove(int index)
     {
-        COSDictionary node = get(index + 1, root, 0);
+        COSDictionary node = getPageDictionary(index);
         remove(node);
     }
 
@@ -394,6 +488,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         COSArray kids = (COSArray)parent.getDictionaryObject(COSName.KIDS);
         if (kids.removeObject(node))
         {
+            pageIndex = null;
             // update ancestor counts
             do
             {
@@ -423,6 +518,58 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         // add to parent's kids
         COSArray kids = (COSArray)root.getDictionaryObject(COSName.KIDS);
         kids.add(node);
+        pageIndex = null;
+
+        // update ancestor counts
+        do
+        {
+            node = (COSDictionary) node.getDictionaryObject(COSName.PARENT, COSName.P);
+            if (node != null)
+            {
+                node.setInt(COSName.COUNT, node.getInt(COSName.COUNT) + 1);
+            }
+        }
+        while (node != null);
+    }
+
+    /**
+     * Inserts a page before another page of this page tree.
+     *
+     * @param newPage the page to insert.
+     * @param nextPage the page which will follow the inserted page.
+     * @throws IllegalArgumentException if nextPage isn't part of a page tree.
+     */
+    public void insertBefore(PDPage newPage, PDPage nextPage)
+    {
+        insert(newPage, nextPage, 0);
+    }
+
+    /**
+     * Inserts a page after another page of this page tree.
+     *
+     * @param newPage the page to insert.
+     * @param prevPage the page which will precede the inserted page.
+     * @throws IllegalArgumentException if prevPage isn't part of a page tree.
+     */
+    public void insertAfter(PDPage newPage, PDPage prevPage)
+    {
+        insert(newPage, prevPage, 1);
+    }
+
+    private void insert(PDPage newPage, PDPage existingPage, int offset)
+    {
+        COSDictionary existing = existingPage.getCOSObject();
+        COSDictionary parent = (COSDictionary) existing.getDictionaryObject(COSName.PARENT, COSName.P);
+        COSArray kids = parent == null ? null : (COSArray) parent.getDictionaryObject(COSName.KIDS);
+        int kidIndex = kids == null ? -1 : kids.indexOfObject(existing);
+        if (kidIndex < 0)
+        {
+            throw new IllegalArgumentException("Page is not part of a page tree");
+        }
+        COSDictionary node = newPage.getCOSObject();
+        node.setItem(COSName.PARENT, parent);
+        kids.add(kidIndex + offset, node);
+        pageIndex = null;
 
         // update ancestor counts
         do
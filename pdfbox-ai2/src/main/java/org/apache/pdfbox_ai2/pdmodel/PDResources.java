@@ -121,7 +121,7 @@ public final class PDResources implements COSObjectable
             font = PDFontFactory.createFont(dict);
         }
         
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, font);
         }
@@ -158,7 +158,7 @@ public final class PDResources implements COSObjectable
             colorSpace = PDColorSpace.create(name, this);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, colorSpace);
         }
@@ -201,7 +201,7 @@ public final class PDResources implements COSObjectable
             extGState = new PDExtendedGraphicsState(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, extGState);
         }
@@ -216,7 +216,7 @@ public final class PDResources implements COSObjectable
      */
     public PDShading getShading(COSName name) throws IOException
     {
-        COSObject indirect = getIndirect(COSName.FONT, name);
+        COSObject indirect = getIndirect(COSName.SHADING, name);
         if (cache != null && indirect != null)
         {
             PDShading cached = cache.getShading(indirect);
@@ -234,7 +234,7 @@ public final class PDResources implements COSObjectable
             shading = PDShading.create(dict);
         }
         
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, shading);
         }
@@ -267,7 +267,7 @@ public final class PDResources implements COSObjectable
             pattern = PDAbstractPattern.create(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, pattern);
         }
@@ -299,7 +299,7 @@ public final class PDResources implements COSObjectable
             propertyList = PDPropertyList.create(dict);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, propertyList);
         }
@@ -340,7 +340,7 @@ public final class PDResources implements COSObjectable
             xobject = PDXObject.createXObject(value, this);
         }
 
-        if (cache != null)
+        if (cache != null && indirect != null)
         {
             cache.put(indirect, xobject);
         }
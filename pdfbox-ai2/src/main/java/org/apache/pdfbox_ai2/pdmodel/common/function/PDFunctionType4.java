@@ -16,8 +16,10 @@
  */
 package org.apache.pdfbox_ai2.pdmodel.common.function;
 
+import org.apache.pdfbox_ai2.cos.COSArray;
 import org.apache.pdfbox_ai2.cos.COSBase;
 import org.apache.pdfbox_ai2.pdmodel.common.PDRange;
+import org.apache.pdfbox_ai2.pdmodel.common.function.type4.CompiledSequence;
 import org.apache.pdfbox_ai2.pdmodel.common.function.type4.ExecutionContext;
 import org.apache.pdfbox_ai2.pdmodel.common.function.type4.InstructionSequence;
 import org.apache.pdfbox_ai2.pdmodel.common.function.type4.InstructionSequenceBuilder;
@@ -37,6 +39,11 @@ public class PDFunctionType4 extends PDFunction
     private static final Operators OPERATORS = new Operators();
 
     private final InstructionSequence instructions;
+    private final CompiledSequence compiled;
+
+    // domain and range as min/max pairs, for the compiled program
+    private volatile float[] domainValues;
+    private volatile float[] rangeValues;
 
     /**
      * Constructor.
@@ -50,6 +57,7 @@ public class PDFunctionType4 extends PDFunction
         byte[] bytes = getPDStream().toByteArray();
         String string =  new String(bytes, "ISO-8859-1");
         this.instructions = InstructionSequenceBuilder.parse(string);
+        this.compiled = CompiledSequence.compile(instructions);
     }
     
     /**
@@ -60,11 +68,40 @@ public class PDFunctionType4 extends PDFunction
         return 4;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDomainValues(COSArray domainValues)
+    {
+        super.setDomainValues(domainValues);
+        this.domainValues = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setRangeValues(COSArray rangeValues)
+    {
+        super.setRangeValues(rangeValues);
+        this.rangeValues = null;
+    }
+
     /**
     * {@inheritDoc}
     */
     public float[] eval(float[] input) throws IOException
     {
+        if (compiled != null)
+        {
+            float[] domain = getDomainArray();
+            if (domain.length >= input.length * 2)
+            {
+                return evalCompiled(input, domain);
+            }
+        }
+
         //Setup the input values
         ExecutionContext context = new ExecutionContext(OPERATORS);
         for (int i = 0; i < input.length; i++)
@@ -82,10 +119,7 @@ public class PDFunctionType4 extends PDFunction
         int numberOfActualOutputValues = context.getStack().size();
         if (numberOfActualOutputValues < numberOfOutputValues)
         {
-            throw new IllegalStateException("The type 4 function returned "
-                    + numberOfActualOutputValues
-                    + " values but the Range entry indicates that "
-                    + numberOfOutputValues + " values be returned.");
+            throw tooFewOutputValues(numberOfActualOutputValues, numberOfOutputValues);
         }
         float[] outputValues = new float[numberOfOutputValues];
         for (int i = numberOfOutputValues - 1; i >= 0; i--)
@@ -98,4 +132,65 @@ public class PDFunctionType4 extends PDFunction
         //Return the resulting array
         return outputValues;
     }
+
+    private float[] evalCompiled(float[] input, float[] domain)
+    {
+        float[] range = getRangeArray();
+        int numberOfOutputValues = range.length / 2;
+        float[] outputValues = new float[numberOfOutputValues];
+        int numberOfActualOutputValues = compiled.execute(input, domain, outputValues);
+        if (numberOfActualOutputValues < numberOfOutputValues)
+        {
+            throw tooFewOutputValues(numberOfActualOutputValues, numberOfOutputValues);
+        }
+        for (int i = 0; i < numberOfOutputValues; i++)
+        {
+            outputValues[i] = clipToRange(outputValues[i], range[i * 2], range[i * 2 + 1]);
+        }
+        return outputValues;
+    }
+
+    private IllegalStateException tooFewOutputValues(int actual, int expected)
+    {
+        return new IllegalStateException("The type 4 function returned "
+                + actual
+                + " values but the Range entry indicates that "
+                + expected + " values be returned.");
+    }
+
+    private float[] getDomainArray()
+    {
+        float[] values = domainValues;
+        if (values == null)
+        {
+            int n = getNumberOfInputParameters();
+            values = new float[n * 2];
+            for (int i = 0; i < n; i++)
+            {
+                PDRange domain = getDomainForInput(i);
+                values[i * 2] = domain.getMin();
+                values[i * 2 + 1] = domain.getMax();
+            }
+            domainValues = values;
+        }
+        return values;
+    }
+
+    private float[] getRangeArray()
+    {
+        float[] values = rangeValues;
+        if (values == null)
+        {
+            int n = getNumberOfOutputParameters();
+            values = new float[n * 2];
+            for (int i = 0; i < n; i++)
+            {
+                PDRange range = getRangeForOutput(i);
+                values[i * 2] = range.getMin();
+                values[i * 2 + 1] = range.getMax();
+            }
+            rangeValues = values;
+        }
+        return values;
+    }
 }
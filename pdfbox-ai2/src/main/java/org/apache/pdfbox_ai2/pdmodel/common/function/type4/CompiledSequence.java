@@ -0,0 +1,862 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.common.function.type4;
+
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An instruction sequence compiled into a flat array of opcodes which runs on a stack of
+ * primitive values, so that evaluating it does not allocate. The results are the same as those
+ * of {@link InstructionSequence#execute(ExecutionContext)}, including the distinction between
+ * integers, reals and booleans.
+ * <p>
+ * Procedures are only supported as the operands of <code>if</code> and <code>ifelse</code>,
+ * which is how Type 4 functions use them. For other programs {@link #compile} returns null and
+ * the sequence has to be interpreted.
+ * <p>
+ * A compiled sequence may be executed by several threads at once, each thread reuses its own
+ * stack.
+ */
+public final class CompiledSequence
+{
+    // operand types on the stack
+    private static final byte INT = 0;
+    private static final byte REAL = 1;
+    private static final byte BOOL = 2;
+
+    // opcodes with an operand
+    private static final int PUSH_INT = 0;
+    private static final int PUSH_REAL = 1;
+    private static final int PUSH_BOOL = 2;
+    private static final int JUMP = 3;
+    private static final int JUMP_IF_FALSE = 4;
+
+    // opcodes of the operators
+    private static final int ABS = 10;
+    private static final int ADD = 11;
+    private static final int ATAN = 12;
+    private static final int CEILING = 13;
+    private static final int COS = 14;
+    private static final int CVI = 15;
+    private static final int CVR = 16;
+    private static final int DIV = 17;
+    private static final int EXP = 18;
+    private static final int FLOOR = 19;
+    private static final int IDIV = 20;
+    private static final int LN = 21;
+    private static final int LOG = 22;
+    private static final int MOD = 23;
+    private static final int MUL = 24;
+    private static final int NEG = 25;
+    private static final int ROUND = 26;
+    private static final int SIN = 27;
+    private static final int SQRT = 28;
+    private static final int SUB = 29;
+    private static final int TRUNCATE = 30;
+    private static final int AND = 31;
+    private static final int BITSHIFT = 32;
+    private static final int EQ = 33;
+    private static final int FALSE = 34;
+    private static final int GE = 35;
+    private static final int GT = 36;
+    private static final int LE = 37;
+    private static final int LT = 38;
+    private static final int NE = 39;
+    private static final int NOT = 40;
+    private static final int OR = 41;
+    private static final int TRUE = 42;
+    private static final int XOR = 43;
+    private static final int COPY = 44;
+    private static final int DUP = 45;
+    private static final int EXCH = 46;
+    private static final int INDEX = 47;
+    private static final int POP = 48;
+    private static final int ROLL = 49;
+
+    private static final Map<String, Integer> OPCODES = new HashMap<String, Integer>();
+
+    static
+    {
+        OPCODES.put("abs", ABS);
+        OPCODES.put("add", ADD);
+        OPCODES.put("atan", ATAN);
+        OPCODES.put("ceiling", CEILING);
+        OPCODES.put("cos", COS);
+        OPCODES.put("cvi", CVI);
+        OPCODES.put("cvr", CVR);
+        OPCODES.put("div", DIV);
+        OPCODES.put("exp", EXP);
+        OPCODES.put("floor", FLOOR);
+        OPCODES.put("idiv", IDIV);
+        OPCODES.put("ln", LN);
+        OPCODES.put("log", LOG);
+        OPCODES.put("mod", MOD);
+        OPCODES.put("mul", MUL);
+        OPCODES.put("neg", NEG);
+        OPCODES.put("round", ROUND);
+        OPCODES.put("sin", SIN);
+        OPCODES.put("sqrt", SQRT);
+        OPCODES.put("sub", SUB);
+        OPCODES.put("truncate", TRUNCATE);
+
+        OPCODES.put("and", AND);
+        OPCODES.put("bitshift", BITSHIFT);
+        OPCODES.put("eq", EQ);
+        OPCODES.put("false", FALSE);
+        OPCODES.put("ge", GE);
+        OPCODES.put("gt", GT);
+        OPCODES.put("le", LE);
+        OPCODES.put("lt", LT);
+        OPCODES.put("ne", NE);
+        OPCODES.put("not", NOT);
+        OPCODES.put("or", OR);
+        OPCODES.put("true", TRUE);
+        OPCODES.put("xor", XOR);
+
+        OPCODES.put("copy", COPY);
+        OPCODES.put("dup", DUP);
+        OPCODES.put("exch", EXCH);
+        OPCODES.put("index", INDEX);
+        OPCODES.put("pop", POP);
+        OPCODES.put("roll", ROLL);
+    }
+
+    private final int[] code;
+
+    private final ThreadLocal<Stack> stacks = new ThreadLocal<Stack>()
+    {
+        @Override
+        protected Stack initialValue()
+        {
+            return new Stack();
+        }
+    };
+
+    private CompiledSequence(int[] code)
+    {
+        this.code = code;
+    }
+
+    /**
+     * Compiles the given instruction sequence.
+     *
+     * @param sequence the parsed program
+     * @return the compiled program, or null if the program can only be interpreted
+     */
+    public static CompiledSequence compile(InstructionSequence sequence)
+    {
+        List<Object> instructions = sequence.getInstructions();
+
+        // a function is usually a single procedure, which is executed at the end
+        if (instructions.size() == 1 && instructions.get(0) instanceof InstructionSequence)
+        {
+            instructions = ((InstructionSequence) instructions.get(0)).getInstructions();
+        }
+
+        List<Integer> code = new ArrayList<Integer>();
+        if (!compile(instructions, code))
+        {
+            return null;
+        }
+        int[] array = new int[code.size()];
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = code.get(i);
+        }
+        return new CompiledSequence(array);
+    }
+
+    // appends the opcodes for the given instructions, returns false if they cannot be compiled
+    private static boolean compile(List<Object> instructions, List<Integer> code)
+    {
+        for (int i = 0; i < instructions.size(); i++)
+        {
+            Object o = instructions.get(i);
+            if (o instanceof Integer)
+            {
+                code.add(PUSH_INT);
+                code.add((Integer) o);
+            }
+            else if (o instanceof Float)
+            {
+                code.add(PUSH_REAL);
+                code.add(Float.floatToIntBits((Float) o));
+            }
+            else if (o instanceof Boolean)
+            {
+                code.add(PUSH_BOOL);
+                code.add((Boolean) o ? 1 : 0);
+            }
+            else if (o instanceof InstructionSequence)
+            {
+                Object next = i + 1 < instructions.size() ? instructions.get(i + 1) : null;
+                Object nextButOne = i + 2 < instructions.size() ? instructions.get(i + 2) : null;
+                if ("if".equals(next))
+                {
+                    // bool {proc} if
+                    code.add(JUMP_IF_FALSE);
+                    int patch = code.size();
+                    code.add(0);
+                    if (!compile(((InstructionSequence) o).getInstructions(), code))
+                    {
+                        return false;
+                    }
+                    code.set(patch, code.size());
+                    i += 1;
+                }
+                else if (next instanceof InstructionSequence && "ifelse".equals(nextButOne))
+                {
+                    // bool {proc1} {proc2} ifelse
+                    code.add(JUMP_IF_FALSE);
+                    int patchElse = code.size();
+                    code.add(0);
+                    if (!compile(((InstructionSequence) o).getInstructions(), code))
+                    {
+                        return false;
+                    }
+                    code.add(JUMP);
+                    int patchEnd = code.size();
+                    code.add(0);
+                    code.set(patchElse, code.size());
+                    if (!compile(((InstructionSequence) next).getInstructions(), code))
+                    {
+                        return false;
+                    }
+                    code.set(patchEnd, code.size());
+                    i += 2;
+                }
+                else
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                Integer opcode = OPCODES.get(o);
+                if (opcode == null)
+                {
+                    // if and ifelse with computed procedures, or unknown names
+                    return false;
+                }
+                code.add(opcode);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes the program.
+     *
+     * @param input the input values, which are pushed as reals
+     * @param domain the minimum and maximum of each input value, they are clipped to
+     * @param output receives the values on top of the stack, the top-most value last
+     * @return the number of values on the stack after execution, output is only filled in if
+     * this is not less than its length
+     */
+    public int execute(float[] input, float[] domain, float[] output)
+    {
+        Stack stack = stacks.get();
+        stack.size = 0;
+        for (int i = 0; i < input.length; i++)
+        {
+            float value = input[i];
+            float min = domain[i * 2];
+            float max = domain[i * 2 + 1];
+            if (value < min)
+            {
+                value = min;
+            }
+            else if (value > max)
+            {
+                value = max;
+            }
+            stack.push(REAL, value);
+        }
+
+        run(stack);
+
+        int size = stack.size;
+        if (size >= output.length)
+        {
+            for (int i = output.length - 1; i >= 0; i--)
+            {
+                output[i] = (float) stack.popNumber();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Executes the program without input and returns the stack boxed as the interpreter would
+     * leave it, the bottom value first.
+     */
+    List<Object> execute()
+    {
+        Stack stack = new Stack();
+        run(stack);
+        List<Object> result = new ArrayList<Object>(stack.size);
+        for (int i = 0; i < stack.size; i++)
+        {
+            switch (stack.types[i])
+            {
+                case INT:
+                    result.add((int) stack.values[i]);
+                    break;
+                case REAL:
+                    result.add((float) stack.values[i]);
+                    break;
+                default:
+                    result.add(stack.values[i] != 0);
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private void run(Stack stack)
+    {
+        int[] code = this.code;
+        int pc = 0;
+        while (pc < code.length)
+        {
+            int opcode = code[pc++];
+            switch (opcode)
+            {
+                case PUSH_INT:
+                    stack.push(INT, code[pc++]);
+                    break;
+                case PUSH_REAL:
+                    stack.push(REAL, Float.intBitsToFloat(code[pc++]));
+                    break;
+                case PUSH_BOOL:
+                    stack.push(BOOL, code[pc++]);
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_FALSE:
+                    if (stack.popBoolean())
+                    {
+                        pc++;
+                    }
+                    else
+                    {
+                        pc = code[pc];
+                    }
+                    break;
+                default:
+                    operator(opcode, stack);
+                    break;
+            }
+        }
+    }
+
+    private static void operator(int opcode, Stack stack)
+    {
+        switch (opcode)
+        {
+            case ABS:
+            {
+                if (stack.topType() == INT)
+                {
+                    stack.push(INT, Math.abs(stack.popInt()));
+                }
+                else
+                {
+                    stack.push(REAL, Math.abs((float) stack.popNumber()));
+                }
+                break;
+            }
+            case ADD:
+            case SUB:
+            {
+                boolean ints = stack.topType() == INT && stack.secondType() == INT;
+                double num2 = stack.popNumber();
+                double num1 = stack.popNumber();
+                if (ints)
+                {
+                    long result = opcode == ADD ? (long) num1 + (long) num2
+                                                : (long) num1 - (long) num2;
+                    pushLong(stack, result);
+                }
+                else
+                {
+                    stack.push(REAL, opcode == ADD ? (float) num1 + (float) num2
+                                                   : (float) num1 - (float) num2);
+                }
+                break;
+            }
+            case MUL:
+            {
+                boolean ints = stack.topType() == INT && stack.secondType() == INT;
+                double num2 = stack.popNumber();
+                double num1 = stack.popNumber();
+                if (ints)
+                {
+                    pushLong(stack, (long) num1 * (long) num2);
+                }
+                else
+                {
+                    stack.push(REAL, (float) (num1 * num2));
+                }
+                break;
+            }
+            case ATAN:
+            {
+                float den = (float) stack.popNumber();
+                float num = (float) stack.popNumber();
+                float atan = (float) Math.atan2(num, den);
+                atan = (float) Math.toDegrees(atan) % 360;
+                if (atan < 0)
+                {
+                    atan = atan + 360;
+                }
+                stack.push(REAL, atan);
+                break;
+            }
+            case CEILING:
+            case FLOOR:
+            case ROUND:
+            case TRUNCATE:
+            {
+                if (stack.topType() == INT)
+                {
+                    stack.push(INT, stack.popInt());
+                }
+                else
+                {
+                    double num = stack.popNumber();
+                    float result;
+                    if (opcode == CEILING)
+                    {
+                        result = (float) Math.ceil(num);
+                    }
+                    else if (opcode == FLOOR)
+                    {
+                        result = (float) Math.floor(num);
+                    }
+                    else if (opcode == ROUND)
+                    {
+                        result = (float) Math.round(num);
+                    }
+                    else
+                    {
+                        result = (float) (int) (float) num;
+                    }
+                    stack.push(REAL, result);
+                }
+                break;
+            }
+            case COS:
+                stack.push(REAL, (float) Math.cos(Math.toRadians((float) stack.popNumber())));
+                break;
+            case SIN:
+                stack.push(REAL, (float) Math.sin(Math.toRadians((float) stack.popNumber())));
+                break;
+            case CVI:
+            {
+                boolean isInt = stack.topType() == INT;
+                double num = stack.popNumber();
+                stack.push(INT, isInt ? (int) num : (int) (float) num);
+                break;
+            }
+            case CVR:
+                stack.push(REAL, (float) stack.popNumber());
+                break;
+            case DIV:
+            {
+                float num2 = (float) stack.popNumber();
+                float num1 = (float) stack.popNumber();
+                stack.push(REAL, num1 / num2);
+                break;
+            }
+            case EXP:
+            {
+                double exp = stack.popNumber();
+                double base = stack.popNumber();
+                stack.push(REAL, (float) Math.pow(base, exp));
+                break;
+            }
+            case IDIV:
+            {
+                int num2 = stack.popInt();
+                int num1 = stack.popInt();
+                stack.push(INT, num1 / num2);
+                break;
+            }
+            case MOD:
+            {
+                int num2 = stack.popInt();
+                int num1 = stack.popInt();
+                stack.push(INT, num1 % num2);
+                break;
+            }
+            case LN:
+                stack.push(REAL, (float) Math.log(stack.popNumber()));
+                break;
+            case LOG:
+                stack.push(REAL, (float) Math.log10(stack.popNumber()));
+                break;
+            case NEG:
+            {
+                if (stack.topType() == INT)
+                {
+                    int value = stack.popInt();
+                    if (value == Integer.MIN_VALUE)
+                    {
+                        stack.push(REAL, -(float) value);
+                    }
+                    else
+                    {
+                        stack.push(INT, -value);
+                    }
+                }
+                else
+                {
+                    stack.push(REAL, -(float) stack.popNumber());
+                }
+                break;
+            }
+            case SQRT:
+            {
+                float num = (float) stack.popNumber();
+                if (num < 0)
+                {
+                    throw new IllegalArgumentException("argument must be nonnegative");
+                }
+                stack.push(REAL, (float) Math.sqrt(num));
+                break;
+            }
+            case AND:
+            case OR:
+            case XOR:
+            {
+                byte type2 = stack.topType();
+                byte type1 = stack.secondType();
+                if (type1 == BOOL && type2 == BOOL)
+                {
+                    boolean bool2 = stack.popBoolean();
+                    boolean bool1 = stack.popBoolean();
+                    boolean result = opcode == AND ? bool1 & bool2
+                                   : opcode == OR ? bool1 | bool2 : bool1 ^ bool2;
+                    stack.push(BOOL, result ? 1 : 0);
+                }
+                else if (type1 == INT && type2 == INT)
+                {
+                    int int2 = stack.popInt();
+                    int int1 = stack.popInt();
+                    int result = opcode == AND ? int1 & int2
+                               : opcode == OR ? int1 | int2 : int1 ^ int2;
+                    stack.push(INT, result);
+                }
+                else
+                {
+                    throw new ClassCastException("Operands must be bool/bool or int/int");
+                }
+                break;
+            }
+            case BITSHIFT:
+            {
+                int shift = stack.popInt();
+                int int1 = stack.popInt();
+                stack.push(INT, shift < 0 ? int1 >> Math.abs(shift) : int1 << shift);
+                break;
+            }
+            case FALSE:
+                stack.push(BOOL, 0);
+                break;
+            case TRUE:
+                stack.push(BOOL, 1);
+                break;
+            case NOT:
+            {
+                byte type = stack.topType();
+                if (type == BOOL)
+                {
+                    stack.push(BOOL, stack.popBoolean() ? 0 : 1);
+                }
+                else if (type == INT)
+                {
+                    // same as the interpreter, see BitwiseOperators.Not
+                    stack.push(INT, -stack.popInt());
+                }
+                else
+                {
+                    throw new ClassCastException("Operand must be bool or int");
+                }
+                break;
+            }
+            case EQ:
+            case NE:
+            {
+                byte type2 = stack.topType();
+                byte type1 = stack.secondType();
+                double op2 = stack.pop();
+                double op1 = stack.pop();
+                boolean equal;
+                if (type1 != BOOL && type2 != BOOL)
+                {
+                    equal = (float) op1 == (float) op2;
+                }
+                else
+                {
+                    equal = type1 == type2 && op1 == op2;
+                }
+                stack.push(BOOL, equal == (opcode == EQ) ? 1 : 0);
+                break;
+            }
+            case GE:
+            case GT:
+            case LE:
+            case LT:
+            {
+                float num2 = (float) stack.popNumber();
+                float num1 = (float) stack.popNumber();
+                boolean result;
+                if (opcode == GE)
+                {
+                    result = num1 >= num2;
+                }
+                else if (opcode == GT)
+                {
+                    result = num1 > num2;
+                }
+                else if (opcode == LE)
+                {
+                    result = num1 <= num2;
+                }
+                else
+                {
+                    result = num1 < num2;
+                }
+                stack.push(BOOL, result ? 1 : 0);
+                break;
+            }
+            case COPY:
+            {
+                int n = stack.popCount();
+                if (n > 0)
+                {
+                    int start = stack.size - n;
+                    if (start < 0)
+                    {
+                        throw new IndexOutOfBoundsException("copy: " + n);
+                    }
+                    for (int i = 0; i < n; i++)
+                    {
+                        stack.push(stack.types[start + i], stack.values[start + i]);
+                    }
+                }
+                break;
+            }
+            case DUP:
+            {
+                byte type = stack.topType();
+                stack.push(type, stack.values[stack.size - 1]);
+                break;
+            }
+            case EXCH:
+            {
+                byte type2 = stack.topType();
+                byte type1 = stack.secondType();
+                double any2 = stack.pop();
+                double any1 = stack.pop();
+                stack.push(type2, any2);
+                stack.push(type1, any1);
+                break;
+            }
+            case INDEX:
+            {
+                int n = stack.popCount();
+                if (n < 0)
+                {
+                    throw new IllegalArgumentException("rangecheck: " + n);
+                }
+                int i = stack.size - n - 1;
+                if (i < 0)
+                {
+                    throw new IndexOutOfBoundsException("index: " + n);
+                }
+                stack.push(stack.types[i], stack.values[i]);
+                break;
+            }
+            case POP:
+                stack.pop();
+                break;
+            case ROLL:
+            {
+                int j = stack.popCount();
+                int n = stack.popCount();
+                if (j == 0)
+                {
+                    break;
+                }
+                if (n < 0)
+                {
+                    throw new IllegalArgumentException("rangecheck: " + n);
+                }
+                if (n > stack.size)
+                {
+                    throw new EmptyStackException();
+                }
+                stack.roll(n, j);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown opcode " + opcode);
+        }
+    }
+
+    // pushes the result of integer arithmetic, which becomes a real if it overflows
+    private static void pushLong(Stack stack, long value)
+    {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+        {
+            stack.push(REAL, (float) value);
+        }
+        else
+        {
+            stack.push(INT, (int) value);
+        }
+    }
+
+    /**
+     * The operand stack. Each entry has a type, and its value is kept as a double, which holds
+     * every int and float exactly.
+     */
+    private static final class Stack
+    {
+        private double[] values = new double[100];
+        private byte[] types = new byte[100];
+        private int size;
+
+        void push(byte type, double value)
+        {
+            if (size == values.length)
+            {
+                double[] newValues = new double[size * 2];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+                byte[] newTypes = new byte[size * 2];
+                System.arraycopy(types, 0, newTypes, 0, size);
+                types = newTypes;
+            }
+            types[size] = type;
+            values[size] = value;
+            size++;
+        }
+
+        double pop()
+        {
+            if (size == 0)
+            {
+                throw new EmptyStackException();
+            }
+            return values[--size];
+        }
+
+        byte topType()
+        {
+            if (size == 0)
+            {
+                throw new EmptyStackException();
+            }
+            return types[size - 1];
+        }
+
+        byte secondType()
+        {
+            if (size < 2)
+            {
+                throw new EmptyStackException();
+            }
+            return types[size - 2];
+        }
+
+        double popNumber()
+        {
+            if (topType() == BOOL)
+            {
+                throw new ClassCastException("Operand must be a number");
+            }
+            return values[--size];
+        }
+
+        int popInt()
+        {
+            if (topType() != INT)
+            {
+                throw new ClassCastException("Operand must be an integer");
+            }
+            return (int) values[--size];
+        }
+
+        // pops the operand of copy, index and roll, which the interpreter truncates
+        int popCount()
+        {
+            boolean isInt = topType() == INT;
+            double value = popNumber();
+            return isInt ? (int) value : (int) (float) value;
+        }
+
+        boolean popBoolean()
+        {
+            if (topType() != BOOL)
+            {
+                throw new ClassCastException("Operand must be a boolean");
+            }
+            return values[--size] != 0;
+        }
+
+        // rolls the top n entries by j positions towards the top
+        void roll(int n, int j)
+        {
+            if (n == 0)
+            {
+                return;
+            }
+            int shift = j % n;
+            if (shift < 0)
+            {
+                shift += n;
+            }
+            int start = size - n;
+            reverse(start, size - 1);
+            reverse(start, start + shift - 1);
+            reverse(start + shift, size - 1);
+        }
+
+        private void reverse(int from, int to)
+        {
+            while (from < to)
+            {
+                double value = values[from];
+                values[from] = values[to];
+                values[to] = value;
+                byte type = types[from];
+                types[from] = types[to];
+                types[to] = type;
+                from++;
+                to--;
+            }
+        }
+    }
+}
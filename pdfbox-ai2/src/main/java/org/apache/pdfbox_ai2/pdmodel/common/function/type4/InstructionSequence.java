@@ -73,6 +73,15 @@ public class InstructionSequence
         this.instructions.add(child);
     }
 
+    /**
+     * Returns the instructions: names, values and procs.
+     * @return the live list of instructions
+     */
+    List<Object> getInstructions()
+    {
+        return instructions;
+    }
+
     /**
      * Executes the instruction sequence.
      * @param context the execution context
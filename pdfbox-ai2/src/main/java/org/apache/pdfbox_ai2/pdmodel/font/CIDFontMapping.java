@@ -30,7 +30,14 @@ public final class CIDFontMapping extends FontMapping<OpenTypeFont>
 {
     private final FontBoxFont ttf;
     
-    CIDFontMapping(OpenTypeFont font, FontBoxFont fontBoxFont, boolean isFallback)
+    /**
+     * Creates a CID font mapping.
+     *
+     * @param font the mapped CID-keyed OpenType font, or null
+     * @param fontBoxFont the substitute if there is no CID-keyed font, otherwise null
+     * @param isFallback true if the mapped font is a fallback
+     */
+    public CIDFontMapping(OpenTypeFont font, FontBoxFont fontBoxFont, boolean isFallback)
     {
         super(font, isFallback);
         this.ttf = fontBoxFont;
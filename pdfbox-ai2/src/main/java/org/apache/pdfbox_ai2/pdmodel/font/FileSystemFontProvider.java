@@ -16,19 +16,28 @@
  */
 package org.apache.pdfbox_ai2.pdmodel.font;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.prefs.Preferences;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox_ai2.FontBoxFont;
@@ -48,6 +57,12 @@ import org.apache.pdfbox_ai2.util.Charsets;
 /**
  * A FontProvider which searches for fonts on the local filesystem.
  *
+ * <p>The fonts found are described by a binary index file, so that they don't have to be parsed
+ * each time. Each font file is recorded with its size and modification time, only new or changed
+ * files are parsed again, in parallel, and the index is then updated. The index is written to the
+ * directory given by the system property {@value #FONT_INDEX_PROPERTY}, which defaults to the
+ * user's home directory, falling back to the temporary directory if it isn't writable.
+ *
  * @author John Hewson
  */
 final class FileSystemFontProvider extends FontProvider
@@ -55,11 +70,20 @@ final class FileSystemFontProvider extends FontProvider
     private static final long serialVersionUID = 1;
     
     private static final Log LOG = LogFactory.getLog(FileSystemFontProvider.class);
+
+    /**
+     * System property naming the directory of the font index file.
+     */
+    static final String FONT_INDEX_PROPERTY = "pdfbox.fontcache";
+
+    private static final String FONT_INDEX_NAME = ".pdfbox_ai2.fontindex";
+    private static final int FONT_INDEX_MAGIC = 0x50444649; // "PDFI"
+    private static final int FONT_INDEX_VERSION = 1;
     
     private final List<FSFontInfo> fontInfoList = new ArrayList<FSFontInfo>();
     private final FontCache cache;
 
-    private static class FSFontInfo extends FontInfo implements Serializable
+    private static class FSFontInfo extends FontInfo
     {
         private final String postScriptName;
         private final FontFormat format;
@@ -71,7 +95,7 @@ final class FileSystemFontProvider extends FontProvider
         private final int macStyle;
         private final PDPanoseClassification panose;
         private final File file;
-        private transient FileSystemFontProvider parent;
+        private final FileSystemFontProvider parent;
 
         private FSFontInfo(File file, FontFormat format, String postScriptName,
                            CIDSystemInfo cidSystemInfo, int usWeightClass, int sFamilyClass,
@@ -178,11 +202,38 @@ final class FileSystemFontProvider extends FontProvider
     /**
      * Represents ignored fonts (i.e. bitmap fonts).
      */
-    private static final class FSIgnored extends FSFontInfo implements Serializable
+    private static final class FSIgnored extends FSFontInfo
+    {
+        private FSIgnored(File file, FontFormat format, String postScriptName,
+                          FileSystemFontProvider parent)
+        {
+            super(file, format, postScriptName, null, 0, 0, 0, 0, 0, null, parent);
+        }
+    }
+
+    /**
+     * The fonts of a font file, together with the size and modification time of the file when it
+     * was parsed.
+     */
+    private static final class FontFileEntry
     {
-        private FSIgnored(File file, FontFormat format, String postScriptName)
+        private final long length;
+        private final long lastModified;
+        private final List<FSFontInfo> fonts;
+
+        private FontFileEntry(long length, long lastModified, List<FSFontInfo> fonts)
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.fonts = fonts;
+        }
+
+        /**
+         * Returns true if the file hasn't changed since it was parsed.
+         */
+        private boolean isValid(File file)
         {
-            super(file, format, postScriptName, null, 0, 0, 0, 0, 0, null, null);
+            return file.length() == length && file.lastModified() == lastModified;
         }
     }
 
@@ -190,15 +241,105 @@ final class FileSystemFontProvider extends FontProvider
      * Constructor.
      */
     FileSystemFontProvider(FontCache cache)
+    {
+        this(cache, findFontFiles(), getFontIndexFile());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache the font cache
+     * @param files the font files
+     * @param indexFile the font index file, or null if the fonts shall not be indexed
+     */
+    FileSystemFontProvider(FontCache cache, List<File> files, File indexFile)
     {
         this.cache = cache;
 
+        // load the indexed fonts and find out which files are new or have changed
+        Map<String, FontFileEntry> index;
+        if (indexFile != null)
+        {
+            index = loadIndex(indexFile);
+        }
+        else
+        {
+            index = Collections.emptyMap();
+        }
+        Map<String, FontFileEntry> entries = new LinkedHashMap<String, FontFileEntry>();
+        List<File> changed = new ArrayList<File>();
+        for (File file : files)
+        {
+            String path = file.getAbsolutePath();
+            if (entries.containsKey(path))
+            {
+                continue;
+            }
+            FontFileEntry entry = index.get(path);
+            if (entry != null && entry.isValid(file))
+            {
+                entries.put(path, entry);
+            }
+            else
+            {
+                entries.put(path, null);
+                changed.add(file);
+            }
+        }
+        int unchanged = entries.size() - changed.size();
+
+        if (!changed.isEmpty())
+        {
+            if (index.isEmpty())
+            {
+                LOG.warn("Building font index, this may take a while");
+            }
+            else
+            {
+                LOG.info("Updating font index for " + changed.size() + " new or changed fonts");
+            }
+            List<FontFileEntry> scanned = scanFonts(changed);
+            for (int i = 0; i < changed.size(); i++)
+            {
+                String path = changed.get(i).getAbsolutePath();
+                if (scanned.get(i) != null)
+                {
+                    entries.put(path, scanned.get(i));
+                }
+                else
+                {
+                    // will be parsed again next time
+                    entries.remove(path);
+                }
+            }
+        }
+
+        for (FontFileEntry entry : entries.values())
+        {
+            fontInfoList.addAll(entry.fonts);
+        }
+
+        // files which were removed are dropped from the index as well
+        if (indexFile != null && (!changed.isEmpty() || unchanged != index.size()))
+        {
+            saveIndex(indexFile, entries);
+            if (index.isEmpty())
+            {
+                LOG.warn("Finished building font index, found " + fontInfoList.size() + " fonts");
+            }
+        }
+    }
+
+    /**
+     * Scans the local system for font files.
+     */
+    private static List<File> findFontFiles()
+    {
         if (LOG.isTraceEnabled())
         {
             LOG.trace("Will search the local system for fonts");
         }
 
-        // scan the local system for font files
         List<File> files = new ArrayList<File>();
         FontFileFinder fontFileFinder = new FontFileFinder();
         List<URI> fonts = fontFileFinder.find();
@@ -211,121 +352,322 @@ final class FileSystemFontProvider extends FontProvider
         {
             LOG.trace("Found " + files.size() + " fonts on the local system");
         }
-        
-        // load cached FontInfo objects
-        List<FSFontInfo> cachedInfos = loadCache(files);
-        if (cachedInfos != null && cachedInfos.size() > 0)
-        {
-            fontInfoList.addAll(cachedInfos);
-        }
-        else
+        return files;
+    }
+
+    /**
+     * Returns the font index file. A directory given by the system property is used as is, so
+     * that a pre-built index may be read from a read-only location.
+     */
+    private static File getFontIndexFile()
+    {
+        String dir = System.getProperty(FONT_INDEX_PROPERTY);
+        if (dir == null)
         {
-            LOG.warn("Building font cache, this may take a while");
-            scanFonts(files);
-            saveCache();
+            dir = System.getProperty("user.home");
+            if (dir == null || !new File(dir).canWrite())
+            {
+                dir = System.getProperty("java.io.tmpdir");
+            }
         }
+        return new File(dir, FONT_INDEX_NAME);
     }
-    
-    private void scanFonts(List<File> files)
+
+    /**
+     * Parses the given font files, in parallel if there are several of them. Returns an entry
+     * for each file, which is null if the file could not be parsed at all.
+     */
+    private List<FontFileEntry> scanFonts(final List<File> files)
     {
-        for (File file : files)
+        List<FontFileEntry> entries = new ArrayList<FontFileEntry>(files.size());
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1)
         {
-            try
+            for (File file : files)
             {
-                if (file.getPath().toLowerCase().endsWith(".ttf") ||
-                        file.getPath().toLowerCase().endsWith(".otf"))
-                {
-                    addTrueTypeFont(file);
-                }
-                else if (file.getPath().toLowerCase().endsWith(".ttc") ||
-                        file.getPath().toLowerCase().endsWith(".otc"))
+                entries.add(scanFont(file));
+            }
+            return entries;
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "PDFBox font scan " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        boolean interrupted = false;
+        try
+        {
+            List<Future<FontFileEntry>> futures = new ArrayList<Future<FontFileEntry>>();
+            for (final File file : files)
+            {
+                futures.add(executor.submit(new Callable<FontFileEntry>()
                 {
-                    addTrueTypeCollection(file);
-                }
-                else if (file.getPath().toLowerCase().endsWith(".pfb"))
+                    @Override
+                    public FontFileEntry call()
+                    {
+                        return scanFont(file);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++)
+            {
+                FontFileEntry entry = null;
+                if (!interrupted)
                 {
-                    addType1Font(file);
+                    try
+                    {
+                        entry = futures.get(i).get();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        LOG.error("Error parsing font " + files.get(i).getPath(), e.getCause());
+                    }
                 }
+                entries.add(entry);
             }
-            catch (IOException e)
+        }
+        finally
+        {
+            executor.shutdownNow();
+            if (interrupted)
             {
-                LOG.error("Error parsing font " + file.getPath(), e);
+                Thread.currentThread().interrupt();
             }
         }
+        return entries;
     }
-    
-    private void saveCache()
-    {
-        // Get the preferences database for this package.
-        Preferences prefs = Preferences.userNodeForPackage(FileSystemFontProvider.class);
 
-        // To save, write the object to a byte array.
+    /**
+     * Parses a font file. Fonts which can't be parsed are logged and left out.
+     */
+    private FontFileEntry scanFont(File file)
+    {
+        // taken before parsing, so that a file which changes meanwhile is parsed again next time
+        long length = file.length();
+        long lastModified = file.lastModified();
+        List<FSFontInfo> fonts = new ArrayList<FSFontInfo>();
         try
         {
-            for (FSFontInfo fontInfo : fontInfoList)
+            String path = file.getPath().toLowerCase();
+            if (path.endsWith(".ttf") || path.endsWith(".otf"))
+            {
+                addTrueTypeFont(file, fonts);
+            }
+            else if (path.endsWith(".ttc") || path.endsWith(".otc"))
+            {
+                addTrueTypeCollection(file, fonts);
+            }
+            else if (path.endsWith(".pfb"))
             {
-                ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-                ObjectOutputStream objectOut = new ObjectOutputStream(byteOut);
-                // write it to the stream
-                objectOut.writeObject(fontInfo);
-                prefs.putByteArray(fontInfo.file.getAbsolutePath(), byteOut.toByteArray());
+                addType1Font(file, fonts);
             }
         }
         catch (IOException e)
         {
-            LOG.error("Could not write to font cache", e);
+            LOG.error("Error parsing font " + file.getPath(), e);
         }
-        LOG.warn("Finished building font cache, found " + fontInfoList.size() + " fonts");
+        return new FontFileEntry(length, lastModified, fonts);
     }
-    
-    private List<FSFontInfo> loadCache(List<File> files)
+
+    /**
+     * Loads the font index. Returns an empty index if there is none or if it can't be read.
+     */
+    private Map<String, FontFileEntry> loadIndex(File indexFile)
     {
-        // Get the preferences database for this package.
-        Preferences prefs = Preferences.userNodeForPackage(FileSystemFontProvider.class);
-        List<FSFontInfo> results = new ArrayList<FSFontInfo>();
-        for (File file : files)
+        Map<String, FontFileEntry> index = new LinkedHashMap<String, FontFileEntry>();
+        if (!indexFile.isFile())
+        {
+            return index;
+        }
+        DataInputStream input = null;
+        try
         {
-            // The second argument is the default if the key isn't found.
-            byte[] stored = prefs.getByteArray(file.getAbsolutePath(), null);
-            if (stored != null)
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            if (input.readInt() != FONT_INDEX_MAGIC || input.readInt() != FONT_INDEX_VERSION)
             {
-                try
-                {
-                    ByteArrayInputStream byteIn = new ByteArrayInputStream(stored);
-                    ObjectInputStream objectIn = new ObjectInputStream(byteIn);
-                    Object object = objectIn.readObject();
-                    if (object instanceof FSFontInfo)
-                    {
-                        FSFontInfo info = (FSFontInfo)object;
-                        info.parent = this;
-                        results.add(info);
-                    }
-                }
-                catch (ClassNotFoundException e)
+                LOG.warn("Unknown font index format, font index will be re-built");
+                return index;
+            }
+            int fileCount = input.readInt();
+            for (int i = 0; i < fileCount; i++)
+            {
+                String path = input.readUTF();
+                File file = new File(path);
+                long length = input.readLong();
+                long lastModified = input.readLong();
+                int fontCount = input.readUnsignedShort();
+                List<FSFontInfo> fonts = new ArrayList<FSFontInfo>(fontCount);
+                for (int j = 0; j < fontCount; j++)
                 {
-                    LOG.error("Error loading font cache, will be re-built", e);
-                    return null;
+                    fonts.add(readFontInfo(input, file));
                 }
-                catch (IOException e)
+                index.put(path, new FontFileEntry(length, lastModified, fonts));
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.error("Error loading font index, will be re-built", e);
+            index.clear();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+        }
+        return index;
+    }
+
+    private FSFontInfo readFontInfo(DataInputStream input, File file) throws IOException
+    {
+        boolean ignored = input.readBoolean();
+        int formatIndex = input.readUnsignedByte();
+        if (formatIndex >= FontFormat.values().length)
+        {
+            throw new IOException("Unknown font format " + formatIndex);
+        }
+        FontFormat format = FontFormat.values()[formatIndex];
+        String postScriptName = readString(input);
+        if (ignored)
+        {
+            return new FSIgnored(file, format, postScriptName, this);
+        }
+        CIDSystemInfo ros = null;
+        if (input.readBoolean())
+        {
+            String registry = readString(input);
+            String ordering = readString(input);
+            int supplement = input.readInt();
+            ros = new CIDSystemInfo(registry, ordering, supplement);
+        }
+        int usWeightClass = input.readInt();
+        int sFamilyClass = input.readInt();
+        int ulCodePageRange1 = input.readInt();
+        int ulCodePageRange2 = input.readInt();
+        int macStyle = input.readInt();
+        byte[] panose = null;
+        int panoseLength = input.readUnsignedByte();
+        if (panoseLength > 0)
+        {
+            panose = new byte[panoseLength];
+            input.readFully(panose);
+        }
+        return new FSFontInfo(file, format, postScriptName, ros, usWeightClass, sFamilyClass,
+                              ulCodePageRange1, ulCodePageRange2, macStyle, panose, this);
+    }
+
+    /**
+     * Saves the font index. The index is written to a temporary file first which then replaces
+     * the index, so that other processes never read a partially written index.
+     */
+    private void saveIndex(File indexFile, Map<String, FontFileEntry> entries)
+    {
+        File temp = null;
+        DataOutputStream output = null;
+        try
+        {
+            temp = File.createTempFile(FONT_INDEX_NAME, ".tmp",
+                                       indexFile.getAbsoluteFile().getParentFile());
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            output.writeInt(FONT_INDEX_MAGIC);
+            output.writeInt(FONT_INDEX_VERSION);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, FontFileEntry> entry : entries.entrySet())
+            {
+                FontFileEntry fileEntry = entry.getValue();
+                output.writeUTF(entry.getKey());
+                output.writeLong(fileEntry.length);
+                output.writeLong(fileEntry.lastModified);
+                output.writeShort(fileEntry.fonts.size());
+                for (FSFontInfo info : fileEntry.fonts)
                 {
-                    LOG.error("Error loading font cache, will be re-built", e);
-                    return null;
+                    writeFontInfo(output, info);
                 }
             }
-            else
+            output.close();
+            output = null;
+
+            if (!temp.renameTo(indexFile) && !(indexFile.delete() && temp.renameTo(indexFile)))
+            {
+                throw new IOException("Could not replace " + indexFile);
+            }
+            temp = null;
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Could not write font index " + indexFile, e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(output);
+            if (temp != null && !temp.delete())
             {
-                // re-build the entire cache if we encounter un-cached fonts (could be optimised)
-                LOG.warn("New fonts found, font cache will be re-built");
-                return null;
+                LOG.warn("Could not delete " + temp);
             }
         }
-        return results;
+    }
+
+    private static void writeFontInfo(DataOutputStream output, FSFontInfo info) throws IOException
+    {
+        boolean ignored = info instanceof FSIgnored;
+        output.writeBoolean(ignored);
+        output.writeByte(info.format.ordinal());
+        writeString(output, info.postScriptName);
+        if (ignored)
+        {
+            return;
+        }
+        output.writeBoolean(info.cidSystemInfo != null);
+        if (info.cidSystemInfo != null)
+        {
+            writeString(output, info.cidSystemInfo.getRegistry());
+            writeString(output, info.cidSystemInfo.getOrdering());
+            output.writeInt(info.cidSystemInfo.getSupplement());
+        }
+        output.writeInt(info.usWeightClass);
+        output.writeInt(info.sFamilyClass);
+        output.writeInt(info.ulCodePageRange1);
+        output.writeInt(info.ulCodePageRange2);
+        output.writeInt(info.macStyle);
+        byte[] panose = info.panose != null ? info.panose.getBytes() : null;
+        if (panose != null)
+        {
+            output.writeByte(panose.length);
+            output.write(panose);
+        }
+        else
+        {
+            output.writeByte(0);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException
+    {
+        output.writeBoolean(string != null);
+        if (string != null)
+        {
+            output.writeUTF(string);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException
+    {
+        return input.readBoolean() ? input.readUTF() : null;
     }
 
     /**
-     * Adds a TTC or OTC to the file cache. To reduce memory, the parsed font is not cached.
+     * Adds a TTC or OTC to the given list. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeCollection(File ttcFile) throws IOException
+    private void addTrueTypeCollection(File ttcFile, List<FSFontInfo> fonts) throws IOException
     {
         TrueTypeCollection ttc = null;
         try
@@ -333,7 +675,7 @@ final class FileSystemFontProvider extends FontProvider
             ttc = new TrueTypeCollection(ttcFile);
             for (TrueTypeFont ttf : ttc.getFonts())
             {
-                addTrueTypeFontImpl(ttf, ttcFile);
+                addTrueTypeFontImpl(ttf, ttcFile, fonts);
             }
         }
         catch (NullPointerException e) // TTF parser is buggy
@@ -354,9 +696,9 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     /**
-     * Adds an OTF or TTF font to the file cache. To reduce memory, the parsed font is not cached.
+     * Adds an OTF or TTF font to the given list. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeFont(File ttfFile) throws IOException
+    private void addTrueTypeFont(File ttfFile, List<FSFontInfo> fonts) throws IOException
     {
         try
         {
@@ -364,13 +706,13 @@ final class FileSystemFontProvider extends FontProvider
             {
                 OTFParser parser = new OTFParser(false, true);
                 OpenTypeFont otf = parser.parse(ttfFile);
-                addTrueTypeFontImpl(otf, ttfFile);
+                addTrueTypeFontImpl(otf, ttfFile, fonts);
             }
             else
             {
                 TTFParser parser = new TTFParser(false, true);
                 TrueTypeFont ttf = parser.parse(ttfFile);
-                addTrueTypeFontImpl(ttf, ttfFile);
+                addTrueTypeFontImpl(ttf, ttfFile, fonts);
             }
         }
         catch (NullPointerException e) // TTF parser is buggy
@@ -384,9 +726,10 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     /**
-     * Adds an OTF or TTF font to the file cache. To reduce memory, the parsed font is not cached.
+     * Adds an OTF or TTF font to the given list. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeFontImpl(TrueTypeFont ttf, File file) throws IOException
+    private void addTrueTypeFontImpl(TrueTypeFont ttf, File file, List<FSFontInfo> fonts)
+            throws IOException
     {
         try
         {
@@ -412,7 +755,7 @@ final class FileSystemFontProvider extends FontProvider
                 // ignore bitmap fonts
                 if (ttf.getHeader() == null)
                 {
-                    fontInfoList.add(new FSIgnored(file, FontFormat.TTF, ttf.getName()));
+                    fonts.add(new FSIgnored(file, FontFormat.TTF, ttf.getName(), this));
                     return;
                 }
                 int macStyle = ttf.getHeader().getMacStyle();
@@ -431,7 +774,7 @@ final class FileSystemFontProvider extends FontProvider
                         int supplement = cidFont.getSupplement();
                         ros = new CIDSystemInfo(registry, ordering, supplement);
                     }
-                    fontInfoList.add(new FSFontInfo(file, FontFormat.OTF, ttf.getName(), ros,
+                    fonts.add(new FSFontInfo(file, FontFormat.OTF, ttf.getName(), ros,
                             usWeightClass, sFamilyClass, ulCodePageRange1, ulCodePageRange2,
                             macStyle, panose, this));
                 }
@@ -449,7 +792,7 @@ final class FileSystemFontProvider extends FontProvider
                     }
                     
                     format = "TTF";
-                    fontInfoList.add(new FSFontInfo(file, FontFormat.TTF, ttf.getName(), ros,
+                    fonts.add(new FSFontInfo(file, FontFormat.TTF, ttf.getName(), ros,
                             usWeightClass, sFamilyClass, ulCodePageRange1, ulCodePageRange2,
                             macStyle, panose, this));
                 }
@@ -484,15 +827,15 @@ final class FileSystemFontProvider extends FontProvider
     }
 
     /**
-     * Adds a Type 1 font to the file cache. To reduce memory, the parsed font is not cached.
+     * Adds a Type 1 font to the given list. To reduce memory, the parsed font is not cached.
      */
-    private void addType1Font(File pfbFile) throws IOException
+    private void addType1Font(File pfbFile, List<FSFontInfo> fonts) throws IOException
     {
         InputStream input = new FileInputStream(pfbFile);
         try
         {
             Type1Font type1 = Type1Font.createWithPFB(input);
-            fontInfoList.add(new FSFontInfo(pfbFile, FontFormat.PFB, type1.getName(),
+            fonts.add(new FSFontInfo(pfbFile, FontFormat.PFB, type1.getName(),
                                             null, -1, -1, 0, 0, -1, null, this));
 
             if (LOG.isTraceEnabled())
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.font;
+
+/**
+ * The FontMapper used by fonts which aren't embedded. By default this is a shared
+ * {@link FontMapperImpl} which uses the fonts installed on the system. A different mapper may be
+ * set for all threads, or for the current thread only, so that e.g. separate tenants of a server
+ * can use separate font providers.
+ *
+ * @author John Hewson
+ */
+public final class FontMappers
+{
+    private static volatile FontMapper instance;
+    private static final ThreadLocal<FontMapper> threadInstance = new ThreadLocal<FontMapper>();
+
+    private FontMappers()
+    {
+    }
+
+    // lazy thread safe singleton
+    private static class DefaultFontMapper
+    {
+        private static final FontMapper INSTANCE = new FontMapperImpl();
+    }
+
+    /**
+     * Returns the font mapper of the current thread, if one was set, otherwise the font mapper
+     * for all threads.
+     */
+    public static FontMapper instance()
+    {
+        FontMapper mapper = threadInstance.get();
+        if (mapper == null)
+        {
+            mapper = instance;
+            if (mapper == null)
+            {
+                mapper = DefaultFontMapper.INSTANCE;
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * Sets the font mapper for all threads.
+     *
+     * @param fontMapper the font mapper, or null to use the default one
+     */
+    public static void set(FontMapper fontMapper)
+    {
+        instance = fontMapper;
+    }
+
+    /**
+     * Sets the font mapper for the current thread, which takes precedence over the one set for
+     * all threads.
+     *
+     * @param fontMapper the font mapper, or null to remove the one of the current thread
+     */
+    public static void setForCurrentThread(FontMapper fontMapper)
+    {
+        if (fontMapper != null)
+        {
+            threadInstance.set(fontMapper);
+        }
+        else
+        {
+            threadInstance.remove();
+        }
+    }
+}
@@ -29,7 +29,13 @@ public class FontMapping<T extends FontBoxFont>
     private final T font;
     private final boolean isFallback;
     
-    FontMapping(T font, boolean isFallback)
+    /**
+     * Creates a font mapping.
+     *
+     * @param font the mapped FontBox font
+     * @param isFallback true if the mapped font is a fallback
+     */
+    public FontMapping(T font, boolean isFallback)
     {
         this.font = font;
         this.isFallback = isFallback;
@@ -20,9 +20,9 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox_ai2.FontBoxFont;
@@ -50,7 +50,7 @@ public class PDCIDFontType0 extends PDCIDFont
     private final CFFCIDFont cidFont;  // Top DICT that uses CIDFont operators
     private final FontBoxFont t1Font; // Top DICT that does not use CIDFont operators
     
-    private final Map<Integer, Float> glyphHeights = new HashMap<Integer, Float>();
+    private final Map<Integer, Float> glyphHeights = new ConcurrentHashMap<Integer, Float>();
     private final boolean isEmbedded;
     private final boolean isDamaged;
 
@@ -120,8 +120,9 @@ public class PDCIDFontType0 extends PDCIDFont
         else
         {
             // find font or substitute
-            CIDFontMapping mapping = FontMapper.getCIDFont(getBaseFont(), getFontDescriptor(),
-                                                           getCIDSystemInfo());
+            CIDFontMapping mapping = FontMappers.instance()
+                                                .getCIDFont(getBaseFont(), getFontDescriptor(),
+                                                            getCIDSystemInfo());
             FontBoxFont font;
             if (mapping.isCIDFont())
             {
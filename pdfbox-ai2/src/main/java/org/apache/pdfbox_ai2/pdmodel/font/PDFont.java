@@ -55,7 +55,7 @@ public abstract class PDFont implements COSObjectable, PDFontLike
     private final FontMetrics afmStandard14; // AFM for standard 14 fonts
 
     private PDFontDescriptor fontDescriptor;
-    private List<Float> widths;
+    private volatile List<Float> widths;
     private float avgFontWidth;
     private float fontWidthOfSpace = -1f;
 
@@ -448,19 +448,22 @@ public abstract class PDFont implements COSObjectable, PDFontLike
      */
     protected final List<Float> getWidths()
     {
-        if (widths == null)
+        // fonts may be shared between threads, so the list is built before it is published
+        List<Float> list = widths;
+        if (list == null)
         {
             COSArray array = (COSArray) dict.getDictionaryObject(COSName.WIDTHS);
             if (array != null)
             {
-                widths = COSArrayList.convertFloatCOSArrayToList(array);              
+                list = COSArrayList.convertFloatCOSArrayToList(array);
             }
             else
             {
-                widths = Collections.emptyList();
+                list = Collections.emptyList();
             }
+            widths = list;
         }
-        return widths;
+        return list;
     }
 
     @Override
@@ -84,6 +84,14 @@ public class PDPanoseClassification implements Serializable
         return bytes[9];
     }
 
+    /**
+     * Returns the raw 10 bytes of the classification.
+     */
+    byte[] getBytes()
+    {
+        return bytes;
+    }
+
     @Override
     public String toString()
     {
@@ -48,7 +48,7 @@ public abstract class PDSimpleFont extends PDFont
     protected GlyphList glyphList;
     private Boolean isSymbolic;
     private final Set<Integer> noUnicode = new HashSet<Integer>(); // for logging
-    private Map<String, Integer> invertedEncoding; // for writing
+    private volatile Map<String, Integer> invertedEncoding; // for writing
     
     /**
      * Constructor for embedding.
@@ -180,16 +180,18 @@ public abstract class PDSimpleFont extends PDFont
             return invertedEncoding;
         }
 
-        invertedEncoding = new HashMap<String, Integer>();
+        // build the map completely before publishing it, fonts may be shared between threads
+        Map<String, Integer> inverted = new HashMap<String, Integer>();
         Map<Integer, String> codeToName = encoding.getCodeToNameMap();
         for (Map.Entry<Integer, String> entry : codeToName.entrySet())
         {
-            if (!invertedEncoding.containsKey(entry.getValue()))
+            if (!inverted.containsKey(entry.getValue()))
             {
-                invertedEncoding.put(entry.getValue(), entry.getKey());
+                inverted.put(entry.getValue(), entry.getKey());
             }
         }
-        return invertedEncoding;
+        invertedEncoding = inverted;
+        return inverted;
     }
     
     /**
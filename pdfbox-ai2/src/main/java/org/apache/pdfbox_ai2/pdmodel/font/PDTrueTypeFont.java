@@ -142,8 +142,8 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
     private CmapSubtable cmapWinUnicode = null;
     private CmapSubtable cmapWinSymbol = null;
     private CmapSubtable cmapMacRoman = null;
-    private boolean cmapInitialized = false;
-    private Map<Integer, Integer> gidToCode; // for embedding
+    private volatile boolean cmapInitialized = false;
+    private volatile Map<Integer, Integer> gidToCode; // for embedding
 
     private final TrueTypeFont ttf;
     private final boolean isEmbedded;
@@ -190,8 +190,9 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
         // substitute
         if (ttfFont == null)
         {
-            FontMapping<TrueTypeFont> mapping = FontMapper.getTrueTypeFont(getBaseFont(),
-                                                                           getFontDescriptor());
+            FontMapping<TrueTypeFont> mapping = FontMappers.instance()
+                                                           .getTrueTypeFont(getBaseFont(),
+                                                                            getFontDescriptor());
             ttfFont = mapping.getFont();
 
             if (mapping.isFallback())
@@ -399,16 +400,17 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
             return gidToCode;
         }
 
-        gidToCode = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> map = new HashMap<Integer, Integer>();
         for (int code = 0; code <= 255; code++)
         {
             int gid = codeToGID(code);
-            if (!gidToCode.containsKey(gid))
+            if (!map.containsKey(gid))
             {
-                gidToCode.put(gid, code);
+                map.put(gid, code);
             }
         }
-        return gidToCode;
+        gidToCode = map;
+        return map;
     }
 
     @Override
@@ -588,6 +590,9 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
             return;
         }
 
+        CmapSubtable winUnicode = null;
+        CmapSubtable winSymbol = null;
+        CmapSubtable macRoman = null;
         CmapTable cmapTable = ttf.getCmap();
         if (cmapTable != null)
         {
@@ -599,20 +604,24 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
                 {
                     if (CmapTable.ENCODING_WIN_UNICODE_BMP == cmap.getPlatformEncodingId())
                     {
-                        cmapWinUnicode = cmap;
+                        winUnicode = cmap;
                     }
                     else if (CmapTable.ENCODING_WIN_SYMBOL == cmap.getPlatformEncodingId())
                     {
-                        cmapWinSymbol = cmap;
+                        winSymbol = cmap;
                     }
                 }
                 else if (CmapTable.PLATFORM_MACINTOSH == cmap.getPlatformId()
                         && CmapTable.ENCODING_MAC_ROMAN == cmap.getPlatformEncodingId())
                 {
-                    cmapMacRoman = cmap;
+                    macRoman = cmap;
                 }
             }
         }
+        cmapWinUnicode = winUnicode;
+        cmapWinSymbol = winSymbol;
+        cmapMacRoman = macRoman;
+        // fonts may be shared between threads, the volatile write publishes the subtables
         cmapInitialized = true;
     }
 }
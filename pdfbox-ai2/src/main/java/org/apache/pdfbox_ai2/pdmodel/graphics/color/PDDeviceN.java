@@ -21,9 +21,11 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -64,6 +66,9 @@ public class PDDeviceN extends PDSpecialColorSpace
     private PDColorSpace processColorSpace;
     private PDSeparation[] spotColorSpaces;
 
+    // size of the cache of converted sample tuples used by toRGBWithTintTransform
+    private static final int TUPLE_CACHE_SIZE = 4096;
+
     /**
      * Creates a new DeviceN color space.
      */
@@ -226,27 +231,13 @@ public class PDDeviceN extends PDSpecialColorSpace
             WritableRaster componentRaster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE,
                 width, height, componentColorSpace.getNumberOfComponents(), new Point(0, 0));
 
-            int[] samples = new int[numColorants];
-            int[] componentSamples = new int[componentColorSpace.getNumberOfComponents()];
-            boolean isProcessColorant = colorantToComponent[c] >= 0;
-            int componentIndex = colorantToComponent[c];
+            int componentBand = colorantToComponent[c] >= 0 ? colorantToComponent[c] : 0;
+            int[] samples = new int[width];
             for (int y = 0; y < height; y++)
             {
-                for (int x = 0; x < width; x++)
-                {
-                    raster.getPixel(x, y, samples);
-                    if (isProcessColorant)
-                    {
-                        // process color
-                        componentSamples[componentIndex] = samples[c];
-                    }
-                    else
-                    {
-                        // spot color
-                        componentSamples[0] = samples[c];
-                    }
-                    componentRaster.setPixel(x, y, componentSamples);
-                }
+                // process colors go to their component, spot colors to the only one
+                raster.getSamples(0, y, width, 1, c, samples);
+                componentRaster.setSamples(0, y, width, 1, componentBand, samples);
             }
 
             // convert single-component raster to RGB
@@ -254,22 +245,24 @@ public class PDDeviceN extends PDSpecialColorSpace
             WritableRaster rgbComponentRaster = rgbComponentImage.getRaster();
 
             // combine the RGB component with the RGB composite raster
-            int[] rgbChannel = new int[3];
-            int[] rgbComposite = new int[3];
+            int numBands = rgbComponentRaster.getNumBands();
+            int[] rgbChannel = new int[width * numBands];
+            int[] rgbComposite = new int[width * 3];
             for (int y = 0; y < height; y++)
             {
+                rgbComponentRaster.getPixels(0, y, width, 1, rgbChannel);
+                rgbRaster.getPixels(0, y, width, 1, rgbComposite);
                 for (int x = 0; x < width; x++)
                 {
-                    rgbComponentRaster.getPixel(x, y, rgbChannel);
-                    rgbRaster.getPixel(x, y, rgbComposite);
+                    int i = x * numBands;
+                    int j = x * 3;
 
                     // multiply (blend mode)
-                    rgbChannel[0] = rgbChannel[0] * rgbComposite[0] >> 8;
-                    rgbChannel[1] = rgbChannel[1] * rgbComposite[1] >> 8;
-                    rgbChannel[2] = rgbChannel[2] * rgbComposite[2] >> 8;
-
-                    rgbRaster.setPixel(x, y, rgbChannel);
+                    rgbComposite[j] = rgbChannel[i] * rgbComposite[j] >> 8;
+                    rgbComposite[j + 1] = rgbChannel[i + 1] * rgbComposite[j + 1] >> 8;
+                    rgbComposite[j + 2] = rgbChannel[i + 2] * rgbComposite[j + 2] >> 8;
                 }
+                rgbRaster.setPixels(0, y, width, 1, rgbComposite);
             }
         }
 
@@ -287,38 +280,72 @@ public class PDDeviceN extends PDSpecialColorSpace
         // use the tint transform to convert the sample into
         // the alternate color space (this is usually 1:many)
         BufferedImage rgbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        WritableRaster rgbRaster = rgbImage.getRaster();
-        int[] rgb = new int[3];
+        int[] rgb = ((DataBufferInt) rgbImage.getRaster().getDataBuffer()).getData();
         int numSrcComponents = getColorantNames().size();
         float[] src = new float[numSrcComponents];
+        int[] row = new int[width * numSrcComponents];
+
+        // images repeat few distinct colors, so converted tuples of up to 7 8-bit samples
+        // are kept in a small direct-mapped cache, keyed by the packed samples
+        boolean useCache = numSrcComponents <= 7;
+        long[] cacheKeys = null;
+        int[] cacheValues = null;
+        if (useCache)
+        {
+            cacheKeys = new long[TUPLE_CACHE_SIZE];
+            cacheValues = new int[TUPLE_CACHE_SIZE];
+            Arrays.fill(cacheKeys, -1);
+        }
+
         for (int y = 0; y < height; y++)
         {
+            raster.getPixels(0, y, width, 1, row);
+            int offset = y * width;
             for (int x = 0; x < width; x++)
             {
-                raster.getPixel(x, y, src);
-
-                int[] intSrc = new int[numSrcComponents];
-                raster.getPixel(x, y, intSrc);
+                int start = x * numSrcComponents;
+                boolean cacheable = useCache;
+                long key = 0;
+                int slot = 0;
+                for (int s = 0; s < numSrcComponents && cacheable; s++)
+                {
+                    int sample = row[start + s];
+                    // larger samples don't fit in the key
+                    cacheable = (sample & ~0xFF) == 0;
+                    key = key << 8 | sample;
+                }
+                if (cacheable)
+                {
+                    slot = ((int) (key ^ key >>> 29) * 0x9E3779B9 >>> 16) & (TUPLE_CACHE_SIZE - 1);
+                    if (cacheKeys[slot] == key)
+                    {
+                        rgb[offset + x] = cacheValues[slot];
+                        continue;
+                    }
+                }
 
                 // scale to 0..1
                 for (int s = 0; s < numSrcComponents; s++)
                 {
-                    src[s] = src[s] / 255;
+                    src[s] = row[start + s] / 255f;
                 }
 
                 // convert to alternate color space via tint transform
                 float[] result = tintTransform.eval(src);
-                
+
                 // convert from alternate color space to RGB
                 float[] rgbFloat = alternateColorSpace.toRGB(result);
-                
-                for (int s = 0; s < 3; s++)
-                {
-                    // scale to 0..255
-                    rgb[s] = (int) (rgbFloat[s] * 255f);
-                }                
 
-                rgbRaster.setPixel(x, y, rgb);
+                // scale to 0..255
+                int value = ((int) (rgbFloat[0] * 255f) & 0xFF) << 16 |
+                            ((int) (rgbFloat[1] * 255f) & 0xFF) << 8 |
+                            (int) (rgbFloat[2] * 255f) & 0xFF;
+                rgb[offset + x] = value;
+                if (cacheable)
+                {
+                    cacheKeys[slot] = key;
+                    cacheValues[slot] = value;
+                }
             }
         }
         return rgbImage;
@@ -19,11 +19,10 @@ package org.apache.pdfbox_ai2.pdmodel.graphics.color;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.pdfbox_ai2.cos.COSArray;
 import org.apache.pdfbox_ai2.cos.COSBase;
@@ -53,6 +52,9 @@ public class PDSeparation extends PDSpecialColorSpace
     private PDColorSpace alternateColorSpace = null;
     private PDFunction tintTransform = null;
 
+    // RGB value of each 8-bit tint, built on first use
+    private volatile int[] rgbLookup;
+
     /**
      * Creates a new Separation color space.
      */
@@ -115,38 +117,57 @@ public class PDSeparation extends PDSpecialColorSpace
     @Override
     public BufferedImage toRGBImage(WritableRaster raster) throws IOException
     {
-        // use the tint transform to convert the sample into
-        // the alternate color space (this is usually 1:many)
-        WritableRaster altRaster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE,
-                raster.getWidth(), raster.getHeight(),
-                alternateColorSpace.getNumberOfComponents(),
-                new Point(0, 0));
+        // samples are 8-bit, so every tint is converted once and then looked up
+        int[] lookup = getRGBLookup();
 
-        int numAltComponents = alternateColorSpace.getNumberOfComponents();
         int width = raster.getWidth();
         int height = raster.getHeight();
-        float[] samples = new float[1];
-
-        Map<Integer, int[]> calculatedValues = new HashMap<Integer, int[]>();
-        Integer hash;
+        BufferedImage rgbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] rgb = ((DataBufferInt) rgbImage.getRaster().getDataBuffer()).getData();
+        int[] row = new int[width];
         for (int y = 0; y < height; y++)
         {
+            raster.getSamples(0, y, width, 1, 0, row);
+            int offset = y * width;
             for (int x = 0; x < width; x++)
             {
-                raster.getPixel(x, y, samples);
-                int[] alt = calculatedValues.get(hash = Float.floatToIntBits(samples[0]));
-                if (alt == null)
-                {
-                    alt = new int[numAltComponents];
-                    tintTransform(samples, alt);
-                    calculatedValues.put(hash, alt);
-                }                
-                altRaster.setPixel(x, y, alt);
+                // larger samples would be clipped to the domain of the tint transform anyway
+                rgb[offset + x] = lookup[Math.min(row[x], 255)];
             }
         }
+        return rgbImage;
+    }
 
-        // convert the alternate color space to RGB
-        return alternateColorSpace.toRGBImage(altRaster);
+    // returns the packed RGB value for each tint from 0 to 255
+    private int[] getRGBLookup() throws IOException
+    {
+        int[] lookup = rgbLookup;
+        if (lookup == null)
+        {
+            // use the tint transform to convert each tint into the alternate
+            // color space (this is usually 1:many), as a raster of 256 pixels
+            int numAltComponents = alternateColorSpace.getNumberOfComponents();
+            WritableRaster altRaster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE,
+                    256, 1, numAltComponents, new Point(0, 0));
+            float[] samples = new float[1];
+            int[] alt = new int[numAltComponents];
+            for (int i = 0; i < 256; i++)
+            {
+                samples[0] = i;
+                tintTransform(samples, alt);
+                altRaster.setPixel(i, 0, alt);
+            }
+
+            // convert the alternate color space to RGB
+            BufferedImage altImage = alternateColorSpace.toRGBImage(altRaster);
+            lookup = new int[256];
+            for (int i = 0; i < 256; i++)
+            {
+                lookup[i] = altImage.getRGB(i, 0) & 0xFFFFFF;
+            }
+            rgbLookup = lookup;
+        }
+        return lookup;
     }
 
     protected void tintTransform(float[] samples, int[] alt) throws IOException
@@ -195,6 +216,7 @@ public class PDSeparation extends PDSpecialColorSpace
     public void setAlternateColorSpace(PDColorSpace colorSpace)
     {
         alternateColorSpace = colorSpace;
+        rgbLookup = null;
         COSBase space = null;
         if (colorSpace != null)
         {
@@ -210,6 +232,7 @@ public class PDSeparation extends PDSpecialColorSpace
     public void setTintTransform(PDFunction tint)
     {
         tintTransform = tint;
+        rgbLookup = null;
         array.set(TINT_TRANSFORM, tint);
     }
 
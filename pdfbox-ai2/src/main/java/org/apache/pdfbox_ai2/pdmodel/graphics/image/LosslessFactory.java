@@ -15,21 +15,29 @@
  */
 package org.apache.pdfbox_ai2.pdmodel.graphics.image;
 
-import java.awt.Color;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 import org.apache.pdfbox_ai2.cos.COSDictionary;
 import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
 import org.apache.pdfbox_ai2.filter.Filter;
 import org.apache.pdfbox_ai2.filter.FilterFactory;
+import org.apache.pdfbox_ai2.io.IOUtils;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColorSpace;
-import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceColorSpace;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceGray;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceRGB;
 
@@ -40,6 +48,9 @@ import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceRGB;
  */
 public final class LosslessFactory
 {
+    // the deflater's output buffer
+    private static final int BUFFER_SIZE = 16384;
+
     private LosslessFactory()
     {
     }
@@ -55,63 +66,77 @@ public final class LosslessFactory
     public static PDImageXObject createFromImage(PDDocument document, BufferedImage image)
             throws IOException
     {
-        int bpc;
-        PDDeviceColorSpace deviceColorSpace;
-
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        int height = image.getHeight();
-        int width = image.getWidth();
+        return createFromImage(document, image, false);
+    }
 
-        if ((image.getType() == BufferedImage.TYPE_BYTE_GRAY && image.getColorModel().getPixelSize() <= 8)
-                || (image.getType() == BufferedImage.TYPE_BYTE_BINARY && image.getColorModel().getPixelSize() == 1))
+    /**
+     * Creates a new lossless encoded Image XObject from a Buffered Image, optionally with PNG
+     * predictors. With predictors, each row of an 8-bit gray or RGB image is stored as the
+     * differences to the best of the PNG predictors. This makes photos, gradients and
+     * screenshots much smaller, but takes longer to encode and to decode.
+     *
+     * @param document the document where the image will be created
+     * @param image the buffered image to embed
+     * @param usePredictors true to apply PNG predictors to 8-bit images
+     * @return a new Image XObject
+     * @throws IOException if something goes wrong
+     */
+    public static PDImageXObject createFromImage(PDDocument document, BufferedImage image,
+                                                 boolean usePredictors) throws IOException
+    {
+        if (image.getType() == BufferedImage.TYPE_BYTE_BINARY &&
+            image.getColorModel().getPixelSize() == 1)
         {
-            MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(bos);
-
-            // grayscale images need one color per sample
-            bpc = image.getColorModel().getPixelSize();
-            deviceColorSpace = PDDeviceGray.INSTANCE;
-            for (int y = 0; y < height; ++y)
-            {
-                for (int x = 0; x < width; ++x)
-                {
-                    mcios.writeBits(image.getRGB(x, y) & 0xFF, bpc);
-                }
-                while (mcios.getBitOffset() != 0)
-                {
-                    mcios.writeBit(0);
-                }
-            }
-            mcios.flush();
-            mcios.close();
+            return createFromBitonalImage(document, image);
         }
-        else
+
+        // 8-bit gray or RGB, the alpha goes into the soft mask in the same pass
+        boolean isGray = image.getType() == BufferedImage.TYPE_BYTE_GRAY &&
+                         image.getColorModel().getPixelSize() <= 8;
+        PDImageXObject pdImage = new PredictorEncoder(document, image, isGray, usePredictors)
+                .encode();
+
+        // bitmask alpha -> 1-bit soft mask
+        if (image.getColorModel().hasAlpha() &&
+            image.getTransparency() == Transparency.BITMASK)
         {
-            // RGB
-            bpc = 8;
-            deviceColorSpace = PDDeviceRGB.INSTANCE;
-            for (int y = 0; y < height; ++y)
+            PDImage xAlpha = createAlphaFromARGBImage(document, image);
+            if (xAlpha != null)
             {
-                for (int x = 0; x < width; ++x)
-                {
-                    Color color = new Color(image.getRGB(x, y));
-                    bos.write(color.getRed());
-                    bos.write(color.getGreen());
-                    bos.write(color.getBlue());
-                }
+                pdImage.getCOSStream().setItem(COSName.SMASK, xAlpha);
             }
         }
 
-        PDImageXObject pdImage = prepareImageXObject(document, bos.toByteArray(), 
-                image.getWidth(), image.getHeight(), bpc, deviceColorSpace);
+        return pdImage;
+    }
+
+    // 1-bit images are written as they are, predictors would not make them smaller
+    private static PDImageXObject createFromBitonalImage(PDDocument document, BufferedImage image)
+            throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        int height = image.getHeight();
+        int width = image.getWidth();
 
-        // alpha -> soft mask
-        PDImage xAlpha = createAlphaFromARGBImage(document, image);
-        if (xAlpha != null)
+        MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(bos);
+        int[] row = new int[width];
+        for (int y = 0; y < height; ++y)
         {
-            pdImage.getCOSStream().setItem(COSName.SMASK, xAlpha);
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; ++x)
+            {
+                mcios.writeBit(row[x] & 1);
+            }
+            while (mcios.getBitOffset() != 0)
+            {
+                mcios.writeBit(0);
+            }
         }
+        mcios.flush();
+        mcios.close();
 
-        return pdImage;
+        return prepareImageXObject(document, bos.toByteArray(), width, height, 1,
+                                   PDDeviceGray.INSTANCE);
     }
 
     /**
@@ -258,4 +283,280 @@ public final class LosslessFactory
                 width, height, bitsPerComponent, initColorSpace);
     }
 
+    /**
+     * Encodes 8-bit gray or RGB images, optionally with PNG predictors, where each row gets the
+     * predictor which makes its differences smallest. The pixels are read from the image a row
+     * at a time, and the rows are deflated straight into the image stream and, for translucent
+     * images, the soft mask stream, so that neither the samples nor the compressed data are
+     * held in memory.
+     */
+    private static final class PredictorEncoder
+    {
+        // PNG predictors: None, Sub, Up, Average, Paeth
+        private static final int PREDICTORS = 5;
+
+        private final PDDocument document;
+        private final BufferedImage image;
+        private final int width;
+        private final int height;
+        private final int components;
+        private final boolean hasAlpha;
+        private final boolean usePredictors;
+
+        // the ARGB pixels of the current row
+        private final int[] pixels;
+
+        PredictorEncoder(PDDocument document, BufferedImage image, boolean isGray,
+                         boolean usePredictors)
+        {
+            this.document = document;
+            this.image = image;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.components = isGray ? 1 : 3;
+            this.hasAlpha = image.getColorModel().hasAlpha() &&
+                            image.getTransparency() != Transparency.BITMASK;
+            this.usePredictors = usePredictors;
+            this.pixels = new int[width];
+        }
+
+        PDImageXObject encode() throws IOException
+        {
+            COSStream imageStream = document.getDocument().createCOSStream();
+            COSStream alphaStream = hasAlpha ? document.getDocument().createCOSStream() : null;
+
+            Deflater imageDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            Deflater alphaDeflater = hasAlpha ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+            OutputStream imageOut = null;
+            OutputStream alphaOut = null;
+            try
+            {
+                imageOut = new DeflaterOutputStream(imageStream.createRawOutputStream(),
+                                                    imageDeflater, BUFFER_SIZE);
+                Rows imageRows = new Rows(width * components, components, usePredictors);
+                Rows alphaRows = null;
+                if (hasAlpha)
+                {
+                    alphaOut = new DeflaterOutputStream(alphaStream.createRawOutputStream(),
+                                                        alphaDeflater, BUFFER_SIZE);
+                    alphaRows = new Rows(width, 1, usePredictors);
+                }
+
+                for (int y = 0; y < height; y++)
+                {
+                    readRow(y);
+                    byte[] samples = imageRows.current;
+                    if (components == 1)
+                    {
+                        for (int x = 0; x < width; x++)
+                        {
+                            samples[x] = (byte) pixels[x];
+                        }
+                    }
+                    else
+                    {
+                        for (int x = 0, i = 0; x < width; x++, i += 3)
+                        {
+                            int rgb = pixels[x];
+                            samples[i] = (byte) (rgb >> 16);
+                            samples[i + 1] = (byte) (rgb >> 8);
+                            samples[i + 2] = (byte) rgb;
+                        }
+                    }
+                    imageRows.write(imageOut);
+
+                    if (alphaRows != null)
+                    {
+                        byte[] alpha = alphaRows.current;
+                        for (int x = 0; x < width; x++)
+                        {
+                            alpha[x] = (byte) (pixels[x] >>> 24);
+                        }
+                        alphaRows.write(alphaOut);
+                    }
+                }
+            }
+            finally
+            {
+                IOUtils.closeQuietly(imageOut);
+                IOUtils.closeQuietly(alphaOut);
+                imageDeflater.end();
+                if (alphaDeflater != null)
+                {
+                    alphaDeflater.end();
+                }
+            }
+
+            PDImageXObject pdImage = createImageXObject(imageStream, components,
+                    components == 1 ? PDDeviceGray.INSTANCE : PDDeviceRGB.INSTANCE);
+            if (alphaStream != null)
+            {
+                PDImageXObject xAlpha = createImageXObject(alphaStream, 1, PDDeviceGray.INSTANCE);
+                pdImage.getCOSStream().setItem(COSName.SMASK, xAlpha);
+            }
+            return pdImage;
+        }
+
+        // reads the ARGB pixels of a row, straight from the data buffer for the common types
+        private void readRow(int y)
+        {
+            WritableRaster raster = image.getRaster();
+            int type = image.getType();
+            boolean isOrigin = raster.getSampleModelTranslateX() == 0 &&
+                               raster.getSampleModelTranslateY() == 0;
+            if (isOrigin && (type == BufferedImage.TYPE_INT_RGB ||
+                             type == BufferedImage.TYPE_INT_ARGB) &&
+                raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+            {
+                SinglePixelPackedSampleModel sampleModel =
+                        (SinglePixelPackedSampleModel) raster.getSampleModel();
+                int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+                System.arraycopy(data, y * sampleModel.getScanlineStride(), pixels, 0, width);
+            }
+            else if (isOrigin && (type == BufferedImage.TYPE_3BYTE_BGR ||
+                                  type == BufferedImage.TYPE_4BYTE_ABGR) &&
+                     raster.getSampleModel() instanceof ComponentSampleModel)
+            {
+                ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+                byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+                int[] bandOffsets = sampleModel.getBandOffsets();
+                int pixelStride = sampleModel.getPixelStride();
+                int r = bandOffsets[0];
+                int g = bandOffsets[1];
+                int b = bandOffsets[2];
+                int a = bandOffsets.length > 3 ? bandOffsets[3] : -1;
+                for (int x = 0, i = y * sampleModel.getScanlineStride(); x < width;
+                     x++, i += pixelStride)
+                {
+                    int alpha = a < 0 ? 0xFF : data[i + a] & 0xFF;
+                    pixels[x] = alpha << 24 | (data[i + r] & 0xFF) << 16 |
+                                (data[i + g] & 0xFF) << 8 | (data[i + b] & 0xFF);
+                }
+            }
+            else
+            {
+                image.getRGB(0, y, width, 1, pixels, 0, width);
+            }
+        }
+
+        private PDImageXObject createImageXObject(COSStream stream, int colors,
+                                                  PDColorSpace colorSpace) throws IOException
+        {
+            stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            if (usePredictors)
+            {
+                COSDictionary decodeParms = new COSDictionary();
+                decodeParms.setInt(COSName.PREDICTOR, 15);
+                decodeParms.setInt(COSName.COLORS, colors);
+                decodeParms.setInt(COSName.BITS_PER_COMPONENT, 8);
+                decodeParms.setInt(COSName.COLUMNS, width);
+                stream.setItem(COSName.DECODE_PARMS, decodeParms);
+            }
+
+            PDImageXObject pdImage = new PDImageXObject(new PDStream(stream), null);
+            pdImage.setWidth(width);
+            pdImage.setHeight(height);
+            pdImage.setBitsPerComponent(8);
+            pdImage.setColorSpace(colorSpace);
+            return pdImage;
+        }
+    }
+
+    /**
+     * The current and previous row of 8-bit samples, and the current row with each predictor.
+     */
+    private static final class Rows
+    {
+        private final int bytesPerPixel;
+        private byte[] current;
+        private byte[] previous;
+        private final byte[][] predicted;
+
+        Rows(int length, int bytesPerPixel, boolean usePredictors)
+        {
+            this.bytesPerPixel = bytesPerPixel;
+            this.current = new byte[length];
+            this.previous = new byte[length];
+            this.predicted = usePredictors ? new byte[PredictorEncoder.PREDICTORS][length + 1]
+                                           : null;
+        }
+
+        // writes the current row as it is, or with the predictor of the smallest sum of
+        // differences
+        void write(OutputStream out) throws IOException
+        {
+            if (predicted == null)
+            {
+                out.write(current);
+                return;
+            }
+
+            int best = 0;
+            long bestSum = Long.MAX_VALUE;
+            for (int predictor = 0; predictor < PredictorEncoder.PREDICTORS; predictor++)
+            {
+                long sum = predict(predictor, predicted[predictor]);
+                if (sum < bestSum)
+                {
+                    best = predictor;
+                    bestSum = sum;
+                }
+            }
+            out.write(predicted[best]);
+
+            byte[] row = previous;
+            previous = current;
+            current = row;
+        }
+
+        // fills the row with the predictor type and the differences, returns their sum
+        private long predict(int predictor, byte[] row)
+        {
+            row[0] = (byte) predictor;
+            long sum = 0;
+            for (int i = 0; i < current.length; i++)
+            {
+                int x = current[i] & 0xFF;
+                int a = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+                int b = previous[i] & 0xFF;
+                int c = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+                int prediction;
+                switch (predictor)
+                {
+                    case 1:
+                        prediction = a;
+                        break;
+                    case 2:
+                        prediction = b;
+                        break;
+                    case 3:
+                        prediction = (a + b) >> 1;
+                        break;
+                    case 4:
+                        prediction = paeth(a, b, c);
+                        break;
+                    default:
+                        prediction = 0;
+                        break;
+                }
+                byte difference = (byte) (x - prediction);
+                row[i + 1] = difference;
+                sum += Math.abs(difference);
+            }
+            return sum;
+        }
+
+        private static int paeth(int a, int b, int c)
+        {
+            int p = a + b - c;
+            int pa = Math.abs(p - a);
+            int pb = Math.abs(p - b);
+            int pc = Math.abs(p - c);
+            if (pa <= pb && pa <= pc)
+            {
+                return a;
+            }
+            return pb <= pc ? b : c;
+        }
+    }
 }
@@ -18,8 +18,12 @@ package org.apache.pdfbox_ai2.pdmodel.graphics.image;
 
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileInputStream;
@@ -36,6 +40,9 @@ import org.apache.pdfbox_ai2.cos.COSBase;
 import org.apache.pdfbox_ai2.cos.COSInputStream;
 import org.apache.pdfbox_ai2.cos.COSName;
 import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.filter.DecodeOptions;
+import org.apache.pdfbox_ai2.filter.Filter;
+import org.apache.pdfbox_ai2.filter.FilterFactory;
 import org.apache.pdfbox_ai2.io.IOUtils;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.PDResources;
@@ -58,7 +65,7 @@ public final class PDImageXObject extends PDXObject implements PDImage
      */
     private static final Log LOG = LogFactory.getLog(PDImageXObject.class);
 
-    private SoftReference<BufferedImage> cachedImage;
+    private volatile SoftReference<BufferedImage> cachedImage;
     private PDColorSpace colorSpace;
     private final PDResources resources; // current resource dictionary (has color spaces)
 
@@ -141,7 +148,7 @@ public final class PDImageXObject extends PDXObject implements PDImage
      */
     public PDImageXObject(PDStream stream, PDResources resources) throws IOException
     {
-        this(stream, resources, stream.createInputStream());
+        this(stream, resources, isRepairable(stream) ? stream.createInputStream() : null);
     }
     
     /**
@@ -199,18 +206,42 @@ public final class PDImageXObject extends PDXObject implements PDImage
         throw new IOException("Image type not supported: " + name);
     }
 
-    // repairs parameters using decode result
+    // repairs parameters using decode result, if any
     private PDImageXObject(PDStream stream, PDResources resources, COSInputStream input)
+            throws IOException
     {
         super(repair(stream, input), COSName.IMAGE);
         this.resources = resources;
-        this.colorSpace = input.getDecodeResult().getJPXColorSpace();
+        this.colorSpace = input != null ? input.getDecodeResult().getJPXColorSpace() : null;
+    }
+
+    // only these filters repair the parameters, the others need not be decoded up front
+    private static boolean isRepairable(PDStream stream)
+    {
+        List<COSName> filters = stream.getFilters();
+        if (filters == null || filters.isEmpty())
+        {
+            return false;
+        }
+        COSName last = filters.get(filters.size() - 1);
+        return COSName.JPX_DECODE.equals(last) || COSName.CCITTFAX_DECODE.equals(last) ||
+               COSName.JBIG2_DECODE.equals(last);
     }
 
     // repairs parameters using decode result
-    private static PDStream repair(PDStream stream, COSInputStream input)
+    private static PDStream repair(PDStream stream, COSInputStream input) throws IOException
     {
-        stream.getStream().addAll(input.getDecodeResult().getParameters());
+        if (input != null)
+        {
+            try
+            {
+                stream.getStream().addAll(input.getDecodeResult().getParameters());
+            }
+            finally
+            {
+                input.close();
+            }
+        }
         return stream;
     }
 
@@ -294,6 +325,64 @@ public final class PDImageXObject extends PDXObject implements PDImage
         return image;
     }
 
+    /**
+     * Returns a part of this image, subsampled, as an AWT buffered image with an (A)RGB color
+     * space. Only the samples which are needed are decoded, where the filters allow it. The
+     * returned image is {@code ceil(w / subsampling)} by {@code ceil(h / subsampling)} pixels in
+     * size, where w and h are the size of the region after clipping it to the image, masks are
+     * scaled to fit. Only the whole image is cached, parts of it are decoded anew on every call.
+     * @param region the region of the image to return, in image pixels with the origin in the
+     * upper left corner, or null for the whole image
+     * @param subsampling 1 to return every pixel, 2 to return every second pixel in both
+     * directions, and so on
+     * @return content of the region as a buffered image.
+     * @throws IOException if the image cannot be read
+     */
+    public BufferedImage getImage(Rectangle region, int subsampling) throws IOException
+    {
+        if ((region == null || region.contains(0, 0, getWidth(), getHeight())) &&
+            subsampling == 1)
+        {
+            return getImage();
+        }
+
+        // get image as RGB
+        BufferedImage image = SampledImageReader.getRGBImage(this, region, subsampling,
+                                                             getColorKeyMask());
+
+        // soft mask (overrides explicit mask)
+        PDImageXObject softMask = getSoftMask();
+        if (softMask != null)
+        {
+            image = applyMask(image, getMaskImage(softMask, region, subsampling), true);
+        }
+        else
+        {
+            // explicit mask
+            PDImageXObject mask = getMask();
+            if (mask != null)
+            {
+                image = applyMask(image, getMaskImage(mask, region, subsampling), false);
+            }
+        }
+        return image;
+    }
+
+    // reads the part of the mask covering the given region of this image, at the resolution
+    // closest to the one at which the region is read, applyMask() scales it to fit
+    private BufferedImage getMaskImage(PDImageXObject mask, Rectangle region, int subsampling)
+            throws IOException
+    {
+        double scaleX = mask.getWidth() / (double) getWidth();
+        double scaleY = mask.getHeight() / (double) getHeight();
+        Rectangle bounds = new Rectangle(0, 0, getWidth(), getHeight());
+        Rectangle clipped = region == null ? bounds : region.intersection(bounds);
+        Rectangle maskRegion = new Rectangle2D.Double(clipped.x * scaleX, clipped.y * scaleY,
+                clipped.width * scaleX, clipped.height * scaleY).getBounds();
+        int maskSubsampling = Math.max(1, (int) (subsampling * Math.min(scaleX, scaleY)));
+        return SampledImageReader.getRGBImage(mask, maskRegion, maskSubsampling, null);
+    }
+
     /**
      * {@inheritDoc}
      * The returned images are not cached.
@@ -346,6 +435,29 @@ public final class PDImageXObject extends PDXObject implements PDImage
 
         // compose to ARGB
         BufferedImage masked = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if (image.getType() == BufferedImage.TYPE_INT_RGB &&
+            mask.getType() == BufferedImage.TYPE_INT_RGB)
+        {
+            // the alpha is the first band of the mask, as below
+            final int[] srcData = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            final int[] alphaData = ((DataBufferInt) mask.getRaster().getDataBuffer()).getData();
+            final int[] destData = ((DataBufferInt) masked.getRaster().getDataBuffer()).getData();
+            final int rowLength = width;
+            final int invert = isSoft ? 0 : 255;
+            ParallelRows.run(width, height, new ParallelRows.Kernel()
+            {
+                @Override
+                public void run(int fromRow, int toRow)
+                {
+                    for (int i = fromRow * rowLength, n = toRow * rowLength; i < n; i++)
+                    {
+                        int alpha = (alphaData[i] >> 16 & 0xFF) ^ invert;
+                        destData[i] = alpha << 24 | (srcData[i] & 0xFFFFFF);
+                    }
+                }
+            });
+            return masked;
+        }
         WritableRaster src = image.getRaster();
         WritableRaster dest = masked.getRaster();
         WritableRaster alpha = mask.getRaster();
@@ -504,6 +616,45 @@ public final class PDImageXObject extends PDXObject implements PDImage
         return createInputStream();
     }
 
+    /**
+     * Returns an InputStream containing the image data. Filters which support it decode only
+     * the region and subsampling given in the options, which then report this via
+     * {@link DecodeOptions#isFilterSubsampled()}.
+     * @param options the region and subsampling to decode
+     * @return Decoded stream
+     * @throws IOException if the data could not be read.
+     */
+    public InputStream createInputStream(DecodeOptions options) throws IOException
+    {
+        return getCOSStream().createInputStream(options);
+    }
+
+    /**
+     * Decodes the image straight to a raster if its only filter is an image filter such as
+     * DCTDecode or JPXDecode, see {@link Filter#decodeRaster}.
+     * @param options the region and subsampling to decode, or null for the whole image
+     * @return the raster, or null if the image has to be decoded to a stream
+     * @throws IOException if the image cannot be decoded
+     */
+    Raster decodeRaster(DecodeOptions options) throws IOException
+    {
+        List<COSName> filters = getStream().getFilters();
+        if (filters == null || filters.size() != 1)
+        {
+            return null;
+        }
+        Filter filter = FilterFactory.INSTANCE.getFilter(filters.get(0));
+        InputStream encoded = getCOSStream().createRawInputStream();
+        try
+        {
+            return filter.decodeRaster(encoded, getCOSStream(), 0, options);
+        }
+        finally
+        {
+            encoded.close();
+        }
+    }
+
     @Override
     public boolean isEmpty()
     {
@@ -17,6 +17,7 @@
 package org.apache.pdfbox_ai2.pdmodel.graphics.image;
 
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -311,6 +312,23 @@ public final class PDInlineImage implements PDImage
         return SampledImageReader.getRGBImage(this, getColorKeyMask());
     }
 
+    /**
+     * Returns a part of this image, subsampled, as an AWT buffered image with an (A)RGB color
+     * space. The returned image is {@code ceil(w / subsampling)} by
+     * {@code ceil(h / subsampling)} pixels in size, where w and h are the size of the region
+     * after clipping it to the image.
+     * @param region the region of the image to return, in image pixels with the origin in the
+     * upper left corner, or null for the whole image
+     * @param subsampling 1 to return every pixel, 2 to return every second pixel in both
+     * directions, and so on
+     * @return content of the region as a buffered image.
+     * @throws IOException if the image cannot be read
+     */
+    public BufferedImage getImage(Rectangle region, int subsampling) throws IOException
+    {
+        return SampledImageReader.getRGBImage(this, region, subsampling, getColorKeyMask());
+    }
+
     @Override
     public BufferedImage getStencilImage(Paint paint) throws IOException
     {
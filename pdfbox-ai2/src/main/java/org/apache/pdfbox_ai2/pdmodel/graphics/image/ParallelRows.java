@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a conversion kernel over the rows of an image. Huge images are split into bands of rows
+ * which are converted by a shared pool of daemon threads and the calling thread together. The
+ * kernels must only write to the rows they are given, and must not wait for other tasks.
+ */
+final class ParallelRows
+{
+    /**
+     * Images with fewer pixels than this are converted by the calling thread alone.
+     */
+    static final int PARALLEL_PIXELS = 1 << 22;
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService executor;
+
+    /**
+     * A kernel which converts a range of rows.
+     */
+    interface Kernel
+    {
+        /**
+         * Converts the rows from fromRow inclusive to toRow exclusive.
+         */
+        void run(int fromRow, int toRow);
+    }
+
+    private ParallelRows()
+    {
+    }
+
+    /**
+     * Runs the kernel over all rows of an image and returns when all rows are done.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param kernel the kernel
+     */
+    static void run(int width, int height, final Kernel kernel)
+    {
+        int bands = Math.min(THREADS, height);
+        if ((long) width * height < PARALLEL_PIXELS || bands < 2)
+        {
+            kernel.run(0, height);
+            return;
+        }
+
+        int bandHeight = (height + bands - 1) / bands;
+        List<Future<?>> futures = new ArrayList<Future<?>>(bands);
+        for (int y = bandHeight; y < height; y += bandHeight)
+        {
+            final int fromRow = y;
+            final int toRow = Math.min(height, y + bandHeight);
+            futures.add(getExecutor().submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    kernel.run(fromRow, toRow);
+                }
+            }));
+        }
+        // the other bands write to the same image, so they are always waited for, even when
+        // interrupted or when a band failed, and the first failure is thrown afterwards
+        Throwable failure = null;
+        try
+        {
+            kernel.run(0, bandHeight);
+        }
+        catch (RuntimeException e)
+        {
+            failure = e;
+        }
+        catch (Error e)
+        {
+            failure = e;
+        }
+
+        boolean interrupted = false;
+        try
+        {
+            for (Future<?> future : futures)
+            {
+                while (true)
+                {
+                    try
+                    {
+                        future.get();
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        if (failure == null)
+                        {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+            if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error)
+            {
+                throw (Error) failure;
+            }
+            if (failure != null)
+            {
+                throw new IllegalStateException(failure);
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "PDFBox image conversion " +
+                                                  count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
@@ -19,11 +19,16 @@ package org.apache.pdfbox_ai2.pdmodel.graphics.image;
 import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.Raster;
+import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -33,8 +38,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.cos.COSArray;
 import org.apache.pdfbox_ai2.cos.COSNumber;
+import org.apache.pdfbox_ai2.filter.DecodeOptions;
 import org.apache.pdfbox_ai2.io.IOUtils;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceRGB;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDIndexed;
 
 /**
@@ -76,8 +84,31 @@ final class SampledImageReader
         g.dispose();
 
         // set the alpha
-        int width = masked.getWidth();
-        int height = masked.getHeight();
+        final int width = masked.getWidth();
+        final int height = masked.getHeight();
+        if (mask.getType() == BufferedImage.TYPE_INT_RGB)
+        {
+            final int[] maskData = ((DataBufferInt) mask.getRaster().getDataBuffer()).getData();
+            final int[] maskedData =
+                    ((DataBufferInt) masked.getRaster().getDataBuffer()).getData();
+            ParallelRows.run(width, height, new ParallelRows.Kernel()
+            {
+                @Override
+                public void run(int fromRow, int toRow)
+                {
+                    for (int i = fromRow * width, n = toRow * width; i < n; i++)
+                    {
+                        // the first band of the mask, as below
+                        if ((maskData[i] & 0xFF0000) == 0xFF0000)
+                        {
+                            maskedData[i] = 0;
+                        }
+                    }
+                }
+            });
+            return masked;
+        }
+
         WritableRaster raster = masked.getRaster();
         WritableRaster alpha = mask.getRaster();
 
@@ -108,6 +139,25 @@ final class SampledImageReader
      * @throws IOException if the image cannot be read
      */
     public static BufferedImage getRGBImage(PDImage pdImage, COSArray colorKey) throws IOException
+    {
+        return getRGBImage(pdImage, null, 1, colorKey);
+    }
+
+    /**
+     * Returns a region of the given image, subsampled, as an AWT buffered image with an RGB color
+     * space. If a color key mask is provided then an ARGB image is returned instead. Rows after
+     * the region are not decoded, and filters which support it decode only the samples needed.
+     * This method never returns null.
+     * @param pdImage the image to read
+     * @param region the region to read, or null for the whole image
+     * @param subsampling the subsampling factor, 1 reads every pixel
+     * @param colorKey an optional color key mask
+     * @return content of the region as an RGB buffered image
+     * @throws IOException if the image cannot be read
+     * @throws IllegalArgumentException if the region does not intersect the image
+     */
+    public static BufferedImage getRGBImage(PDImage pdImage, Rectangle region, int subsampling,
+                                            COSArray colorKey) throws IOException
     {
         if (pdImage.isEmpty())
         {
@@ -122,184 +172,412 @@ final class SampledImageReader
         final int bitsPerComponent = pdImage.getBitsPerComponent();
         final float[] decode = getDecodeArray(pdImage);
 
-        //
-        // An AWT raster must use 8/16/32 bits per component. Images with < 8bpc
-        // will be unpacked into a byte-backed raster. Images with 16bpc will be reduced
-        // in depth to 8bpc as they will be drawn to TYPE_INT_RGB images anyway. All code
-        // in PDColorSpace#toRGBImage expects and 8-bit range, i.e. 0-255.
-        //
-        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, width, height,
-                numComponents, new Point(0, 0));
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        Rectangle clipped = region == null ? bounds : region.intersection(bounds);
+        if (clipped.isEmpty() || subsampling < 1)
+        {
+            throw new IllegalArgumentException("Invalid region " + region + " or subsampling " +
+                                               subsampling + " for image of size " + bounds);
+        }
+        int outputWidth = (clipped.width + subsampling - 1) / subsampling;
+        int outputHeight = (clipped.height + subsampling - 1) / subsampling;
 
-        // convert image, faster path for non-decoded, non-colormasked 8-bit images
-        final float[] defaultDecode = pdImage.getColorSpace().getDefaultDecode(8);
-        if (bitsPerComponent == 8 && Arrays.equals(decode, defaultDecode) && colorKey == null)
+        DecodeOptions options = null;
+        if (!clipped.equals(bounds) || subsampling > 1)
+        {
+            options = new DecodeOptions(clipped, subsampling);
+        }
+
+        // image filters may decode to a raster directly
+        Raster decoded = null;
+        if (pdImage instanceof PDImageXObject)
+        {
+            decoded = ((PDImageXObject) pdImage).decodeRaster(options);
+        }
+        byte[] decodedBytes = null;
+        if (decoded != null)
+        {
+            decodedBytes = ((DataBufferByte) decoded.getDataBuffer()).getData();
+            boolean isSampled = options == null || options.isFilterSubsampled();
+            boolean isIndexed = colorSpace instanceof PDIndexed;
+            if (isSampled && bitsPerComponent == 8 && colorKey == null &&
+                decoded.getWidth() == outputWidth && decoded.getHeight() == outputHeight &&
+                decoded.getNumBands() == numComponents &&
+                decodedBytes.length == outputWidth * outputHeight * numComponents &&
+                (!isIndexed || Arrays.equals(decode, colorSpace.getDefaultDecode(8))))
+            {
+                return fromDecoded(pdImage, decodedBytes, outputWidth, outputHeight);
+            }
+        }
+
+        InputStream input;
+        Sampling sampling;
+        if (decodedBytes != null)
+        {
+            // the same bytes the filter writes to the stream
+            input = new ByteArrayInputStream(decodedBytes);
+        }
+        else if (options == null)
         {
-            return from8bit(pdImage, raster);
+            input = pdImage.createInputStream();
         }
-        else if (bitsPerComponent == 1 && colorKey == null)
+        else if (pdImage instanceof PDImageXObject)
         {
-            return from1Bit(pdImage, raster);
+            input = ((PDImageXObject) pdImage).createInputStream(options);
         }
         else
         {
-            return fromAny(pdImage, raster, colorKey);
+            // other images decode the whole stream, the samples are skipped below
+            input = pdImage.createInputStream();
+        }
+        if (options == null)
+        {
+            sampling = new Sampling(width, 0, 0, 1, outputWidth, outputHeight);
+        }
+        else if (options.isFilterSubsampled())
+        {
+            // the filter has already done the work
+            sampling = new Sampling(outputWidth, 0, 0, 1, outputWidth, outputHeight);
+        }
+        else
+        {
+            sampling = new Sampling(width, clipped.x, clipped.y, subsampling,
+                                    outputWidth, outputHeight);
+        }
+
+        // convert image, faster path for non-decoded, non-colormasked 8-bit images
+        try
+        {
+            final float[] defaultDecode = pdImage.getColorSpace().getDefaultDecode(8);
+            if (bitsPerComponent == 8 && Arrays.equals(decode, defaultDecode) && colorKey == null)
+            {
+                return from8bit(pdImage, input, sampling);
+            }
+            else if (bitsPerComponent == 1 && colorKey == null)
+            {
+                return from1Bit(pdImage, input, sampling);
+            }
+            else
+            {
+                return fromAny(pdImage, input, sampling, colorKey);
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
         }
     }
-    
-    private static BufferedImage from1Bit(PDImage pdImage, WritableRaster raster)
+
+    /**
+     * Which rows and columns of the decoded samples go into the raster: the decoded rows are
+     * inputWidth samples wide, and every step-th sample starting at (x0, y0) is used for the
+     * width by height output.
+     */
+    private static final class Sampling
+    {
+        final int inputWidth;
+        final int x0;
+        final int y0;
+        final int step;
+        final int width;
+        final int height;
+
+        Sampling(int inputWidth, int x0, int y0, int step, int width, int height)
+        {
+            this.inputWidth = inputWidth;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.step = step;
+            this.width = width;
+            this.height = height;
+        }
+
+        // returns the output row for the given input row, or -1 if the row is not used
+        int outputRow(int row)
+        {
+            int dy = row - y0;
+            return dy >= 0 && dy % step == 0 ? dy / step : -1;
+        }
+
+        // returns true if every decoded sample is used
+        boolean isAll()
+        {
+            return x0 == 0 && y0 == 0 && step == 1 && inputWidth == width;
+        }
+    }
+
+    //
+    // An AWT raster must use 8/16/32 bits per component. Images with < 8bpc
+    // will be unpacked into a byte-backed raster. Images with 16bpc will be reduced
+    // in depth to 8bpc as they will be drawn to TYPE_INT_RGB images anyway. All code
+    // in PDColorSpace#toRGBImage expects and 8-bit range, i.e. 0-255.
+    //
+    private static WritableRaster createRaster(int width, int height, int numComponents)
+    {
+        return Raster.createBandedRaster(DataBuffer.TYPE_BYTE, width, height, numComponents,
+                                         new Point(0, 0));
+    }
+
+    // wraps interleaved 8-bit samples, as they are stored in the stream, without copying them
+    private static WritableRaster createRaster(byte[] data, int width, int height,
+                                               int numComponents)
+    {
+        int[] bandOffsets = new int[numComponents];
+        for (int c = 0; c < numComponents; c++)
+        {
+            bandOffsets[c] = c;
+        }
+        return Raster.createInterleavedRaster(new DataBufferByte(data, data.length), width,
+                height, width * numComponents, numComponents, bandOffsets, new Point(0, 0));
+    }
+
+    // 8-bit samples which an image filter has decoded to an array, they are used in place
+    private static BufferedImage fromDecoded(PDImage pdImage, byte[] data, int width, int height)
             throws IOException
     {
         final PDColorSpace colorSpace = pdImage.getColorSpace();
-        final int width = pdImage.getWidth();
-        final int height = pdImage.getHeight();
+        final int numComponents = colorSpace.getNumberOfComponents();
         final float[] decode = getDecodeArray(pdImage);
-        byte[] output = ((DataBufferByte) raster.getDataBuffer()).getData();
 
-        // read bit stream
-        InputStream iis = null;
-        try
+        if (!Arrays.equals(decode, colorSpace.getDefaultDecode(8)))
         {
-            // create stream
-            iis = pdImage.createInputStream();
-            final boolean isIndexed = colorSpace instanceof PDIndexed;
-
-            int rowLen = width / 8;
-            if (width % 8 > 0)
+            // decode array as in fromAny(), one lookup table per component
+            byte[][] tables = new byte[numComponents][256];
+            for (int c = 0; c < numComponents; c++)
             {
-                rowLen++;
+                final float dMin = decode[c * 2];
+                final float dMax = decode[(c * 2) + 1];
+                for (int value = 0; value < 256; value++)
+                {
+                    float output = dMin + (value * ((dMax - dMin) / 255f));
+                    tables[c][value] = (byte)Math.round(((output - Math.min(dMin, dMax)) /
+                            Math.abs(dMax - dMin)) * 255f);
+                }
             }
-
-            // read stream
-            byte value0;
-            byte value1;
-            if (isIndexed || decode[0] < decode[1])
+            for (int i = 0; i < data.length; i += numComponents)
             {
-                value0 = 0;
-                value1 = (byte) 255;
+                for (int c = 0; c < numComponents; c++)
+                {
+                    data[i + c] = tables[c][data[i + c] & 0xFF];
+                }
             }
-            else
+        }
+
+        // use the color space to convert the image to RGB
+        return toRGBImage(colorSpace, createRaster(data, width, height, numComponents));
+    }
+
+    private static BufferedImage from1Bit(PDImage pdImage, InputStream iis, Sampling sampling)
+            throws IOException
+    {
+        final PDColorSpace colorSpace = pdImage.getColorSpace();
+        final int width = sampling.width;
+        final int height = sampling.height;
+        final float[] decode = getDecodeArray(pdImage);
+        WritableRaster raster = createRaster(width, height, 1);
+        byte[] output = ((DataBufferByte) raster.getDataBuffer()).getData();
+
+        // read bit stream
+        final boolean isIndexed = colorSpace instanceof PDIndexed;
+
+        int rowLen = sampling.inputWidth / 8;
+        if (sampling.inputWidth % 8 > 0)
+        {
+            rowLen++;
+        }
+
+        // read stream
+        byte value0;
+        byte value1;
+        if (isIndexed || decode[0] < decode[1])
+        {
+            value0 = 0;
+            value1 = (byte) 255;
+        }
+        else
+        {
+            value0 = (byte) 255;
+            value1 = 0;
+        }
+
+        // the 8 samples of each byte value, used when all samples are read
+        byte[] samples = null;
+        if (sampling.isAll())
+        {
+            samples = new byte[256 * 8];
+            for (int value = 0; value < 256; value++)
             {
-                value0 = (byte) 255;
-                value1 = 0;
+                for (int i = 0; i < 8; i++)
+                {
+                    samples[value * 8 + i] = (value & (0x80 >> i)) == 0 ? value0 : value1;
+                }
             }
-            byte[] buff = new byte[rowLen];
-            int idx = 0;
-            for (int y = 0; y < height; y++)
+        }
+
+        byte[] buff = new byte[rowLen];
+        for (int row = 0, y = 0; y < height; row++)
+        {
+            int readLen = (int) IOUtils.populateBuffer(iis, buff);
+            if (sampling.outputRow(row) == y)
             {
-                int x = 0;
-                int readLen = iis.read(buff);
-                for (int r = 0; r < rowLen && r < readLen; r++)
+                int idx = y * width;
+                if (samples != null)
                 {
-                    int value = buff[r];
-                    int mask = 128;
-                    for (int i = 0; i < 8; i++)
+                    for (int r = 0, x = 0; r < readLen && x < width; r++, x += 8)
                     {
-                        int bit = value & mask;
-                        mask >>= 1;
-                        output[idx++] = bit == 0 ? value0 : value1;
-                        x++;
-                        if (x == width)
+                        System.arraycopy(samples, (buff[r] & 0xFF) * 8, output, idx + x,
+                                         Math.min(8, width - x));
+                    }
+                }
+                else
+                {
+                    for (int x = 0, srcX = sampling.x0; x < width; x++, srcX += sampling.step)
+                    {
+                        if ((srcX >> 3) >= readLen)
                         {
                             break;
                         }
+                        int bit = buff[srcX >> 3] & (0x80 >> (srcX & 7));
+                        output[idx + x] = bit == 0 ? value0 : value1;
                     }
                 }
-                if (readLen != rowLen)
-                {
-                    LOG.warn("premature EOF, image will be incomplete");
-                    break;
-                }
+                y++;
             }
-
-            // use the color space to convert the image to RGB
-            BufferedImage rgbImage = colorSpace.toRGBImage(raster);
-
-            return rgbImage;
-        }
-        finally
-        {
-            if (iis != null)
+            if (readLen != rowLen)
             {
-                iis.close();
+                LOG.warn("premature EOF, image will be incomplete");
+                break;
             }
         }
+
+        // use the color space to convert the image to RGB
+        return toRGBImage(colorSpace, raster);
     }
 
     // faster, 8-bit non-decoded, non-colormasked image conversion
-    private static BufferedImage from8bit(PDImage pdImage, WritableRaster raster)
+    private static BufferedImage from8bit(PDImage pdImage, InputStream input, Sampling sampling)
             throws IOException
     {
-        InputStream input = pdImage.createInputStream();
-        try
+        final PDColorSpace colorSpace = pdImage.getColorSpace();
+        final int width = sampling.width;
+        final int height = sampling.height;
+        final int numComponents = colorSpace.getNumberOfComponents();
+        if (sampling.isAll())
         {
-            // get the raster's underlying byte buffer
-            byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
-            final int width = pdImage.getWidth();
-            final int height = pdImage.getHeight();
-            final int numComponents = pdImage.getColorSpace().getNumberOfComponents();
-            int max = width * height;
-            byte[] tempBytes = new byte[numComponents];
-            for (int i = 0; i < max; i++)
+            // the samples are used as they are stored
+            byte[] data = new byte[width * height * numComponents];
+            IOUtils.populateBuffer(input, data);
+            return toRGBImage(colorSpace, createRaster(data, width, height, numComponents));
+        }
+
+        // get the raster's underlying byte buffer
+        WritableRaster raster = createRaster(width, height, numComponents);
+        byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
+        byte[] rowBytes = new byte[sampling.inputWidth * numComponents];
+        for (int row = 0, y = 0; y < height; row++)
+        {
+            IOUtils.populateBuffer(input, rowBytes);
+            if (sampling.outputRow(row) != y)
+            {
+                continue;
+            }
+            int idx = y * width;
+            int srcOffset = sampling.x0 * numComponents;
+            int srcStep = sampling.step * numComponents;
+            for (int x = 0; x < width; x++, srcOffset += srcStep)
             {
-                input.read(tempBytes);
                 for (int c = 0; c < numComponents; c++)
                 {
-                    banks[c][i] = tempBytes[0+c];
+                    banks[c][idx + x] = rowBytes[srcOffset + c];
                 }
             }
-            // use the color space to convert the image to RGB
-            return pdImage.getColorSpace().toRGBImage(raster);
-        }
-        finally
-        {
-            IOUtils.closeQuietly(input);
+            y++;
         }
-    }    
+        // use the color space to convert the image to RGB
+        return toRGBImage(colorSpace, raster);
+    }
     
     // slower, general-purpose image conversion from any image format
-    private static BufferedImage fromAny(PDImage pdImage, WritableRaster raster, COSArray colorKey)
-            throws IOException
+    private static BufferedImage fromAny(PDImage pdImage, InputStream input, Sampling sampling,
+                                         COSArray colorKey) throws IOException
     {
         final PDColorSpace colorSpace = pdImage.getColorSpace();
         final int numComponents = colorSpace.getNumberOfComponents();
-        final int width = pdImage.getWidth();
-        final int height = pdImage.getHeight();
+        final int width = sampling.width;
+        final int height = sampling.height;
+        final int inputWidth = sampling.inputWidth;
         final int bitsPerComponent = pdImage.getBitsPerComponent();
         final float[] decode = getDecodeArray(pdImage);
+        WritableRaster raster = createRaster(width, height, numComponents);
+        byte[][] banks = ((DataBufferByte) raster.getDataBuffer()).getBankData();
 
         // read bit stream
         ImageInputStream iis = null;
         try
         {
             // create stream
-            iis = new MemoryCacheImageInputStream(pdImage.createInputStream());
+            iis = new MemoryCacheImageInputStream(input);
             final float sampleMax = (float)Math.pow(2, bitsPerComponent) - 1f;
             final boolean isIndexed = colorSpace instanceof PDIndexed;
 
+            // each sample value is decoded once, bpc > 8 gets no table
+            byte[][] tables = null;
+            if (bitsPerComponent <= 8)
+            {
+                tables = new byte[numComponents][1 << bitsPerComponent];
+            }
+
+            for (int c = 0; tables != null && c < numComponents; c++)
+            {
+                // decode array
+                final float dMin = decode[c * 2];
+                final float dMax = decode[(c * 2) + 1];
+                for (int value = 0; value < tables[c].length; value++)
+                {
+                    tables[c][value] = decodeSample(value, dMin, dMax, sampleMax, isIndexed);
+                }
+            }
+
             // init color key mask
             float[] colorKeyRanges = null;
             BufferedImage colorKeyMask = null;
+            byte[] alpha = null;
             if (colorKey != null)
             {
                 colorKeyRanges = colorKey.toFloatArray();
                 colorKeyMask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                alpha = ((DataBufferByte) colorKeyMask.getRaster().getDataBuffer()).getData();
             }
 
             // calculate row padding
             int padding = 0;
-            if (width * numComponents * bitsPerComponent % 8 > 0)
+            if (inputWidth * numComponents * bitsPerComponent % 8 > 0)
             {
-                padding = 8 - (width * numComponents * bitsPerComponent % 8);
+                padding = 8 - (inputWidth * numComponents * bitsPerComponent % 8);
             }
+            int rowBytes = (inputWidth * numComponents * bitsPerComponent + padding) / 8;
 
             // read stream
-            byte[] srcColorValues = new byte[numComponents];
-            byte[] alpha = new byte[1];
-            for (int y = 0; y < height; y++)
+            for (int row = 0, y = 0; y < height; row++)
             {
-                for (int x = 0; x < width; x++)
+                if (sampling.outputRow(row) != y)
+                {
+                    // rows start at a byte boundary
+                    iis.skipBytes(rowBytes);
+                    continue;
+                }
+                int idx = y * width;
+                for (int srcX = 0, x = 0, nextX = sampling.x0; srcX < inputWidth; srcX++)
                 {
+                    if (srcX != nextX || x == width)
+                    {
+                        // not sampled
+                        for (int c = 0; c < numComponents; c++)
+                        {
+                            iis.readBits(bitsPerComponent);
+                        }
+                        continue;
+                    }
                     boolean isMasked = true;
                     for (int c = 0; c < numComponents; c++)
                     {
@@ -312,45 +590,33 @@ final class SampledImageReader
                                         value <= colorKeyRanges[c * 2 + 1];
                         }
 
-                        // decode array
-                        final float dMin = decode[c * 2];
-                        final float dMax = decode[(c * 2) + 1];
-
-                        // interpolate to domain
-                        float output = dMin + (value * ((dMax - dMin) / sampleMax));
-
-                        if (isIndexed)
+                        if (tables != null)
                         {
-                            // indexed color spaces get the raw value, because the TYPE_BYTE
-                            // below cannot be reversed by the color space without it having
-                            // knowledge of the number of bits per component
-                            srcColorValues[c] = (byte)Math.round(output);
+                            banks[c][idx + x] = tables[c][value];
                         }
                         else
                         {
-                            // interpolate to TYPE_BYTE
-                            int outputByte = Math.round(((output - Math.min(dMin, dMax)) /
-                                    Math.abs(dMax - dMin)) * 255f);
-
-                            srcColorValues[c] = (byte)outputByte;
+                            banks[c][idx + x] = decodeSample(value, decode[c * 2],
+                                    decode[c * 2 + 1], sampleMax, isIndexed);
                         }
                     }
-                    raster.setDataElements(x, y, srcColorValues);
 
                     // set alpha channel in color key mask, if any
-                    if (colorKeyMask != null)
+                    if (alpha != null)
                     {
-                        alpha[0] = (byte)(isMasked ? 255 : 0);
-                        colorKeyMask.getRaster().setDataElements(x, y, alpha);
+                        alpha[idx + x] = (byte)(isMasked ? 255 : 0);
                     }
+                    x++;
+                    nextX += sampling.step;
                 }
 
                 // rows are padded to the nearest byte
                 iis.readBits(padding);
+                y++;
             }
 
             // use the color space to convert the image to RGB
-            BufferedImage rgbImage = colorSpace.toRGBImage(raster);
+            BufferedImage rgbImage = toRGBImage(colorSpace, raster);
 
             // apply color mask, if any
             if (colorKeyMask != null)
@@ -371,16 +637,163 @@ final class SampledImageReader
         }
     }
 
+    // maps a sample value to the 8-bit range using the decode array
+    private static byte decodeSample(int value, float dMin, float dMax, float sampleMax,
+                                     boolean isIndexed)
+    {
+        // interpolate to domain
+        float output = dMin + (value * ((dMax - dMin) / sampleMax));
+
+        if (isIndexed)
+        {
+            // indexed color spaces get the raw value, because the TYPE_BYTE
+            // below cannot be reversed by the color space without it having
+            // knowledge of the number of bits per component
+            return (byte)Math.round(output);
+        }
+        else
+        {
+            // interpolate to TYPE_BYTE
+            int outputByte = Math.round(((output - Math.min(dMin, dMax)) /
+                    Math.abs(dMax - dMin)) * 255f);
+
+            return (byte)outputByte;
+        }
+    }
+
+    /**
+     * Converts 8-bit samples to an RGB image. DeviceGray, DeviceRGB and Indexed samples are
+     * converted in bulk from the arrays of the raster, other color spaces convert the raster
+     * themselves.
+     */
+    private static BufferedImage toRGBImage(PDColorSpace colorSpace, WritableRaster raster)
+            throws IOException
+    {
+        boolean isGray = colorSpace instanceof PDDeviceGray;
+        boolean isRGB = colorSpace instanceof PDDeviceRGB;
+        boolean isIndexed = colorSpace instanceof PDIndexed;
+        SampleModel sampleModel = raster.getSampleModel();
+        if (!(isGray || isRGB || isIndexed) ||
+            !(sampleModel instanceof ComponentSampleModel) ||
+            !(raster.getDataBuffer() instanceof DataBufferByte) ||
+            raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0)
+        {
+            return colorSpace.toRGBImage(raster);
+        }
+
+        // where the samples are
+        final ComponentSampleModel components = (ComponentSampleModel) sampleModel;
+        final DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+        final int numBands = raster.getNumBands();
+        final byte[][] banks = new byte[numBands][];
+        final int[] offsets = new int[numBands];
+        for (int c = 0; c < numBands; c++)
+        {
+            int bank = components.getBankIndices()[c];
+            banks[c] = dataBuffer.getData(bank);
+            offsets[c] = dataBuffer.getOffsets()[bank] + components.getBandOffsets()[c];
+        }
+        final int pixelStride = components.getPixelStride();
+        final int scanlineStride = components.getScanlineStride();
+
+        final int width = raster.getWidth();
+        final int height = raster.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final int[] rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        // gray and indexed samples are looked up, gray could be computed but this is as fast
+        final int[] table;
+        if (isIndexed)
+        {
+            table = new int[256];
+            float[] value = new float[1];
+            for (int i = 0; i < 256; i++)
+            {
+                value[0] = i;
+                float[] color = colorSpace.toRGB(value);
+                table[i] = Math.round(color[0] * 255) << 16 | Math.round(color[1] * 255) << 8 |
+                           Math.round(color[2] * 255);
+            }
+        }
+        else if (isGray)
+        {
+            table = new int[256];
+            for (int i = 0; i < 256; i++)
+            {
+                table[i] = i << 16 | i << 8 | i;
+            }
+        }
+        else
+        {
+            table = null;
+        }
+
+        ParallelRows.run(width, height, new ParallelRows.Kernel()
+        {
+            @Override
+            public void run(int fromRow, int toRow)
+            {
+                for (int y = fromRow; y < toRow; y++)
+                {
+                    int out = y * width;
+                    int end = out + width;
+                    int i = offsets[0] + y * scanlineStride;
+                    if (table != null)
+                    {
+                        byte[] samples = banks[0];
+                        for (; out < end; out++, i += pixelStride)
+                        {
+                            rgb[out] = table[samples[i] & 0xFF];
+                        }
+                    }
+                    else
+                    {
+                        byte[] red = banks[0];
+                        byte[] green = banks[1];
+                        byte[] blue = banks[2];
+                        int g = offsets[1] - offsets[0];
+                        int b = offsets[2] - offsets[0];
+                        for (; out < end; out++, i += pixelStride)
+                        {
+                            rgb[out] = (red[i] & 0xFF) << 16 | (green[i + g] & 0xFF) << 8 |
+                                       (blue[i + b] & 0xFF);
+                        }
+                    }
+                }
+            }
+        });
+        return image;
+    }
+
     // color key mask: RGB + Binary -> ARGB
     private static BufferedImage applyColorKeyMask(BufferedImage image, BufferedImage mask)
             throws IOException
     {
-        int width = image.getWidth();
-        int height = image.getHeight();
+        final int width = image.getWidth();
+        final int height = image.getHeight();
 
         // compose to ARGB
         BufferedImage masked = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 
+        if (image.getType() == BufferedImage.TYPE_INT_RGB)
+        {
+            final int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            final byte[] alpha = ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+            final int[] dest = ((DataBufferInt) masked.getRaster().getDataBuffer()).getData();
+            ParallelRows.run(width, height, new ParallelRows.Kernel()
+            {
+                @Override
+                public void run(int fromRow, int toRow)
+                {
+                    for (int i = fromRow * width, n = toRow * width; i < n; i++)
+                    {
+                        dest[i] = (255 - (alpha[i] & 0xFF)) << 24 | (src[i] & 0xFFFFFF);
+                    }
+                }
+            });
+            return masked;
+        }
+
         WritableRaster src = image.getRaster();
         WritableRaster dest = masked.getRaster();
         WritableRaster alpha = mask.getRaster();
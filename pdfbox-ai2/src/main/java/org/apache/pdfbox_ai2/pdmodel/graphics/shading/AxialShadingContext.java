@@ -137,7 +137,14 @@ public class AxialShadingContext extends ShadingContext implements PaintContext
      */
     private int[] calcColorTable() throws IOException
     {
-        int[] map = new int[factor + 1];
+        // the table is shared by all contexts of the shading with the same number of steps
+        ShadingColorCache cache = axialShadingType.getColorCache();
+        int[] map = cache.get(factor, domain);
+        if (map != null)
+        {
+            return map;
+        }
+        map = new int[factor + 1];
         if (factor == 0 || d1d0 == 0)
         {
             float[] values = axialShadingType.evalFunction(domain[0]);
@@ -152,6 +159,7 @@ public class AxialShadingContext extends ShadingContext implements PaintContext
                 map[i] = convertToRGB(values);
             }
         }
+        cache.put(factor, domain, map);
         return map;
     }
 
@@ -175,6 +183,7 @@ public class AxialShadingContext extends ShadingContext implements PaintContext
         WritableRaster raster = getColorModel().createCompatibleWritableRaster(w, h);
         boolean useBackground;
         int[] data = new int[w * h * 4];
+        float[] values = new float[2];
         for (int j = 0; j < h; j++)
         {
             double currentY = y + j;
@@ -190,7 +199,8 @@ public class AxialShadingContext extends ShadingContext implements PaintContext
                     continue;
                 }
                 useBackground = false;
-                float[] values = new float[] { x + i, y + j };
+                values[0] = x + i;
+                values[1] = y + j;
                 rat.transform(values, 0, values, 0, 1);
                 currentX = values[0];
                 currentY = values[1];
@@ -16,16 +16,12 @@
  */
 package org.apache.pdfbox_ai2.pdmodel.graphics.shading;
 
-import java.awt.Point;
-import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.image.ColorModel;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.imageio.stream.ImageInputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -105,11 +101,9 @@ abstract class GouraudShadingContext extends TriangleBasedShadingContext
     }
 
     @Override
-    protected Map<Point, Integer> calcPixelTable(Rectangle deviceBounds) throws IOException
+    List<ShadedTriangle> collectTriangles()
     {
-        Map<Point, Integer> map = new HashMap<Point, Integer>();
-        super.calcPixelTable(triangleList, map, deviceBounds);
-        return map;
+        return triangleList;
     }
 
     @Override
@@ -40,6 +40,7 @@ public abstract class PDShading implements COSObjectable
     private PDColorSpace colorSpace = null;
     private PDFunction function = null;
     private PDFunction[] functionArray = null;
+    private final ShadingColorCache colorCache = new ShadingColorCache();
 
     /**
      * shading type 1 = function based shading.
@@ -239,6 +240,7 @@ public abstract class PDShading implements COSObjectable
     public void setColorSpace(PDColorSpace colorSpace)
     {
         this.colorSpace = colorSpace;
+        colorCache.clear();
         if (colorSpace != null)
         {
             dictionary.setItem(COSName.COLORSPACE, colorSpace.getCOSObject());
@@ -298,6 +300,7 @@ public abstract class PDShading implements COSObjectable
     {
         functionArray = null;
         function = newFunction;
+        colorCache.clear();
         getCOSObject().setItem(COSName.FUNCTION, newFunction);
     }
 
@@ -310,6 +313,7 @@ public abstract class PDShading implements COSObjectable
     {
         functionArray = null;
         function = null;
+        colorCache.clear();
         getCOSObject().setItem(COSName.FUNCTION, newFunctions);
     }
 
@@ -366,6 +370,14 @@ public abstract class PDShading implements COSObjectable
         return functionArray;
     }
 
+    /**
+     * Returns the cache of color lookup tables of this shading.
+     */
+    ShadingColorCache getColorCache()
+    {
+        return colorCache;
+    }
+
     /**
      * Convert the input value using the functions of the shading dictionary.
      *
@@ -142,7 +142,14 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
      */
     private int[] calcColorTable() throws IOException
     {
-        int[] map = new int[factor + 1];
+        // the table is shared by all contexts of the shading with the same number of steps
+        ShadingColorCache cache = radialShadingType.getColorCache();
+        int[] map = cache.get(factor, domain);
+        if (map != null)
+        {
+            return map;
+        }
+        map = new int[factor + 1];
         if (factor == 0 || d1d0 == 0)
         {
             float[] values = radialShadingType.evalFunction(domain[0]);
@@ -157,6 +164,7 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
                 map[i] = convertToRGB(values);
             }
         }
+        cache.put(factor, domain, map);
         return map;
     }
 
@@ -181,6 +189,8 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
         float inputValue = -1;
         boolean useBackground;
         int[] data = new int[w * h * 4];
+        float[] values = new float[2];
+        float[] inputValues = new float[2];
         for (int j = 0; j < h; j++)
         {
             double currentY = y + j;
@@ -196,13 +206,14 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
                     continue;
                 }
 
-                float[] values = new float[] { x + i, y + j };
+                values[0] = x + i;
+                values[1] = y + j;
                 rat.transform(values, 0, values, 0, 1);
                 currentX = values[0];
                 currentY = values[1];
 
                 useBackground = false;
-                float[] inputValues = calculateInputValues(currentX, currentY);
+                calculateInputValues(currentX, currentY, inputValues);
                 if (Float.isNaN(inputValues[0]) && Float.isNaN(inputValues[1]))
                 {
                     if (getBackground() == null)
@@ -319,7 +330,7 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
         return raster;
     }
 
-    private float[] calculateInputValues(double x, double y)
+    private void calculateInputValues(double x, double y, float[] result)
     {
         // According to Adobes Technical Note #5600 we have to do the following
         //
@@ -344,11 +355,13 @@ public class RadialShadingContext extends ShadingContext implements PaintContext
         float root2 = (float) ((-p - root) / denom);
         if (denom < 0)
         {
-            return new float[] { root1, root2 };
+            result[0] = root1;
+            result[1] = root2;
         }
         else
         {
-            return new float[] { root2, root1 };
+            result[0] = root2;
+            result[1] = root1;
         }
     }
 
@@ -262,6 +262,52 @@ class ShadedTriangle
         return pCol;
     }
 
+    /**
+     * Calculate the color of a pixel if it is contained in this normal (degree 3) triangle.
+     * This gives the same results as {@link #contains(Point2D)} and {@link #calcColor(Point2D)},
+     * without creating any objects.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param result receives the color of the pixel
+     * @return false if the pixel is outside of this triangle, otherwise true
+     */
+    boolean calcColor(int x, int y, float[] result)
+    {
+        Point2D c0 = corner[0];
+        Point2D c1 = corner[1];
+        Point2D c2 = corner[2];
+        if (edgeEquationValue(x, y, c1, c2) * v0 < 0 ||
+            edgeEquationValue(x, y, c2, c0) * v1 < 0 ||
+            edgeEquationValue(x, y, c0, c1) * v2 < 0)
+        {
+            return false;
+        }
+        float aw = (float) (getArea(x, y, c1, c2) / area);
+        float bw = (float) (getArea(x, y, c2, c0) / area);
+        float cw = (float) (getArea(x, y, c0, c1) / area);
+        for (int i = 0; i < result.length; i++)
+        {
+            // barycentric interpolation
+            result[i] = color[0][i] * aw + color[1][i] * bw + color[2][i] * cw;
+        }
+        return true;
+    }
+
+    // same as edgeEquationValue(Point2D, Point2D, Point2D)
+    private double edgeEquationValue(double x, double y, Point2D p1, Point2D p2)
+    {
+        return (p2.getY() - p1.getY()) * (x - p1.getX())
+                - (p2.getX() - p1.getX()) * (y - p1.getY());
+    }
+
+    // same as getArea(Point2D, Point2D, Point2D)
+    private double getArea(double x, double y, Point2D b, Point2D c)
+    {
+        return Math.abs((c.getX() - b.getX()) * (c.getY() - y)
+                - (c.getX() - x) * (c.getY() - b.getY())) / 2.0;
+    }
+
     @Override
     public String toString()
     {
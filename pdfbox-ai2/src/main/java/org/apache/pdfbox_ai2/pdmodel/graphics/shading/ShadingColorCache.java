@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.shading;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Color lookup tables of a shading, which are shared by all paint contexts of the shading, so
+ * that the shading function is only sampled once for a given resolution. Tables hold RGB values
+ * encoded into integers, and are stored along with the parameters they were sampled for, such
+ * as the domain. The cache may be used by several threads at once, and keeps the most recently
+ * used tables only.
+ *
+ * @see PDShading#getColorCache()
+ */
+final class ShadingColorCache
+{
+    private static final int MAX_TABLES = 4;
+
+    private final Map<Long, Table> tables = new LinkedHashMap<Long, Table>(8, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Table> eldest)
+        {
+            return size() > MAX_TABLES;
+        }
+    };
+
+    /**
+     * Returns the table with the given key, or null.
+     *
+     * @param key identifies the layout and resolution of the table
+     * @param params the parameters the table must have been sampled for
+     * @return the table, which must not be modified
+     */
+    synchronized int[] get(long key, float[] params)
+    {
+        Table table = tables.get(key);
+        if (table != null && Arrays.equals(table.params, params))
+        {
+            return table.colors;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a table.
+     *
+     * @param key identifies the layout and resolution of the table
+     * @param params the parameters the table was sampled for
+     * @param colors the table, which must not be modified afterwards
+     */
+    synchronized void put(long key, float[] params, int[] colors)
+    {
+        tables.put(key, new Table(params.clone(), colors));
+    }
+
+    /**
+     * Removes all tables.
+     */
+    synchronized void clear()
+    {
+        tables.clear();
+    }
+
+    private static final class Table
+    {
+        private final float[] params;
+        private final int[] colors;
+
+        Table(float[] params, int[] colors)
+        {
+            this.params = params;
+            this.colors = colors;
+        }
+    }
+}
@@ -24,7 +24,6 @@ import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.util.Matrix;
@@ -46,8 +45,10 @@ abstract class TriangleBasedShadingContext extends ShadingContext implements Pai
     
     private final boolean hasFunction;
 
-    // map of pixels within triangles to their RGB color
-    private Map<Point, Integer> pixelTable;
+    // triangles which may cover pixels of the device bounds, in drawing order, and their
+    // clipped boundaries as {xmin, xmax, ymin, ymax}
+    private ShadedTriangle[] triangles;
+    private int[] boundaries;
 
     /**
      * Constructor.
@@ -73,55 +74,114 @@ abstract class TriangleBasedShadingContext extends ShadingContext implements Pai
     }
 
     /**
-     * Creates the pixel table.
+     * Creates the table of triangles, which are rasterized when the tiles are requested.
      */
-    protected final void createPixelTable(Rectangle deviceBounds) throws IOException
+    protected final void createTriangleTable(Rectangle deviceBounds)
     {
-        pixelTable = calcPixelTable(deviceBounds);
+        List<ShadedTriangle> triangleList = collectTriangles();
+        triangles = new ShadedTriangle[triangleList.size()];
+        boundaries = new int[triangleList.size() * 4];
+        int count = 0;
+        for (ShadedTriangle tri : triangleList)
+        {
+            int[] boundary = tri.getBoundary();
+            if (tri.getDeg() != 2)
+            {
+                boundary[0] = Math.max(boundary[0], deviceBounds.x);
+                boundary[1] = Math.min(boundary[1], deviceBounds.x + deviceBounds.width);
+                boundary[2] = Math.max(boundary[2], deviceBounds.y);
+                boundary[3] = Math.min(boundary[3], deviceBounds.y + deviceBounds.height);
+                if (boundary[0] > boundary[1] || boundary[2] > boundary[3])
+                {
+                    continue;
+                }
+            }
+            triangles[count] = tri;
+            System.arraycopy(boundary, 0, boundaries, count * 4, 4);
+            count++;
+        }
+        LOG.debug("triangles: " + triangleList.size() + ", within device bounds: " + count);
+        if (count < triangles.length)
+        {
+            ShadedTriangle[] newTriangles = new ShadedTriangle[count];
+            System.arraycopy(triangles, 0, newTriangles, 0, count);
+            triangles = newTriangles;
+        }
     }
 
     /**
-     * Calculate every point and its color and store them in a Hash table.
-     *
-     * @return a Hash table which contains all the points' positions and colors of one image
+     * Returns all triangles of the shading, in drawing order.
      */
-    abstract Map<Point, Integer> calcPixelTable(Rectangle deviceBounds) throws IOException;
+    abstract List<ShadedTriangle> collectTriangles();
 
     /**
-     * Get the points from the triangles, calculate their color and add point-color mappings.
+     * Calculates the color of every point of the triangles within the given tile, later
+     * triangles paint over earlier ones.
+     *
+     * @param x the x coordinate of the tile
+     * @param y the y coordinate of the tile
+     * @param w the width of the tile
+     * @param h the height of the tile
+     * @param rgb receives the RGB value of each pixel of the tile, row by row
+     * @param covered set for each pixel of the tile that is contained in a triangle
      */
-    protected void calcPixelTable(List<ShadedTriangle> triangleList, Map<Point, Integer> map,
-            Rectangle deviceBounds) throws IOException
+    private void rasterize(int x, int y, int w, int h, int[] rgb, boolean[] covered)
+            throws IOException
     {
-        for (ShadedTriangle tri : triangleList)
+        int maxX = x + w - 1;
+        int maxY = y + h - 1;
+        float[] color = new float[numberOfColorComponents];
+        for (int i = 0; i < triangles.length; i++)
         {
+            int xmin = Math.max(boundaries[i * 4], x);
+            int xmax = Math.min(boundaries[i * 4 + 1], maxX);
+            int ymin = Math.max(boundaries[i * 4 + 2], y);
+            int ymax = Math.min(boundaries[i * 4 + 3], maxY);
+            if (xmin > xmax || ymin > ymax)
+            {
+                continue;
+            }
+            ShadedTriangle tri = triangles[i];
             int degree = tri.getDeg();
             if (degree == 2)
             {
                 Line line = tri.getLine();
                 for (Point p : line.linePoints)
                 {
-                    map.put(p, evalFunctionAndConvertToRGB(line.calcColor(p)));
+                    if (p.x >= x && p.x <= maxX && p.y >= y && p.y <= maxY)
+                    {
+                        int index = (p.y - y) * w + p.x - x;
+                        rgb[index] = evalFunctionAndConvertToRGB(line.calcColor(p));
+                        covered[index] = true;
+                    }
                 }
             }
             else
             {
-                int[] boundary = tri.getBoundary();
-                boundary[0] = Math.max(boundary[0], deviceBounds.x);
-                boundary[1] = Math.min(boundary[1], deviceBounds.x + deviceBounds.width);
-                boundary[2] = Math.max(boundary[2], deviceBounds.y);
-                boundary[3] = Math.min(boundary[3], deviceBounds.y + deviceBounds.height);
-                for (int x = boundary[0]; x <= boundary[1]; x++)
+                for (int py = ymin; py <= ymax; py++)
                 {
-                    for (int y = boundary[2]; y <= boundary[3]; y++)
+                    int index = (py - y) * w + xmin - x;
+                    for (int px = xmin; px <= xmax; px++, index++)
                     {
-                        Point p = new Point(x, y);
-                        if (tri.contains(p))
+                        if (degree == 3)
+                        {
+                            if (tri.calcColor(px, py, color))
+                            {
+                                rgb[index] = evalFunctionAndConvertToRGB(color);
+                                covered[index] = true;
+                            }
+                        }
+                        else
                         {
-                            map.put(p, evalFunctionAndConvertToRGB(tri.calcColor(p)));
+                            Point p = new Point(px, py);
+                            if (tri.contains(p))
+                            {
+                                rgb[index] = evalFunctionAndConvertToRGB(tri.calcColor(p));
+                                covered[index] = true;
+                            }
                         }
                     }
-                }         
+                }
             }
         }
     }
@@ -153,6 +213,8 @@ abstract class TriangleBasedShadingContext extends ShadingContext implements Pai
     @Override
     public void dispose()
     {
+        triangles = null;
+        boundaries = null;
         super.dispose();
     }
 
@@ -163,6 +225,17 @@ abstract class TriangleBasedShadingContext extends ShadingContext implements Pai
         int[] data = new int[w * h * 4];
         if (!isDataEmpty() || getBackground() != null)
         {
+            // the triangles are only rasterized for the requested tile
+            int[] rgb = new int[w * h];
+            boolean[] covered = new boolean[w * h];
+            try
+            {
+                rasterize(x, y, w, h, rgb, covered);
+            }
+            catch (IOException e)
+            {
+                LOG.error("error while processing a triangle based shading", e);
+            }
             for (int row = 0; row < h; row++)
             {
                 int currentY = y + row;
@@ -177,11 +250,10 @@ abstract class TriangleBasedShadingContext extends ShadingContext implements Pai
                     {
                         continue;
                     }
-                    Point p = new Point(currentX, currentY);
                     int value;
-                    if (pixelTable.containsKey(p))
+                    if (covered[row * w + col])
                     {
-                        value = pixelTable.get(p);
+                        value = rgb[row * w + col];
                     }
                     else
                     {
@@ -18,10 +18,12 @@ package org.apache.pdfbox_ai2.pdmodel.graphics.shading;
 import java.awt.PaintContext;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
 import java.awt.image.ColorModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.Arrays;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColorSpace;
@@ -37,9 +39,21 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
     private static final Log LOG = LogFactory.getLog(Type1ShadingContext.class);
 
     private PDShadingType1 type1ShadingType;
+    // the most cells of the color grid, finer grids are scaled down
+    private static final int MAX_GRID_CELLS = 1 << 22;
+
+    // marks a cell of the color grid which has not been evaluated yet
+    private static final int UNSET = -1;
+
     private AffineTransform rat;
     private final float[] domain;
 
+    // colors of the function sampled over the domain at device resolution, the cells are
+    // evaluated when first needed and shared with other contexts of the same shading
+    private final int[] colorGrid;
+    private final int gridWidth;
+    private final int gridHeight;
+
     /**
      * Constructor creates an instance to be used for fill operations.
      *
@@ -79,6 +93,33 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
         {
             LOG.error(ex, ex);
         }
+
+        // shading space -> device space
+        AffineTransform shadingToDevice = (AffineTransform) xform.clone();
+        shadingToDevice.concatenate(matrix.createAffineTransform());
+        shadingToDevice.concatenate(shading.getMatrix().createAffineTransform());
+
+        // one cell per device pixel covered by the domain
+        Point2D p00 = shadingToDevice.transform(new Point2D.Float(domain[0], domain[2]), null);
+        Point2D p10 = shadingToDevice.transform(new Point2D.Float(domain[1], domain[2]), null);
+        Point2D p01 = shadingToDevice.transform(new Point2D.Float(domain[0], domain[3]), null);
+        Point2D p11 = shadingToDevice.transform(new Point2D.Float(domain[1], domain[3]), null);
+        double width = Math.max(p00.distance(p10), p01.distance(p11));
+        double height = Math.max(p00.distance(p01), p10.distance(p11));
+        double scale = Math.min(1, Math.sqrt(MAX_GRID_CELLS / ((width + 1) * (height + 1))));
+        gridWidth = (int) Math.ceil(width * scale) + 1;
+        gridHeight = (int) Math.ceil(height * scale) + 1;
+
+        ShadingColorCache cache = shading.getColorCache();
+        long key = (long) gridWidth << 32 | gridHeight;
+        int[] grid = cache.get(key, domain);
+        if (grid == null)
+        {
+            grid = new int[gridWidth * gridHeight];
+            Arrays.fill(grid, UNSET);
+            cache.put(key, domain, grid);
+        }
+        colorGrid = grid;
     }
 
     @Override
@@ -100,6 +141,9 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
     {
         WritableRaster raster = getColorModel().createCompatibleWritableRaster(w, h);
         int[] data = new int[w * h * 4];
+        float[] values = new float[2];
+        float xScale = domain[1] > domain[0] ? (gridWidth - 1) / (domain[1] - domain[0]) : 0;
+        float yScale = domain[3] > domain[2] ? (gridHeight - 1) / (domain[3] - domain[2]) : 0;
         for (int j = 0; j < h; j++)
         {
             int currentY = y + j;
@@ -117,9 +161,10 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
                 }
 
                 int index = (j * w + i) * 4;
-                boolean useBackground = false;
-                float[] values = new float[] { x + i, y + j };
+                values[0] = x + i;
+                values[1] = y + j;
                 rat.transform(values, 0, values, 0, 1);
+                int value;
                 if (values[0] < domain[0] || values[0] > domain[1] ||
                     values[1] < domain[2] || values[1] > domain[3])
                 {
@@ -127,42 +172,24 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
                     {
                         continue;
                     }
-                    useBackground = true;
-                }
-
-                // evaluate function
-                if (useBackground)
-                {
-                    values = getBackground();
+                    value = getRgbBackground();
                 }
                 else
                 {
-                    try
-                    {
-                        values = type1ShadingType.evalFunction(values);
-                    }
-                    catch (IOException e)
-                    {
-                        LOG.error("error while processing a function", e);
-                    }
-                }
-
-                // convert color values from shading color space to RGB
-                PDColorSpace shadingColorSpace = getShadingColorSpace();
-                if (shadingColorSpace != null)
-                {
-                    try
+                    // nearest cell of the color grid
+                    int gridX = (int) ((values[0] - domain[0]) * xScale + 0.5f);
+                    int gridY = (int) ((values[1] - domain[2]) * yScale + 0.5f);
+                    int cell = gridY * gridWidth + gridX;
+                    value = colorGrid[cell];
+                    if (value == UNSET)
                     {
-                        values = shadingColorSpace.toRGB(values);
-                    }
-                    catch (IOException e)
-                    {
-                        LOG.error("error processing color space", e);
+                        value = calcColor(gridX, gridY);
+                        colorGrid[cell] = value;
                     }
                 }
-                data[index] = (int) (values[0] * 255);
-                data[index + 1] = (int) (values[1] * 255);
-                data[index + 2] = (int) (values[2] * 255);
+                data[index] = value & 255;
+                data[index + 1] = (value >> 8) & 255;
+                data[index + 2] = (value >> 16) & 255;
                 data[index + 3] = 255;
             }
         }
@@ -170,6 +197,43 @@ class Type1ShadingContext extends ShadingContext implements PaintContext
         return raster;
     }
 
+    // evaluates the function at the given cell of the color grid, returns the RGB value
+    private int calcColor(int gridX, int gridY)
+    {
+        float[] values = new float[2];
+        values[0] = gridWidth > 1 ? domain[0] + (domain[1] - domain[0]) * gridX / (gridWidth - 1)
+                                  : domain[0];
+        values[1] = gridHeight > 1 ? domain[2] + (domain[3] - domain[2]) * gridY / (gridHeight - 1)
+                                   : domain[2];
+
+        // evaluate function
+        try
+        {
+            values = type1ShadingType.evalFunction(values);
+        }
+        catch (IOException e)
+        {
+            LOG.error("error while processing a function", e);
+        }
+
+        // convert color values from shading color space to RGB
+        PDColorSpace shadingColorSpace = getShadingColorSpace();
+        if (shadingColorSpace != null)
+        {
+            try
+            {
+                values = shadingColorSpace.toRGB(values);
+            }
+            catch (IOException e)
+            {
+                LOG.error("error processing color space", e);
+            }
+        }
+        return ((int) (values[0] * 255) & 255) |
+               ((int) (values[1] * 255) & 255) << 8 |
+               ((int) (values[2] * 255) & 255) << 16;
+    }
+
     public float[] getDomain()
     {
         return domain;
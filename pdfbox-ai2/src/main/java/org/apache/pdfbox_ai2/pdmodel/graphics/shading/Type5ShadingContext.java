@@ -60,7 +60,7 @@ class Type5ShadingContext extends GouraudShadingContext
         LOG.debug("Type5ShadingContext");
 
         setTriangleList(collectTriangles(shading, xform, matrix));
-        createPixelTable(deviceBounds);
+        createTriangleTable(deviceBounds);
     }
 
     private List<ShadedTriangle> collectTriangles(PDShadingType5 latticeTriangleShadingType,
@@ -18,8 +18,6 @@ package org.apache.pdfbox_ai2.rendering;
 
 import java.awt.geom.GeneralPath;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.pdmodel.font.PDCIDFontType0;
@@ -33,7 +31,7 @@ final class CIDType0Glyph2D implements Glyph2D
 {
     private static final Log LOG = LogFactory.getLog(CIDType0Glyph2D.class);
 
-    private final Map<Integer, GeneralPath> cache = new HashMap<Integer, GeneralPath>();
+    private final GlyphCache.PathTable cache;
     private final PDCIDFontType0 font;
     private final String fontName;
 
@@ -41,19 +39,22 @@ final class CIDType0Glyph2D implements Glyph2D
      * Constructor.
      *
      * @param font Type 0 CIDFont
+     * @param cache table for the glyph outlines, keyed by character code
      */
-    CIDType0Glyph2D(PDCIDFontType0 font) // todo: what about PDCIDFontType2?
+    CIDType0Glyph2D(PDCIDFontType0 font, GlyphCache.PathTable cache) // todo: what about PDCIDFontType2?
     {
         this.font = font;
+        this.cache = cache;
         fontName = font.getBaseFont();
     }
 
     @Override
     public GeneralPath getPathForCharacterCode(int code)
     {
-        if (cache.containsKey(code))
+        GeneralPath cached = cache.get(code);
+        if (cached != null)
         {
-            return cache.get(code);
+            return cached;
         }
 
         try
@@ -80,6 +81,6 @@ final class CIDType0Glyph2D implements Glyph2D
     @Override
     public void dispose()
     {
-        cache.clear();
+        cache.dispose();
     }
 }
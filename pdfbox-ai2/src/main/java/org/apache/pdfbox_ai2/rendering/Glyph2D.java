@@ -29,7 +29,8 @@ import java.io.IOException;
 interface Glyph2D
 {
     /**
-     * Returns the path describing the glyph for the given character code.
+     * Returns the path describing the glyph for the given character code. The path may be
+     * shared with other pages and threads, so it must not be modified.
      * 
      * @param code the character code
      * 
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.rendering;
+
+import java.awt.geom.GeneralPath;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pdfbox_ai2.pdmodel.font.PDCIDFontType0;
+import org.apache.pdfbox_ai2.pdmodel.font.PDCIDFontType2;
+import org.apache.pdfbox_ai2.pdmodel.font.PDFont;
+import org.apache.pdfbox_ai2.pdmodel.font.PDTrueTypeFont;
+import org.apache.pdfbox_ai2.pdmodel.font.PDType0Font;
+import org.apache.pdfbox_ai2.pdmodel.font.PDType1CFont;
+import org.apache.pdfbox_ai2.pdmodel.font.PDType1Font;
+
+/**
+ * Glyph outlines shared by all pages drawn by a PDFRenderer, so that a glyph used on many pages
+ * is only extracted once. The cache may be used by several threads at once. Its size is bounded
+ * by the total number of glyphs and the number of fonts, the least recently used fonts are
+ * discarded first.
+ */
+final class GlyphCache
+{
+    static final int DEFAULT_MAX_GLYPHS = 32768;
+    static final int DEFAULT_MAX_FONTS = 256;
+
+    private final int maxGlyphs;
+    private final AtomicInteger glyphCount = new AtomicInteger();
+    private final Map<PDFont, Glyph2D> fonts;
+
+    /**
+     * Creates a cache with the default bounds.
+     */
+    GlyphCache()
+    {
+        this(DEFAULT_MAX_GLYPHS, DEFAULT_MAX_FONTS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxGlyphs the maximum number of glyph outlines to keep
+     * @param maxFonts the maximum number of fonts to keep
+     */
+    GlyphCache(int maxGlyphs, final int maxFonts)
+    {
+        this.maxGlyphs = maxGlyphs;
+        this.fonts = new LinkedHashMap<PDFont, Glyph2D>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PDFont, Glyph2D> eldest)
+            {
+                if (size() > maxFonts)
+                {
+                    eldest.getValue().dispose();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the Glyph2D for the given font, creating it if needed.
+     *
+     * @param font the font
+     * @return the Glyph2D for the given font
+     * @throws IOException if the font could not be read
+     */
+    Glyph2D getGlyph2D(PDFont font) throws IOException
+    {
+        synchronized (fonts)
+        {
+            Glyph2D glyph2D = fonts.get(font);
+            if (glyph2D != null)
+            {
+                if (glyphCount.get() >= maxGlyphs)
+                {
+                    evict(glyph2D);
+                }
+                return glyph2D;
+            }
+        }
+
+        // built without holding the lock, so that other pages aren't blocked meanwhile
+        Glyph2D created = createGlyph2D(font);
+        synchronized (fonts)
+        {
+            Glyph2D glyph2D = fonts.get(font);
+            if (glyph2D == null)
+            {
+                glyph2D = created;
+                fonts.put(font, glyph2D);
+            }
+            else
+            {
+                // another thread was faster
+                created.dispose();
+            }
+            if (glyphCount.get() >= maxGlyphs)
+            {
+                evict(glyph2D);
+            }
+            return glyph2D;
+        }
+    }
+
+    /**
+     * Returns the number of glyph outlines in the cache.
+     */
+    int getGlyphCount()
+    {
+        return glyphCount.get();
+    }
+
+    /**
+     * Removes all glyphs from the cache.
+     */
+    void clear()
+    {
+        synchronized (fonts)
+        {
+            for (Glyph2D glyph2D : fonts.values())
+            {
+                glyph2D.dispose();
+            }
+            fonts.clear();
+        }
+    }
+
+    // discards the least recently used fonts, except the one in use, until there is room again
+    private void evict(Glyph2D inUse)
+    {
+        Iterator<Glyph2D> it = fonts.values().iterator();
+        while (glyphCount.get() >= maxGlyphs && it.hasNext())
+        {
+            Glyph2D glyph2D = it.next();
+            if (glyph2D != inUse)
+            {
+                glyph2D.dispose();
+                it.remove();
+            }
+        }
+    }
+
+    private Glyph2D createGlyph2D(PDFont font) throws IOException
+    {
+        PathTable table = new PathTable();
+        if (font instanceof PDTrueTypeFont)
+        {
+            return new TTFGlyph2D((PDTrueTypeFont)font, table); // TTF is never null
+        }
+        else if (font instanceof PDType1Font)
+        {
+            return new Type1Glyph2D((PDType1Font)font, table); // T1 is never null
+        }
+        else if (font instanceof PDType1CFont)
+        {
+            return new Type1Glyph2D((PDType1CFont)font, table);
+        }
+        else if (font instanceof PDType0Font)
+        {
+            PDType0Font type0Font = (PDType0Font) font;
+            if (type0Font.getDescendantFont() instanceof PDCIDFontType2)
+            {
+                return new TTFGlyph2D(type0Font, table); // TTF is never null
+            }
+            else if (type0Font.getDescendantFont() instanceof PDCIDFontType0)
+            {
+                // a Type0 CIDFont contains CFF font
+                PDCIDFontType0 cidType0Font = (PDCIDFontType0)type0Font.getDescendantFont();
+                return new CIDType0Glyph2D(cidType0Font, table); // todo: could be null (need incorporate fallback)
+            }
+        }
+        else
+        {
+            throw new IllegalStateException("Bad font type: " + font.getClass().getSimpleName());
+        }
+
+        // todo: make sure this never happens
+        throw new UnsupportedOperationException("No font for " + font.getName());
+    }
+
+    /**
+     * Glyph outlines of a single font, keyed by a character code or GID from 0 to 0xFFFF. The
+     * table is split into pages of 256 entries which are allocated on first use. Keys outside of
+     * this range are never cached. The paths in the table are shared and must not be modified.
+     */
+    final class PathTable
+    {
+        private final GeneralPath[][] pages = new GeneralPath[256][];
+        private int size;
+        private boolean disposed;
+
+        /**
+         * Returns the cached path for the given key, or null.
+         */
+        synchronized GeneralPath get(int key)
+        {
+            if (key < 0 || key > 0xFFFF)
+            {
+                return null;
+            }
+            GeneralPath[] page = pages[key >> 8];
+            return page == null ? null : page[key & 0xFF];
+        }
+
+        /**
+         * Caches the path for the given key, unless the cache is full.
+         */
+        synchronized void put(int key, GeneralPath path)
+        {
+            if (key < 0 || key > 0xFFFF || path == null || disposed ||
+                glyphCount.get() >= maxGlyphs)
+            {
+                return;
+            }
+            GeneralPath[] page = pages[key >> 8];
+            if (page == null)
+            {
+                page = new GeneralPath[256];
+                pages[key >> 8] = page;
+            }
+            if (page[key & 0xFF] == null)
+            {
+                size++;
+                glyphCount.incrementAndGet();
+            }
+            page[key & 0xFF] = path;
+        }
+
+        /**
+         * Removes all paths, the table caches nothing after this.
+         */
+        synchronized void dispose()
+        {
+            for (int i = 0; i < pages.length; i++)
+            {
+                pages[i] = null;
+            }
+            glyphCount.addAndGet(-size);
+            size = 0;
+            disposed = true;
+        }
+    }
+}
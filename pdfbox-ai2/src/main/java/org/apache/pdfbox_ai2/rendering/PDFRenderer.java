@@ -17,9 +17,22 @@
 package org.apache.pdfbox_ai2.rendering;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.pdfbox_ai2.contentstream.DisplayList;
+import org.apache.pdfbox_ai2.contentstream.DisplayListCache;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.PDPage;
 import org.apache.pdfbox_ai2.pdmodel.common.PDRectangle;
@@ -33,7 +46,9 @@ import org.apache.pdfbox_ai2.pdmodel.common.PDRectangle;
 public class PDFRenderer
 {
     protected final PDDocument document;
-    // TODO keep rendering state such as caches here
+    private final GlyphCache glyphCache = new GlyphCache();
+    private DisplayListCache displayListCache = new DisplayListCache();
+    private boolean subsamplingAllowed;
 
     /**
      * Creates a new PDFRenderer.
@@ -44,6 +59,45 @@ public class PDFRenderer
         this.document = document;
     }
 
+    /**
+     * Returns whether images may be decoded subsampled, see {@link #setSubsamplingAllowed}.
+     */
+    public boolean isSubsamplingAllowed()
+    {
+        return subsamplingAllowed;
+    }
+
+    /**
+     * Sets whether images which are drawn smaller than their size may be decoded subsampled, and
+     * images which are partly clipped may be decoded partly. This is much faster when rendering
+     * at low resolution, e.g. for thumbnails, but fine details of an image may be lost.
+     * The default is false.
+     * @param subsamplingAllowed true to allow subsampling
+     */
+    public void setSubsamplingAllowed(boolean subsamplingAllowed)
+    {
+        this.subsamplingAllowed = subsamplingAllowed;
+    }
+
+    /**
+     * Returns the cache of parsed content streams used by the page drawers, or null.
+     */
+    public DisplayListCache getDisplayListCache()
+    {
+        return displayListCache;
+    }
+
+    /**
+     * Sets the cache of parsed content streams used by the page drawers. By default each
+     * renderer has its own cache, so that a page, form or pattern drawn more than once is
+     * parsed only once. A cache may be shared between renderers of the same document.
+     * @param displayListCache the cache, or null to parse content streams each time
+     */
+    public void setDisplayListCache(DisplayListCache displayListCache)
+    {
+        this.displayListCache = displayListCache;
+    }
+
     /**
      * Returns the given page as an RGB image at 72 DPI
      * @param pageIndex the zero-based index of the page to be converted.
@@ -105,8 +159,333 @@ public class PDFRenderer
     public BufferedImage renderImage(int pageIndex, float scale, ImageType imageType)
             throws IOException
     {
-        PDPage page = document.getPage(pageIndex);
+        return renderImage(document.getPage(pageIndex), scale, imageType);
+    }
+
+    /**
+     * Renders a range of pages at the given DPI, concurrently on the given executor.
+     * @param fromIndex the zero-based index of the first page, inclusive
+     * @param toIndex the zero-based index of the last page, exclusive
+     * @param dpi the DPI (dots per inch) to render at
+     * @param imageType the type of image to return
+     * @param executor the executor which renders the pages
+     * @param handler receives the page images, in page order
+     * @throws IOException if the PDF cannot be read or the handler fails
+     * @see #renderImages(int, int, float, ImageType, Executor, PageImageHandler)
+     */
+    public void renderImagesWithDPI(int fromIndex, int toIndex, float dpi, ImageType imageType,
+                                    Executor executor, PageImageHandler handler) throws IOException
+    {
+        renderImages(fromIndex, toIndex, dpi / 72f, imageType, executor, handler);
+    }
+
+    /**
+     * Renders a range of pages at the given scale, concurrently on the given executor.
+     * Fonts, glyphs and images are shared between the pages being rendered. The images are
+     * passed to the handler on the calling thread and in page order, as soon as each page and
+     * all pages before it are finished. Only a few pages per processor are rendered ahead of the
+     * handler, so that memory use stays bounded for long documents. If a page or the handler
+     * fails, the pages which are being rendered are finished before the failure is thrown, and
+     * the others are not rendered, so the document may be closed right afterwards.
+     * <p>
+     * A subclass which overrides {@link #createPageDrawer(PageDrawerParameters)} must return
+     * drawers which can run concurrently.
+     *
+     * @param fromIndex the zero-based index of the first page, inclusive
+     * @param toIndex the zero-based index of the last page, exclusive
+     * @param scale the scaling factor, where 1 = 72 DPI
+     * @param imageType the type of image to return
+     * @param executor the executor which renders the pages
+     * @param handler receives the page images, in page order
+     * @throws IOException if the PDF cannot be read or the handler fails
+     */
+    public void renderImages(final int fromIndex, int toIndex, final float scale,
+                             final ImageType imageType, Executor executor,
+                             final PageImageHandler handler) throws IOException
+    {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > document.getNumberOfPages())
+        {
+            throw new IndexOutOfBoundsException("Invalid page range " + fromIndex + " to " +
+                                                toIndex);
+        }
+
+        renderInOrder(toIndex - fromIndex, executor, new RenderedImages()
+        {
+            @Override
+            public Callable<BufferedImage> createRendering(int index)
+            {
+                // the page tree is walked here, workers only see their own page
+                final PDPage page = document.getPage(fromIndex + index);
+                return new Callable<BufferedImage>()
+                {
+                    @Override
+                    public BufferedImage call() throws IOException
+                    {
+                        return renderImage(page, scale, imageType);
+                    }
+                };
+            }
+
+            @Override
+            public void handleImage(int index, BufferedImage image) throws IOException
+            {
+                handler.handlePageImage(fromIndex + index, image);
+            }
+        });
+    }
+
+    /**
+     * Images which are rendered concurrently and handled in order, see renderInOrder().
+     */
+    private interface RenderedImages
+    {
+        /**
+         * Creates the rendering of the image with the given index, on the calling thread.
+         */
+        Callable<BufferedImage> createRendering(int index) throws IOException;
+
+        /**
+         * Receives the image with the given index, on the calling thread.
+         */
+        void handleImage(int index, BufferedImage image) throws IOException;
+    }
+
+    /**
+     * A rendering which is either run by a worker or abandoned before it has started.
+     */
+    private static final class RenderTask extends FutureTask<BufferedImage>
+    {
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        RenderTask(Callable<BufferedImage> rendering)
+        {
+            super(rendering);
+        }
+
+        @Override
+        public void run()
+        {
+            if (started.compareAndSet(false, true))
+            {
+                super.run();
+            }
+        }
+
+        /**
+         * Abandons the rendering if it has not started yet.
+         *
+         * @return true if the rendering will never run, false if it has started
+         */
+        boolean abandon()
+        {
+            if (started.compareAndSet(false, true))
+            {
+                cancel(false);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // renders the images concurrently on the executor and passes them to the handler in order,
+    // only a few images per processor are rendered ahead of the handler
+    private static void renderInOrder(int count, Executor executor, RenderedImages images)
+            throws IOException
+    {
+        int window = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        LinkedList<RenderTask> pending = new LinkedList<RenderTask>();
+        int next = 0;
+        try
+        {
+            for (int index = 0; index < count; index++)
+            {
+                while (next < count && next - index < window)
+                {
+                    RenderTask task = new RenderTask(images.createRendering(next));
+                    pending.add(task);
+                    executor.execute(task);
+                    next++;
+                }
+                images.handleImage(index, getRenderedImage(pending.removeFirst()));
+            }
+        }
+        finally
+        {
+            // only non-empty if rendering or the handler failed
+            abandon(pending);
+        }
+    }
 
+    // abandons the renderings which have not started and waits for the others, so that no
+    // worker still uses the document when the first failure reaches the caller, later failures
+    // are dropped
+    private static void abandon(List<RenderTask> pending)
+    {
+        boolean interrupted = false;
+        for (RenderTask task : pending)
+        {
+            if (task.abandon())
+            {
+                continue;
+            }
+            while (true)
+            {
+                try
+                {
+                    task.get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // waits for a page or tile rendered by renderInOrder() and unwraps any failure
+    private static BufferedImage getRenderedImage(Future<BufferedImage> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Renders a page in tiles at the given DPI, concurrently on the given executor.
+     * @param pageIndex the zero-based index of the page to be converted
+     * @param dpi the DPI (dots per inch) to render at
+     * @param imageType the type of image to return
+     * @param tileWidth the maximum width of a tile
+     * @param tileHeight the maximum height of a tile
+     * @param executor the executor which renders the tiles
+     * @param handler receives the tiles, in order
+     * @throws IOException if the PDF cannot be read or the handler fails
+     * @see #renderImageTiles(int, float, ImageType, int, int, Executor, PageTileHandler)
+     */
+    public void renderImageTilesWithDPI(int pageIndex, float dpi, ImageType imageType,
+                                        int tileWidth, int tileHeight, Executor executor,
+                                        PageTileHandler handler) throws IOException
+    {
+        renderImageTiles(pageIndex, dpi / 72f, imageType, tileWidth, tileHeight, executor,
+                         handler);
+    }
+
+    /**
+     * Renders a page in tiles at the given scale, concurrently on the given executor, so that
+     * the image of the whole page is never held in memory. This allows very large pages to be
+     * rendered at high resolution, e.g. by writing the tiles to a file as they arrive. The page
+     * contents are parsed once and replayed for each tile, which is clipped to the tile. A tile
+     * width of {@link Integer#MAX_VALUE} renders the page in horizontal bands.
+     * <p>
+     * The tiles are passed to the handler on the calling thread, row by row, as soon as each
+     * tile and all tiles before it are finished. Only a few tiles per processor are rendered
+     * ahead of the handler. If a tile or the handler fails, the tiles which are being rendered
+     * are finished before the failure is thrown, and the others are not rendered. A subclass
+     * which overrides {@link #createPageDrawer(PageDrawerParameters)} must return drawers which
+     * can run concurrently.
+     *
+     * @param pageIndex the zero-based index of the page to be converted
+     * @param scale the scaling factor, where 1 = 72 DPI
+     * @param imageType the type of image to return
+     * @param tileWidth the maximum width of a tile
+     * @param tileHeight the maximum height of a tile
+     * @param executor the executor which renders the tiles
+     * @param handler receives the tiles, in order
+     * @throws IOException if the PDF cannot be read or the handler fails
+     */
+    public void renderImageTiles(final int pageIndex, final float scale,
+                                 final ImageType imageType, final int tileWidth,
+                                 final int tileHeight, Executor executor,
+                                 final PageTileHandler handler) throws IOException
+    {
+        if (tileWidth < 1 || tileHeight < 1)
+        {
+            throw new IllegalArgumentException("Invalid tile size " + tileWidth + " x " +
+                                               tileHeight);
+        }
+
+        final PDPage page = document.getPage(pageIndex);
+        final Dimension size = getImageSize(page, scale);
+        DisplayListCache cache = displayListCache;
+        DisplayList displayList = null;
+        if (page.hasContents())
+        {
+            displayList = cache != null ? cache.getDisplayList(page) : DisplayList.parse(page);
+        }
+        final DisplayList contents = displayList;
+        final int columns = size.width / tileWidth + (size.width % tileWidth > 0 ? 1 : 0);
+        int rows = size.height / tileHeight + (size.height % tileHeight > 0 ? 1 : 0);
+
+        handler.startPage(pageIndex, size.width, size.height);
+        renderInOrder(columns * rows, executor, new RenderedImages()
+        {
+            @Override
+            public Callable<BufferedImage> createRendering(int index)
+            {
+                final Rectangle tile = getTile(index);
+                return new Callable<BufferedImage>()
+                {
+                    @Override
+                    public BufferedImage call() throws IOException
+                    {
+                        return renderTile(page, contents, scale, imageType, tile);
+                    }
+                };
+            }
+
+            @Override
+            public void handleImage(int index, BufferedImage image) throws IOException
+            {
+                Rectangle tile = getTile(index);
+                handler.handleTile(pageIndex, tile.x, tile.y, image);
+            }
+
+            private Rectangle getTile(int index)
+            {
+                int x = (index % columns) * tileWidth;
+                int y = (index / columns) * tileHeight;
+                return new Rectangle(x, y, Math.min(tileWidth, size.width - x),
+                                     Math.min(tileHeight, size.height - y));
+            }
+        });
+        handler.endPage(pageIndex);
+    }
+
+    // the size of the image of a page
+    private static Dimension getImageSize(PDPage page, float scale)
+    {
         PDRectangle cropbBox = page.getCropBox();
         float widthPt = cropbBox.getWidth();
         float heightPt = cropbBox.getHeight();
@@ -115,16 +494,19 @@ public class PDFRenderer
         int rotationAngle = page.getRotation();
 
         // swap width and height
-        BufferedImage image;
         if (rotationAngle == 90 || rotationAngle == 270)
         {
-            image = new BufferedImage(heightPx, widthPx, imageType.toBufferedImageType());
+            return new Dimension(heightPx, widthPx);
         }
         else
         {
-            image = new BufferedImage(widthPx, heightPx, imageType.toBufferedImageType());
+            return new Dimension(widthPx, heightPx);
         }
+    }
 
+    // creates the graphics for a page or tile image
+    private static Graphics2D createGraphics(BufferedImage image, ImageType imageType)
+    {
         // use a transparent background if the imageType supports alpha
         Graphics2D g = image.createGraphics();
         if (imageType == ImageType.ARGB)
@@ -135,8 +517,37 @@ public class PDFRenderer
         {
             g.setBackground(Color.WHITE);
         }
+        return g;
+    }
+
+    // renders a page to a new image
+    private BufferedImage renderImage(PDPage page, float scale, ImageType imageType)
+            throws IOException
+    {
+        Dimension size = getImageSize(page, scale);
+        BufferedImage image = new BufferedImage(size.width, size.height,
+                                                imageType.toBufferedImageType());
 
-        renderPage(page, g, image.getWidth(), image.getHeight(), scale, scale);
+        Graphics2D g = createGraphics(image, imageType);
+        renderPage(new PageDrawerParameters(this, page), g, image.getWidth(), image.getHeight(),
+                   scale, scale);
+        g.dispose();
+
+        return image;
+    }
+
+    // renders a part of a page to a new image, replaying the parsed contents of the page
+    private BufferedImage renderTile(PDPage page, DisplayList contents, float scale,
+                                     ImageType imageType, Rectangle tile) throws IOException
+    {
+        BufferedImage image = new BufferedImage(tile.width, tile.height,
+                                                imageType.toBufferedImageType());
+
+        Graphics2D g = createGraphics(image, imageType);
+        g.translate(-tile.x, -tile.y);
+        g.clip(tile);
+        PageDrawerParameters parameters = new PageDrawerParameters(this, page, contents, tile);
+        renderPage(parameters, g, tile.x + tile.width, tile.y + tile.height, scale, scale);
         g.dispose();
 
         return image;
@@ -166,13 +577,15 @@ public class PDFRenderer
         PDPage page = document.getPage(pageIndex);
         // TODO need width/wight calculations? should these be in PageDrawer?
         PDRectangle adjustedCropBox = page.getCropBox();
-        renderPage(page, graphics, (int)adjustedCropBox.getWidth(), (int)adjustedCropBox.getHeight(), scale, scale);
+        renderPage(new PageDrawerParameters(this, page), graphics,
+                   (int)adjustedCropBox.getWidth(), (int)adjustedCropBox.getHeight(), scale, scale);
     }
 
     // renders a page to the given graphics
-    private void renderPage(PDPage page, Graphics2D graphics, int width, int height, float scaleX,
-                            float scaleY) throws IOException
+    private void renderPage(PageDrawerParameters parameters, Graphics2D graphics, int width,
+                            int height, float scaleX, float scaleY) throws IOException
     {
+        PDPage page = parameters.getPage();
         graphics.clearRect(0, 0, width, height);
 
         graphics.scale(scaleX, scaleY);
@@ -203,11 +616,18 @@ public class PDFRenderer
         }
 
         // the end-user may provide a custom PageDrawer
-        PageDrawerParameters parameters = new PageDrawerParameters(this, page);
         PageDrawer drawer = createPageDrawer(parameters);
         drawer.drawPage(graphics, cropBox);
     }
 
+    /**
+     * Returns the glyph outlines shared by the pages drawn with this renderer.
+     */
+    GlyphCache getGlyphCache()
+    {
+        return glyphCache;
+    }
+
     /**
      * Returns a new PageDrawer instance, using the given parameters. May be overridden.
      */
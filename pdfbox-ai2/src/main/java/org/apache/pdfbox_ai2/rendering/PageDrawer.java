@@ -22,12 +22,15 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsDevice;
 import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.TexturePaint;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -38,16 +41,11 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox_ai2.contentstream.DisplayList;
 import org.apache.pdfbox_ai2.contentstream.PDFGraphicsStreamEngine;
 import org.apache.pdfbox_ai2.cos.COSName;
 import org.apache.pdfbox_ai2.pdmodel.common.PDRectangle;
-import org.apache.pdfbox_ai2.pdmodel.font.PDCIDFontType0;
-import org.apache.pdfbox_ai2.pdmodel.font.PDCIDFontType2;
 import org.apache.pdfbox_ai2.pdmodel.font.PDFont;
-import org.apache.pdfbox_ai2.pdmodel.font.PDTrueTypeFont;
-import org.apache.pdfbox_ai2.pdmodel.font.PDType0Font;
-import org.apache.pdfbox_ai2.pdmodel.font.PDType1CFont;
-import org.apache.pdfbox_ai2.pdmodel.font.PDType1Font;
 import org.apache.pdfbox_ai2.pdmodel.graphics.PDLineDashPattern;
 import org.apache.pdfbox_ai2.pdmodel.graphics.blend.SoftMaskPaint;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColor;
@@ -55,6 +53,8 @@ import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDColorSpace;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDPattern;
 import org.apache.pdfbox_ai2.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox_ai2.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox_ai2.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox_ai2.pdmodel.graphics.image.PDInlineImage;
 import org.apache.pdfbox_ai2.pdmodel.graphics.pattern.PDAbstractPattern;
 import org.apache.pdfbox_ai2.pdmodel.graphics.pattern.PDShadingPattern;
 import org.apache.pdfbox_ai2.pdmodel.graphics.pattern.PDTilingPattern;
@@ -80,7 +80,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
 {
     private static final Log LOG = LogFactory.getLog(PageDrawer.class);
 
-    // parent document renderer - note: this is needed for not-yet-implemented resource caching
+    // parent document renderer, holds the caches shared by all of its pages
     private final PDFRenderer renderer;
     
     // the graphics device to draw to, xform is the initial transform of the device (i.e. DPI)
@@ -100,8 +100,13 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     // buffered clipping area for text being drawn
     private Area textClippingArea;
 
-    // glyph cache
+    // fonts used on this page, the glyph outlines themselves are cached by the renderer
     private final Map<PDFont, Glyph2D> fontGlyph2D = new HashMap<PDFont, Glyph2D>();
+
+    // parsed page contents and the tile being drawn, if any
+    private final DisplayList contents;
+    private final Rectangle tile;
+    private final Point tileOrigin;
     
     /**
      * Constructor.
@@ -113,6 +118,10 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     {
         super(parameters.getPage());
         this.renderer = parameters.getRenderer();
+        this.contents = parameters.getContents();
+        this.tile = parameters.getTile();
+        this.tileOrigin = tile != null ? tile.getLocation() : null;
+        setDisplayListCache(renderer.getDisplayListCache());
     }
 
     /**
@@ -163,6 +172,12 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     {
         graphics = (Graphics2D) g;
         xform = graphics.getTransform();
+        if (tileOrigin != null)
+        {
+            // the device transform of the whole page, groups and patterns are drawn as for it
+            xform.preConcatenate(AffineTransform.getTranslateInstance(tileOrigin.x,
+                                                                      tileOrigin.y));
+        }
         this.pageSize = pageSize;
 
         setRenderingHints();
@@ -176,7 +191,7 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         // adjust for non-(0,0) crop box
         graphics.translate(-pageSize.getLowerLeftX(), -pageSize.getLowerLeftY());
 
-        processPage(getPage());
+        processPage(getPage(), contents);
 
         for (PDAnnotation annotation : getPage().getAnnotations())
         {
@@ -392,58 +407,13 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     private Glyph2D createGlyph2D(PDFont font) throws IOException
     {
         // Is there already a Glyph2D for the given font?
-        if (fontGlyph2D.containsKey(font))
-        {
-            return fontGlyph2D.get(font);
-        }
-
-        Glyph2D glyph2D = null;
-        if (font instanceof PDTrueTypeFont)
-        {
-            PDTrueTypeFont ttfFont = (PDTrueTypeFont)font;
-            glyph2D = new TTFGlyph2D(ttfFont);  // TTF is never null
-        }
-        else if (font instanceof PDType1Font)
-        {
-            PDType1Font pdType1Font = (PDType1Font)font;
-            glyph2D = new Type1Glyph2D(pdType1Font); // T1 is never null
-        }
-        else if (font instanceof PDType1CFont)
-        {
-            PDType1CFont type1CFont = (PDType1CFont)font;
-            glyph2D = new Type1Glyph2D(type1CFont);
-        }
-        else if (font instanceof PDType0Font)
-        {
-            PDType0Font type0Font = (PDType0Font) font;
-            if (type0Font.getDescendantFont() instanceof PDCIDFontType2)
-            {
-                glyph2D = new TTFGlyph2D(type0Font); // TTF is never null
-            }
-            else if (type0Font.getDescendantFont() instanceof PDCIDFontType0)
-            {
-                // a Type0 CIDFont contains CFF font
-                PDCIDFontType0 cidType0Font = (PDCIDFontType0)type0Font.getDescendantFont();
-                glyph2D = new CIDType0Glyph2D(cidType0Font); // todo: could be null (need incorporate fallback)
-            }
-        }
-        else
-        {
-            throw new IllegalStateException("Bad font type: " + font.getClass().getSimpleName());
-        }
-
-        // cache the Glyph2D instance
-        if (glyph2D != null)
-        {
-            fontGlyph2D.put(font, glyph2D);
-        }
-
+        Glyph2D glyph2D = fontGlyph2D.get(font);
         if (glyph2D == null)
         {
-            // todo: make sure this never happens
-            throw new UnsupportedOperationException("No font for " + font.getName());
+            // the outlines are shared with the other pages of the renderer
+            glyph2D = renderer.getGlyphCache().getGlyph2D(font);
+            fontGlyph2D.put(font, glyph2D);
         }
-
         return glyph2D;
     }
 
@@ -473,18 +443,26 @@ public class PageDrawer extends PDFGraphicsStreamEngine
     {
         TransparencyGroup transparencyGroup = new TransparencyGroup(softMask.getGroup(), true);
         COSName subtype = softMask.getSubType();
+        Raster raster;
         if (COSName.ALPHA.equals(subtype))
         {
-            return transparencyGroup.getAlphaRaster();
+            raster = transparencyGroup.getAlphaRaster();
         }
         else if (COSName.LUMINOSITY.equals(subtype))
         {
-            return transparencyGroup.getLuminosityRaster();
+            raster = transparencyGroup.getLuminosityRaster();
         }
         else
         {
             throw new IOException("Invalid soft mask subtype.");
         }
+        if (tileOrigin != null)
+        {
+            // the mask is looked up in device space, which starts at the tile
+            raster = raster.createTranslatedChild(transparencyGroup.getX() - tileOrigin.x,
+                                                  transparencyGroup.getY() - tileOrigin.y);
+        }
+        return raster;
     }
 
     private Paint applySoftMaskToPaint(Paint parentPaint, PDSoftMask softMask) throws IOException
@@ -765,6 +743,11 @@ public class PageDrawer extends PDFGraphicsStreamEngine
             // draw the image
             drawBufferedImage(image, at);
         }
+        else if (renderer.isSubsamplingAllowed())
+        {
+            // draw the visible part of the image at about the device resolution
+            drawSubsampledImage(pdImage, at);
+        }
         else
         {
             // draw the image
@@ -779,6 +762,77 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         }
     }
 
+    // decodes only the part of the image inside of the clip, skipping pixels where the image is
+    // drawn smaller than its size, so that it still has at least the device resolution, other
+    // implementations of PDImage than image XObjects and inline images are drawn whole
+    private void drawSubsampledImage(PDImage pdImage, AffineTransform at) throws IOException
+    {
+        int width = pdImage.getWidth();
+        int height = pdImage.getHeight();
+        boolean isSubsampled = pdImage instanceof PDImageXObject ||
+                               pdImage instanceof PDInlineImage;
+        if (width <= 0 || height <= 0 || !isSubsampled)
+        {
+            drawBufferedImage(pdImage.getImage(), at);
+            return;
+        }
+
+        // image pixels to user space, as in drawBufferedImage()
+        AffineTransform imageTransform = new AffineTransform(at);
+        imageTransform.scale(1.0 / width, -1.0 / height);
+        imageTransform.translate(0, -height);
+
+        // visible region, with a margin for interpolation
+        setClip();
+        Rectangle region = new Rectangle(0, 0, width, height);
+        Shape clip = graphics.getClip();
+        if (clip != null)
+        {
+            try
+            {
+                Rectangle visible = imageTransform.createInverse()
+                        .createTransformedShape(clip.getBounds2D()).getBounds();
+                visible.grow(2, 2);
+                region = region.intersection(visible);
+            }
+            catch (NoninvertibleTransformException e)
+            {
+                // the image has no area, there is nothing to draw
+                return;
+            }
+        }
+        if (region.isEmpty())
+        {
+            return;
+        }
+
+        // size of an image pixel on the device
+        AffineTransform deviceTransform = graphics.getTransform();
+        deviceTransform.concatenate(imageTransform);
+        double pixelWidth = Math.hypot(deviceTransform.getScaleX(), deviceTransform.getShearY());
+        double pixelHeight = Math.hypot(deviceTransform.getShearX(), deviceTransform.getScaleY());
+        double maxSubsampling = Math.max(region.width, region.height);
+        int subsampling = (int) Math.max(1, Math.min(maxSubsampling,
+                Math.floor(1 / Math.max(pixelWidth, pixelHeight))));
+
+        BufferedImage image;
+        if (pdImage instanceof PDImageXObject)
+        {
+            image = ((PDImageXObject) pdImage).getImage(region, subsampling);
+        }
+        else
+        {
+            image = ((PDInlineImage) pdImage).getImage(region, subsampling);
+        }
+
+        // map the unit square to the region instead of the whole image
+        AffineTransform regionTransform = new AffineTransform(at);
+        regionTransform.translate(region.x / (double) width,
+                                  1 - (region.y + region.height) / (double) height);
+        regionTransform.scale(region.width / (double) width, region.height / (double) height);
+        drawBufferedImage(image, regionTransform);
+    }
+
     private void drawBufferedImage(BufferedImage image, AffineTransform at) throws IOException
     {
         graphics.setComposite(getGraphicsState().getNonStrokingJavaComposite());
@@ -857,19 +911,29 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         AffineTransform prev = graphics.getTransform();
         float x = bbox.getLowerLeftX();
         float y = pageSize.getHeight() - bbox.getLowerLeftY() - bbox.getHeight();
-        graphics.setTransform(AffineTransform.getTranslateInstance(x * xform.getScaleX(),
-                                                                   y * xform.getScaleY()));
+        AffineTransform groupTransform = new AffineTransform();
+        if (tileOrigin != null)
+        {
+            groupTransform.translate(-tileOrigin.x, -tileOrigin.y);
+        }
+        groupTransform.translate(x * xform.getScaleX(), y * xform.getScaleY());
+        // the image may hold only the part of the group which is on the tile
+        groupTransform.translate(group.getX(), group.getY());
+        graphics.setTransform(groupTransform);
 
         PDSoftMask softMask = getGraphicsState().getSoftMask();
         if (softMask != null)
         {
             BufferedImage image = group.getImage();
-            Paint awtPaint = new TexturePaint(image,
-                    new Rectangle2D.Float(0, 0, image.getWidth(), image.getHeight()));
+            Rectangle2D imageRect = new Rectangle2D.Float(0, 0, image.getWidth(),
+                                                          image.getHeight());
+            Paint awtPaint = new TexturePaint(image, imageRect);
             awtPaint = applySoftMaskToPaint(awtPaint, softMask); // todo: PDFBOX-994 problem here?
             graphics.setPaint(awtPaint);
-            graphics.fill(new Rectangle2D.Float(0, 0, bbox.getWidth() * (float)xform.getScaleX(),
-                                                bbox.getHeight() * (float)xform.getScaleY()));
+            Rectangle2D bboxRect = new Rectangle2D.Float(-group.getX(), -group.getY(),
+                    bbox.getWidth() * (float)xform.getScaleX(),
+                    bbox.getHeight() * (float)xform.getScaleY());
+            graphics.fill(bboxRect.createIntersection(imageRect));
         }
         else
         {
@@ -879,6 +943,14 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         graphics.setTransform(prev);
     }
 
+    /**
+     * Creates the image for a transparency group or soft mask.
+     */
+    BufferedImage createGroupImage(int width, int height)
+    {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); // FIXME - color space
+    }
+
     /**
      * Transparency group.
      **/
@@ -887,10 +959,9 @@ public class PageDrawer extends PDFGraphicsStreamEngine
         private final BufferedImage image;
         private final PDRectangle bbox;
 
-        private final int minX;
-        private final int minY;
-        private final int width;
-        private final int height;
+        // position of the image in the whole group, in device pixels
+        private final int x;
+        private final int y;
 
         /**
          * Creates a buffered image for a transparency group result.
@@ -918,17 +989,50 @@ public class PageDrawer extends PDFGraphicsStreamEngine
             Shape deviceClip = xform.createTransformedShape(clip);
             Rectangle2D bounds = deviceClip.getBounds2D();
 
-            minX = (int) Math.floor(bounds.getMinX());
-            minY = (int) Math.floor(bounds.getMinY());
+            int minX = (int) Math.floor(bounds.getMinX());
+            int minY = (int) Math.floor(bounds.getMinY());
             int maxX = (int) Math.floor(bounds.getMaxX()) + 1;
             int maxY = (int) Math.floor(bounds.getMaxY()) + 1;
 
-            width = maxX - minX;
-            height = maxY - minY;
+            int width = maxX - minX;
+            int height = maxY - minY;
 
-            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); // FIXME - color space
+            // when drawing a tile, only render the part of the group which is on it
+            Rectangle region = new Rectangle(0, 0, width, height);
+            if (tile != null)
+            {
+                Rectangle tileRegion;
+                if (isSoftMask)
+                {
+                    // the mask is looked up at the device position of its pixels
+                    tileRegion = tile;
+                }
+                else
+                {
+                    // see showTransparencyGroup(), with a pixel more for the rounding
+                    double groupX = clipRect.getX() * xform.getScaleX();
+                    double groupY = (pageSize.getHeight() - clipRect.getMaxY()) *
+                                    xform.getScaleY();
+                    tileRegion = new Rectangle(
+                            (int) Math.floor(tile.x - groupX) - 1,
+                            (int) Math.floor(tile.y - groupY) - 1,
+                            tile.width + 3, tile.height + 3);
+                }
+                region = region.intersection(tileRegion);
+                if (region.isEmpty())
+                {
+                    region = new Rectangle(0, 0, 1, 1);
+                }
+            }
+            x = region.x;
+            y = region.y;
+
+            image = createGroupImage(region.width, region.height);
             Graphics2D g = image.createGraphics();
 
+            // move the region to the origin of the image
+            g.translate(-x, -y);
+
             // flip y-axis
             g.translate(0, height);
             g.scale(1, -1);
@@ -974,9 +1078,20 @@ public class PageDrawer extends PDFGraphicsStreamEngine
             return image.getAlphaRaster();
         }
 
+        public int getX()
+        {
+            return x;
+        }
+
+        public int getY()
+        {
+            return y;
+        }
+
         public Raster getLuminosityRaster()
         {
-            BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+            BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(),
+                                                   BufferedImage.TYPE_BYTE_GRAY);
             Graphics g = gray.getGraphics();
             g.drawImage(image, 0, 0, null);
             g.dispose();
@@ -17,6 +17,8 @@
 
 package org.apache.pdfbox_ai2.rendering;
 
+import java.awt.Rectangle;
+import org.apache.pdfbox_ai2.contentstream.DisplayList;
 import org.apache.pdfbox_ai2.pdmodel.PDPage;
 
 /**
@@ -30,14 +32,27 @@ public final class PageDrawerParameters
 {
     private final PDFRenderer renderer;
     private final PDPage page;
+    private final DisplayList contents;
+    private final Rectangle tile;
 
     /**
      * Package-private constructor.
      */
     PageDrawerParameters(PDFRenderer renderer, PDPage page)
+    {
+        this(renderer, page, null, null);
+    }
+
+    /**
+     * Package-private constructor for drawing one tile of a page.
+     */
+    PageDrawerParameters(PDFRenderer renderer, PDPage page, DisplayList contents,
+                         Rectangle tile)
     {
         this.renderer = renderer;
         this.page = page;
+        this.contents = contents;
+        this.tile = tile;
     }
 
     /**
@@ -55,4 +70,21 @@ public final class PageDrawerParameters
     {
         return renderer;
     }
+
+    /**
+     * Returns the parsed page contents, or null if the page is to be parsed.
+     */
+    DisplayList getContents()
+    {
+        return contents;
+    }
+
+    /**
+     * Returns the tile being drawn in the page image, or null if the whole page is drawn. The
+     * device is translated by minus the position of the tile.
+     */
+    Rectangle getTile()
+    {
+        return tile;
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.rendering;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Receives the tiles of a page produced by {@link PDFRenderer#renderImageTiles}. Tiles are
+ * delivered row by row, left to right, and on the thread which called
+ * <code>renderImageTiles</code>, so implementations need not be thread safe.
+ */
+public interface PageTileHandler
+{
+    /**
+     * Called before the first tile of the page.
+     *
+     * @param pageIndex the zero-based index of the page
+     * @param width the width of the whole page image
+     * @param height the height of the whole page image
+     * @throws IOException if the page could not be started, this stops rendering
+     */
+    void startPage(int pageIndex, int width, int height) throws IOException;
+
+    /**
+     * Called once for each rendered tile. Tiles at the right and bottom edges of the page may be
+     * smaller than the requested tile size.
+     *
+     * @param pageIndex the zero-based index of the page
+     * @param x the position of the tile's left edge in the page image
+     * @param y the position of the tile's top edge in the page image
+     * @param tile the rendered tile
+     * @throws IOException if the tile could not be processed, this stops rendering
+     */
+    void handleTile(int pageIndex, int x, int y, BufferedImage tile) throws IOException;
+
+    /**
+     * Called after the last tile of the page.
+     *
+     * @param pageIndex the zero-based index of the page
+     * @throws IOException if the page could not be finished
+     */
+    void endPage(int pageIndex) throws IOException;
+}
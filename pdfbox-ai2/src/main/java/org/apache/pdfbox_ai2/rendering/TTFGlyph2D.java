@@ -21,8 +21,6 @@ package org.apache.pdfbox_ai2.rendering;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.fontbox_ai2.ttf.HeaderTable;
@@ -45,17 +43,18 @@ final class TTFGlyph2D implements Glyph2D
     private PDVectorFont vectorFont;
     private float scale = 1.0f;
     private boolean hasScaling;
-    private final Map<Integer, GeneralPath> glyphs = new HashMap<Integer, GeneralPath>();
+    private final GlyphCache.PathTable glyphs;
     private final boolean isCIDFont;
 
     /**
      * Constructor.
      *
      * @param ttfFont TrueType font
+     * @param glyphs table for the glyph outlines, keyed by GID
      */
-    TTFGlyph2D(PDTrueTypeFont ttfFont) throws IOException
+    TTFGlyph2D(PDTrueTypeFont ttfFont, GlyphCache.PathTable glyphs) throws IOException
     {
-        this(ttfFont.getTrueTypeFont(), ttfFont, false);
+        this(ttfFont.getTrueTypeFont(), ttfFont, false, glyphs);
         vectorFont = ttfFont;
     }
 
@@ -63,16 +62,20 @@ final class TTFGlyph2D implements Glyph2D
      * Constructor.
      *
      * @param type0Font Type0 font, with CIDFontType2 descendant
+     * @param glyphs table for the glyph outlines, keyed by GID
      */
-    TTFGlyph2D(PDType0Font type0Font) throws IOException
+    TTFGlyph2D(PDType0Font type0Font, GlyphCache.PathTable glyphs) throws IOException
     {
-        this(((PDCIDFontType2)type0Font.getDescendantFont()).getTrueTypeFont(), type0Font, true);
+        this(((PDCIDFontType2)type0Font.getDescendantFont()).getTrueTypeFont(), type0Font, true,
+             glyphs);
         vectorFont = type0Font;
     }
 
-    private TTFGlyph2D(TrueTypeFont ttf, PDFont font, boolean isCIDFont) throws IOException
+    private TTFGlyph2D(TrueTypeFont ttf, PDFont font, boolean isCIDFont,
+                       GlyphCache.PathTable glyphs) throws IOException
     {
         this.font = font;
+        this.glyphs = glyphs;
         this.ttf = ttf;
         this.isCIDFont = isCIDFont;
         // get units per em, which is used as scaling factor
@@ -107,7 +110,8 @@ final class TTFGlyph2D implements Glyph2D
     }
 
     /**
-     * Returns the path describing the glyph for the given glyphId.
+     * Returns the path describing the glyph for the given glyphId. The path is shared and must
+     * not be modified.
      *
      * @param gid the GID
      * @param code the character code
@@ -116,12 +120,8 @@ final class TTFGlyph2D implements Glyph2D
      */
     public GeneralPath getPathForGID(int gid, int code) throws IOException
     {
-        GeneralPath glyphPath;
-        if (glyphs.containsKey(gid))
-        {
-            glyphPath = glyphs.get(gid);
-        }
-        else
+        GeneralPath glyphPath = glyphs.get(gid);
+        if (glyphPath == null)
         {
             if (gid == 0 || gid >= ttf.getMaximumProfile().getNumGlyphs())
             {
@@ -150,25 +150,25 @@ final class TTFGlyph2D implements Glyph2D
             {
                 // empty glyph (e.g. space, newline)
                 glyphPath = new GeneralPath();
-                glyphs.put(gid, glyphPath);
+            }
+            else if (hasScaling)
+            {
+                // scale a copy, the font may hand out its own cached path
+                glyphPath = new GeneralPath(glyph);
+                glyphPath.transform(AffineTransform.getScaleInstance(scale, scale));
             }
             else
             {
                 glyphPath = glyph;
-                if (hasScaling)
-                {
-                    AffineTransform atScale = AffineTransform.getScaleInstance(scale, scale);
-                    glyphPath.transform(atScale);
-                }
-                glyphs.put(gid, glyphPath);
             }
+            glyphs.put(gid, glyphPath);
         }
-        return glyphPath != null ? (GeneralPath) glyphPath.clone() : null; // todo: expensive
+        return glyphPath;
     }
 
     @Override
     public void dispose()
     {
-        glyphs.clear();
+        glyphs.dispose();
     }
 }
@@ -18,8 +18,6 @@ package org.apache.pdfbox_ai2.rendering;
 
 import java.awt.geom.GeneralPath;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox_ai2.pdmodel.font.PDSimpleFont;
@@ -31,26 +29,29 @@ final class Type1Glyph2D implements Glyph2D
 {
     private static final Log LOG = LogFactory.getLog(Type1Glyph2D.class);
 
-    private final Map<Integer, GeneralPath> cache = new HashMap<Integer, GeneralPath>();
+    private final GlyphCache.PathTable cache;
     private final PDSimpleFont font;
 
     /**
      * Constructor.
      *
      * @param font PDF Type1 font.
+     * @param cache table for the glyph outlines, keyed by character code
      */
-    Type1Glyph2D(PDSimpleFont font)
+    Type1Glyph2D(PDSimpleFont font, GlyphCache.PathTable cache)
     {
         this.font = font;
+        this.cache = cache;
     }
 
     @Override
     public GeneralPath getPathForCharacterCode(int code)
     {
         // cache
-        if (cache.containsKey(code))
+        GeneralPath cached = cache.get(code);
+        if (cached != null)
         {
-            return cache.get(code);
+            return cached;
         }
 
         // fetch
@@ -83,6 +84,6 @@ final class Type1Glyph2D implements Glyph2D
     @Override
     public void dispose()
     {
-        cache.clear();
+        cache.dispose();
     }
 }
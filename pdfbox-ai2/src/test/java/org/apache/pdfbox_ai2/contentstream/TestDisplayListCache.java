@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.contentstream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.pdfbox_ai2.contentstream.operator.Operator;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSBase;
+import org.apache.pdfbox_ai2.cos.COSFloat;
+import org.apache.pdfbox_ai2.cos.COSInteger;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.pdfparser.PDFStreamParser;
+import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+import org.apache.pdfbox_ai2.pdmodel.PDPage;
+import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
+import org.apache.pdfbox_ai2.util.Charsets;
+import org.junit.Test;
+
+/**
+ * Test for {@link DisplayList} and {@link DisplayListCache}.
+ */
+public class TestDisplayListCache
+{
+    private static final String CONTENTS = "q 1 0 0 1 72.5 -3 cm 0.25 g 10 20 30 40 re f " +
+            "BT /F1 12 Tf (Hello) Tj [(W) -120.5 (orld)] TJ ET 9007199254740993 0 m Q";
+
+    private static PDPage createPage(PDDocument document, String contents) throws IOException
+    {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        page.setContents(createStream(document, contents));
+        return page;
+    }
+
+    private static PDStream createStream(PDDocument document, String contents) throws IOException
+    {
+        return new PDStream(document,
+                new ByteArrayInputStream(contents.getBytes(Charsets.US_ASCII)));
+    }
+
+    @Test
+    public void testReplay() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDPage page = createPage(document, CONTENTS);
+
+        // the display list must give the same operators and operands as the parser
+        List<Operator> operators = new ArrayList<Operator>();
+        List<List<COSBase>> operands = new ArrayList<List<COSBase>>();
+        List<COSBase> arguments = new ArrayList<COSBase>();
+        PDFStreamParser parser = new PDFStreamParser(page);
+        for (Object token = parser.parseNextToken(); token != null;
+             token = parser.parseNextToken())
+        {
+            if (token instanceof Operator)
+            {
+                operators.add((Operator) token);
+                operands.add(arguments);
+                arguments = new ArrayList<COSBase>();
+            }
+            else
+            {
+                arguments.add((COSBase) token);
+            }
+        }
+
+        DisplayList displayList = DisplayList.parse(page);
+        assertEquals(operators.size(), displayList.getOperatorCount());
+        for (int i = 0; i < operators.size(); i++)
+        {
+            assertEquals(operators.get(i).getName(), displayList.getOperator(i).getName());
+            List<COSBase> expected = operands.get(i);
+            List<COSBase> actual = displayList.getOperands(i);
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++)
+            {
+                COSBase operand = expected.get(j);
+                if (operand instanceof COSFloat)
+                {
+                    assertEquals(((COSFloat) operand).doubleValue(),
+                                 ((COSFloat) actual.get(j)).doubleValue(), 0);
+                    assertEquals(((COSFloat) operand).floatValue(),
+                                 ((COSFloat) actual.get(j)).floatValue(), 0);
+                }
+                else if (operand instanceof COSInteger)
+                {
+                    assertEquals(((COSInteger) operand).longValue(),
+                                 ((COSInteger) actual.get(j)).longValue());
+                }
+                else
+                {
+                    assertEquals(operand.toString(), actual.get(j).toString());
+                }
+            }
+        }
+        document.close();
+    }
+
+    @Test
+    public void testCache() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDPage page = createPage(document, CONTENTS);
+
+        DisplayListCache cache = new DisplayListCache();
+        DisplayList displayList = cache.getDisplayList(page);
+        assertSame(displayList, cache.getDisplayList(page));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(displayList.getSize(), cache.getSize());
+
+        // edited pages are parsed again
+        PDStream original = new PDStream((COSStream) page.getCOSObject()
+                .getDictionaryObject(COSName.CONTENTS));
+        page.setContents(Arrays.asList(original, createStream(document, "0 0 m 10 10 l S\n")));
+        DisplayList edited = cache.getDisplayList(page);
+        assertNotSame(displayList, edited);
+        assertEquals(displayList.getOperatorCount() + 3, edited.getOperatorCount());
+        assertEquals(edited.getSize(), cache.getSize());
+
+        // as are pages whose streams were rewritten in place with the same length
+        COSStream added = (COSStream) ((COSArray) page.getCOSObject()
+                .getDictionaryObject(COSName.CONTENTS)).getObject(1);
+        long length = added.getLength();
+        OutputStream out = added.createOutputStream();
+        out.write("0 0 m 20 20 l S\n".getBytes(Charsets.US_ASCII));
+        out.close();
+        assertEquals(length, added.getLength());
+        DisplayList rewritten = cache.getDisplayList(page);
+        assertNotSame(edited, rewritten);
+        int last = rewritten.getOperatorCount() - 2;
+        assertEquals("l", rewritten.getOperator(last).getName());
+        assertEquals(20, ((COSInteger) rewritten.getOperands(last).get(0)).intValue());
+        assertSame(rewritten, cache.getDisplayList(page));
+
+        document.close();
+    }
+
+    @Test
+    public void testEviction() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDPage page1 = createPage(document, CONTENTS);
+        PDPage page2 = createPage(document, CONTENTS);
+        PDPage page3 = createPage(document, CONTENTS);
+        long size = DisplayList.parse(page1).getSize();
+
+        // room for two display lists
+        DisplayListCache cache = new DisplayListCache(size * 2);
+        cache.getDisplayList(page1);
+        cache.getDisplayList(page2);
+        cache.getDisplayList(page1);
+        cache.getDisplayList(page3);
+        assertEquals(size * 2, cache.getSize());
+
+        // page 2 was the least recently used one
+        cache.getDisplayList(page1);
+        cache.getDisplayList(page3);
+        assertEquals(3, cache.getHitCount());
+        cache.getDisplayList(page2);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertTrue(cache.getSize() <= size * 2);
+
+        document.close();
+    }
+}
@@ -300,6 +300,36 @@ public class TestCOSFloat extends TestCOSNumber
         writePDFTester.runTest(0.000000000000000000000000000000001f);
     }
 
+    /**
+     * Tests the string constructor, the parsed value must match the one of a BigDecimal and the
+     * original representation must be kept.
+     */
+    public void testStringConstructor() throws IOException
+    {
+        String[] values = { "0.5", "-.25", "+12.75", "1.", "-0.0", "0.000000000001",
+                "123456.789", "3.14159265358979323846", "1234567890123456789.5", "1E3",
+                "-2.5e-4", "0.1000" };
+        for (String value : values)
+        {
+            COSFloat cosFloat = new COSFloat(value);
+            BigDecimal expected = new BigDecimal(value);
+            assertEquals(value, expected.floatValue(), cosFloat.floatValue(), 0);
+            assertEquals(value, expected.doubleValue(), cosFloat.doubleValue(), 0);
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            cosFloat.writePDF(outStream);
+            assertEquals(value, outStream.toString("ISO-8859-1"));
+        }
+        try
+        {
+            new COSFloat("0.-262");
+            fail("IOException expected");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+    }
+
     private String floatToString(float value)
     {
         // use a BigDecimal as intermediate state to avoid 
@@ -22,11 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
 
 import junit.framework.TestCase;
 
 import org.apache.pdfbox_ai2.cos.COSDictionary;
 import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.io.IOUtils;
 
 /**
  * This will test all of the filters in the PDFBox system.
@@ -150,5 +152,51 @@ public class TestFilters extends TestCase
                 "Data that is encoded and then decoded through "
                 + filter.getClass() + " does not match the original data",
                 Arrays.equals(original, decoded.toByteArray()));
+
+        InputStream decodeStream = filter.decodeStream(
+                new ByteArrayInputStream(encoded.toByteArray()), new COSDictionary(), 0);
+        if (decodeStream != null)
+        {
+            assertTrue(
+                    "Data that is encoded and then decoded incrementally through "
+                    + filter.getClass() + " does not match the original data",
+                    Arrays.equals(original, IOUtils.toByteArray(decodeStream)));
+        }
+    }
+
+    /**
+     * This will test that the run-length and the predictor streams decode the same data as the
+     * filters themselves.
+     *
+     * @throws IOException 
+     */
+    public void testDecodeStream() throws IOException
+    {
+        // 2 literal bytes, 5 times 'x', 1 literal byte, EOD
+        byte[] runLength = { 1, 'a', 'b', (byte) 252, 'x', 0, 'c', (byte) 128, 'z' };
+        Filter filter = FilterFactory.INSTANCE.getFilter(COSName.RUN_LENGTH_DECODE);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        filter.decode(new ByteArrayInputStream(runLength), decoded, new COSDictionary(), 0);
+        assertEquals("abxxxxxc", new String(decoded.toByteArray(), "US-ASCII"));
+        InputStream decodeStream = filter.decodeStream(new ByteArrayInputStream(runLength),
+                new COSDictionary(), 0);
+        assertEquals("abxxxxxc", new String(IOUtils.toByteArray(decodeStream), "US-ASCII"));
+
+        // two rows of 3 bytes with PNG predictors "Sub" and "Up"
+        byte[] predicted = { 1, 10, 1, 1, 2, 5, 5, 5 };
+        COSDictionary decodeParms = new COSDictionary();
+        decodeParms.setInt(COSName.PREDICTOR, 15);
+        decodeParms.setInt(COSName.COLUMNS, 3);
+        COSDictionary parameters = new COSDictionary();
+        parameters.setItem(COSName.DECODE_PARMS, decodeParms);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(compressed);
+        deflater.write(predicted);
+        deflater.close();
+        filter = FilterFactory.INSTANCE.getFilter(COSName.FLATE_DECODE);
+        decodeStream = filter.decodeStream(new ByteArrayInputStream(compressed.toByteArray()),
+                parameters, 0);
+        assertTrue(Arrays.equals(new byte[] { 10, 11, 12, 15, 16, 17 },
+                IOUtils.toByteArray(decodeStream)));
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * This is a unit test for {@link RandomAccessMappedFile}.
+ */
+public class TestRandomAccessMappedFile extends TestCase
+{
+    // use tiny segments to test reads across segment boundaries
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private File createFile(int length) throws IOException
+    {
+        File file = File.createTempFile("pdfbox", ".bin");
+        file.deleteOnExit();
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = (byte) i;
+        }
+        FileOutputStream fos = new FileOutputStream(file);
+        try
+        {
+            fos.write(data);
+        }
+        finally
+        {
+            fos.close();
+        }
+        return file;
+    }
+
+    /**
+     * Test single byte reads, peek, rewind and seek across segment boundaries.
+     * 
+     * @throws IOException
+     */
+    public void testReadPeekRewind() throws IOException
+    {
+        int length = 3 * SEGMENT_SIZE + 10;
+        RandomAccessMappedFile raf = new RandomAccessMappedFile(createFile(length), SEGMENT_SHIFT);
+        assertEquals(length, raf.length());
+        raf.seek(SEGMENT_SIZE - 1);
+        assertEquals((SEGMENT_SIZE - 1) & 0xff, raf.peek());
+        assertEquals((SEGMENT_SIZE - 1) & 0xff, raf.read());
+        assertEquals(SEGMENT_SIZE & 0xff, raf.read());
+        raf.rewind(2);
+        assertEquals(SEGMENT_SIZE - 1, raf.getPosition());
+        assertEquals((SEGMENT_SIZE - 1) & 0xff, raf.read());
+        raf.seek(length - 1);
+        assertFalse(raf.isEOF());
+        assertEquals((length - 1) & 0xff, raf.read());
+        assertTrue(raf.isEOF());
+        assertEquals(-1, raf.peek());
+        assertEquals(-1, raf.read());
+        assertEquals(0, raf.available());
+        raf.close();
+        assertTrue(raf.isClosed());
+        try
+        {
+            raf.read();
+            fail("IOException expected");
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Test bulk reads spanning several segments.
+     * 
+     * @throws IOException
+     */
+    public void testReadArray() throws IOException
+    {
+        int length = 3 * SEGMENT_SIZE + 10;
+        RandomAccessMappedFile raf = new RandomAccessMappedFile(createFile(length), SEGMENT_SHIFT);
+        raf.seek(100);
+        byte[] b = new byte[2 * SEGMENT_SIZE + 50];
+        assertEquals(b.length, raf.read(b, 0, b.length));
+        for (int i = 0; i < b.length; i++)
+        {
+            assertEquals((byte) (100 + i), b[i]);
+        }
+        assertEquals(100 + b.length, raf.getPosition());
+
+        byte[] rest = new byte[length];
+        int remaining = length - 100 - b.length;
+        assertEquals(remaining, raf.read(rest, 5, rest.length - 5));
+        assertEquals((byte) (100 + b.length), rest[5]);
+        assertEquals(-1, raf.read(rest, 0, 1));
+
+        raf.seek(0);
+        byte[] all = raf.readFully(length);
+        assertEquals((byte) (length - 1), all[length - 1]);
+        raf.close();
+    }
+
+    /**
+     * Test that views share the data but have their own position.
+     * 
+     * @throws IOException
+     */
+    public void testCreateView() throws IOException
+    {
+        RandomAccessMappedFile raf = new RandomAccessMappedFile(createFile(2 * SEGMENT_SIZE),
+                SEGMENT_SHIFT);
+        raf.seek(SEGMENT_SIZE + 1);
+        RandomAccessMappedFile view = raf.createView();
+        assertEquals(0, view.getPosition());
+        assertEquals(0, view.read());
+        assertEquals((SEGMENT_SIZE + 1) & 0xff, raf.read());
+        view.close();
+        assertFalse(raf.isClosed());
+        assertEquals((SEGMENT_SIZE + 2) & 0xff, raf.read());
+        raf.close();
+    }
+
+    /**
+     * Test an empty file.
+     * 
+     * @throws IOException
+     */
+    public void testEmptyFile() throws IOException
+    {
+        RandomAccessMappedFile raf = new RandomAccessMappedFile(createFile(0));
+        assertEquals(0, raf.length());
+        assertTrue(raf.isEOF());
+        assertEquals(-1, raf.read());
+        assertEquals(-1, raf.read(new byte[1]));
+        assertEquals(0, raf.readFully(0).length);
+        raf.close();
+    }
+}
@@ -18,7 +18,13 @@ package org.apache.pdfbox_ai2.multipdf;
 import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.io.IOUtils;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.PDPage;
 import org.apache.pdfbox_ai2.pdmodel.PDPageContentStream;
@@ -96,4 +102,36 @@ public class PDFCloneUtilityTest extends TestCase
         PDDocument.load(new File(TESTDIR + CLONEDST)).close();
         PDDocument.load(new File(TESTDIR + CLONEDST), (String)null).close();
     }
+
+    /**
+     * Streams are cloned with their encoded data, which isn't decoded, so that even streams
+     * which can't be decoded are cloned unchanged.
+     * 
+     * @throws IOException 
+     */
+    public void testCloneRawStream() throws IOException
+    {
+        PDDocument srcDoc = new PDDocument();
+        PDDocument dstDoc = new PDDocument();
+        COSStream stream = srcDoc.getDocument().createCOSStream();
+        stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 31);
+        }
+        OutputStream output = stream.createRawOutputStream();
+        output.write(data);
+        output.close();
+
+        COSStream clone = (COSStream) new PDFCloneUtility(dstDoc).cloneForNewDocument(stream);
+        assertNotSame(stream, clone);
+        assertEquals(COSName.FLATE_DECODE, clone.getFilters());
+        assertEquals(data.length, clone.getLength());
+        InputStream input = clone.createRawInputStream();
+        assertTrue(Arrays.equals(data, IOUtils.toByteArray(input)));
+        input.close();
+        srcDoc.close();
+        dstDoc.close();
+    }
 }
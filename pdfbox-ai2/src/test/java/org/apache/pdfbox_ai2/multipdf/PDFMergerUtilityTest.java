@@ -18,6 +18,9 @@ package org.apache.pdfbox_ai2.multipdf;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import junit.framework.TestCase;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.rendering.PDFRenderer;
@@ -85,10 +88,65 @@ public class PDFMergerUtilityTest extends TestCase
                 true);
     }
 
+    /**
+     * Tests whether the merge in streaming mode, which writes the objects of each source before
+     * the next one is loaded, renders the same as the source files.
+     *
+     * @throws IOException if something goes wrong.
+     */
+    public void testPDFMergerUtilityStreaming() throws IOException
+    {
+        checkMergeIdentical("PDFBox.GlobalResourceMergeTest.Doc01.pdf",
+                "PDFBox.GlobalResourceMergeTest.Doc02.pdf",
+                "GlobalResourceMergeTestResultStreaming.pdf",
+                false, true, null);
+
+        // once again, with scratch file
+        checkMergeIdentical("PDFBox.GlobalResourceMergeTest.Doc01.decoded.pdf",
+                "PDFBox.GlobalResourceMergeTest.Doc02.decoded.pdf",
+                "GlobalResourceMergeTestResultStreaming2.pdf",
+                true, true, null);
+    }
+
+    /**
+     * Tests whether the merge with the sources loaded and cloned concurrently renders the same as
+     * the source files, in the order of the sources.
+     *
+     * @throws IOException if something goes wrong.
+     */
+    public void testPDFMergerUtilityParallel() throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            checkMergeIdentical("PDFBox.GlobalResourceMergeTest.Doc01.pdf",
+                    "PDFBox.GlobalResourceMergeTest.Doc02.pdf",
+                    "GlobalResourceMergeTestResultParallel.pdf",
+                    false, false, executor);
+
+            // once again, with scratch file and in streaming mode
+            checkMergeIdentical("PDFBox.GlobalResourceMergeTest.Doc02.decoded.pdf",
+                    "PDFBox.GlobalResourceMergeTest.Doc01.decoded.pdf",
+                    "GlobalResourceMergeTestResultParallel2.pdf",
+                    true, true, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkMergeIdentical(String filename1, String filename2, String mergeFilename, 
+            boolean useScratchFiles)
+            throws IOException
+    {
+        checkMergeIdentical(filename1, filename2, mergeFilename, useScratchFiles, false, null);
+    }
+
     // checks that the result file of a merge has the same rendering as the two
     // source files
     private void checkMergeIdentical(String filename1, String filename2, String mergeFilename, 
-            boolean useScratchFiles)
+            boolean useScratchFiles, boolean streaming, Executor executor)
             throws IOException
     {
         PDDocument srcDoc1 = PDDocument.load(new File(SRCDIR, filename1), (String)null);
@@ -115,7 +173,8 @@ public class PDFMergerUtilityTest extends TestCase
         pdfMergerUtility.addSource(new File(SRCDIR, filename1));
         pdfMergerUtility.addSource(new File(SRCDIR, filename2));
         pdfMergerUtility.setDestinationFileName(TARGETTESTDIR + mergeFilename);
-        pdfMergerUtility.mergeDocuments(useScratchFiles);
+        pdfMergerUtility.setStreaming(streaming);
+        pdfMergerUtility.mergeDocuments(useScratchFiles, executor);
 
         PDDocument mergedDoc
                 = PDDocument.load(new File(TARGETTESTDIR, mergeFilename), (String)null);
@@ -22,7 +22,9 @@
 package org.apache.pdfbox_ai2.pdfparser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -30,8 +32,13 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 
 import org.apache.pdfbox_ai2.cos.COSDocument;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSObject;
 import org.apache.pdfbox_ai2.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox_ai2.io.RandomAccessMappedFile;
 import org.apache.pdfbox_ai2.io.RandomAccessRead;
+import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+import org.apache.pdfbox_ai2.text.PDFTextStripper;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -104,6 +111,47 @@ public class TestPDFParser
         executeParserTest(new RandomAccessBufferedFileInputStream(new FileInputStream(PATH_OF_PDF)), true);
     }
 
+    @Test
+    public void testPDFParserMappedFile() throws IOException
+    {
+        executeParserTest(new RandomAccessMappedFile(new File(PATH_OF_PDF)), false);
+    }
+
+    @Test
+    public void testPDFParserLazyLoading() throws IOException
+    {
+        String expectedText;
+        PDDocument eagerDoc = PDDocument.load(new File(PATH_OF_PDF));
+        try
+        {
+            expectedText = new PDFTextStripper().getText(eagerDoc);
+        }
+        finally
+        {
+            eagerDoc.close();
+        }
+
+        RandomAccessRead source = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        PDFParser pdfParser = new PDFParser(source);
+        pdfParser.setLazyLoading(true);
+        pdfParser.parse();
+        PDDocument lazyDoc = pdfParser.getPDDocument();
+        try
+        {
+            // only the trailer values and the catalog are parsed
+            COSObject pages = (COSObject) lazyDoc.getDocumentCatalog().getCOSObject()
+                    .getItem(COSName.PAGES);
+            assertTrue(pages.isObjectNull());
+
+            assertEquals(expectedText, new PDFTextStripper().getText(lazyDoc));
+            assertFalse(pages.isObjectNull());
+        }
+        finally
+        {
+            lazyDoc.close();
+        }
+    }
+
     private void executeParserTest(RandomAccessRead source, boolean useScratchFile) throws IOException
     {
         PDFParser pdfParser = new PDFParser(source, useScratchFile);
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSObject;
+import org.apache.pdfbox_ai2.pdmodel.BoundedResourceCache.EvictionPolicy;
+import org.apache.pdfbox_ai2.pdmodel.BoundedResourceCache.ResourceType;
+import org.apache.pdfbox_ai2.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.junit.Test;
+
+/**
+ * Test for {@link BoundedResourceCache}.
+ */
+public class TestBoundedResourceCache
+{
+    private static COSObject createIndirect() throws IOException
+    {
+        return new COSObject(new COSDictionary());
+    }
+
+    @Test
+    public void testLRUEviction() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache(EvictionPolicy.LRU);
+        cache.setMaximumWeight(ResourceType.EXT_G_STATE, 2);
+        COSObject key1 = createIndirect();
+        COSObject key2 = createIndirect();
+        COSObject key3 = createIndirect();
+        PDExtendedGraphicsState gs1 = new PDExtendedGraphicsState();
+        cache.put(key1, gs1);
+        cache.put(key2, new PDExtendedGraphicsState());
+        // key1 becomes the most recently used entry
+        assertSame(gs1, cache.getExtGState(key1));
+        cache.put(key3, new PDExtendedGraphicsState());
+
+        assertNull(cache.getExtGState(key2));
+        assertSame(gs1, cache.getExtGState(key1));
+        assertEquals(2, cache.getSize(ResourceType.EXT_G_STATE));
+        assertEquals(2, cache.getWeight(ResourceType.EXT_G_STATE));
+        assertEquals(2, cache.getHitCount(ResourceType.EXT_G_STATE));
+        assertEquals(1, cache.getMissCount(ResourceType.EXT_G_STATE));
+        assertEquals(1, cache.getEvictionCount(ResourceType.EXT_G_STATE));
+        // other types are not affected
+        assertEquals(0, cache.getSize(ResourceType.FONT));
+    }
+
+    @Test
+    public void testLFUEviction() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache(EvictionPolicy.LFU);
+        cache.setMaximumWeight(ResourceType.EXT_G_STATE, 2);
+        COSObject key1 = createIndirect();
+        COSObject key2 = createIndirect();
+        COSObject key3 = createIndirect();
+        PDExtendedGraphicsState gs1 = new PDExtendedGraphicsState();
+        PDExtendedGraphicsState gs3 = new PDExtendedGraphicsState();
+        cache.put(key1, gs1);
+        cache.put(key2, new PDExtendedGraphicsState());
+        cache.getExtGState(key1);
+        cache.getExtGState(key1);
+        // key2 is the most recently used, but the least frequently used entry
+        cache.getExtGState(key2);
+        cache.put(key3, gs3);
+
+        assertNull(cache.getExtGState(key2));
+        assertSame(gs1, cache.getExtGState(key1));
+        assertSame(gs3, cache.getExtGState(key3));
+        assertEquals(1, cache.getEvictionCount(ResourceType.EXT_G_STATE));
+    }
+
+    @Test
+    public void testMaximumWeight() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache();
+        for (int i = 0; i < 10; i++)
+        {
+            cache.put(createIndirect(), new PDExtendedGraphicsState());
+        }
+        assertEquals(10, cache.getSize(ResourceType.EXT_G_STATE));
+        cache.setMaximumWeight(ResourceType.EXT_G_STATE, 4);
+        assertEquals(4, cache.getSize(ResourceType.EXT_G_STATE));
+        assertEquals(6, cache.getEvictionCount(ResourceType.EXT_G_STATE));
+
+        // a limit of 0 disables caching
+        cache.setMaximumWeight(ResourceType.EXT_G_STATE, 0);
+        COSObject key = createIndirect();
+        cache.put(key, new PDExtendedGraphicsState());
+        assertNull(cache.getExtGState(key));
+        assertEquals(0, cache.getWeight(ResourceType.EXT_G_STATE));
+    }
+}
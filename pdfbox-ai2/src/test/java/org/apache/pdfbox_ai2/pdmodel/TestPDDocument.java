@@ -25,6 +25,8 @@ import java.io.InputStream;
 import java.util.Arrays;
 
 import org.apache.pdfbox_ai2.io.IOUtils;
+import org.apache.pdfbox_ai2.pdfwriter.WriteOptions;
+import org.apache.pdfbox_ai2.text.PDFTextStripper;
 
 import junit.framework.TestCase;
 
@@ -70,6 +72,49 @@ public class TestPDDocument extends TestCase
         loadDoc.close();
     }
 
+    /**
+     * Test saving with object streams and a cross-reference stream.
+     * @throws IOException if something went wrong
+     */
+    public void testSaveLoadCompressed() throws IOException
+    {
+        // Create PDF with some blank pages
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < 5; i++)
+        {
+            document.addPage(new PDPage());
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos, WriteOptions.compressed(2));
+        document.close();
+
+        byte[] pdf = baos.toByteArray();
+        assertEquals("%PDF-1.5", new String(Arrays.copyOfRange(pdf, 0, 8), "UTF-8"));
+        String pdfString = new String(pdf, "ISO-8859-1");
+        assertTrue(pdfString.contains("/ObjStm"));
+        assertTrue(pdfString.contains("/XRef"));
+        assertFalse(pdfString.contains("\nxref"));
+
+        PDDocument loadDoc = PDDocument.load(new ByteArrayInputStream(pdf));
+        assertEquals(5, loadDoc.getNumberOfPages());
+        loadDoc.close();
+
+        // a real world file must shrink and keep its content
+        document = PDDocument.load(new File("src/test/resources/input/yaddatest.pdf"));
+        String expectedText = new PDFTextStripper().getText(document);
+        baos = new ByteArrayOutputStream();
+        document.save(baos);
+        int uncompressedLength = baos.size();
+        baos = new ByteArrayOutputStream();
+        document.save(baos, WriteOptions.compressed());
+        document.close();
+        assertTrue(baos.size() < uncompressedLength);
+
+        loadDoc = PDDocument.load(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(expectedText, new PDFTextStripper().getText(loadDoc));
+        loadDoc.close();
+    }
+
     /**
      * Test document save/load using a file.
      * @throws IOException if something went wrong
@@ -83,4 +83,37 @@ public class TestPDPageTree
         doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("with_outline.pdf"));
         assertEquals(-1, doc.getPages().indexOf(new PDPage()));
     }
+
+    @Test
+    public void indexAfterModification() throws IOException
+    {
+        doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("page_tree_multiple_levels.pdf"));
+        PDPageTree pages = doc.getPages();
+        int count = pages.getCount();
+        PDPage first = pages.get(0);
+        PDPage last = pages.get(count - 1);
+        assertEquals(count - 1, pages.indexOf(last));
+
+        PDPage added = new PDPage();
+        pages.add(added);
+        assertEquals(count, pages.indexOf(added));
+        assertEquals(added.getCOSObject(), pages.get(count).getCOSObject());
+
+        PDPage inserted = new PDPage();
+        pages.insertBefore(inserted, first);
+        assertEquals(0, pages.indexOf(inserted));
+        assertEquals(1, pages.indexOf(first));
+        assertEquals(count + 1, pages.indexOf(added));
+
+        PDPage insertedAfter = new PDPage();
+        pages.insertAfter(insertedAfter, first);
+        assertEquals(2, pages.indexOf(insertedAfter));
+        assertEquals(count + 3, pages.getCount());
+
+        pages.remove(0);
+        assertEquals(-1, pages.indexOf(inserted));
+        assertEquals(0, pages.indexOf(first));
+        assertEquals(insertedAfter.getCOSObject(), pages.get(1).getCOSObject());
+        assertEquals(count + 1, pages.indexOf(added));
+    }
 }
@@ -99,4 +99,44 @@ public class TestPDFunctionType4 extends TestCase
         assertEquals(-0.7f, output[0], 0.0001f);
     }
 
+    /**
+     * Checks a {@link PDFunctionType4} with conditionals, as used by tint transforms.
+     * @throws Exception if an error occurs
+     */
+    public void testFunctionConditional() throws Exception
+    {
+        String functionText = "{ dup 0.5 gt { 1 exch sub 0 } { 0 exch } ifelse 2 copy add 2 div }";
+
+        PDFunctionType4 function = createFunction(functionText,
+                new float[] {0.0f, 1.0f},
+                new float[] {0.0f, 1.0f, 0.0f, 1.0f, 0.0f, 1.0f});
+
+        float[] output = function.eval(new float[] {0.75f});
+        assertEquals(3, output.length);
+        assertEquals(0.25f, output[0], 0.0001f);
+        assertEquals(0f, output[1], 0.0001f);
+        assertEquals(0.125f, output[2], 0.0001f);
+
+        output = function.eval(new float[] {0.25f});
+        assertEquals(0f, output[0], 0.0001f);
+        assertEquals(0.25f, output[1], 0.0001f);
+        assertEquals(0.125f, output[2], 0.0001f);
+
+        // the input is clipped to the domain
+        output = function.eval(new float[] {-1f});
+        assertEquals(0f, output[0], 0.0001f);
+        assertEquals(0f, output[1], 0.0001f);
+
+        try
+        {
+            createFunction("{ pop }", new float[] {0.0f, 1.0f}, new float[] {0.0f, 1.0f})
+                    .eval(new float[] {0.5f});
+            fail("too few output values must be rejected");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
 }
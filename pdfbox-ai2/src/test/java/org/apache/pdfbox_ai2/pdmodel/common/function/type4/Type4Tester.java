@@ -32,7 +32,8 @@ public class Type4Tester
     }
 
     /**
-     * Creates a new instance for the given type 4 function.
+     * Creates a new instance for the given type 4 function. If the function can be compiled,
+     * the compiled program is checked to give the same result as the interpreter.
      * @param text the text of the type 4 function
      * @return the tester instance
      */
@@ -42,6 +43,13 @@ public class Type4Tester
 
         ExecutionContext context = new ExecutionContext(new Operators());
         instructions.execute(context);
+
+        // the compiled program must leave exactly the same values on the stack
+        CompiledSequence compiled = CompiledSequence.compile(instructions);
+        if (compiled != null)
+        {
+            Assert.assertEquals(text, context.getStack(), compiled.execute());
+        }
         return new Type4Tester(context);
     }
 
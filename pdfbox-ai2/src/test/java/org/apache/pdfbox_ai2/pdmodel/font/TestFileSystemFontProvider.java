@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pdfbox_ai2.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the font index of the FileSystemFontProvider.
+ */
+public class TestFileSystemFontProvider
+{
+    private static final File OUT_DIR = new File("target/test-output/fontindex");
+
+    private File font1;
+    private File font2;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        OUT_DIR.mkdirs();
+        font1 = copyFont("font1.ttf");
+        font2 = copyFont("font2.ttf");
+        indexFile = new File(OUT_DIR, "fontindex");
+        indexFile.delete();
+    }
+
+    /**
+     * Fonts are read from the index as long as their files don't change.
+     */
+    @Test
+    public void testIndex() throws IOException
+    {
+        List<File> files = Arrays.asList(font1, font2);
+        FileSystemFontProvider provider = new FileSystemFontProvider(new FontCache(), files,
+                                                                     indexFile);
+        assertTrue(indexFile.isFile());
+        List<? extends FontInfo> infos = provider.getFontInfo();
+        assertEquals(2, infos.size());
+        FontInfo info = infos.get(0);
+        assertEquals("LiberationSans", info.getPostScriptName());
+        assertEquals(FontFormat.TTF, info.getFormat());
+
+        // overwrite a font without changing its size or modification time: it is not parsed
+        long lastModified = font1.lastModified();
+        byte[] garbage = new byte[(int) font1.length()];
+        OutputStream out = new FileOutputStream(font1);
+        out.write(garbage);
+        out.close();
+        assertTrue(font1.setLastModified(lastModified));
+
+        provider = new FileSystemFontProvider(new FontCache(), files, indexFile);
+        infos = provider.getFontInfo();
+        assertEquals(2, infos.size());
+        FontInfo indexed = infos.get(0);
+        assertEquals(info.getPostScriptName(), indexed.getPostScriptName());
+        assertEquals(info.getFormat(), indexed.getFormat());
+        assertEquals(info.getWeightClass(), indexed.getWeightClass());
+        assertEquals(info.getFamilyClass(), indexed.getFamilyClass());
+        assertEquals(info.getCodePageRange1(), indexed.getCodePageRange1());
+        assertEquals(info.getCodePageRange2(), indexed.getCodePageRange2());
+        assertEquals(info.getMacStyle(), indexed.getMacStyle());
+        assertEquals(info.getPanose().toString(), indexed.getPanose().toString());
+
+        // once the modification time changes, only that font is parsed again
+        assertTrue(font1.setLastModified(lastModified - 10000));
+        provider = new FileSystemFontProvider(new FontCache(), files, indexFile);
+        infos = provider.getFontInfo();
+        assertEquals(1, infos.size());
+        assertEquals("LiberationSans", infos.get(0).getPostScriptName());
+    }
+
+    /**
+     * Fonts which were removed are dropped from the index.
+     */
+    @Test
+    public void testRemovedFont() throws IOException
+    {
+        new FileSystemFontProvider(new FontCache(), Arrays.asList(font1, font2), indexFile);
+        long length = indexFile.length();
+
+        FileSystemFontProvider provider = new FileSystemFontProvider(new FontCache(),
+                Arrays.asList(font2), indexFile);
+        assertEquals(1, provider.getFontInfo().size());
+        assertTrue(indexFile.length() < length);
+    }
+
+    private File copyFont(String name) throws IOException
+    {
+        File file = new File(OUT_DIR, name);
+        InputStream in = TestFileSystemFontProvider.class.getClassLoader().getResourceAsStream(
+                "org/apache/pdfbox_ai2/ttf/LiberationSans-Regular.ttf");
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            IOUtils.copy(in, out);
+        }
+        finally
+        {
+            in.close();
+            out.close();
+        }
+        return file;
+    }
+}
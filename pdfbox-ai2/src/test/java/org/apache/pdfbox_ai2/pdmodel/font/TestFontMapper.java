@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import org.apache.fontbox_ai2.FontBoxFont;
+import org.apache.fontbox_ai2.ttf.TTFParser;
+import org.apache.fontbox_ai2.ttf.TrueTypeFont;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the memoised font mappings of the FontMapperImpl.
+ */
+public class TestFontMapper
+{
+    private TrueTypeFont ttf;
+    private CountingFontInfo info;
+    private FontMapperImpl mapper;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        InputStream input = TestFontMapper.class.getClassLoader().getResourceAsStream(
+                "org/apache/pdfbox_ai2/ttf/LiberationSans-Regular.ttf");
+        ttf = new TTFParser().parse(input);
+        info = new CountingFontInfo();
+        mapper = new FontMapperImpl(new FontProvider()
+        {
+            @Override
+            public String toDebugString()
+            {
+                return null;
+            }
+
+            @Override
+            public List<? extends FontInfo> getFontInfo()
+            {
+                return Collections.singletonList(info);
+            }
+        });
+    }
+
+    /**
+     * A font is only searched for once.
+     */
+    @Test
+    public void testMemoisedMapping()
+    {
+        FontMapping<TrueTypeFont> mapping = mapper.getTrueTypeFont("LiberationSans", null);
+        assertSame(ttf, mapping.getFont());
+        assertFalse(mapping.isFallback());
+        assertEquals(1, info.count);
+        assertSame(mapping, mapper.getTrueTypeFont("LiberationSans", null));
+        assertEquals(1, info.count);
+
+        // substitute
+        FontMapping<FontBoxFont> substitute = mapper.getFontBoxFont("Helvetica", null);
+        assertSame(ttf, substitute.getFont());
+        assertFalse(substitute.isFallback());
+        assertEquals(2, info.count);
+        assertSame(substitute, mapper.getFontBoxFont("Helvetica", null));
+        assertEquals(2, info.count);
+    }
+
+    /**
+     * Adding a substitute discards the memoised mappings.
+     */
+    @Test
+    public void testAddSubstitute()
+    {
+        FontMapping<TrueTypeFont> mapping = mapper.getTrueTypeFont("Foo", null);
+        assertTrue(mapping.isFallback());
+        assertSame(mapping, mapper.getTrueTypeFont("Foo", null));
+
+        mapper.addSubstitute("Foo", "LiberationSans");
+        mapping = mapper.getTrueTypeFont("Foo", null);
+        assertSame(ttf, mapping.getFont());
+        assertFalse(mapping.isFallback());
+    }
+
+    @Test
+    public void testFontMappers()
+    {
+        FontMapper global = FontMappers.instance();
+        FontMappers.setForCurrentThread(mapper);
+        try
+        {
+            assertSame(mapper, FontMappers.instance());
+        }
+        finally
+        {
+            FontMappers.setForCurrentThread(null);
+        }
+        assertNotSame(mapper, FontMappers.instance());
+        assertSame(global, FontMappers.instance());
+    }
+
+    private class CountingFontInfo extends FontInfo
+    {
+        private int count;
+
+        @Override
+        public String getPostScriptName()
+        {
+            return "LiberationSans";
+        }
+
+        @Override
+        public FontFormat getFormat()
+        {
+            return FontFormat.TTF;
+        }
+
+        @Override
+        public CIDSystemInfo getCIDSystemInfo()
+        {
+            return null;
+        }
+
+        @Override
+        public FontBoxFont getFont()
+        {
+            count++;
+            return ttf;
+        }
+
+        @Override
+        public int getFamilyClass()
+        {
+            return -1;
+        }
+
+        @Override
+        public int getWeightClass()
+        {
+            return -1;
+        }
+
+        @Override
+        public int getCodePageRange1()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getCodePageRange2()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getMacStyle()
+        {
+            return 0;
+        }
+
+        @Override
+        public PDPanoseClassification getPanose()
+        {
+            return null;
+        }
+    }
+}
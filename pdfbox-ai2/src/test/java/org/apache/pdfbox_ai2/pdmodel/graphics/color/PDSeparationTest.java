@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.color;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+
+/**
+ * Tests the image conversion of Separation and DeviceN color spaces, which use lookup tables
+ * instead of evaluating the tint transform for every pixel.
+ */
+public class PDSeparationTest extends TestCase
+{
+    public void testSeparationImage() throws IOException
+    {
+        COSArray array = new COSArray();
+        array.add(COSName.SEPARATION);
+        array.add(COSName.getPDFName("Spot"));
+        array.add(COSName.DEVICERGB);
+        array.add(createFunction("{ dup 0.5 mul exch dup mul 1 }", 1, 3));
+        PDSeparation separation = new PDSeparation(array);
+
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 16, 16, 1,
+                new Point(0, 0));
+        for (int i = 0; i < 256; i++)
+        {
+            raster.setSample(i % 16, i / 16, 0, i);
+        }
+        BufferedImage image = separation.toRGBImage(raster);
+        assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+        for (int i = 0; i < 256; i++)
+        {
+            float[] rgb = separation.toRGB(new float[] { i / 255f });
+            assertRGB(rgb, image.getRGB(i % 16, i / 16));
+        }
+    }
+
+    public void testDeviceNImage() throws IOException
+    {
+        COSArray colorants = new COSArray();
+        colorants.add(COSName.getPDFName("A"));
+        colorants.add(COSName.getPDFName("B"));
+        COSArray array = new COSArray();
+        array.add(COSName.DEVICEN);
+        array.add(colorants);
+        array.add(COSName.DEVICERGB);
+        array.add(createFunction("{ 2 copy add 2 div }", 2, 3));
+        PDDeviceN deviceN = new PDDeviceN(array);
+
+        // repeated tuples are served from the cache
+        WritableRaster raster = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 64, 64, 2,
+                new Point(0, 0));
+        for (int y = 0; y < 64; y++)
+        {
+            for (int x = 0; x < 64; x++)
+            {
+                raster.setPixel(x, y, new int[] { x * 4 % 256, (x + y) % 8 * 32 });
+            }
+        }
+        BufferedImage image = deviceN.toRGBImage(raster);
+        int[] samples = new int[2];
+        for (int y = 0; y < 64; y++)
+        {
+            for (int x = 0; x < 64; x++)
+            {
+                raster.getPixel(x, y, samples);
+                float[] rgb = deviceN.toRGB(new float[] { samples[0] / 255f, samples[1] / 255f });
+                assertRGB(rgb, image.getRGB(x, y));
+            }
+        }
+    }
+
+    private static void assertRGB(float[] expected, int actual)
+    {
+        assertEquals((int) (expected[0] * 255), actual >> 16 & 0xFF, 1);
+        assertEquals((int) (expected[1] * 255), actual >> 8 & 0xFF, 1);
+        assertEquals((int) (expected[2] * 255), actual & 0xFF, 1);
+    }
+
+    private static COSStream createFunction(String function, int inputs, int outputs)
+            throws IOException
+    {
+        COSStream stream = new COSStream();
+        stream.setInt("FunctionType", 4);
+        float[] domain = new float[inputs * 2];
+        for (int i = 0; i < inputs; i++)
+        {
+            domain[i * 2 + 1] = 1;
+        }
+        COSArray domainArray = new COSArray();
+        domainArray.setFloatArray(domain);
+        stream.setItem("Domain", domainArray);
+        float[] range = new float[outputs * 2];
+        for (int i = 0; i < outputs; i++)
+        {
+            range[i * 2 + 1] = 1;
+        }
+        COSArray rangeArray = new COSArray();
+        rangeArray.setFloatArray(range);
+        stream.setItem("Range", rangeArray);
+
+        OutputStream out = stream.createOutputStream();
+        out.write(function.getBytes("US-ASCII"));
+        out.close();
+        return stream;
+    }
+}
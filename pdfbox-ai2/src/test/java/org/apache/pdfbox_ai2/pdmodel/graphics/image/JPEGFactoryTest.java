@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import javax.imageio.ImageIO;
 import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSInteger;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceGray;
 import org.apache.pdfbox_ai2.pdmodel.graphics.color.PDDeviceRGB;
 
+import static org.apache.pdfbox_ai2.pdmodel.graphics.image.ValidateXImage.checkIdent;
 import static org.apache.pdfbox_ai2.pdmodel.graphics.image.ValidateXImage.colorCount;
 import static org.apache.pdfbox_ai2.pdmodel.graphics.image.ValidateXImage.doWritePDF;
 import static org.apache.pdfbox_ai2.pdmodel.graphics.image.ValidateXImage.validate;
@@ -191,4 +194,48 @@ public class JPEGFactoryTest extends TestCase
 
         doWritePDF(document, ximage, testResultsDir, "jpeg-4bargb.pdf");
     }
+
+    /**
+     * Tests that the samples decoded by the DCT filter are used as they are, and that a decode
+     * array is applied to them.
+     */
+    public void testDecodeToRaster() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        BufferedImage expected = ImageIO.read(JPEGFactoryTest.class.getResourceAsStream("jpeg.jpg"));
+        PDImageXObject ximage = JPEGFactory.createFromStream(document,
+                JPEGFactoryTest.class.getResourceAsStream("jpeg.jpg"));
+        checkIdent(expected, ximage.getImage());
+
+        ximage = JPEGFactory.createFromStream(document,
+                JPEGFactoryTest.class.getResourceAsStream("jpeg.jpg"));
+        COSArray decode = new COSArray();
+        for (int i = 0; i < 3; i++)
+        {
+            decode.add(COSInteger.ONE);
+            decode.add(COSInteger.ZERO);
+        }
+        ximage.setDecode(decode);
+        BufferedImage inverted = ximage.getImage();
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                assertEquals(~expected.getRGB(x, y) & 0xFFFFFF, inverted.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+
+        BufferedImage expectedGray = ImageIO.read(JPEGFactoryTest.class.getResourceAsStream("jpeg256.jpg"));
+        ximage = JPEGFactory.createFromStream(document,
+                JPEGFactoryTest.class.getResourceAsStream("jpeg256.jpg"));
+        BufferedImage gray = ximage.getImage();
+        for (int y = 0; y < expectedGray.getHeight(); y++)
+        {
+            for (int x = 0; x < expectedGray.getWidth(); x++)
+            {
+                assertEquals(expectedGray.getRaster().getSample(x, y, 0), gray.getRGB(x, y) & 0xFF);
+            }
+        }
+        document.close();
+    }
 }
@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.util.Random;
 import javax.imageio.ImageIO;
 import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSName;
 import org.apache.pdfbox_ai2.pdmodel.PDDocument;
 import org.apache.pdfbox_ai2.pdmodel.PDPage;
 import org.apache.pdfbox_ai2.pdmodel.PDPageContentStream;
@@ -208,6 +210,15 @@ public class LosslessFactoryTest extends TestCase
         validate(ximage.getSoftMask(), 8, w, h, "png", PDDeviceGray.INSTANCE.getName());
         assertTrue(colorCount(ximage.getSoftMask().getImage()) > image.getHeight() / 10);
 
+        // the soft mask is predicted along with the image
+        PDImageXObject predictedImage = LosslessFactory.createFromImage(document, argbImage, true);
+        validate(predictedImage, 8, w, h, "png", PDDeviceRGB.INSTANCE.getName());
+        checkIdent(argbImage, predictedImage.getImage());
+        PDImageXObject predictedMask = predictedImage.getSoftMask();
+        validate(predictedMask, 8, w, h, "png", PDDeviceGray.INSTANCE.getName());
+        checkIdent(ximage.getSoftMask().getImage(), predictedMask.getImage());
+        assertNotNull(predictedMask.getCOSStream().getDictionaryObject(COSName.DECODE_PARMS));
+
         doWritePDF(document, ximage, testResultsDir, "4babgr.pdf");
     }
 
@@ -239,6 +250,45 @@ public class LosslessFactoryTest extends TestCase
         doWritePDF(document, ximage, testResultsDir, "gif.pdf");
     }
 
+    /**
+     * Tests that 3BYTE_BGR images are read as they are, that the rows are only predicted when
+     * asked for, and that predictors make smooth images much smaller than the plain deflated
+     * samples.
+     *
+     * @throws java.io.IOException
+     */
+    public void testCreateLosslessFromImage3BYTE_BGR() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        int width = 301;
+        int height = 200;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, new Color(x * 255 / width, y * 255 / height, (x + y) % 256).getRGB());
+            }
+        }
+        PDImageXObject ximage = LosslessFactory.createFromImage(document, image);
+        validate(ximage, 8, width, height, "png", PDDeviceRGB.INSTANCE.getName());
+        checkIdent(image, ximage.getImage());
+        assertNull(ximage.getCOSStream().getDictionaryObject(COSName.DECODE_PARMS));
+
+        PDImageXObject predictedImage = LosslessFactory.createFromImage(document, image, true);
+        validate(predictedImage, 8, width, height, "png", PDDeviceRGB.INSTANCE.getName());
+        checkIdent(image, predictedImage.getImage());
+
+        COSDictionary decodeParms = (COSDictionary) predictedImage.getCOSStream().getDictionaryObject(COSName.DECODE_PARMS);
+        assertEquals(15, decodeParms.getInt(COSName.PREDICTOR));
+        assertEquals(3, decodeParms.getInt(COSName.COLORS));
+        assertEquals(width, decodeParms.getInt(COSName.COLUMNS));
+        assertTrue(predictedImage.getCOSStream().getLength() < width * height * 3 / 10);
+        assertTrue(predictedImage.getCOSStream().getLength() < ximage.getCOSStream().getLength());
+
+        document.close();
+    }
+
     /**
      * Check whether the RGB part of images are identical.
      *
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.image;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+
+/**
+ * Tests the bulk conversion of samples to RGB images.
+ */
+public class SampledImageReaderTest extends TestCase
+{
+    /**
+     * Images large enough to be converted by several threads must have every pixel in place.
+     */
+    public void testLargeImages() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        int width = 2053;
+        int height = 2049;
+        assertTrue(width * height >= ParallelRows.PARALLEL_PIXELS);
+
+        BufferedImage argbImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                argbImage.setRGB(x, y, (x + y) % 256 << 24 | x % 256 << 16 | y % 256 << 8 |
+                                       (x * y) % 256);
+            }
+        }
+        PDImageXObject argb = LosslessFactory.createFromImage(document, argbImage);
+        assertNotNull(argb.getSoftMask());
+        checkPixels(argbImage, argb.getImage());
+
+        BufferedImage grayImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                grayImage.getRaster().setSample(x, y, 0, (x ^ y) % 256);
+            }
+        }
+        PDImageXObject gray = LosslessFactory.createFromImage(document, grayImage);
+        checkPixels(grayImage, gray.getImage());
+
+        document.close();
+    }
+
+    /**
+     * 1-bit images and stencil masks whose rows do not end on a byte boundary.
+     */
+    public void testBitonal() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        int width = 83;
+        int height = 37;
+        BufferedImage bitonalImage = new BufferedImage(width, height,
+                BufferedImage.TYPE_BYTE_BINARY);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                bitonalImage.setRGB(x, y, (x * 7 + y * 3) % 5 < 2 ? 0xFFFFFFFF : 0xFF000000);
+            }
+        }
+        PDImageXObject bitonal = LosslessFactory.createFromImage(document, bitonalImage);
+        assertEquals(1, bitonal.getBitsPerComponent());
+        checkPixels(bitonalImage, bitonal.getImage());
+
+        // the same samples as a stencil, the 1 bits are unpainted
+        bitonal.setStencil(true);
+        BufferedImage stencil = bitonal.getStencilImage(Color.RED);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int expected = bitonalImage.getRGB(x, y) == 0xFFFFFFFF ? 0 : 0xFFFF0000;
+                assertEquals(expected, stencil.getRGB(x, y));
+            }
+        }
+
+        document.close();
+    }
+
+    private static void checkPixels(BufferedImage expected, BufferedImage actual)
+    {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                int rgb = expected.getRGB(x, y);
+                if ((rgb >>> 24) == 0)
+                {
+                    // the color of transparent pixels is unspecified
+                    assertEquals(0, actual.getRGB(x, y) >>> 24);
+                    continue;
+                }
+                assertEquals("pixel " + x + "," + y, rgb, actual.getRGB(x, y));
+            }
+        }
+    }
+}
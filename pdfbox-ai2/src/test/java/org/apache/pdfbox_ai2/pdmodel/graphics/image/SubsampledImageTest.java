@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import junit.framework.TestCase;
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSInteger;
+import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+import org.apache.pdfbox_ai2.pdmodel.PDPage;
+import org.apache.pdfbox_ai2.pdmodel.PDPageContentStream;
+import org.apache.pdfbox_ai2.rendering.PDFRenderer;
+
+/**
+ * Tests decoding parts of images and subsampled images.
+ */
+public class SubsampledImageTest extends TestCase
+{
+    private static final Rectangle REGION = new Rectangle(5, 7, 60, 41);
+
+    /**
+     * Subsampling 8-bit and 1-bit images and images with a soft mask must pick the same pixels
+     * as the full image.
+     */
+    public void testLossless() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        BufferedImage image = ImageIO.read(getClass().getResourceAsStream("png.png"));
+
+        PDImageXObject rgb = LosslessFactory.createFromImage(document, image);
+        checkSubsampled(rgb, null, 1);
+        checkSubsampled(rgb, null, 3);
+        checkSubsampled(rgb, REGION, 1);
+        checkSubsampled(rgb, REGION, 4);
+
+        BufferedImage bitonalImage = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = bitonalImage.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        PDImageXObject bitonal = LosslessFactory.createFromImage(document, bitonalImage);
+        checkSubsampled(bitonal, null, 3);
+        checkSubsampled(bitonal, REGION, 5);
+
+        BufferedImage argbImage = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        g = argbImage.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.setColor(new Color(0, 0, 255, 100));
+        g.fillRect(10, 10, 50, 50);
+        g.dispose();
+        PDImageXObject argb = LosslessFactory.createFromImage(document, argbImage);
+        assertNotNull(argb.getSoftMask());
+        checkSubsampled(argb, REGION, 2);
+
+        document.close();
+    }
+
+    /**
+     * Images with a decode array take the general path.
+     */
+    public void testDecodeArray() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        BufferedImage image = ImageIO.read(getClass().getResourceAsStream("png.png"));
+        BufferedImage grayImage = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = grayImage.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        PDImageXObject gray = LosslessFactory.createFromImage(document, grayImage);
+        COSArray decode = new COSArray();
+        decode.add(COSInteger.ONE);
+        decode.add(COSInteger.ZERO);
+        gray.setDecode(decode);
+        checkSubsampled(gray, null, 2);
+        checkSubsampled(gray, REGION, 3);
+
+        document.close();
+    }
+
+    /**
+     * The JPEG decoder subsamples itself.
+     */
+    public void testJPEG() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDImageXObject jpeg = JPEGFactory.createFromStream(document,
+                getClass().getResourceAsStream("jpeg.jpg"));
+        checkSubsampled(jpeg, null, 2);
+        checkSubsampled(jpeg, REGION, 3);
+        document.close();
+    }
+
+    /**
+     * Rendering a page with subsampling allowed must look like rendering it without. A smooth
+     * image is used, so that only misplaced pixels make a difference, not aliasing.
+     */
+    public void testRenderSubsampled() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                image.setRGB(x, y, (x * 255 / 800) << 16 | (y * 255 / 600) << 8 | 128);
+            }
+        }
+        PDImageXObject ximage = LosslessFactory.createFromImage(document, image);
+        PDPage page = new PDPage();
+        document.addPage(page);
+        PDPageContentStream contentStream = new PDPageContentStream(document, page);
+        contentStream.drawImage(ximage, 100, 100, 400, 300);
+        // partly outside of the page
+        contentStream.drawImage(ximage, 500, 600, 400, 300);
+        contentStream.close();
+
+        PDFRenderer renderer = new PDFRenderer(document);
+        BufferedImage expected = renderer.renderImage(0, 0.1f);
+        renderer.setSubsamplingAllowed(true);
+        BufferedImage actual = renderer.renderImage(0, 0.1f);
+        document.close();
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        long totalDiff = 0;
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                int rgb1 = expected.getRGB(x, y);
+                int rgb2 = actual.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8)
+                {
+                    totalDiff += Math.abs((rgb1 >> shift & 0xFF) - (rgb2 >> shift & 0xFF));
+                }
+            }
+        }
+        double meanDiff = totalDiff / (3.0 * expected.getWidth() * expected.getHeight());
+        assertTrue("mean difference " + meanDiff, meanDiff < 1);
+    }
+
+    // checks that the subsampled region has the same pixels as the whole image
+    private void checkSubsampled(PDImageXObject ximage, Rectangle region, int subsampling)
+            throws IOException
+    {
+        BufferedImage full = ximage.getImage();
+        Rectangle r = region == null ? new Rectangle(0, 0, full.getWidth(), full.getHeight())
+                                     : region;
+        BufferedImage part = ximage.getImage(region, subsampling);
+        assertEquals((r.width + subsampling - 1) / subsampling, part.getWidth());
+        assertEquals((r.height + subsampling - 1) / subsampling, part.getHeight());
+        for (int y = 0; y < part.getHeight(); y++)
+        {
+            for (int x = 0; x < part.getWidth(); x++)
+            {
+                int expected = full.getRGB(r.x + x * subsampling, r.y + y * subsampling);
+                assertEquals("(" + x + "," + y + ")", expected, part.getRGB(x, y));
+            }
+        }
+    }
+}
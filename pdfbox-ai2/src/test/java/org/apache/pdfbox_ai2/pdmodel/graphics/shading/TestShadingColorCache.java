@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.shading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.util.Matrix;
+import org.junit.Test;
+
+/**
+ * Test for the color lookup tables shared by the contexts of a shading.
+ */
+public class TestShadingColorCache
+{
+    @Test
+    public void axialTableIsShared() throws IOException
+    {
+        COSDictionary function = new COSDictionary();
+        function.setInt(COSName.FUNCTION_TYPE, 2);
+        function.setItem(COSName.DOMAIN, createArray(0, 1));
+        function.setItem(COSName.C0, createArray(1, 0, 0));
+        function.setItem(COSName.C1, createArray(0, 0, 1));
+        function.setInt(COSName.N, 1);
+
+        COSDictionary dict = new COSDictionary();
+        dict.setInt(COSName.SHADING_TYPE, 2);
+        dict.setItem(COSName.COLORSPACE, COSName.DEVICERGB);
+        dict.setItem(COSName.COORDS, createArray(0, 0, 100, 0));
+        dict.setItem(COSName.FUNCTION, function);
+        PDShadingType2 shading = new PDShadingType2(dict);
+
+        Rectangle deviceBounds = new Rectangle(0, 0, 100, 100);
+        AxialShadingContext context = new AxialShadingContext(shading, null,
+                new AffineTransform(), new Matrix(), deviceBounds);
+        int factor = (int) Math.ceil(Math.sqrt(2) * 100);
+        int[] table = shading.getColorCache().get(factor, new float[] { 0, 1 });
+        assertNotNull(table);
+        assertEquals(factor + 1, table.length);
+
+        // the first pixel is red, the last one almost blue
+        Raster raster = context.getRaster(0, 0, 100, 1);
+        assertEquals(255, raster.getSample(0, 0, 0));
+        assertEquals(0, raster.getSample(0, 0, 2));
+        assertEquals(250, raster.getSample(99, 0, 2), 5);
+
+        // another context with the same resolution doesn't sample the function again
+        new AxialShadingContext(shading, null, new AffineTransform(), new Matrix(),
+                deviceBounds);
+        assertSame(table, shading.getColorCache().get(factor, new float[] { 0, 1 }));
+
+        // tables are sampled for a domain
+        assertNull(shading.getColorCache().get(factor, new float[] { 0, 2 }));
+    }
+
+    @Test
+    public void functionBasedGrid() throws IOException
+    {
+        // red and green follow x and y, blue is their mean
+        COSStream function = new COSStream();
+        function.setInt(COSName.FUNCTION_TYPE, 4);
+        function.setItem(COSName.DOMAIN, createArray(0, 1, 0, 1));
+        function.setItem(COSName.RANGE, createArray(0, 1, 0, 1, 0, 1));
+        OutputStream out = function.createOutputStream();
+        out.write("{ 2 copy add 2 div }".getBytes("US-ASCII"));
+        out.close();
+
+        COSDictionary dict = new COSDictionary();
+        dict.setInt(COSName.SHADING_TYPE, 1);
+        dict.setItem(COSName.COLORSPACE, COSName.DEVICERGB);
+        dict.setItem(COSName.FUNCTION, function);
+        PDShadingType1 shading = new PDShadingType1(dict);
+
+        // the domain covers 200 x 200 device pixels
+        AffineTransform xform = AffineTransform.getScaleInstance(200, 200);
+        Type1ShadingContext context = new Type1ShadingContext(shading, null, xform, new Matrix());
+        Raster raster = context.getRaster(0, 0, 201, 201);
+        for (int y = 0; y <= 200; y += 25)
+        {
+            for (int x = 0; x <= 200; x += 25)
+            {
+                assertEquals(x * 255 / 200, raster.getSample(x, y, 0), 1);
+                assertEquals(y * 255 / 200, raster.getSample(x, y, 1), 1);
+                assertEquals((x + y) * 255 / 400, raster.getSample(x, y, 2), 1);
+                assertEquals(255, raster.getSample(x, y, 3));
+            }
+        }
+
+        // outside of the domain there is no background
+        raster = context.getRaster(300, 300, 10, 10);
+        assertEquals(0, raster.getSample(0, 0, 3));
+    }
+
+    private static COSArray createArray(float... values)
+    {
+        COSArray array = new COSArray();
+        array.setFloatArray(values);
+        return array;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.pdmodel.graphics.shading;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.cos.COSStream;
+import org.apache.pdfbox_ai2.util.Matrix;
+import org.junit.Test;
+
+/**
+ * Test for the rasterization of triangle based shadings.
+ */
+public class TestTriangleBasedShading
+{
+    @Test
+    public void rasterizeTiles() throws IOException
+    {
+        // a single Gouraud triangle from red to green to blue
+        COSStream stream = new COSStream();
+        stream.setInt(COSName.SHADING_TYPE, 4);
+        stream.setItem(COSName.COLORSPACE, COSName.DEVICERGB);
+        stream.setInt(COSName.BITS_PER_COORDINATE, 8);
+        stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+        stream.setInt(COSName.BITS_PER_FLAG, 8);
+        COSArray decode = new COSArray();
+        decode.setFloatArray(new float[] { 0, 255, 0, 255, 0, 1, 0, 1, 0, 1 });
+        stream.setItem(COSName.DECODE, decode);
+        OutputStream out = stream.createOutputStream();
+        out.write(new byte[] {
+                0, 0, 0, (byte) 255, 0, 0,
+                0, 100, 0, 0, (byte) 255, 0,
+                0, 0, 100, 0, 0, (byte) 255 });
+        out.close();
+
+        Rectangle deviceBounds = new Rectangle(0, 0, 128, 128);
+        Type4ShadingContext context = new Type4ShadingContext(new PDShadingType4(stream), null,
+                new AffineTransform(), new Matrix(), deviceBounds);
+        Raster whole = context.getRaster(0, 0, 128, 128);
+
+        int[] pixel = whole.getPixel(0, 0, (int[]) null);
+        assertArrayEquals(new int[] { 255, 0, 0, 255 }, pixel);
+        pixel = whole.getPixel(50, 50, (int[]) null);
+        assertEquals(255, pixel[3]);
+        assertEquals(127, pixel[1], 2);
+        assertEquals(127, pixel[2], 2);
+        pixel = whole.getPixel(51, 51, (int[]) null);
+        assertEquals(0, pixel[3]);
+
+        // tiles give the same pixels as the whole area
+        for (int y = 0; y < 128; y += 32)
+        {
+            for (int x = 0; x < 128; x += 32)
+            {
+                Raster tile = context.getRaster(x, y, 32, 32);
+                assertArrayEquals(whole.getPixels(x, y, 32, 32, (int[]) null),
+                        tile.getPixels(0, 0, 32, 32, (int[]) null));
+            }
+        }
+        context.dispose();
+    }
+}
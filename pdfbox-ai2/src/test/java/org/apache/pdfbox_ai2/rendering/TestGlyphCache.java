@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.geom.GeneralPath;
+import java.io.IOException;
+
+import org.apache.pdfbox_ai2.pdmodel.font.PDType1Font;
+import org.junit.Test;
+
+/**
+ * Test for the glyph outline cache of PDFRenderer.
+ */
+public class TestGlyphCache
+{
+    @Test
+    public void sharedOutlines() throws IOException
+    {
+        GlyphCache cache = new GlyphCache();
+        Glyph2D glyph2D = cache.getGlyph2D(PDType1Font.HELVETICA);
+        assertSame(glyph2D, cache.getGlyph2D(PDType1Font.HELVETICA));
+
+        GeneralPath path = glyph2D.getPathForCharacterCode('A');
+        assertNotNull(path);
+        assertSame(path, glyph2D.getPathForCharacterCode('A'));
+        assertEquals(1, cache.getGlyphCount());
+
+        cache.clear();
+        assertEquals(0, cache.getGlyphCount());
+        assertNotSame(glyph2D, cache.getGlyph2D(PDType1Font.HELVETICA));
+    }
+
+    @Test
+    public void bounded() throws IOException
+    {
+        GlyphCache cache = new GlyphCache(10, 2);
+        Glyph2D helvetica = cache.getGlyph2D(PDType1Font.HELVETICA);
+        for (int code = 'A'; code <= 'Z'; code++)
+        {
+            assertNotNull(helvetica.getPathForCharacterCode(code));
+        }
+        assertEquals(10, cache.getGlyphCount());
+
+        // a full cache discards the least recently used font
+        Glyph2D times = cache.getGlyph2D(PDType1Font.TIMES_ROMAN);
+        assertEquals(0, cache.getGlyphCount());
+        times.getPathForCharacterCode('A');
+        assertEquals(1, cache.getGlyphCount());
+
+        // as does exceeding the number of fonts
+        cache.getGlyph2D(PDType1Font.COURIER);
+        cache.getGlyph2D(PDType1Font.SYMBOL);
+        assertEquals(0, cache.getGlyphCount());
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox_ai2.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox_ai2.cos.COSArray;
+import org.apache.pdfbox_ai2.cos.COSDictionary;
+import org.apache.pdfbox_ai2.cos.COSInteger;
+import org.apache.pdfbox_ai2.cos.COSName;
+import org.apache.pdfbox_ai2.pdmodel.PDDocument;
+import org.apache.pdfbox_ai2.pdmodel.PDPage;
+import org.apache.pdfbox_ai2.pdmodel.PDResources;
+import org.apache.pdfbox_ai2.pdmodel.common.PDRectangle;
+import org.apache.pdfbox_ai2.pdmodel.common.PDStream;
+import org.apache.pdfbox_ai2.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox_ai2.pdmodel.font.PDTrueTypeFont;
+import org.apache.pdfbox_ai2.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox_ai2.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox_ai2.util.Charsets;
+import org.junit.Test;
+
+/**
+ * Test for the parallel and tiled rendering in PDFRenderer.
+ */
+public class TestPDFRenderer
+{
+    @Test
+    public void renderImagesInParallel() throws IOException
+    {
+        PDDocument document = PDDocument.load(new File("src/test/resources/input/cweb.pdf"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final PDFRenderer renderer = new PDFRenderer(document);
+            int pageCount = document.getNumberOfPages();
+
+            final List<Integer> indexes = new ArrayList<Integer>();
+            final List<BufferedImage> images = new ArrayList<BufferedImage>();
+            renderer.renderImagesWithDPI(0, pageCount, 36, ImageType.RGB, executor,
+                    new PageImageHandler()
+                    {
+                        @Override
+                        public void handlePageImage(int pageIndex, BufferedImage image)
+                        {
+                            indexes.add(pageIndex);
+                            images.add(image);
+                        }
+                    });
+
+            assertEquals(pageCount, images.size());
+            for (int i = 0; i < pageCount; i++)
+            {
+                assertEquals(i, indexes.get(i).intValue());
+
+                // the parallel result must match the sequential one, pixel by pixel
+                BufferedImage expected = renderer.renderImageWithDPI(i, 36, ImageType.RGB);
+                BufferedImage actual = images.get(i);
+                assertEquals(expected.getWidth(), actual.getWidth());
+                assertEquals(expected.getHeight(), actual.getHeight());
+                assertArrayEquals("page " + i, getPixels(expected), getPixels(actual));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    @Test
+    public void renderTrueTypeFontInParallel() throws IOException
+    {
+        // a non-embedded TrueType font, whose cmap subtables and widths are looked up lazily
+        COSDictionary fontDict = new COSDictionary();
+        fontDict.setItem(COSName.TYPE, COSName.FONT);
+        fontDict.setItem(COSName.SUBTYPE, COSName.TRUE_TYPE);
+        fontDict.setName(COSName.BASE_FONT, "Arial");
+        fontDict.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+        fontDict.setInt(COSName.FIRST_CHAR, 32);
+        fontDict.setInt(COSName.LAST_CHAR, 126);
+        COSArray widths = new COSArray();
+        for (int code = 32; code <= 126; code++)
+        {
+            widths.add(COSInteger.get(600));
+        }
+        fontDict.setItem(COSName.WIDTHS, widths);
+        PDFontDescriptor descriptor = new PDFontDescriptor(new COSDictionary());
+        descriptor.setFontName("Arial");
+        descriptor.setNonSymbolic(true);
+        fontDict.setItem(COSName.FONT_DESC, descriptor);
+
+        // the font is an indirect object once saved, so all pages share one PDFont
+        PDDocument document = new PDDocument();
+        PDResources resources = new PDResources();
+        COSName fontName = resources.add(new PDTrueTypeFont(fontDict));
+        for (int i = 0; i < 8; i++)
+        {
+            PDPage page = new PDPage(new PDRectangle(300, 100));
+            page.setResources(resources);
+            page.setContents(createStream(document, "BT /" + fontName.getName() +
+                    " 24 Tf 10 40 Td (Page " + i + ": The quick brown fox) Tj ET"));
+            document.addPage(page);
+        }
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        document.save(pdf);
+        document.close();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            // a new document each time, so that the font is initialized while rendering
+            for (int run = 0; run < 5; run++)
+            {
+                document = PDDocument.load(pdf.toByteArray());
+                try
+                {
+                    PDFRenderer renderer = new PDFRenderer(document);
+                    final List<BufferedImage> images = new ArrayList<BufferedImage>();
+                    renderer.renderImagesWithDPI(0, document.getNumberOfPages(), 72,
+                            ImageType.RGB, executor, new PageImageHandler()
+                            {
+                                @Override
+                                public void handlePageImage(int pageIndex, BufferedImage image)
+                                {
+                                    images.add(image);
+                                }
+                            });
+
+                    for (int i = 0; i < images.size(); i++)
+                    {
+                        BufferedImage expected = renderer.renderImageWithDPI(i, 72,
+                                                                             ImageType.RGB);
+                        int[] expectedPixels = getPixels(expected);
+                        boolean drawn = false;
+                        for (int pixel : expectedPixels)
+                        {
+                            drawn |= (pixel & 0xFFFFFF) != 0xFFFFFF;
+                        }
+                        assertTrue("page " + i + " must show text", drawn);
+                        assertArrayEquals("run " + run + " page " + i, expectedPixels,
+                                          getPixels(images.get(i)));
+                    }
+                }
+                finally
+                {
+                    document.close();
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void renderImagesAfterFailure() throws Exception
+    {
+        PDDocument document = PDDocument.load(new File("src/test/resources/input/cweb.pdf"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            AtomicInteger started = new AtomicInteger();
+            AtomicInteger drawing = new AtomicInteger();
+            PDFRenderer renderer = createSlowRenderer(document, started, drawing);
+            try
+            {
+                renderer.renderImagesWithDPI(0, document.getNumberOfPages(), 36, ImageType.RGB,
+                        executor, new PageImageHandler()
+                        {
+                            @Override
+                            public void handlePageImage(int pageIndex, BufferedImage image)
+                                    throws IOException
+                            {
+                                throw new IOException("handler failed");
+                            }
+                        });
+                fail("the failure of the handler must be thrown");
+            }
+            catch (IOException e)
+            {
+                assertEquals("handler failed", e.getMessage());
+            }
+            checkNoneDrawing(executor, started, drawing);
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    @Test
+    public void renderImageTilesAfterFailure() throws Exception
+    {
+        PDDocument document = PDDocument.load(new File("src/test/resources/input/cweb.pdf"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            AtomicInteger started = new AtomicInteger();
+            AtomicInteger drawing = new AtomicInteger();
+            PDFRenderer renderer = createSlowRenderer(document, started, drawing);
+            try
+            {
+                renderer.renderImageTilesWithDPI(0, 100, ImageType.RGB, 50, 50, executor,
+                        new PageTileHandler()
+                        {
+                            @Override
+                            public void startPage(int pageIndex, int width, int height)
+                            {
+                            }
+
+                            @Override
+                            public void handleTile(int pageIndex, int x, int y,
+                                                   BufferedImage tile) throws IOException
+                            {
+                                throw new IOException("handler failed");
+                            }
+
+                            @Override
+                            public void endPage(int pageIndex)
+                            {
+                                fail("the page must not end");
+                            }
+                        });
+                fail("the failure of the handler must be thrown");
+            }
+            catch (IOException e)
+            {
+                assertEquals("handler failed", e.getMessage());
+            }
+            checkNoneDrawing(executor, started, drawing);
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    // the pages or tiles which were being drawn when the call failed must be finished, and
+    // the others must never start
+    private static void checkNoneDrawing(ExecutorService executor, AtomicInteger started,
+                                         AtomicInteger drawing) throws InterruptedException
+    {
+        assertEquals(0, drawing.get());
+        int startedBefore = started.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(startedBefore, started.get());
+    }
+
+    // a renderer whose drawers take a while, and which counts the drawers
+    private static PDFRenderer createSlowRenderer(PDDocument document,
+                                                  final AtomicInteger started,
+                                                  final AtomicInteger drawing)
+    {
+        return new PDFRenderer(document)
+        {
+            @Override
+            protected PageDrawer createPageDrawer(PageDrawerParameters parameters)
+                    throws IOException
+            {
+                return new PageDrawer(parameters)
+                {
+                    @Override
+                    public void drawPage(Graphics g, PDRectangle pageSize) throws IOException
+                    {
+                        started.incrementAndGet();
+                        drawing.incrementAndGet();
+                        try
+                        {
+                            Thread.sleep(50);
+                            super.drawPage(g, pageSize);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            throw new InterruptedIOException();
+                        }
+                        finally
+                        {
+                            drawing.decrementAndGet();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void renderImageTiles() throws IOException
+    {
+        checkTiles("cweb.pdf", 0, 97, 61);
+        checkTiles("cweb.pdf", 1, Integer.MAX_VALUE, 50);
+        checkTiles("rotation.pdf", 1, 128, 128);
+    }
+
+    @Test
+    public void renderTransparencyGroupTiles() throws IOException
+    {
+        // a page-sized transparency group, and another one with a page-sized soft mask
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage(new PDRectangle(200, 200));
+        document.addPage(page);
+        PDFormXObject group = createGroup(document, "1 0 0 rg 0 0 200 200 re f " +
+                                                    "0 0 1 rg 20 20 160 80 re f");
+        PDFormXObject maskedGroup = createGroup(document, "0 1 0 rg 0 0 200 200 re f");
+        PDFormXObject mask = createGroup(document, "1 g 0 0 200 100 re f " +
+                                                   "0.5 g 0 100 200 100 re f");
+        COSDictionary softMask = new COSDictionary();
+        softMask.setItem(COSName.S, COSName.LUMINOSITY);
+        softMask.setItem(COSName.G, mask);
+        PDExtendedGraphicsState extGState = new PDExtendedGraphicsState();
+        extGState.getCOSObject().setItem(COSName.SMASK, softMask);
+
+        PDResources resources = new PDResources();
+        String contents = "q /" + resources.add(group).getName() + " Do Q " +
+                          "q /" + resources.add(extGState).getName() + " gs " +
+                          "/" + resources.add(maskedGroup).getName() + " Do Q";
+        page.setResources(resources);
+        page.setContents(createStream(document, contents));
+
+        // the images of the groups and masks must not be larger than the tiles
+        final List<Dimension> sizes = new ArrayList<Dimension>();
+        PDFRenderer renderer = new PDFRenderer(document)
+        {
+            @Override
+            protected PageDrawer createPageDrawer(final PageDrawerParameters parameters)
+                    throws IOException
+            {
+                return new PageDrawer(parameters)
+                {
+                    @Override
+                    BufferedImage createGroupImage(int width, int height)
+                    {
+                        if (parameters.getTile() != null)
+                        {
+                            synchronized (sizes)
+                            {
+                                sizes.add(new Dimension(width, height));
+                            }
+                        }
+                        return super.createGroupImage(width, height);
+                    }
+                };
+            }
+        };
+        checkTiles(document, renderer, "groups", 0, 50, 40);
+
+        assertTrue(sizes.size() > 0);
+        for (Dimension size : sizes)
+        {
+            // a pixel more on each side for the rounding
+            assertTrue(size.toString(), size.width <= 50 + 3);
+            assertTrue(size.toString(), size.height <= 40 + 3);
+        }
+    }
+
+    private static PDFormXObject createGroup(PDDocument document, String contents)
+            throws IOException
+    {
+        PDFormXObject form = new PDFormXObject(createStream(document, contents));
+        form.setBBox(new PDRectangle(200, 200));
+        COSDictionary group = new COSDictionary();
+        group.setItem(COSName.S, COSName.TRANSPARENCY);
+        form.getCOSStream().setItem(COSName.GROUP, group);
+        return form;
+    }
+
+    private static PDStream createStream(PDDocument document, String contents) throws IOException
+    {
+        return new PDStream(document,
+                new ByteArrayInputStream(contents.getBytes(Charsets.US_ASCII)));
+    }
+
+    private static void checkTiles(String fileName, int pageIndex, int tileWidth, int tileHeight)
+            throws IOException
+    {
+        PDDocument document = PDDocument.load(new File("src/test/resources/input/" + fileName));
+        checkTiles(document, new PDFRenderer(document), fileName, pageIndex, tileWidth,
+                   tileHeight);
+    }
+
+    // renders a page in tiles, which put together must match the page rendered as a whole
+    private static void checkTiles(PDDocument document, PDFRenderer renderer, String fileName,
+                                   int pageIndex, int tileWidth, int tileHeight)
+            throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final BufferedImage[] page = new BufferedImage[1];
+            final List<Integer> ends = new ArrayList<Integer>();
+            renderer.renderImageTilesWithDPI(pageIndex, 100, ImageType.RGB, tileWidth, tileHeight,
+                    executor, new PageTileHandler()
+                    {
+                        private int nextX;
+                        private int nextY;
+
+                        @Override
+                        public void startPage(int pageIndex, int width, int height)
+                        {
+                            page[0] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                        }
+
+                        @Override
+                        public void handleTile(int pageIndex, int x, int y, BufferedImage tile)
+                        {
+                            // row by row, left to right
+                            assertEquals(nextX, x);
+                            assertEquals(nextY, y);
+                            nextX = x + tile.getWidth();
+                            if (nextX == page[0].getWidth())
+                            {
+                                nextX = 0;
+                                nextY = y + tile.getHeight();
+                            }
+                            page[0].getGraphics().drawImage(tile, x, y, null);
+                        }
+
+                        @Override
+                        public void endPage(int pageIndex)
+                        {
+                            assertEquals(page[0].getHeight(), nextY);
+                            ends.add(pageIndex);
+                        }
+                    });
+            assertEquals(1, ends.size());
+
+            BufferedImage expected = renderer.renderImageWithDPI(pageIndex, 100, ImageType.RGB);
+            assertEquals(expected.getWidth(), page[0].getWidth());
+            assertEquals(expected.getHeight(), page[0].getHeight());
+            // antialiased edges may differ a little where they are shifted by the tile offset
+            int[] expectedPixels = getPixels(expected);
+            int[] actualPixels = getPixels(page[0]);
+            int differing = 0;
+            for (int i = 0; i < expectedPixels.length; i++)
+            {
+                for (int shift = 0; shift < 24; shift += 8)
+                {
+                    int difference = Math.abs((expectedPixels[i] >> shift & 0xFF) -
+                                              (actualPixels[i] >> shift & 0xFF));
+                    assertTrue(fileName + " pixel " + i, difference <= 64);
+                }
+                if (expectedPixels[i] != actualPixels[i])
+                {
+                    differing++;
+                }
+            }
+            assertTrue(fileName + " differing pixels " + differing,
+                       differing < expectedPixels.length / 1000);
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    private static int[] getPixels(BufferedImage image)
+    {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}